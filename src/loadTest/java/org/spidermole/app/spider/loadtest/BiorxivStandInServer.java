@@ -0,0 +1,515 @@
+/*
+ * BiorxivStandInServer.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * BiorxivStandInServer is a local, embeddable stand-in for the "Content Detail" endpoint of {@code api.biorxiv.org}
+ * (see {@link org.spidermole.app.spider.BiorxivApiCorrespondent}), for exercising the crawl without touching the real
+ * API. It answers both date interval ({@code /details/[server]/[from]/[to]/[cursor]}) and "most recent"
+ * ({@code /details/[server]/[count]/[cursor]}) requests, in pages of {@value #PAGE_SIZE} documents, for any server
+ * name.
+ * <p>
+ * The corpus is generated rather than stored, so it may be of any size: its documents are spread evenly over the given
+ * dates, and every document is derived from the seed and its position alone. The same seed and size always serve the
+ * same corpus, page for page.
+ * <p>
+ * Each request may be made to take a while (see {@link #setLatencyMillis(long)}), and a share of requests may be
+ * answered with a {@code 503 Service Unavailable} (see {@link #setErrorRate(double)}) or a
+ * {@code 429 Too Many Requests} (see {@link #setThrottleRate(double)}) instead. These may be changed while the server
+ * runs. The server counts what it has served, for reporting.
+ */
+public class BiorxivStandInServer implements Closeable
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( BiorxivStandInServer.class );
+
+	/**
+	 * The number of documents in a full page, as the real API serves them.
+	 */
+	public static final int PAGE_SIZE = 100;
+
+	/**
+	 * Matches the path of a request: the server name, then either the interval's dates or the number of most recent
+	 * documents, then the cursor, and optionally the format.
+	 */
+	private static final Pattern DETAILS_PATH_PATTERN = Pattern.compile( "^/details/([^/]+)/"
+			+ "(?:(?:(\\d{4}-\\d{2}-\\d{2})/(\\d{4}-\\d{2}-\\d{2}))|(\\d+))/(\\d+)(?:/json)?$" );
+
+	// @formatter:off
+	private static final String[ ] CATEGORIES = {
+			"Animal Behavior and Cognition", "Biochemistry", "Bioengineering", "Bioinformatics", "Biophysics",
+			"Cancer Biology", "Cell Biology", "Developmental Biology", "Ecology", "Evolutionary Biology", "Genetics",
+			"Genomics", "Immunology", "Microbiology", "Molecular Biology", "Neuroscience", "Plant Biology",
+			"Systems Biology", "Zoology",
+	};
+
+	private static final String[ ] SURNAMES = {
+			"Adeyemi", "Bauer", "Chen", "Dubois", "Eriksson", "Fernandes", "Garcia", "Haddad", "Ivanova", "Jensen",
+			"Kim", "Lopez", "Muller", "Nakamura", "Okafor", "Patel", "Quinn", "Rossi", "Schmidt", "Tanaka", "Usman",
+			"Vargas", "Wang", "Xu", "Yilmaz", "Zhang",
+	};
+
+	private static final String[ ] INSTITUTIONS = {
+			"University of Cambridge", "Harvard Medical School", "Max Planck Institute", "Stanford University",
+			"Institut Pasteur", "University of Tokyo", "Karolinska Institutet", "University of Toronto",
+			"ETH Zurich", "University of Cape Town", "Peking University", "University of Melbourne",
+	};
+
+	private static final String[ ] WORDS = {
+			"protein", "cell", "gene", "expression", "regulation", "pathway", "network", "signaling", "model",
+			"dynamics", "response", "single-cell", "genome", "variant", "receptor", "mechanism", "neural", "circuit",
+			"metabolic", "evolution", "population", "structure", "binding", "membrane", "tissue", "development",
+			"stress", "immune", "bacterial", "host", "analysis", "reveals", "controls", "drives", "during", "across",
+			"in", "of", "the", "and", "a", "for", "with", "by",
+	};
+	// @formatter:on
+
+	// Data members.
+	private final long fieldSeed;
+	private final int fieldCorpusSize;
+	private final LocalDate fieldStart;
+	private final long fieldDays;
+	private final Random fieldFaults;
+	private final LongAdder fieldRequestCount = new LongAdder( );
+	private final LongAdder fieldPageCount = new LongAdder( );
+	private final LongAdder fieldItemCount = new LongAdder( );
+	private final LongAdder fieldThrottledCount = new LongAdder( );
+	private final LongAdder fieldFailedCount = new LongAdder( );
+	private volatile long fieldLatencyMillis;
+	private volatile long fieldLatencyJitterMillis;
+	private volatile double fieldErrorRate;
+	private volatile double fieldThrottleRate;
+	private volatile int fieldRetryAfterSeconds = 1;
+	private volatile int fieldAbstractWords = 150;
+	private int fieldThreadCount = 16;
+	private HttpServer fieldServer;
+	private ExecutorService fieldExecutor;
+
+	/**
+	 * @param seed the seed the corpus (and the faults served) are derived from.
+	 * @param corpusSize the number of documents in the corpus.
+	 * @param start the publication date of the earliest documents.
+	 * @param end the publication date of the latest documents.
+	 */
+	public BiorxivStandInServer( long seed, int corpusSize, LocalDate start, LocalDate end )
+	{
+		if ( corpusSize < 0 )
+			throw new IllegalArgumentException( "The corpus size may not be negative." );
+		if ( end.isBefore( start ) )
+			throw new IllegalArgumentException( "The corpus must end on or after its start." );
+
+		fieldSeed = seed;
+		fieldCorpusSize = corpusSize;
+		fieldStart = start;
+		fieldDays = ChronoUnit.DAYS.between( start, end ) + 1;
+		fieldFaults = new Random( seed );
+
+	} // BiorxivStandInServer
+
+
+	private static String pick( SplittableRandom random, String[ ] values )
+	{
+		return values[ random.nextInt( values.length ) ];
+
+	} // pick
+
+
+	private static String words( SplittableRandom random, int count )
+	{
+		StringBuilder builder = new StringBuilder( );
+		for ( int index = 0; index < count; index++ )
+			{
+			if ( index > 0 )
+				builder.append( ' ' );
+			builder.append( pick( random, WORDS ) );
+			}
+
+		return builder.toString( );
+
+	} // words
+
+
+	@Override
+	public void close( )
+	{
+		if ( fieldServer != null )
+			{
+			fieldServer.stop( 0 );
+			fieldExecutor.shutdownNow( );
+			fieldServer = null;
+			}
+
+	} // close
+
+
+	/**
+	 * @return the location of the API the server stands in for, e.g. {@code http://127.0.0.1:54321}.
+	 */
+	public URI getBaseUri( )
+	{
+		if ( fieldServer == null )
+			throw new IllegalStateException( "The server hasn't been started." );
+
+		InetSocketAddress address = fieldServer.getAddress( );
+
+		return URI.create( "http://" + address.getAddress( ).getHostAddress( ) + ":" + address.getPort( ) );
+
+	} // getBaseUri
+
+
+	/**
+	 * @return the number of requests answered with a {@code 503}, as configured by {@link #setErrorRate(double)}.
+	 */
+	public long getFailedCount( )
+	{
+		return fieldFailedCount.sum( );
+
+	} // getFailedCount
+
+
+	/**
+	 * @return the number of documents served, over all pages.
+	 */
+	public long getItemCount( )
+	{
+		return fieldItemCount.sum( );
+
+	} // getItemCount
+
+
+	/**
+	 * @return the number of pages served successfully.
+	 */
+	public long getPageCount( )
+	{
+		return fieldPageCount.sum( );
+
+	} // getPageCount
+
+
+	/**
+	 * @return the number of requests received.
+	 */
+	public long getRequestCount( )
+	{
+		return fieldRequestCount.sum( );
+
+	} // getRequestCount
+
+
+	/**
+	 * @return the number of requests answered with a {@code 429}, as configured by {@link #setThrottleRate(double)}.
+	 */
+	public long getThrottledCount( )
+	{
+		return fieldThrottledCount.sum( );
+
+	} // getThrottledCount
+
+
+	/**
+	 * @return the index of the first document published on or after the given day of the corpus.
+	 */
+	private long firstIndexOnDay( long day )
+	{
+		return ( day * fieldCorpusSize + fieldDays - 1 ) / fieldDays;
+
+	} // firstIndexOnDay
+
+
+	private void onRequest( HttpExchange exchange ) throws IOException
+	{
+		fieldRequestCount.increment( );
+		try
+			{
+			long latency = fieldLatencyMillis;
+			long jitter = fieldLatencyJitterMillis;
+			if ( jitter > 0 )
+				{
+				synchronized ( fieldFaults )
+					{
+					latency += ( long )( fieldFaults.nextDouble( ) * jitter );
+					}
+				}
+			if ( latency > 0 )
+				Thread.sleep( latency );
+
+			double roll;
+			synchronized ( fieldFaults )
+				{
+				roll = fieldFaults.nextDouble( );
+				}
+			if ( roll < fieldThrottleRate )
+				{
+				fieldThrottledCount.increment( );
+				exchange.getResponseHeaders( ).add( "Retry-After", Integer.toString( fieldRetryAfterSeconds ) );
+				exchange.sendResponseHeaders( 429, -1 );
+				return;
+				}
+			if ( roll < fieldThrottleRate + fieldErrorRate )
+				{
+				fieldFailedCount.increment( );
+				exchange.sendResponseHeaders( 503, -1 );
+				return;
+				}
+
+			Matcher matcher = DETAILS_PATH_PATTERN.matcher( exchange.getRequestURI( ).getPath( ) );
+			if ( !"GET".equals( exchange.getRequestMethod( ) ) || !matcher.matches( ) )
+				{
+				exchange.sendResponseHeaders( 404, -1 );
+				return;
+				}
+
+			writePage( exchange, matcher );
+			}
+		catch ( InterruptedException exception )
+			{
+			// Shutting down.
+			Thread.currentThread( ).interrupt( );
+			exchange.sendResponseHeaders( 503, -1 );
+			}
+		catch ( IOException | RuntimeException exception )
+			{
+			LOG.error( "Unable to answer request '" + exchange.getRequestURI( ) + "'.", exception );
+			throw exception;
+			}
+		finally
+			{
+			exchange.close( );
+			}
+
+	} // onRequest
+
+
+	/**
+	 * @param abstractWords the number of words in each document's abstract, which sets the size of the pages served.
+	 */
+	public void setAbstractWords( int abstractWords )
+	{
+		fieldAbstractWords = abstractWords;
+
+	} // setAbstractWords
+
+
+	/**
+	 * @param errorRate the share (0 to 1) of requests to answer with a {@code 503 Service Unavailable}.
+	 */
+	public void setErrorRate( double errorRate )
+	{
+		fieldErrorRate = errorRate;
+
+	} // setErrorRate
+
+
+	/**
+	 * @param latencyJitterMillis the most time to take over {@link #setLatencyMillis(long) the latency}, at random.
+	 */
+	public void setLatencyJitterMillis( long latencyJitterMillis )
+	{
+		fieldLatencyJitterMillis = latencyJitterMillis;
+
+	} // setLatencyJitterMillis
+
+
+	/**
+	 * @param latencyMillis the time to take before answering each request.
+	 */
+	public void setLatencyMillis( long latencyMillis )
+	{
+		fieldLatencyMillis = latencyMillis;
+
+	} // setLatencyMillis
+
+
+	/**
+	 * @param retryAfterSeconds the {@code Retry-After} to send with each {@code 429}.
+	 */
+	public void setRetryAfterSeconds( int retryAfterSeconds )
+	{
+		fieldRetryAfterSeconds = retryAfterSeconds;
+
+	} // setRetryAfterSeconds
+
+
+	/**
+	 * @param threadCount the number of requests to answer at once. Takes effect when the server is started.
+	 */
+	public void setThreadCount( int threadCount )
+	{
+		fieldThreadCount = threadCount;
+
+	} // setThreadCount
+
+
+	/**
+	 * @param throttleRate the share (0 to 1) of requests to answer with a {@code 429 Too Many Requests}.
+	 */
+	public void setThrottleRate( double throttleRate )
+	{
+		fieldThrottleRate = throttleRate;
+
+	} // setThrottleRate
+
+
+	/**
+	 * Starts answering requests on the loopback interface.
+	 * 
+	 * @param port the port to listen on, or 0 for any free port (see {@link #getBaseUri()}).
+	 * @throws IOException if the server couldn't be bound.
+	 */
+	public void start( int port ) throws IOException
+	{
+		if ( fieldServer != null )
+			throw new IllegalStateException( "The server has already been started." );
+
+		fieldExecutor = Executors.newFixedThreadPool( fieldThreadCount, ( runnable ) ->
+			{
+			Thread thread = new Thread( runnable, "biorxiv-stand-in" );
+			thread.setDaemon( true );
+			return thread;
+			} );
+
+		fieldServer = HttpServer.create( new InetSocketAddress( InetAddress.getLoopbackAddress( ), port ), 0 );
+		fieldServer.createContext( "/details/", this::onRequest );
+		fieldServer.setExecutor( fieldExecutor );
+		fieldServer.start( );
+
+		LOG.info( "Serving a corpus of " + fieldCorpusSize + " documents at '" + getBaseUri( ) + "'." );
+
+	} // start
+
+
+	/**
+	 * Writes a single document of the corpus, as the real API would.
+	 */
+	private void writeItem( JsonWriter writer, String server, long index ) throws IOException
+	{
+		// Every document is derived from the seed and its position alone, so any page may be served in any order.
+		SplittableRandom random = new SplittableRandom( fieldSeed ^ ( index * 0x9E3779B97F4A7C15L ) );
+		LocalDate date = fieldStart.plusDays( index * fieldDays / fieldCorpusSize );
+
+		int authorCount = 1 + random.nextInt( 8 );
+		StringBuilder authors = new StringBuilder( );
+		for ( int author = 0; author < authorCount; author++ )
+			{
+			if ( author > 0 )
+				authors.append( "; " );
+			authors.append( pick( random, SURNAMES ) ).append( ", " ).append( ( char )( 'A' + random.nextInt( 26 ) ) )
+					.append( '.' );
+			}
+
+		writer.beginObject( );
+		writer.name( "doi" ).value( String.format( "10.1101/%s.%08d", date.toString( ).replace( "-", "." ), index ) );
+		writer.name( "title" ).value( words( random, 6 + random.nextInt( 9 ) ) );
+		writer.name( "authors" ).value( authors.toString( ) );
+		writer.name( "author_corresponding" ).value( authors.substring( 0, authors.indexOf( "." ) + 1 ) );
+		writer.name( "author_corresponding_institution" ).value( pick( random, INSTITUTIONS ) );
+		writer.name( "date" ).value( date.toString( ) );
+		writer.name( "version" ).value( Integer.toString( 1 + random.nextInt( 3 ) ) );
+		writer.name( "type" ).value( "new results" );
+		writer.name( "license" ).value( "cc_by" );
+		writer.name( "category" ).value( pick( random, CATEGORIES ).toLowerCase( ) );
+		writer.name( "abstract" ).value( words( random, fieldAbstractWords ) );
+		writer.name( "published" ).value( "NA" );
+		writer.name( "server" ).value( server );
+		writer.endObject( );
+
+	} // writeItem
+
+
+	/**
+	 * Writes the page of the corpus that the request's path asks for.
+	 */
+	private void writePage( HttpExchange exchange, Matcher path ) throws IOException
+	{
+		String server = path.group( 1 );
+		int cursor = Integer.parseInt( path.group( 5 ) );
+
+		// Work out which (contiguous) run of the corpus the listing covers.
+		long first;
+		long end;
+		String interval;
+		if ( path.group( 2 ) != null )
+			{
+			LocalDate from = LocalDate.parse( path.group( 2 ) );
+			LocalDate to = LocalDate.parse( path.group( 3 ) );
+			long fromDay = Math.max( 0, ChronoUnit.DAYS.between( fieldStart, from ) );
+			long toDay = Math.min( fieldDays - 1, ChronoUnit.DAYS.between( fieldStart, to ) );
+			first = firstIndexOnDay( fromDay );
+			end = ( fromDay > toDay ) ? first : firstIndexOnDay( toDay + 1 );
+			interval = from + ":" + to;
+			}
+		else
+			{
+			long count = Math.min( fieldCorpusSize, Long.parseLong( path.group( 4 ) ) );
+			first = fieldCorpusSize - count;
+			end = fieldCorpusSize;
+			interval = path.group( 4 );
+			}
+
+		long total = end - first;
+		long pageStart = Math.min( end, first + cursor );
+		long pageEnd = Math.min( end, pageStart + PAGE_SIZE );
+
+		exchange.getResponseHeaders( ).add( "Content-Type", "application/json; charset=UTF-8" );
+		exchange.sendResponseHeaders( 200, 0 );
+		try ( JsonWriter writer = new JsonWriter(
+				new BufferedWriter( new OutputStreamWriter( exchange.getResponseBody( ), StandardCharsets.UTF_8 ) ) ) )
+			{
+			writer.beginObject( );
+			writer.name( "messages" ).beginArray( ).beginObject( );
+			if ( pageStart == pageEnd )
+				{
+				writer.name( "status" ).value( "no posts found" );
+				}
+			else
+				{
+				writer.name( "status" ).value( "ok" );
+				writer.name( "interval" ).value( interval );
+				writer.name( "cursor" ).value( cursor );
+				writer.name( "count" ).value( pageEnd - pageStart );
+				writer.name( "total" ).value( total );
+				}
+			writer.endObject( ).endArray( );
+
+			writer.name( "collection" ).beginArray( );
+			for ( long index = pageStart; index < pageEnd; index++ )
+				writeItem( writer, server, index );
+			writer.endArray( );
+			writer.endObject( );
+			}
+
+		fieldPageCount.increment( );
+		fieldItemCount.add( pageEnd - pageStart );
+
+	} // writePage
+
+}
@@ -0,0 +1,281 @@
+/*
+ * CrawlLoadTest.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.app.Constants;
+import org.spidermole.app.spider.BiorxivApiCorrespondent;
+import org.spidermole.app.spider.CrawlCorrespondentRegistry;
+import org.spidermole.app.spider.CrawlPersistenceService;
+import org.spidermole.app.spider.CrawlService;
+import org.spidermole.app.spider.CrawlTransport;
+import org.spidermole.app.spider.HostRateLimiter;
+import org.spidermole.app.spider.IngestPublisher;
+import org.spidermole.app.spider.PersistenceTracker;
+import org.spidermole.app.spider.QueueSubscriber;
+import org.spidermole.app.spider.SpillingBlockingQueue;
+import org.spidermole.model.ResearchItem;
+import org.spidermole.util.DbUtils;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.org.lightcouch.NoDocumentException;
+
+import javafx.application.Platform;
+import javafx.concurrent.Worker;
+
+/**
+ * CrawlLoadTest measures the throughput of the crawl by running the real crawl and persistence pipeline (a
+ * {@link CrawlService} feeding a {@link CrawlPersistenceService} through ingest, just as the crawl control panel wires
+ * them, down to the queue that spills to disk) against a {@link BiorxivStandInServer}. While the crawl runs, and once
+ * more when everything crawled has been persisted, it reports the pages crawled and items persisted per second and the
+ * depth of the queues between the stages.
+ * <p>
+ * The test is set up with system properties:
+ * <ul>
+ * <li>{@code spidermole.database.name} (required): the database to persist to. It is deleted and created afresh
+ * before the crawl, so it may not be the app's own.
+ * <li>{@code loadtest.items} (default 50000): the size of the corpus.
+ * <li>{@code loadtest.days} (default 365): the number of days the corpus is spread over.
+ * <li>{@code loadtest.seed} (default 1): the seed the corpus is derived from.
+ * <li>{@code loadtest.latencyMillis} (default 50) and {@code loadtest.latencyJitterMillis} (default 50): how long the
+ * server takes to answer.
+ * <li>{@code loadtest.errorRate} (default 0.01) and {@code loadtest.throttleRate} (default 0.01): the shares of
+ * requests the server answers with a {@code 503} and a {@code 429}.
+ * <li>{@code loadtest.crawlDelaySeconds} (default 0): the crawl delay to observe between requests.
+ * <li>{@code loadtest.latencyFactor} (default {@link Constants#CRAWL_ADAPTIVE_LATENCY_FACTOR}): the rate limiter's
+ * latency factor; 0 leaves only the crawl delay.
+ * </ul>
+ * Starting the services needs the JavaFX toolkit, and so a display, as the app itself does.
+ */
+public class CrawlLoadTest
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( CrawlLoadTest.class );
+
+	private static final long REPORT_INTERVAL_MILLIS = 5000;
+
+	/**
+	 * How long to wait for persistence to catch up once the crawl has finished.
+	 */
+	private static final long DRAIN_TIMEOUT_MILLIS = 5 * 60 * 1000;
+
+	// Data members.
+	private final BiorxivStandInServer fieldServer;
+	private final SpillingBlockingQueue<ResearchItem> fieldPersistQueue;
+	private final IngestPublisher fieldIngest = new IngestPublisher( );
+	private final CountDownLatch fieldCrawlDone = new CountDownLatch( 1 );
+
+	/**
+	 * The items the persistence service is done with (see {@link CrawlPersistenceService.Listener}).
+	 */
+	private final AtomicLong fieldPersisted = new AtomicLong( );
+	private long fieldStartNanos;
+	private int fieldPeakQueueDepth;
+	private int fieldPeakIngestLag;
+
+	private CrawlLoadTest( BiorxivStandInServer server, SpillingBlockingQueue<ResearchItem> persistQueue )
+	{
+		fieldServer = server;
+		fieldPersistQueue = persistQueue;
+
+	} // CrawlLoadTest
+
+
+	private static void deleteDirectory( Path directory )
+	{
+		try ( Stream<Path> files = Files.list( directory ) )
+			{
+			for ( Path file : ( Iterable<Path> )files::iterator )
+				Files.delete( file );
+			Files.delete( directory );
+			}
+		catch ( IOException exception )
+			{
+			LOG.warn( "Unable to delete '" + directory + "'.", exception );
+			}
+
+	} // deleteDirectory
+
+
+	private static double doubleProperty( String name, double defaultValue )
+	{
+		String value = System.getProperty( name );
+
+		return ( value == null ) ? defaultValue : Double.parseDouble( value );
+
+	} // doubleProperty
+
+
+	public static void main( String[ ] args ) throws Exception
+	{
+		if ( DbUtils.getDatabaseName( ).equals( Constants.DATABASE_DBNAME ) )
+			{
+			LOG.error( "Set 'spidermole.database.name' to the name of a database to load test with. It will be deleted "
+					+ "and created afresh, so it may not be the app's own ('" + Constants.DATABASE_DBNAME + "')." );
+			System.exit( 1 );
+			}
+
+		int items = Integer.getInteger( "loadtest.items", 50000 ).intValue( );
+		int days = Integer.getInteger( "loadtest.days", 365 ).intValue( );
+		LocalDate start = LocalDate.of( 2020, 1, 1 );
+		LocalDate end = start.plusDays( days - 1 );
+
+		try ( BiorxivStandInServer server = new BiorxivStandInServer( Long.getLong( "loadtest.seed", 1 ).longValue( ),
+				items, start, end ) )
+			{
+			server.setLatencyMillis( Long.getLong( "loadtest.latencyMillis", 50 ).longValue( ) );
+			server.setLatencyJitterMillis( Long.getLong( "loadtest.latencyJitterMillis", 50 ).longValue( ) );
+			server.setErrorRate( doubleProperty( "loadtest.errorRate", 0.01 ) );
+			server.setThrottleRate( doubleProperty( "loadtest.throttleRate", 0.01 ) );
+			server.start( 0 );
+
+			Platform.startup( ( ) ->
+				{
+				} );
+			Path spillDirectory = Files.createTempDirectory( "spidermole-loadtest" );
+			try
+				{
+				SpillingBlockingQueue<ResearchItem> persistQueue = new SpillingBlockingQueue<>( spillDirectory,
+						Constants.PERSIST_QUEUE_CAPACITY, Constants.PERSIST_SPILL_SEGMENT_BYTES, ResearchItem.class );
+				try
+					{
+					new CrawlLoadTest( server, persistQueue ).run( start, end );
+					}
+				finally
+					{
+					persistQueue.close( );
+					}
+				}
+			finally
+				{
+				deleteDirectory( spillDirectory );
+				Platform.exit( );
+				}
+			}
+
+	} // main
+
+
+	private void onCrawlStateChanged( CrawlService crawlService, Worker.State state )
+	{
+		if ( state == Worker.State.FAILED )
+			LOG.error( "The crawl failed.", crawlService.getException( ) );
+		if ( state == Worker.State.SUCCEEDED || state == Worker.State.FAILED || state == Worker.State.CANCELLED )
+			fieldCrawlDone.countDown( );
+
+	} // onCrawlStateChanged
+
+
+	/**
+	 * Logs how far the crawl has come, and how full the queues between its stages are.
+	 */
+	private void report( String label )
+	{
+		double seconds = Math.max( 1, System.nanoTime( ) - fieldStartNanos ) / 1e9;
+		int queueDepth = fieldPersistQueue.size( );
+		int ingestLag = fieldIngest.getMaximumLag( );
+		fieldPeakQueueDepth = Math.max( fieldPeakQueueDepth, queueDepth );
+		fieldPeakIngestLag = Math.max( fieldPeakIngestLag, ingestLag );
+
+		long persisted = fieldPersisted.get( );
+		LOG.info( String.format( "%s after %.1fs: %d pages (%.1f pages/s), %d items persisted (%.1f items/s); "
+				+ "persist queue %d (peak %d), ingest lag %d (peak %d); %d requests, %d throttled, %d failed.", label,
+				seconds, fieldServer.getPageCount( ), fieldServer.getPageCount( ) / seconds, persisted,
+				persisted / seconds, queueDepth, fieldPeakQueueDepth, ingestLag, fieldPeakIngestLag,
+				fieldServer.getRequestCount( ), fieldServer.getThrottledCount( ), fieldServer.getFailedCount( ) ) );
+
+	} // report
+
+
+	private void run( LocalDate start, LocalDate end ) throws Exception
+	{
+		// Start from an empty database, so every item is new to persistence, as on a first crawl.
+		CloudantClient client = DbUtils.buildDefaultClient( );
+		String databaseName = DbUtils.getDatabaseName( );
+		try
+			{
+			client.deleteDB( databaseName );
+			}
+		catch ( NoDocumentException exception )
+			{
+			// Nothing to delete.
+			}
+		Database database = client.database( databaseName, true );
+
+		BiorxivApiCorrespondent correspondent = new BiorxivApiCorrespondent( "biorxiv", start,
+				fieldServer.getBaseUri( ), Integer.getInteger( "loadtest.crawlDelaySeconds", 0 ).intValue( ) );
+		CrawlTransport transport = new CrawlTransport( );
+		HostRateLimiter rateLimiter = new HostRateLimiter(
+				doubleProperty( "loadtest.latencyFactor", Constants.CRAWL_ADAPTIVE_LATENCY_FACTOR ) );
+
+		fieldIngest.subscribe( "persistence", new QueueSubscriber<>( fieldPersistQueue ),
+				Constants.INGEST_SUBSCRIBER_BUFFER_CAPACITY, true );
+
+		CrawlPersistenceService persistenceService = new CrawlPersistenceService( database, fieldPersistQueue, null );
+		PersistenceTracker tracker = new PersistenceTracker( );
+		persistenceService.addListener( tracker );
+		persistenceService.addListener( ( items ) -> fieldPersisted.addAndGet( items.size( ) ) );
+		CrawlCorrespondentRegistry correspondents = new CrawlCorrespondentRegistry(
+				Collections.singletonList( correspondent ) );
+		CrawlService crawlService = new CrawlService( database, correspondents, transport, rateLimiter, null,
+				fieldIngest, tracker );
+		URI seedUri = correspondent.getIntervalUri( start, end );
+		crawlService.setUrl( seedUri.toURL( ) );
+		crawlService.stateProperty( ).addListener( ( observable, oldState, newState ) -> onCrawlStateChanged(
+				crawlService, newState ) );
+
+		try
+			{
+			LOG.info( "Crawling '" + seedUri + "'." );
+			fieldStartNanos = System.nanoTime( );
+			Platform.runLater( ( ) ->
+				{
+				persistenceService.start( );
+				crawlService.start( );
+				} );
+			while ( !fieldCrawlDone.await( REPORT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS ) )
+				report( "Crawling" );
+			report( "Crawled" );
+
+			// A crawl that succeeds has waited for its items to be persisted, but one that failed hasn't. Either way,
+			// let everything published reach the queue, and the queue reach the workers. Then stop persistence, which
+			// only stops once the workers' rings are empty, too.
+			long deadline = System.currentTimeMillis( ) + DRAIN_TIMEOUT_MILLIS;
+			fieldIngest.close( );
+			while ( !fieldPersistQueue.isEmpty( ) && System.currentTimeMillis( ) < deadline )
+				Thread.sleep( 100 );
+			Platform.runLater( persistenceService::cancel );
+			if ( !persistenceService.awaitStopped( Math.max( 0, deadline - System.currentTimeMillis( ) ),
+					TimeUnit.MILLISECONDS ) )
+				LOG.warn( "Persistence didn't catch up in time." );
+			report( "Persisted" );
+			}
+		finally
+			{
+			Platform.runLater( crawlService::cancel );
+			fieldIngest.close( );
+			Platform.runLater( persistenceService::cancel );
+			persistenceService.awaitStopped( DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS );
+			transport.close( );
+			client.shutdown( );
+			}
+
+	} // run
+
+}
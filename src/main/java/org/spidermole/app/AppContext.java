@@ -1,46 +1,151 @@
-/*
- * AppContext.java
- * 
- * Created: Oct 11, 2020
- */
-package org.spidermole.app;
-
-import com.google.common.eventbus.EventBus;
-
-/**
- * AppContext provides a safe organizational place for functionality that must be shared across disconnected FX UI
- * classes. A Singleton copy is owned and presented by the AppMain for code running on the JavaFX Application Thread.
- * 
- * @author David Schmidt (dschmidt13@gmail.com)
- * @see    AppMain#instance()
- */
-public class AppContext
-{
-	// Data members.
-	private EventBus fieldEventBus = new EventBus( );
-
-	public AppContext( )
-	{
-	} // AppContext
-
-
-	public void destroy( )
-	{
-	} // destroy
-
-
-	/**
-	 * @return the eventBus, an instance of EventBus which may be used to pass events to other components in the system.
-	 */
-	public EventBus getEventBus( )
-	{
-		return fieldEventBus;
-
-	} // getEventBus
-
-
-	public void initialize( )
-	{
-	} // initialize
-
-}
+/*
+ * AppContext.java
+ * 
+ * Created: Oct 11, 2020
+ */
+package org.spidermole.app;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.app.appraiser.AppraisalViews;
+import org.spidermole.app.db.DbChangesFollower;
+import org.spidermole.app.db.DbQueryCache;
+import org.spidermole.model.ResearchItem;
+import org.spidermole.util.DbUtils;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.google.common.eventbus.EventBus;
+
+/**
+ * AppContext provides a safe organizational place for functionality that must be shared across disconnected FX UI
+ * classes. A Singleton copy is owned and presented by the AppMain for code running on the JavaFX Application Thread.
+ * 
+ * @author David Schmidt (dschmidt13@gmail.com)
+ * @see    AppMain#instance()
+ */
+public class AppContext
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( AppContext.class );
+
+	// Data members.
+	private EventBus fieldEventBus = new EventBus( );
+	private CloudantClient fieldDatabaseClient;
+	private Database fieldDatabase;
+	private DbChangesFollower fieldChangesFollower;
+	private DbQueryCache fieldQueryCache;
+	private AppraisalViews fieldAppraisalViews;
+
+	public AppContext( )
+	{
+	} // AppContext
+
+
+	public void destroy( )
+	{
+		if ( fieldChangesFollower != null )
+			{
+			fieldChangesFollower.close( );
+			fieldChangesFollower = null;
+			}
+
+		if ( fieldAppraisalViews != null )
+			{
+			fieldAppraisalViews.close( );
+			fieldAppraisalViews = null;
+			}
+
+		if ( fieldDatabaseClient != null )
+			{
+			fieldDatabaseClient.shutdown( );
+			fieldDatabaseClient = null;
+			fieldDatabase = null;
+			}
+
+	} // destroy
+
+
+	/**
+	 * @return the views of appraisal data, kept current by following the database's changes.
+	 */
+	public AppraisalViews getAppraisalViews( )
+	{
+		return fieldAppraisalViews;
+
+	} // getAppraisalViews
+
+
+	/**
+	 * @return the app's database, shared by everything that uses it (on any thread), over a single pool of connections.
+	 */
+	public Database getDatabase( )
+	{
+		return fieldDatabase;
+
+	} // getDatabase
+
+
+	/**
+	 * @return the eventBus, an instance of EventBus which may be used to pass events to other components in the system.
+	 */
+	public EventBus getEventBus( )
+	{
+		return fieldEventBus;
+
+	} // getEventBus
+
+
+	/**
+	 * @return the cache of query results, kept current by following the database's changes.
+	 */
+	public DbQueryCache getQueryCache( )
+	{
+		return fieldQueryCache;
+
+	} // getQueryCache
+
+
+	/**
+	 * Connects to the database (creating it if necessary) and starts following its changes. This blocks until the
+	 * database has answered (or failed to), so it mustn't be called on the FX thread.
+	 */
+	public void initialize( )
+	{
+		// One client for the whole app, so every query and write reuses its pooled connections.
+		fieldDatabaseClient = DbUtils.buildDefaultClient( );
+		String databaseName = DbUtils.getDatabaseName( );
+		try
+			{
+			// Create the database if necessary. This is the only time we check.
+			fieldDatabase = fieldDatabaseClient.database( databaseName, true );
+			}
+		catch ( RuntimeException exception )
+			{
+			// Probably not running yet. Everything that uses the database will fail (and say so) until it is.
+			LOG.error( "Unable to reach the database '" + databaseName + "'.", exception );
+			fieldDatabase = fieldDatabaseClient.database( databaseName, false );
+			}
+
+		// Likewise the indexes the app queries with.
+		try
+			{
+			DbUtils.createIndexes( fieldDatabase );
+			}
+		catch ( RuntimeException exception )
+			{
+			// Queries still work without them, only slower.
+			LOG.error( "Unable to create the indexes of the database '" + databaseName + "'.", exception );
+			}
+
+		// Keeps trying to follow the database's changes until it can; the cache is bypassed until then.
+		fieldChangesFollower = new DbChangesFollower( fieldDatabaseClient, fieldDatabase, ResearchItem.DATABASE_TYPE );
+		fieldQueryCache = new DbQueryCache( fieldChangesFollower, Constants.QUERY_CACHE_MAX_BYTES );
+		fieldChangesFollower.addListener( fieldQueryCache );
+		fieldAppraisalViews = new AppraisalViews( fieldDatabase, fieldDatabaseClient.getGson( ), fieldEventBus );
+		fieldChangesFollower.addListener( fieldAppraisalViews );
+		fieldChangesFollower.start( );
+
+	} // initialize
+
+}
@@ -1,27 +1,78 @@
-/*
- * Constants.java
- * 
- * Created: Oct 09, 2020
- */
-package org.spidermole.app;
-
-/**
- * Constants defines immutable public values that may be used in various places throughout the app.
- * 
- * @author David Schmidt (dschmidt13@gmail.com)
- */
-public class Constants
-{
-	// Database constants.
-	public static final String DATABASE_URL = "http://localhost:5984";
-	public static final String DATABASE_USERNAME = "admin";
-	public static final String DATABASE_PASSWORD = "admin";
-	public static final String DATABASE_DBNAME = "spidermole";
-
-	private Constants( )
-	{
-		throw new AssertionError( "Cannot instantiate this class." );
-
-	} // Constants
-
-}
+/*
+ * Constants.java
+ * 
+ * Created: Oct 09, 2020
+ */
+package org.spidermole.app;
+
+/**
+ * Constants defines immutable public values that may be used in various places throughout the app.
+ * 
+ * @author David Schmidt (dschmidt13@gmail.com)
+ */
+public class Constants
+{
+	// Database constants. These are the defaults; see DbUtils#buildDefaultClient() for overriding them.
+	public static final String DATABASE_URL = "http://localhost:5984";
+	public static final String DATABASE_USERNAME = "admin";
+	public static final String DATABASE_PASSWORD = "admin";
+	public static final String DATABASE_DBNAME = "spidermole";
+	public static final int DATABASE_MAX_CONNECTIONS = 8;
+	public static final int DATABASE_CONNECT_TIMEOUT_MILLIS = 10000;
+	public static final int DATABASE_READ_TIMEOUT_MILLIS = 60000;
+	public static final long DATABASE_CHANGES_HEARTBEAT_MILLIS = 30000;
+	public static final long DATABASE_CHANGES_RETRY_DELAY_MILLIS = 5000;
+
+	// Local storage constants.
+	public static final String LOCAL_DATA_DIR = System.getProperty( "user.home" ) + "/.spidermole";
+
+	// Crawl constants.
+	public static final int CRAWL_CONNECT_TIMEOUT_MILLIS = 15000;
+	public static final int CRAWL_READ_TIMEOUT_MILLIS = 60000;
+	public static final int CRAWL_MAX_CONNECTIONS_PER_HOST = 4;
+	public static final int CRAWL_MAX_CONNECTIONS_TOTAL = 8;
+	public static final int CRAWL_RANGE_WORKERS = 2;
+	public static final int CRAWL_RANGE_MAX_ATTEMPTS = 3;
+	public static final int CRAWL_INCREMENTAL_OVERLAP_DAYS = 3;
+	public static final long CRAWL_CACHE_MAX_BYTES = 512L * 1024 * 1024;
+	public static final long CRAWL_ARCHIVE_SEGMENT_BYTES = 16L * 1024 * 1024;
+	public static final double CRAWL_ADAPTIVE_LATENCY_FACTOR = 5.0;
+	public static final int CRAWL_RETRY_MAX_ATTEMPTS = 5;
+	public static final long CRAWL_RETRY_BASE_DELAY_MILLIS = 5000;
+	public static final long CRAWL_RETRY_MAX_DELAY_MILLIS = 15 * 60 * 1000;
+	public static final int CRAWL_ERROR_BUDGET = 100;
+	public static final int CRAWL_STRING_POOL_MAX_SIZE = 100000;
+	public static final int CRAWL_GAP_FILL_MAX_ROUNDS = 3;
+	public static final long CRAWL_COVERAGE_FLUSH_INTERVAL_MILLIS = 10000;
+	public static final long CRAWL_SHUTDOWN_TIMEOUT_MILLIS = 90 * 1000;
+
+	// Query constants.
+	public static final int QUERY_PAGE_SIZE = 200;
+	public static final long QUERY_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+	public static final int QUERY_CACHE_ITEM_BYTES = 4 * 1024;
+
+	// Ingest constants.
+	public static final int INGEST_SUBSCRIBER_BUFFER_CAPACITY = 256;
+
+	// Crawl persistence constants.
+	public static final int PERSIST_BATCH_SIZE = 100;
+	public static final long PERSIST_BATCH_WAIT_MILLIS = 500;
+	public static final int PERSIST_QUEUE_CAPACITY = 500;
+	public static final int PERSIST_WORKERS = 4;
+	public static final int PERSIST_RING_CAPACITY = 1024;
+	public static final long PERSIST_REPORT_INTERVAL_MILLIS = 5000;
+	public static final int PERSIST_BATCH_MAX_ATTEMPTS = 3;
+	public static final long PERSIST_BATCH_RETRY_DELAY_MILLIS = 1000;
+	public static final int PERSIST_RETRY_MAX_ATTEMPTS = 8;
+	public static final long PERSIST_RETRY_BASE_DELAY_MILLIS = 60 * 1000;
+	public static final long PERSIST_RETRY_MAX_DELAY_MILLIS = 60 * 60 * 1000;
+	public static final long PERSIST_SPILL_SEGMENT_BYTES = 8 * 1024 * 1024;
+	public static final long PERSIST_SHUTDOWN_TIMEOUT_MILLIS = 60 * 1000;
+
+	private Constants( )
+	{
+		throw new AssertionError( "Cannot instantiate this class." );
+
+	} // Constants
+
+}
@@ -0,0 +1,160 @@
+/*
+ * AppraisalStreamService.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.appraiser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.spidermole.app.Constants;
+import org.spidermole.model.ResearchItem;
+
+import com.cloudant.client.api.Database;
+
+import javafx.application.Platform;
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+/**
+ * AppraisalStreamService loads the stream of items to appraise (those in a category not yet voted on, optionally
+ * filtered by title) from the database, a page at a time. Each page is handed to the {@link #setOnPage(Consumer) page
+ * handler} (on the JavaFX Application Thread) as soon as it arrives, so the first items may be shown long before the
+ * last are in, and the service may be cancelled between pages. Only the stream's consumer keeps the items; the
+ * service's value is just how many there were.
+ * <p>
+ * Which items are unvoted is known from the {@link AppraisalViews}, which keep each category's unvoted ids current, so
+ * the database is only asked for the items themselves: a page at a time, by id ({@code _all_docs?keys=}). Items voted
+ * on since their ids were read are left out, and so are items whose titles don't match the filter.
+ */
+public class AppraisalStreamService extends Service<Integer>
+{
+	// Data members.
+	private final Database fieldDatabase;
+	private final AppraisalViews fieldViews;
+	private String fieldCategoryKey;
+	private String fieldFilterText;
+	private Consumer<List<ResearchItem>> fieldOnPage;
+
+	/**
+	 * @param database the database to read items from (normally the app's shared one; see
+	 *            {@link org.spidermole.app.AppContext#getDatabase()}).
+	 * @param views the views that know which items are unvoted (normally the app's; see
+	 *            {@link org.spidermole.app.AppContext#getAppraisalViews()}).
+	 */
+	public AppraisalStreamService( Database database, AppraisalViews views )
+	{
+		fieldDatabase = database;
+		fieldViews = views;
+
+	} // AppraisalStreamService
+
+
+	@Override
+	protected Task<Integer> createTask( )
+	{
+		final String categoryKey = fieldCategoryKey;
+		final Pattern filter = StringUtils.isEmpty( fieldFilterText ) ? null : Pattern.compile( fieldFilterText );
+		final Consumer<List<ResearchItem>> onPage = fieldOnPage;
+
+		return new Task<>( )
+		{
+			@Override
+			protected Integer call( ) throws Exception
+			{
+				List<String> ids = fieldViews.getUnvotedIds( categoryKey );
+
+				int count = 0;
+				for ( int from = 0; from < ids.size( ) && !isCancelled( ); from += Constants.QUERY_PAGE_SIZE )
+					{
+					List<ResearchItem> page = fetch(
+							ids.subList( from, Math.min( from + Constants.QUERY_PAGE_SIZE, ids.size( ) ) ) );
+					count += page.size( );
+					publish( page );
+					}
+
+				return Integer.valueOf( count );
+
+			} // call
+
+
+			/**
+			 * @return the items with the given ids that are still unvoted, and match the filter.
+			 */
+			private List<ResearchItem> fetch( List<String> ids ) throws Exception
+			{
+				List<ResearchItem> docs = fieldDatabase.getAllDocsRequestBuilder( )
+						.keys( ids.toArray( new String[ ids.size( ) ] ) ).includeDocs( true ).build( ).getResponse( )
+						.getDocsAs( ResearchItem.class );
+
+				List<ResearchItem> items = new ArrayList<>( docs.size( ) );
+				for ( ResearchItem item : docs )
+					{
+					// Deleted since, voted on since, or filtered out?
+					if ( item == null || AppraisalViews.isVoted( item ) )
+						continue;
+					if ( filter != null && ( item.getTitle( ) == null || !filter.matcher( item.getTitle( ) ).find( ) ) )
+						continue;
+					items.add( item );
+					}
+
+				return items;
+
+			} // fetch
+
+
+			/**
+			 * Hands a page's items to the page handler, if there is one.
+			 */
+			private void publish( List<ResearchItem> page )
+			{
+				if ( onPage == null || page.isEmpty( ) )
+					return;
+
+				// Pages already on their way are dropped if the service is cancelled (or restarted) first.
+				Platform.runLater( ( ) ->
+					{
+					if ( !isCancelled( ) )
+						onPage.accept( page );
+					} );
+
+			} // publish
+		};
+
+	} // createTask
+
+
+	/**
+	 * @param categoryKey the (normalized) category of the items to appraise.
+	 */
+	public void setCategoryKey( String categoryKey )
+	{
+		fieldCategoryKey = categoryKey;
+
+	} // setCategoryKey
+
+
+	/**
+	 * @param filterText a regular expression that titles must contain, or null (or empty) for every item.
+	 */
+	public void setFilterText( String filterText )
+	{
+		fieldFilterText = filterText;
+
+	} // setFilterText
+
+
+	/**
+	 * @param onPage the handler for each page of items, called on the JavaFX Application Thread as the page arrives.
+	 */
+	public void setOnPage( Consumer<List<ResearchItem>> onPage )
+	{
+		fieldOnPage = onPage;
+
+	} // setOnPage
+
+}
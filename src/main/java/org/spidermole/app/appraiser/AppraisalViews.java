@@ -0,0 +1,499 @@
+/*
+ * AppraisalViews.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.appraiser;
+
+import static com.cloudant.client.api.query.Expression.eq;
+import static com.cloudant.client.api.query.Expression.exists;
+import static com.cloudant.client.api.query.Expression.gt;
+import static com.cloudant.client.api.query.Expression.lte;
+import static com.cloudant.client.api.query.Operation.and;
+import static com.cloudant.client.api.query.Operation.or;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.app.Constants;
+import org.spidermole.app.db.DbChangesFollower;
+import org.spidermole.app.db.DbQueryPager;
+import org.spidermole.model.ResearchItem;
+import org.spidermole.util.DbUtils;
+
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.ChangesResult;
+import com.cloudant.client.api.query.QueryBuilder;
+import com.google.common.eventbus.EventBus;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import javafx.application.Platform;
+
+/**
+ * AppraisalViews keeps the appraisal results in memory, and keeps them current by following the database's changes
+ * (see {@link DbChangesFollower}), so that the appraiser reads them straight from here rather than querying for them
+ * (and recomputing them) each time. The views are:
+ * <ul>
+ * <li>the items voted on ({@link #getVotedItems()}),
+ * <li>their votes tallied by author and by institution ({@link #getSummary()}), and
+ * <li>the ids of the items not yet voted on, by category ({@link #getUnvotedIds(String)}). The items themselves are
+ * far too many to keep, so the {@link AppraisalStreamService} reads them by id, a page at a time.
+ * </ul>
+ * They're loaded from the database the first time they're asked for (each category's unvoted ids on their own), and
+ * again whenever following the changes (re)starts. Otherwise, the work done is in proportion to the changes made, not
+ * the size of the database.
+ * <p>
+ * Loads and changes are applied one at a time, in order, on a thread of the views' own. Whenever a change affects the
+ * views, an {@link AppraisalViewsChangedEvent} is posted to the AppContext's EventBus, on the JavaFX Application
+ * Thread. Changes to items that aren't (and weren't) voted on don't affect them. (Nor do changes to the unvoted ids,
+ * which are only read when a stream is loaded.)
+ * <p>
+ * The items and tallies handed out are copies, which may be changed freely.
+ */
+public class AppraisalViews implements DbChangesFollower.Listener, Closeable
+{
+	/**
+	 * AppraisalViewsChangedEvent is passed on the AppContext's EventBus to let the UI know that the voted items (and so
+	 * their tallies) have changed since it was last posted. Changes in quick succession are reported by a single event.
+	 */
+	static class AppraisalViewsChangedEvent
+	{
+	} // class AppraisalViewsChangedEvent
+
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( AppraisalViews.class );
+
+	// Data members.
+	private final Database fieldDatabase;
+	private final Gson fieldGson;
+	private final EventBus fieldEventBus;
+	private final ExecutorService fieldExecutor;
+	private final AtomicBoolean fieldChangePosted = new AtomicBoolean( );
+
+	private final Map<String, ResearchItem> fieldVotedItems = new LinkedHashMap<>( );
+	private final AppraisalSummary fieldSummary = new AppraisalSummary( );
+	private boolean fieldVotedLoaded;
+
+	/**
+	 * The ids of the unvoted items in each category loaded so far, and the category of each of those ids.
+	 */
+	private final Map<String, Set<String>> fieldUnvotedIds = new HashMap<>( );
+	private final Map<String, String> fieldUnvotedCategories = new HashMap<>( );
+
+	/**
+	 * @param database the database to load the views from.
+	 * @param gson the Gson the database's documents are read with (see
+	 *            {@link com.cloudant.client.api.CloudantClient#getGson()}), for reading changed documents.
+	 * @param eventBus the EventBus to post {@link AppraisalViewsChangedEvent}s to.
+	 */
+	public AppraisalViews( Database database, Gson gson, EventBus eventBus )
+	{
+		fieldDatabase = database;
+		fieldGson = gson;
+		fieldEventBus = eventBus;
+		fieldExecutor = Executors.newSingleThreadExecutor( ( runnable ) ->
+			{
+			Thread thread = new Thread( runnable, "appraisal-views" );
+			thread.setDaemon( true );
+			return thread;
+			} );
+
+	} // AppraisalViews
+
+
+	/**
+	 * @return whether the item has been voted on (either way).
+	 */
+	static boolean isVoted( ResearchItem item )
+	{
+		return ( item.getYesVotes( ) != null && item.getYesVotes( ).intValue( ) > 0 )
+				|| ( item.getNoVotes( ) != null && item.getNoVotes( ).intValue( ) > 0 );
+
+	} // isVoted
+
+
+	/**
+	 * @return the number at the start of a revision (e.g. 3 for "3-a1b2c3"), which counts the document's updates.
+	 */
+	private static int revisionNumber( String revision )
+	{
+		int dash = ( revision == null ) ? -1 : revision.indexOf( '-' );
+
+		return ( dash <= 0 ) ? 0 : Integer.parseInt( revision.substring( 0, dash ) );
+
+	} // revisionNumber
+
+
+	/**
+	 * Adds an item to the views: to the voted items if it's voted on (and they're loaded), or else to the unvoted ids
+	 * of its category (if they're loaded).
+	 * 
+	 * @return whether it was added to the voted items.
+	 */
+	private boolean add( ResearchItem item )
+	{
+		if ( !isVoted( item ) )
+			{
+			Set<String> unvotedIds = ( item.getCategoryKey( ) == null ) ? null
+					: fieldUnvotedIds.get( item.getCategoryKey( ) );
+			if ( unvotedIds != null )
+				{
+				unvotedIds.add( item.getId( ) );
+				fieldUnvotedCategories.put( item.getId( ), item.getCategoryKey( ) );
+				}
+			return false;
+			}
+		if ( !fieldVotedLoaded )
+			return false;
+
+		fieldVotedItems.put( item.getId( ), item );
+		fieldSummary.addResearchItem( item );
+
+		return true;
+
+	} // add
+
+
+	/**
+	 * Applies a change on the views' thread.
+	 */
+	private void applyChange( ChangesResult.Row change )
+	{
+		boolean changed;
+		synchronized ( this )
+			{
+			ResearchItem held = fieldVotedItems.get( change.getId( ) );
+			String revision = change.getDoc( ).get( "_rev" ).getAsString( );
+
+			// Already loaded as it was after this change? (Loads can overtake changes still waiting to be applied.)
+			if ( held != null && revisionNumber( held.getRevision( ) ) > revisionNumber( revision ) )
+				return;
+
+			changed = remove( change.getId( ) );
+			if ( !change.isDeleted( ) )
+				changed |= add( fieldGson.fromJson( change.getDoc( ), ResearchItem.class ) );
+			}
+
+		if ( changed )
+			postChanged( );
+
+	} // applyChange
+
+
+	/**
+	 * Runs a task on the views' thread, and waits for it.
+	 */
+	private <V> V await( Callable<V> task ) throws InterruptedException, ExecutionException
+	{
+		return fieldExecutor.submit( task ).get( );
+
+	} // await
+
+
+	/**
+	 * Stops keeping the views current.
+	 */
+	@Override
+	public void close( )
+	{
+		fieldExecutor.shutdownNow( );
+
+	} // close
+
+
+	/**
+	 * @return copies of the voted items. (The tallies depend on the views' own staying as they were.)
+	 */
+	private List<ResearchItem> copyVotedItems( )
+	{
+		List<ResearchItem> items = new ArrayList<>( fieldVotedItems.size( ) );
+		for ( ResearchItem item : fieldVotedItems.values( ) )
+			items.add( new ResearchItem( item ) );
+
+		return items;
+
+	} // copyVotedItems
+
+
+	/**
+	 * @param categoryKey the (normalized) category of the items.
+	 * @return the ids of the items in the category not yet voted on, as they are now. (They're loaded first, if this is
+	 *         the first time the category has been asked for.)
+	 */
+	public List<String> getUnvotedIds( String categoryKey ) throws InterruptedException, ExecutionException
+	{
+		synchronized ( this )
+			{
+			Set<String> unvotedIds = fieldUnvotedIds.get( categoryKey );
+			if ( unvotedIds != null )
+				return new ArrayList<>( unvotedIds );
+			}
+
+		return await( ( ) ->
+			{
+			loadUnvotedOnce( categoryKey );
+			synchronized ( this )
+				{
+				return new ArrayList<>( fieldUnvotedIds.get( categoryKey ) );
+				}
+			} );
+
+	} // getUnvotedIds
+
+
+	/**
+	 * @return the tallies of the votes on the voted items, by author and by institution, as they are now. (They're
+	 *         loaded first, if this is the first time they've been asked for.)
+	 */
+	public AppraisalSummary getSummary( ) throws InterruptedException, ExecutionException
+	{
+		synchronized ( this )
+			{
+			if ( fieldVotedLoaded )
+				return new AppraisalSummary( fieldSummary );
+			}
+
+		return await( ( ) ->
+			{
+			loadVotedOnce( );
+			synchronized ( this )
+				{
+				return new AppraisalSummary( fieldSummary );
+				}
+			} );
+
+	} // getSummary
+
+
+	/**
+	 * @return copies of the items voted on, as they are now. (They're loaded first, if this is the first time they've
+	 *         been asked for.)
+	 */
+	public List<ResearchItem> getVotedItems( ) throws InterruptedException, ExecutionException
+	{
+		synchronized ( this )
+			{
+			if ( fieldVotedLoaded )
+				return copyVotedItems( );
+			}
+
+		return await( ( ) ->
+			{
+			loadVotedOnce( );
+			synchronized ( this )
+				{
+				return copyVotedItems( );
+				}
+			} );
+
+	} // getVotedItems
+
+
+	/**
+	 * (Re)loads the ids of a category's unvoted items on the views' thread.
+	 */
+	private void loadUnvoted( String categoryKey )
+	{
+		// Only the ids; the category key is indexed, so this reads no more than the category.
+		QueryBuilder builder = new QueryBuilder( and( eq( DbUtils.FIELD_TYPE, ResearchItem.DATABASE_TYPE ),
+				eq( "categoryKey", categoryKey ), or( exists( "noVotes", false ), lte( "noVotes", 0 ) ),
+				or( exists( "yesVotes", false ), lte( "yesVotes", 0 ) ) ) );
+		builder.fields( "_id" );
+		builder.useIndex( DbUtils.INDEX_DESIGN_DOCUMENT, DbUtils.CATEGORY_KEY_INDEX );
+		List<ResearchItem> items = new DbQueryPager<>( fieldDatabase, builder.build( ), ResearchItem.class,
+				Constants.QUERY_PAGE_SIZE ).readAll( );
+
+		synchronized ( this )
+			{
+			Set<String> unvotedIds = fieldUnvotedIds.computeIfAbsent( categoryKey, ( key ) -> new LinkedHashSet<>( ) );
+			for ( String id : unvotedIds )
+				fieldUnvotedCategories.remove( id );
+			unvotedIds.clear( );
+			for ( ResearchItem item : items )
+				{
+				unvotedIds.add( item.getId( ) );
+				fieldUnvotedCategories.put( item.getId( ), categoryKey );
+				}
+			}
+		LOG.debug( "Loaded " + items.size( ) + " unvoted item ids in category '" + categoryKey + "'." );
+
+	} // loadUnvoted
+
+
+	/**
+	 * Loads the ids of a category's unvoted items on the views' thread, unless they were loaded while waiting to.
+	 */
+	private void loadUnvotedOnce( String categoryKey )
+	{
+		synchronized ( this )
+			{
+			if ( fieldUnvotedIds.containsKey( categoryKey ) )
+				return;
+			}
+
+		loadUnvoted( categoryKey );
+
+	} // loadUnvotedOnce
+
+
+	/**
+	 * (Re)loads the voted items (and their tallies) on the views' thread.
+	 */
+	private void loadVoted( )
+	{
+		QueryBuilder builder = new QueryBuilder( and( eq( DbUtils.FIELD_TYPE, ResearchItem.DATABASE_TYPE ),
+				or( gt( "yesVotes", 0 ), gt( "noVotes", 0 ) ) ) );
+		List<ResearchItem> items = new DbQueryPager<>( fieldDatabase, builder.build( ), ResearchItem.class,
+				Constants.QUERY_PAGE_SIZE ).readAll( );
+
+		synchronized ( this )
+			{
+			for ( ResearchItem item : fieldVotedItems.values( ) )
+				fieldSummary.removeResearchItem( item );
+			fieldVotedItems.clear( );
+			fieldVotedLoaded = true;
+			for ( ResearchItem item : items )
+				add( item );
+			}
+		LOG.debug( "Loaded " + items.size( ) + " voted items." );
+
+	} // loadVoted
+
+
+	/**
+	 * Loads the voted items on the views' thread, unless they were loaded while waiting to.
+	 */
+	private void loadVotedOnce( )
+	{
+		synchronized ( this )
+			{
+			if ( fieldVotedLoaded )
+				return;
+			}
+
+		loadVoted( );
+
+	} // loadVotedOnce
+
+
+	/**
+	 * @return true: the views are kept from the changed documents themselves.
+	 */
+	@Override
+	public boolean needsDocs( )
+	{
+		return true;
+
+	} // needsDocs
+
+
+	@Override
+	public void onChange( ChangesResult.Row change )
+	{
+		// Only research items figure in the views. (A deleted document is marked deleted, but has no type left.)
+		JsonObject doc = change.getDoc( );
+		JsonElement type = ( doc == null ) ? null : doc.get( DbUtils.FIELD_TYPE );
+		if ( doc == null || ( !change.isDeleted( ) && ( type == null || !type.isJsonPrimitive( )
+				|| !ResearchItem.DATABASE_TYPE.equals( type.getAsString( ) ) ) ) )
+			return;
+
+		fieldExecutor.execute( ( ) -> applyChange( change ) );
+
+	} // onChange
+
+
+	@Override
+	public void onFollowing( )
+	{
+		// Whatever changed while we weren't following went unreported, so load the views again if they're loaded.
+		fieldExecutor.execute( this::reload );
+
+	} // onFollowing
+
+
+	/**
+	 * Lets the UI know the views have changed, unless it's about to be told already.
+	 */
+	private void postChanged( )
+	{
+		if ( fieldChangePosted.compareAndSet( false, true ) )
+			{
+			Platform.runLater( ( ) ->
+				{
+				fieldChangePosted.set( false );
+				fieldEventBus.post( new AppraisalViewsChangedEvent( ) );
+				} );
+			}
+
+	} // postChanged
+
+
+	/**
+	 * Reloads whichever of the views are loaded, on the views' thread.
+	 */
+	private void reload( )
+	{
+		boolean votedLoaded;
+		List<String> categoryKeys;
+		synchronized ( this )
+			{
+			votedLoaded = fieldVotedLoaded;
+			categoryKeys = new ArrayList<>( fieldUnvotedIds.keySet( ) );
+			}
+
+		try
+			{
+			for ( String categoryKey : categoryKeys )
+				loadUnvoted( categoryKey );
+			if ( votedLoaded )
+				loadVoted( );
+			}
+		catch ( RuntimeException exception )
+			{
+			// They'll be loaded again when following restarts.
+			LOG.error( "Failed to reload the appraisal views.", exception );
+			}
+
+		if ( votedLoaded )
+			postChanged( );
+
+	} // reload
+
+
+	/**
+	 * Removes an item from the views, if they hold it.
+	 * 
+	 * @return whether it was removed from the voted items.
+	 */
+	private boolean remove( String id )
+	{
+		String categoryKey = fieldUnvotedCategories.remove( id );
+		if ( categoryKey != null )
+			fieldUnvotedIds.get( categoryKey ).remove( id );
+
+		ResearchItem item = fieldVotedItems.remove( id );
+		if ( item == null )
+			return false;
+
+		fieldSummary.removeResearchItem( item );
+
+		return true;
+
+	} // remove
+
+}
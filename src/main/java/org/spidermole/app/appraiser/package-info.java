@@ -1,9 +1,9 @@
-/*
- * package-info.java
- * 
- * Created: Oct 07, 2020
- */
-/**
- * @author David Schmidt (dschmidt13@gmail.com)
- */
-package org.spidermole.app.appraiser;
+/*
+ * package-info.java
+ * 
+ * Created: Oct 07, 2020
+ */
+/**
+ * @author David Schmidt (dschmidt13@gmail.com)
+ */
+package org.spidermole.app.appraiser;
@@ -0,0 +1,275 @@
+/*
+ * DbChangesFollower.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.db;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.app.Constants;
+import org.spidermole.util.DbUtils;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.ChangesResult;
+import com.cloudant.http.Http;
+import com.cloudant.http.HttpConnection;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * DbChangesFollower follows the database's {@code _changes} feed on a background thread, and tells its
+ * {@link Listener}s about each change as it happens, so that whatever is kept in memory about the database's contents
+ * can be kept current without asking the database again.
+ * <p>
+ * Only changes to documents of the types given (and deletions, since a deleted document has no type left) are
+ * reported; the database filters out the rest with a {@code _selector}. Each change comes with the document as changed
+ * (or as deleted) only if a listener {@link Listener#needsDocs() needs it}, since that means reading every changed
+ * document in full.
+ * <p>
+ * If the feed is lost (say, the database restarts), the follower reconnects after a short delay and picks up where it
+ * left off. Listeners are told each time following (re)starts, since they can't know what changed before then, and
+ * should only trust what they hold about the database while the follower {@link #isFollowing() is following}.
+ */
+public class DbChangesFollower implements Closeable
+{
+	/**
+	 * Listener is told about each change to the database, on the follower's thread, in the order they were made.
+	 */
+	public interface Listener
+	{
+		/**
+		 * @return whether changes should {@link ChangesResult.Row#getDoc() come with} the document as changed.
+		 */
+		default boolean needsDocs( )
+		{
+			return false;
+
+		} // needsDocs
+
+
+		/**
+		 * Called for each change to a document of the types followed (or deletion of any document). The change comes
+		 * with the document if any listener {@link #needsDocs() needs it}.
+		 */
+		void onChange( ChangesResult.Row change );
+
+
+		/**
+		 * Called each time following (re)starts. Changes made before then (while not following) won't be reported, so
+		 * anything held about the database from before then may be stale.
+		 */
+		void onFollowing( );
+
+	} // interface Listener
+
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( DbChangesFollower.class );
+
+	// Data members.
+	private final CloudantClient fieldClient;
+	private final Database fieldDatabase;
+	private final String fieldSelector;
+	private final List<Listener> fieldListeners = new CopyOnWriteArrayList<>( );
+	private Thread fieldThread;
+	private volatile HttpConnection fieldConnection;
+	private volatile boolean fieldFollowing;
+	private volatile boolean fieldClosed;
+
+	/**
+	 * @param client the client the database was opened with.
+	 * @param database the database whose changes to follow.
+	 * @param types the types of the documents whose changes to follow (see {@link DbUtils#FIELD_TYPE}).
+	 */
+	public DbChangesFollower( CloudantClient client, Database database, String... types )
+	{
+		fieldClient = Objects.requireNonNull( client, "A client is required to follow the database's changes." );
+		fieldDatabase = Objects.requireNonNull( database, "A database is required to follow its changes." );
+		fieldSelector = selectorFor( types );
+
+	} // DbChangesFollower
+
+
+	/**
+	 * @return the body of a {@code _selector} filter matching documents of the given types, or deleted documents.
+	 */
+	private static String selectorFor( String... types )
+	{
+		JsonArray typeList = new JsonArray( );
+		for ( String type : types )
+			typeList.add( type );
+		JsonObject typeIn = new JsonObject( );
+		typeIn.add( "$in", typeList );
+		JsonObject typeMatch = new JsonObject( );
+		typeMatch.add( DbUtils.FIELD_TYPE, typeIn );
+		JsonObject deletedMatch = new JsonObject( );
+		deletedMatch.addProperty( "_deleted", Boolean.TRUE );
+		JsonArray either = new JsonArray( );
+		either.add( typeMatch );
+		either.add( deletedMatch );
+
+		JsonObject selector = new JsonObject( );
+		selector.add( "$or", either );
+		JsonObject body = new JsonObject( );
+		body.add( "selector", selector );
+
+		return body.toString( );
+
+	} // selectorFor
+
+
+	/**
+	 * Adds a listener. Listeners should be added before the follower is {@link #start() started}.
+	 */
+	public void addListener( Listener listener )
+	{
+		fieldListeners.add( listener );
+
+	} // addListener
+
+
+	/**
+	 * @return the URI of the continuous feed of changes since the given sequence, filtered by the selector.
+	 */
+	private URI changesUri( String since )
+	{
+		boolean includeDocs = false;
+		for ( Listener listener : fieldListeners )
+			includeDocs |= listener.needsDocs( );
+
+		String databaseUri = fieldDatabase.getDBUri( ).toString( );
+		return URI.create( databaseUri + ( databaseUri.endsWith( "/" ) ? "" : "/" )
+				+ "_changes?feed=continuous&filter=_selector&heartbeat=" + Constants.DATABASE_CHANGES_HEARTBEAT_MILLIS
+				+ "&include_docs=" + includeDocs + "&since=" + URLEncoder.encode( since, StandardCharsets.UTF_8 ) );
+
+	} // changesUri
+
+
+	/**
+	 * Stops following, and waits (briefly) for the follower's thread to finish.
+	 */
+	@Override
+	public void close( )
+	{
+		fieldClosed = true;
+		fieldFollowing = false;
+		HttpConnection connection = fieldConnection;
+		if ( connection != null )
+			connection.disconnect( );
+
+		if ( fieldThread != null )
+			{
+			fieldThread.interrupt( );
+			try
+				{
+				fieldThread.join( Constants.DATABASE_CHANGES_RETRY_DELAY_MILLIS );
+				}
+			catch ( InterruptedException exception )
+				{
+				Thread.currentThread( ).interrupt( );
+				}
+			}
+
+	} // close
+
+
+	/**
+	 * Follows the feed until closed, reconnecting whenever it is lost.
+	 */
+	private void follow( )
+	{
+		// Changes made before we start are already reflected in whatever the listeners load afterwards.
+		String since = "now";
+		while ( !fieldClosed )
+			{
+			try
+				{
+				// The selector has to be POSTed, which the client's own changes feed can't do.
+				fieldConnection = fieldClient.executeRequest( Http.POST( changesUri( since ), "application/json" )
+						.setRequestBody( fieldSelector ) );
+				try ( BufferedReader reader = new BufferedReader( new InputStreamReader(
+						fieldConnection.responseAsInputStream( ), StandardCharsets.UTF_8 ) ) )
+					{
+					fieldFollowing = true;
+					LOG.debug( "Following database changes since '" + since + "'." );
+					for ( Listener listener : fieldListeners )
+						listener.onFollowing( );
+
+					for ( String line = reader.readLine( ); !fieldClosed && line != null; line = reader.readLine( ) )
+						{
+						// Blank lines are heartbeats. The last sequence only comes if the feed ends.
+						if ( line.isEmpty( ) )
+							continue;
+						JsonObject row = fieldClient.getGson( ).fromJson( line, JsonObject.class );
+						if ( row.has( "last_seq" ) )
+							break;
+
+						ChangesResult.Row change = fieldClient.getGson( ).fromJson( row, ChangesResult.Row.class );
+						for ( Listener listener : fieldListeners )
+							listener.onChange( change );
+						since = change.getSeq( );
+						}
+					}
+				}
+			catch ( IOException | RuntimeException exception )
+				{
+				if ( !fieldClosed )
+					LOG.warn( "Lost the database changes feed. Retrying in "
+							+ Constants.DATABASE_CHANGES_RETRY_DELAY_MILLIS + "ms.", exception );
+				}
+			finally
+				{
+				fieldFollowing = false;
+				HttpConnection connection = fieldConnection;
+				if ( connection != null )
+					connection.disconnect( );
+				}
+
+			try
+				{
+				if ( !fieldClosed )
+					Thread.sleep( Constants.DATABASE_CHANGES_RETRY_DELAY_MILLIS );
+				}
+			catch ( InterruptedException exception )
+				{
+				// Only done on close.
+				}
+			}
+
+	} // follow
+
+
+	/**
+	 * @return whether the feed is currently being followed, so that every change made since is reported.
+	 */
+	public boolean isFollowing( )
+	{
+		return fieldFollowing;
+
+	} // isFollowing
+
+
+	/**
+	 * Starts following the feed on a background thread.
+	 */
+	public void start( )
+	{
+		fieldThread = new Thread( this::follow, "db-changes" );
+		fieldThread.setDaemon( true );
+		fieldThread.start( );
+
+	} // start
+
+}
@@ -0,0 +1,207 @@
+/*
+ * DbQueryCache.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.db;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.app.Constants;
+import org.spidermole.model.ResearchItem;
+import org.spidermole.util.DbUtils;
+
+import com.cloudant.client.api.model.ChangesResult;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * DbQueryCache holds the results of recent queries (see {@link DbQueryPager#setCache(DbQueryCache)}), keyed by the
+ * query itself, so that running the same query again gives back the same results at once rather than asking the
+ * database again. If the same query is asked for again while it is still running, the second caller waits for (and
+ * shares) the first one's results rather than running it again.
+ * <p>
+ * Results are only cached while a {@link DbChangesFollower} is following the database's changes, and every change to a
+ * research item clears the cache: a query's selector can't be matched against a changed document here, so there's no
+ * telling which results it affects. (Results that were being loaded as a change came in aren't kept either.) Changes
+ * to other documents, such as crawl checkpoints, leave it be. The cache is bounded by the rough size of the results it
+ * holds (their number of documents, at {@link Constants#QUERY_CACHE_ITEM_BYTES} each), dropping the least recently
+ * used results to make room.
+ * <p>
+ * A caller whose load is cancelled gets the cancellation, but any other caller waiting for (and sharing) that load
+ * just loads the results again itself.
+ */
+public class DbQueryCache implements DbChangesFollower.Listener
+{
+	/**
+	 * A query's results, and the generation of the database they were loaded from.
+	 */
+	private static class Entry
+	{
+		// Data members.
+		private final long fieldGeneration;
+		private final Object fieldResults;
+		private final int fieldWeight;
+
+		private Entry( long generation, Object results, int weight )
+		{
+			fieldGeneration = generation;
+			fieldResults = results;
+			fieldWeight = weight;
+
+		} // Entry
+
+	} // class Entry
+
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( DbQueryCache.class );
+
+	// Data members.
+	private final DbChangesFollower fieldFollower;
+	private final Cache<String, Entry> fieldCache;
+
+	/**
+	 * Counts the changes seen. Results are only good for the generation they were loaded in.
+	 */
+	private final AtomicLong fieldGeneration = new AtomicLong( );
+
+	/**
+	 * @param follower the follower of the database's changes, which the cache should be added to as a listener.
+	 * @param maxBytes roughly how much memory the cached results may take up.
+	 */
+	public DbQueryCache( DbChangesFollower follower, long maxBytes )
+	{
+		fieldFollower = Objects.requireNonNull( follower, "A changes follower is required to keep the cache current." );
+		fieldCache = CacheBuilder.newBuilder( ).maximumWeight( maxBytes )
+				.weigher( ( String key, Entry entry ) -> entry.fieldWeight ).build( );
+
+	} // DbQueryCache
+
+
+	/**
+	 * Gets the results of a query, from the cache if they're there and current, or else by loading them (and caching
+	 * them, if they're still current when loaded).
+	 * 
+	 * @param queryString the query, as sent to the database.
+	 * @param resultType the type of the documents queried for.
+	 * @param loader runs the query. If the same query is already being loaded, it isn't called.
+	 * @param itemCount counts the documents in the results, to weigh them by.
+	 * @return the results, which are shared by everyone who asks for them, so mustn't be modified.
+	 * @throws Exception anything thrown by the loader.
+	 */
+	public <V> V get( String queryString, Class<?> resultType, Callable<V> loader, ToIntFunction<? super V> itemCount )
+			throws Exception
+	{
+		// Without the changes feed, there'd be no telling when the results go stale.
+		if ( !fieldFollower.isFollowing( ) )
+			return loader.call( );
+
+		String key = resultType.getName( ) + " " + queryString;
+		long requested = fieldGeneration.get( );
+		while ( true )
+			{
+			long generation = fieldGeneration.get( );
+			AtomicBoolean loading = new AtomicBoolean( );
+			Entry entry;
+			try
+				{
+				entry = fieldCache.get( key, ( ) ->
+					{
+					loading.set( true );
+					return load( generation, loader, itemCount );
+					} );
+				}
+			catch ( ExecutionException | UncheckedExecutionException | ExecutionError exception )
+				{
+				// Someone else's load was cancelled. That's no reason for us to give up; the failed load isn't kept, so
+				// try again (and most likely load it ourselves).
+				Throwable cause = exception.getCause( );
+				if ( !loading.get( ) && ( cause instanceof CancellationException
+						|| cause instanceof InterruptedException ) )
+					continue;
+
+				if ( cause instanceof Exception )
+					throw ( Exception ) cause;
+				if ( cause instanceof Error )
+					throw ( Error ) cause;
+				throw exception;
+				}
+
+			// Note: Only results of this type are ever cached under this key.
+			@SuppressWarnings( "unchecked" )
+			V results = ( V ) entry.fieldResults;
+			if ( entry.fieldGeneration == fieldGeneration.get( ) )
+				return results;
+
+			// Changed since they were loaded, so they can't stay. They're still as current as running the query
+			// ourselves would have been if loaded since we were asked, though (which, while the database is busy
+			// changing, keeps us from loading again and again).
+			fieldCache.asMap( ).remove( key, entry );
+			if ( entry.fieldGeneration >= requested )
+				return results;
+			}
+
+	} // get
+
+
+	/**
+	 * Clears the cache.
+	 */
+	public void invalidateAll( )
+	{
+		fieldGeneration.incrementAndGet( );
+		fieldCache.invalidateAll( );
+
+	} // invalidateAll
+
+
+	private <V> Entry load( long generation, Callable<V> loader, ToIntFunction<? super V> itemCount ) throws Exception
+	{
+		V results = loader.call( );
+
+		// A rough measure of the results' size in memory, without walking them.
+		long weight = ( long ) itemCount.applyAsInt( results ) * Constants.QUERY_CACHE_ITEM_BYTES;
+		LOG.debug( "Cached query results (about " + weight / 1024 + "KB)." );
+
+		return new Entry( generation, results, ( int ) Math.min( weight, Integer.MAX_VALUE ) );
+
+	} // load
+
+
+	@Override
+	public void onChange( ChangesResult.Row change )
+	{
+		// Only research items are queried through the cache. (A deleted document is marked deleted, but has no type
+		// left, so there's no telling what it was.)
+		JsonObject doc = change.getDoc( );
+		JsonElement type = ( doc == null ) ? null : doc.get( DbUtils.FIELD_TYPE );
+		if ( doc != null && !change.isDeleted( ) && type != null && type.isJsonPrimitive( )
+				&& !ResearchItem.DATABASE_TYPE.equals( type.getAsString( ) ) )
+			return;
+
+		invalidateAll( );
+
+	} // onChange
+
+
+	@Override
+	public void onFollowing( )
+	{
+		// Whatever changed while we weren't following went unreported.
+		invalidateAll( );
+
+	} // onFollowing
+
+}
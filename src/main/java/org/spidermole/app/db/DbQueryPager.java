@@ -0,0 +1,191 @@
+/*
+ * DbQueryPager.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.query.QueryResult;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * DbQueryPager runs a query a page at a time, each page continuing from the {@code bookmark} of the one before, until
+ * the results run out (or reach the query's own limit, if it has one, which caps the results as a whole rather than
+ * any one page). It runs on the caller's thread, and isn't safe for use by more than one thread at a time.
+ * <p>
+ * If a {@link #setCache(DbQueryCache) cache} is set, each page is taken from it when it's there, and kept in it
+ * otherwise. Pages are cached one by one (each page's query carries the bookmark it starts from), so the first page of
+ * a long query comes back just as quickly whether or not the rest are cached, and only the pages read are kept.
+ */
+public class DbQueryPager<T>
+{
+	/**
+	 * A page of results, and the bookmark to continue from after it.
+	 */
+	private static class Page<T>
+	{
+		// Data members.
+		private final List<T> fieldDocs;
+		private final String fieldBookmark;
+
+		private Page( List<T> docs, String bookmark )
+		{
+			fieldDocs = docs;
+			fieldBookmark = bookmark;
+
+		} // Page
+
+	} // class Page
+
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( DbQueryPager.class );
+
+	// Data members.
+	private final Database fieldDatabase;
+	private final Class<T> fieldResultType;
+	private final JsonObject fieldQuery;
+	private final int fieldPageSize;
+	private final int fieldLimit;
+	private DbQueryCache fieldCache;
+	private int fieldResultCount;
+	private String fieldBookmark;
+	private boolean fieldDone;
+
+	/**
+	 * @param database the database to query.
+	 * @param queryString the query, as built by a {@link com.cloudant.client.api.query.QueryBuilder}.
+	 * @param resultType the type of the documents queried for.
+	 * @param pageSize the number of results to request at a time, or 0 to request them all at once.
+	 */
+	public DbQueryPager( Database database, String queryString, Class<T> resultType, int pageSize )
+	{
+		fieldDatabase = database;
+		fieldResultType = resultType;
+		fieldQuery = JsonParser.parseString( queryString ).getAsJsonObject( );
+		fieldPageSize = pageSize;
+		fieldLimit = fieldQuery.has( "limit" ) ? fieldQuery.get( "limit" ).getAsInt( ) : Integer.MAX_VALUE;
+
+	} // DbQueryPager
+
+
+	/**
+	 * @return the next page of results (which may not be modified), or null once there are no more.
+	 */
+	public List<T> nextPage( )
+	{
+		if ( fieldDone || fieldResultCount >= fieldLimit )
+			return null;
+
+		// Unpaged, the query is run just as it is.
+		if ( fieldPageSize <= 0 )
+			{
+			fieldDone = true;
+			return fetch( fieldQuery.toString( ) ).fieldDocs;
+			}
+
+		int requested = Math.min( fieldPageSize, fieldLimit - fieldResultCount );
+		fieldQuery.addProperty( "limit", Integer.valueOf( requested ) );
+		if ( fieldBookmark != null )
+			fieldQuery.addProperty( "bookmark", fieldBookmark );
+
+		Page<T> page = fetch( fieldQuery.toString( ) );
+		List<T> docs = page.fieldDocs;
+		fieldResultCount += docs.size( );
+
+		// A short page is the last one. (The bookmark of the last page is never null, so it can't tell us.)
+		if ( docs.size( ) < requested || page.fieldBookmark == null || page.fieldBookmark.equals( fieldBookmark ) )
+			fieldDone = true;
+		fieldBookmark = page.fieldBookmark;
+
+		return docs;
+
+	} // nextPage
+
+
+	/**
+	 * Gets a single page, from the cache if there is one.
+	 */
+	private Page<T> fetch( String queryString )
+	{
+		if ( fieldCache == null )
+			return query( queryString );
+
+		try
+			{
+			return fieldCache.get( queryString, fieldResultType, ( ) -> query( queryString ),
+					( page ) -> page.fieldDocs.size( ) );
+			}
+		catch ( RuntimeException exception )
+			{
+			throw exception;
+			}
+		catch ( Exception exception )
+			{
+			// Not thrown by the query itself, which throws nothing checked.
+			throw new IllegalStateException( "Query '" + queryString + "' failed.", exception );
+			}
+
+	} // fetch
+
+
+	/**
+	 * Runs a single query, logging any warning and the execution stats (if requested) that come back with it.
+	 */
+	private Page<T> query( String queryString )
+	{
+		QueryResult<T> queryResult = fieldDatabase.query( queryString, fieldResultType );
+
+		// Log results.
+		if ( queryResult.getWarning( ) != null )
+			LOG.warn( "Query '" + queryString + "' returned warning: " + queryResult.getWarning( ) );
+
+		if ( queryResult.getExecutionStats( ) != null )
+			{
+			LOG.debug( "Query '" + queryString + "' returned " + queryResult.getExecutionStats( ).getResultsReturned( )
+					+ " docs in " + queryResult.getExecutionStats( ).getExecutionTimeMs( ) + "ms. ("
+					+ queryResult.getExecutionStats( ).getTotalDocsExamined( ) + " docs examined; "
+					+ queryResult.getExecutionStats( ).getTotalKeysExamined( ) + " keys examined; "
+					+ queryResult.getExecutionStats( ).getTotalQuorumDocsExamined( )
+					+ " total quorum docs examined.)" );
+			}
+
+		return new Page<>( Collections.unmodifiableList( queryResult.getDocs( ) ), queryResult.getBookmark( ) );
+
+	} // query
+
+
+	/**
+	 * @return every remaining result.
+	 */
+	public List<T> readAll( )
+	{
+		List<T> results = new ArrayList<>( );
+		for ( List<T> page = nextPage( ); page != null; page = nextPage( ) )
+			results.addAll( page );
+
+		return results;
+
+	} // readAll
+
+
+	/**
+	 * @param cache the cache to get pages from (and keep them in), or null to always run the query. The results are
+	 *            then shared with everyone else reading the same pages, so mustn't be modified (not even the documents
+	 *            themselves).
+	 */
+	public void setCache( DbQueryCache cache )
+	{
+		fieldCache = cache;
+
+	} // setCache
+
+}
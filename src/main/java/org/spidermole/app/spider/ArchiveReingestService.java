@@ -0,0 +1,255 @@
+/*
+ * ArchiveReingestService.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.model.ResearchItem;
+import org.spidermole.util.ExecutorUtils;
+
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+/**
+ * ArchiveReingestService replays every response recorded in a {@link CrawlArchive} through the
+ * {@link CrawlCorrespondent} for its site, and hands the extracted items to ingest (see {@link IngestPublisher}),
+ * just as a crawl would. Re-extracted items replace stored documents of the same version (see
+ * {@link ResearchItem#isReingested()}), so a change to a correspondent's field mapping can be applied to everything
+ * already crawled without touching the network.
+ * <p>
+ * Crawls only record into the archive on request, so if a {@link CrawlResponseCache} is given, the pages it holds
+ * that weren't found in the archive are replayed afterwards too.
+ * <p>
+ * Segments (and then cached pages) are replayed in parallel, one per available processor. A segment that turns out to
+ * be corrupt is replayed as far as it can be read, and the rest of it is skipped (and logged); so is a response that
+ * can't be read or extracted. Neither stops the re-ingest. The value returned is the number of items re-extracted.
+ */
+public class ArchiveReingestService extends Service<Integer>
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( ArchiveReingestService.class );
+
+	// Data members.
+	private final CrawlCorrespondentRegistry fieldCorrespondents;
+	private final CrawlArchive fieldArchive;
+	private final CrawlResponseCache fieldResponseCache;
+	private final ResearchItemSink fieldIngest;
+
+	/**
+	 * @param responseCache the cache of crawled pages to replay as well, or null to replay only the archive.
+	 */
+	public ArchiveReingestService( CrawlCorrespondentRegistry correspondents, CrawlArchive archive,
+			CrawlResponseCache responseCache, ResearchItemSink ingest )
+	{
+		Objects.requireNonNull( correspondents, "A registry of crawl correspondents is required." );
+		Objects.requireNonNull( archive, "An archive to replay is required." );
+		Objects.requireNonNull( ingest, "A sink to accept re-extracted documents is required." );
+
+		fieldCorrespondents = correspondents;
+		fieldArchive = archive;
+		fieldResponseCache = responseCache;
+		fieldIngest = ingest;
+
+	} // ArchiveReingestService
+
+
+	@Override
+	protected Task<Integer> createTask( )
+	{
+		return new Task<>( )
+		{
+			private final AtomicInteger fieldItems = new AtomicInteger( );
+			private final AtomicInteger fieldRecords = new AtomicInteger( );
+			private final AtomicInteger fieldSegmentsDone = new AtomicInteger( );
+			private final AtomicInteger fieldSegmentsCorrupt = new AtomicInteger( );
+
+			/**
+			 * The URIs replayed from the archive, which needn't be replayed again from the cache.
+			 */
+			private final Set<URI> fieldArchived = ConcurrentHashMap.newKeySet( );
+
+			@Override
+			protected Integer call( ) throws Exception
+			{
+				List<Path> segments = fieldArchive.segments( );
+				LOG.info( "Re-ingesting " + segments.size( ) + " crawl archive segments." );
+
+				// Threads are only started as tasks are submitted, so a small archive doesn't start them all.
+				ExecutorService executor = Executors
+						.newFixedThreadPool( Math.max( 1, Runtime.getRuntime( ).availableProcessors( ) ) );
+				try
+					{
+					List<Future<Void>> futures = new ArrayList<>( segments.size( ) );
+					for ( Path segment : segments )
+						futures.add( executor.submit( ( ) -> replaySegment( segment, segments.size( ) ) ) );
+					awaitAll( futures );
+
+					LOG.info( "Re-ingested " + fieldItems.get( ) + " items from " + fieldRecords.get( )
+							+ " archived responses." );
+					if ( fieldSegmentsCorrupt.get( ) > 0 )
+						{
+						LOG.warn( fieldSegmentsCorrupt.get( ) + " of " + segments.size( )
+								+ " archive segments were corrupt, and only partly re-ingested." );
+						}
+
+					if ( fieldResponseCache != null )
+						replayCache( executor );
+
+					return Integer.valueOf( fieldItems.get( ) );
+					}
+				finally
+					{
+					// Interrupts any segments still being replayed if we failed or were cancelled, and waits for them
+					// to stop, so that nothing is published once the re-ingest has returned.
+					executor.shutdownNow( );
+					ExecutorUtils.awaitTermination( executor );
+					}
+
+			} // call
+
+
+			/**
+			 * Waits for every task, surfacing the first failure, if any.
+			 */
+			private void awaitAll( List<Future<Void>> futures ) throws Exception
+			{
+				for ( Future<Void> future : futures )
+					future.get( );
+
+			} // awaitAll
+
+
+			private void replay( URI uri, byte[] body ) throws InterruptedException
+			{
+				fieldRecords.incrementAndGet( );
+
+				CrawlCorrespondent correspondent = fieldCorrespondents.forUri( uri );
+				if ( correspondent == null )
+					{
+					LOG.warn( "No known correspondent for archived response from '" + uri + "'. Skipping it." );
+					return;
+					}
+
+				try ( InputStream responseBody = new ByteArrayInputStream( body ) )
+					{
+					CrawlPageSummary summary = correspondent.extractResearchItems( responseBody,
+							ArchiveReingestService.this::reingest );
+					fieldItems.addAndGet( summary.getItemCount( ) );
+					}
+				catch ( IOException exception )
+					{
+					LOG.warn( "Unable to extract the archived response from '" + uri + "'. Skipping it.", exception );
+					}
+
+			} // replay
+
+
+			/**
+			 * Replays the cached pages that weren't in the archive.
+			 */
+			private void replayCache( ExecutorService executor ) throws Exception
+			{
+				List<URI> uris = new ArrayList<>( );
+				for ( URI uri : fieldResponseCache.uris( ) )
+					if ( !fieldArchived.contains( uri ) )
+						uris.add( uri );
+				LOG.info( "Re-ingesting " + uris.size( ) + " cached responses that weren't archived." );
+
+				int itemsBefore = fieldItems.get( );
+				AtomicInteger done = new AtomicInteger( );
+				List<Future<Void>> futures = new ArrayList<>( uris.size( ) );
+				for ( URI uri : uris )
+					{
+					futures.add( executor.submit( ( ) ->
+						{
+						replayCached( uri );
+						int pages = done.incrementAndGet( );
+						updateProgress( pages, uris.size( ) );
+						updateMessage( "Re-ingested " + pages + " of " + uris.size( ) + " cached responses." );
+						return null;
+						} ) );
+					}
+				awaitAll( futures );
+
+				LOG.info( "Re-ingested " + ( fieldItems.get( ) - itemsBefore ) + " items from " + uris.size( )
+						+ " cached responses." );
+
+			} // replayCache
+
+
+			private void replayCached( URI uri ) throws InterruptedException
+			{
+				byte[] body;
+				try
+					{
+					body = fieldResponseCache.readBody( uri );
+					}
+				catch ( IOException exception )
+					{
+					LOG.warn( "Unable to read the cached response from '" + uri + "'. Skipping it.", exception );
+					return;
+					}
+
+				// Null if it has been evicted since.
+				if ( body != null )
+					replay( uri, body );
+
+			} // replayCached
+
+
+			private Void replaySegment( Path segment, int segmentCount ) throws InterruptedException
+			{
+				try
+					{
+					CrawlArchive.readSegment( segment, ( uri, body ) ->
+						{
+						fieldArchived.add( uri );
+						replay( uri, body );
+						} );
+					}
+				catch ( IOException exception )
+					{
+					// Whatever could be read has been replayed. The rest of the segment is lost either way.
+					fieldSegmentsCorrupt.incrementAndGet( );
+					LOG.error( "Archive segment '" + segment + "' is corrupt. Skipping the rest of it.", exception );
+					}
+
+				int done = fieldSegmentsDone.incrementAndGet( );
+				updateProgress( done, segmentCount );
+				updateMessage( "Re-ingested " + done + " of " + segmentCount + " archive segments." );
+
+				return null;
+
+			} // replaySegment
+
+		};
+
+	} // createTask
+
+
+	private void reingest( ResearchItem item ) throws InterruptedException
+	{
+		item.setReingested( true );
+		fieldIngest.accept( item );
+
+	} // reingest
+
+}
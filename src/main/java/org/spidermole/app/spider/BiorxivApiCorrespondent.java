@@ -1,184 +1,476 @@
-/*
- * BiorxivApiCorrespondent.java
- * 
- * Created: Oct 15, 2020
- */
-package org.spidermole.app.spider;
-
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Date;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.spidermole.model.ResearchItem;
-
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-
-/**
- * BiorxivApiCorrespondent implements {@link CrawlCorrespondent} for some {@code api.biorxiv.org} requests.
- * <p>
- * <b>Please note:</b> This correspondent only supports the first "Content Detail" endpoint, i.e.
- * {@code https://api.biorxiv.org/details/[server]/[interval]/[cursor]/[format]}.
- * 
- * @author David Schmidt (dschmidt13@gmail.com)
- */
-public class BiorxivApiCorrespondent implements CrawlCorrespondent
-{
-	// Class constants.
-	private static final Logger LOG = LogManager.getLogger( BiorxivApiCorrespondent.class );
-
-	public static final String DOMAIN_HOST = "api.biorxiv.org";
-
-	/**
-	 * Expression: <pre><code>
-	 * ^https://api\.biorxiv\.org/details/biorxiv/(?:(?:(\d{4}-\d{2}-\d{2})/(\d{4}-\d{2}-\d{2}))|(\d+))/(\d+)$
-	 * </code></pre> Groups:
-	 * <ol>
-	 * <li>yyyy-MM-dd formatted date declaring the beginning of the search range. May be absent.
-	 * <li>yyyy-MM-dd formatted date declaring the end of the search range. Will be present when Group 1 is present.
-	 * <li>Integer indicating the position offset into the data set. This will only be present when groups 1 and 2 are
-	 * absent.
-	 * <li>Integer indicating the cursor, i.e. offset value of the requested data.
-	 * </ol>
-	 * <p>
-	 */
-	private static final Pattern PAGE_URI_PATTERN = Pattern.compile(
-			"^https://api\\.biorxiv\\.org/details/biorxiv/(?:(?:(\\d{4}-\\d{2}-\\d{2})/(\\d{4}-\\d{2}-\\d{2}))|(\\d+))/(\\d+)$" );
-
-	public BiorxivApiCorrespondent( )
-	{
-	} // BiorxivApiCorrespondent
-
-
-	@Override
-	public List<ResearchItem> extractResearchItems( String responseBody )
-	{
-		final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat( "yyyy-MM-dd" );
-
-		List<ResearchItem> items = new ArrayList<>( );
-
-		JsonObject root = JsonParser.parseString( responseBody ).getAsJsonObject( );
-		JsonArray docs = root.getAsJsonArray( "collection" );
-
-		// Create and populate each ResearchItem instance.
-		// NOTE: This defines the mapping between biorxiv data fields and our own internal db fields.
-		for ( JsonElement docElement : docs )
-			{
-			JsonObject doc = docElement.getAsJsonObject( );
-			ResearchItem item = new ResearchItem( );
-			item.setCreateDate( new Date( ) );
-
-			try
-				{
-				// Call these the "minimum criteria" for saving the item.
-				item.setDOI( doc.get( "doi" ).getAsString( ).trim( ) );
-				item.setTitle( doc.get( "title" ).getAsString( ).trim( ) );
-				item.setAuthors( Arrays.asList( doc.get( "authors" ).getAsString( ).trim( ).split( ";" ) ) );
-				item.setCategory( doc.get( "category" ).getAsString( ).trim( ) );
-
-				// Now it's qualified to be in the database. If anything goes wrong from here, it's not a big deal.
-				items.add( item );
-
-				// These are extras.
-				if ( doc.has( "author_corresponding" ) )
-					item.setAuthorCorresponding( doc.get( "author_corresponding" ).getAsString( ).trim( ) );
-				if ( doc.has( "author_corresponding_institution" ) )
-					item.setAuthorCorrespondingInstitution(
-							doc.get( "author_corresponding_institution" ).getAsString( ).trim( ) );
-				if ( doc.has( "version" ) )
-					item.setVersion( doc.get( "version" ).getAsInt( ) );
-				if ( doc.has( "published" ) )
-					item.setPublicationDetail( doc.get( "published" ).getAsString( ).trim( ) );
-				if ( doc.has( "abstract" ) )
-					item.setAbstract( doc.get( "abstract" ).getAsString( ).trim( ) );
-				}
-			catch ( Exception exception )
-				{
-				LOG.error( "A document from '" + DOMAIN_HOST
-						+ "' may not meet the minimum criteria to be persisted. (Full document: '" + doc.getAsString( )
-						+ "'.)" );
-				}
-
-			if ( doc.has( "date" ) )
-				{
-				try
-					{
-					item.setPublicationDate( DATE_FORMAT.parse( doc.get( "date" ).getAsString( ).trim( ) ) );
-					}
-				catch ( ParseException exception )
-					{
-					// Oh well.
-					LOG.error( "Unable to parse publication date '" + doc.get( "date" ) + "' of document (doi: '"
-							+ item.getDOI( ) + "') from '" + DOMAIN_HOST + "'.", exception );
-					}
-				}
-			}
-
-		return items;
-
-	} // extractResearchItems
-
-
-	@Override
-	public int getCrawlDelaySeconds( )
-	{
-		// Defined in the general biorxiv.org robots.txt as of 2020-10-15.
-		return 7;
-
-	} // getCrawlDelaySeconds
-
-
-	@Override
-	public URI getNextPageUri( URI currentUri )
-	{
-		URI nextUri = null;
-		Matcher matcher = PAGE_URI_PATTERN.matcher( currentUri.toString( ) );
-
-		// This could be a lot better. The interface should be giving access to the previous response, but right now
-		// it's not, so we'll have to guess.
-		if ( matcher.matches( ) )
-			{
-			StringBuilder builder = new StringBuilder( );
-			builder.append( "https://api.biorxiv.org/details/biorxiv/" );
-
-			if ( matcher.group( 3 ) == null )
-				{
-				builder.append( matcher.group( 1 ) ).append( '/' );
-				builder.append( matcher.group( 2 ) ).append( '/' );
-				}
-			else
-				{
-				builder.append( matcher.group( 3 ) ).append( '/' );
-				}
-
-			// This is the important part. The rest could have been simpler (unless we want to do more with this later).
-			int cursor = Integer.parseInt( matcher.group( 4 ) );
-			builder.append( cursor + 100 );
-
-			try
-				{
-				nextUri = new URI( builder.toString( ) );
-				}
-			catch ( URISyntaxException exception )
-				{
-				// Couldn't do it. Log so we can figure out why.
-				LOG.error( "Couldn't assemble next page URI for given currentUri '" + currentUri + "'.", exception );
-				}
-			}
-
-		return nextUri;
-
-	} // getNextPageUri
-
-}
+/*
+ * BiorxivApiCorrespondent.java
+ * 
+ * Created: Oct 15, 2020
+ */
+package org.spidermole.app.spider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.app.Constants;
+import org.spidermole.model.ResearchItem;
+import org.spidermole.util.IsoDateParser;
+import org.spidermole.util.StringPool;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * BiorxivApiCorrespondent implements {@link CrawlCorrespondent} for some {@code api.biorxiv.org} requests.
+ * <p>
+ * The API serves more than one preprint server, named in its paths; this class handles bioRxiv, and subclasses (e.g.
+ * {@link MedrxivApiCorrespondent}) handle the others.
+ * <p>
+ * <b>Please note:</b> This correspondent only supports the first "Content Detail" endpoint, i.e.
+ * {@code https://api.biorxiv.org/details/[server]/[interval]/[cursor]/[format]}.
+ * <p>
+ * The API's location and crawl delay may be given at construction, to crawl a stand-in for the API (see
+ * the load test's {@code BiorxivStandInServer}) rather than the API itself.
+ * 
+ * @author David Schmidt (dschmidt13@gmail.com)
+ */
+public class BiorxivApiCorrespondent implements CrawlCorrespondent
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( BiorxivApiCorrespondent.class );
+
+	public static final String DOMAIN_HOST = "api.biorxiv.org";
+
+	/**
+	 * The location of the API itself.
+	 */
+	private static final URI API_BASE_URI = URI.create( "https://" + DOMAIN_HOST );
+
+	/**
+	 * The expression (see {@link #fieldPageUriPattern}) for the pages of a server, with {@code %s} standing in for the
+	 * API's location and then the server name.
+	 */
+	private static final String PAGE_URI_FORMAT = "^%s/details/%s/"
+			+ "(?:(?:(\\d{4}-\\d{2}-\\d{2})/(\\d{4}-\\d{2}-\\d{2}))|(\\d+))/(\\d+)$";
+
+	/**
+	 * Roughly how many items each partition of a large crawl should cover.
+	 */
+	private static final int ITEMS_PER_PARTITION = 5000;
+
+	// Data members.
+	private final String fieldServer;
+	private final LocalDate fieldArchiveStart;
+	private final String fieldApiBase;
+	private final int fieldCrawlDelaySeconds;
+	private final IsoDateParser fieldDateParser = new IsoDateParser( );
+
+	/**
+	 * Shares the values of fields that repeat across many documents (categories, institutions, author names), so that
+	 * items held in memory downstream don't each carry their own copies.
+	 */
+	private final StringPool fieldStrings = new StringPool( Constants.CRAWL_STRING_POOL_MAX_SIZE );
+
+	/**
+	 * Matches the Content Detail pages of the server. For bioRxiv: <pre><code>
+	 * ^\Qhttps://api.biorxiv.org\E/details/\Qbiorxiv\E/(?:(?:(\d{4}-\d{2}-\d{2})/(\d{4}-\d{2}-\d{2}))|(\d+))/(\d+)$
+	 * </code></pre> Groups:
+	 * <ol>
+	 * <li>yyyy-MM-dd formatted date declaring the beginning of the search range. May be absent.
+	 * <li>yyyy-MM-dd formatted date declaring the end of the search range. Will be present when Group 1 is present.
+	 * <li>Integer indicating the position offset into the data set. This will only be present when groups 1 and 2 are
+	 * absent.
+	 * <li>Integer indicating the cursor, i.e. offset value of the requested data.
+	 * </ol>
+	 * <p>
+	 */
+	private final Pattern fieldPageUriPattern;
+
+	public BiorxivApiCorrespondent( )
+	{
+		// bioRxiv didn't exist before this date, so there's no use partitioning any range before it.
+		this( "biorxiv", LocalDate.of( 2013, 11, 1 ) );
+
+	} // BiorxivApiCorrespondent
+
+
+	/**
+	 * For the other servers behind the same API.
+	 * 
+	 * @param server the server name, as it appears in the API's paths (e.g. {@code "medrxiv"}).
+	 * @param archiveStart the date the server started publishing.
+	 */
+	protected BiorxivApiCorrespondent( String server, LocalDate archiveStart )
+	{
+		// Defined in the general biorxiv.org robots.txt as of 2020-10-15.
+		this( server, archiveStart, API_BASE_URI, 7 );
+
+	} // BiorxivApiCorrespondent
+
+
+	/**
+	 * For a server behind some other instance of the API, e.g. a local stand-in.
+	 * 
+	 * @param server the server name, as it appears in the API's paths (e.g. {@code "biorxiv"}).
+	 * @param archiveStart the date the server started publishing.
+	 * @param apiBase the location of the API, e.g. {@code http://localhost:8080} (without a trailing slash).
+	 * @param crawlDelaySeconds the time to wait between requests to the API.
+	 */
+	public BiorxivApiCorrespondent( String server, LocalDate archiveStart, URI apiBase, int crawlDelaySeconds )
+	{
+		fieldServer = server;
+		fieldArchiveStart = archiveStart;
+		fieldApiBase = apiBase.toString( );
+		fieldCrawlDelaySeconds = crawlDelaySeconds;
+		fieldPageUriPattern = Pattern.compile(
+				String.format( PAGE_URI_FORMAT, Pattern.quote( fieldApiBase ), Pattern.quote( server ) ) );
+
+	} // BiorxivApiCorrespondent
+
+
+	/**
+	 * Reads the total result count from the {@code messages} block of a response, e.g.
+	 * {@code [{"status":"ok","interval":"...","cursor":0,"count":100,"total":1234}]}.
+	 */
+	private static int extractTotal( JsonElement messages )
+	{
+		try
+			{
+			if ( messages.isJsonArray( ) && messages.getAsJsonArray( ).size( ) > 0 )
+				{
+				JsonObject message = messages.getAsJsonArray( ).get( 0 ).getAsJsonObject( );
+				if ( message.has( "total" ) )
+					return message.get( "total" ).getAsInt( );
+				}
+			}
+		catch ( RuntimeException exception )
+			{
+			LOG.warn( "Unable to read the total count from messages '" + messages + "'." );
+			}
+
+		return CrawlPageSummary.UNKNOWN_TOTAL;
+
+	} // extractTotal
+
+
+	@Override
+	public List<ResearchItem> extractResearchItems( String responseBody )
+	{
+		List<ResearchItem> items = new ArrayList<>( );
+
+		JsonObject root = JsonParser.parseString( responseBody ).getAsJsonObject( );
+		JsonArray docs = root.getAsJsonArray( "collection" );
+
+		for ( JsonElement docElement : docs )
+			{
+			ResearchItem item = toResearchItem( docElement.getAsJsonObject( ) );
+			if ( item != null )
+				items.add( item );
+			}
+
+		return items;
+
+	} // extractResearchItems
+
+
+	@Override
+	public CrawlPageSummary extractResearchItems( InputStream responseBody, ResearchItemSink sink )
+			throws IOException, InterruptedException
+	{
+		int count = 0;
+		int total = CrawlPageSummary.UNKNOWN_TOTAL;
+
+		// Walk the response with a pull parser so that only one document's worth of JSON is ever held in memory, and
+		// so each item can be persisted before the rest of the page has even been read. Note that we deliberately
+		// don't close the reader here; the caller owns the stream.
+		JsonReader reader = new JsonReader( new InputStreamReader( responseBody, StandardCharsets.UTF_8 ) );
+		try
+			{
+			reader.beginObject( );
+			while ( reader.hasNext( ) )
+				{
+				String name = reader.nextName( );
+
+				// The messages block is small, and tells us how big the whole result set is.
+				if ( "messages".equals( name ) )
+					{
+					total = extractTotal( JsonParser.parseReader( reader ) );
+					continue;
+					}
+				else if ( !"collection".equals( name ) )
+					{
+					reader.skipValue( );
+					continue;
+					}
+
+				reader.beginArray( );
+				while ( reader.hasNext( ) )
+					{
+					ResearchItem item = toResearchItem( JsonParser.parseReader( reader ).getAsJsonObject( ) );
+					if ( item != null )
+						{
+						sink.accept( item );
+						count++ ;
+						}
+					}
+				reader.endArray( );
+				}
+			reader.endObject( );
+			}
+		catch ( JsonParseException | IllegalStateException exception )
+			{
+			throw new IOException( "Malformed response from '" + DOMAIN_HOST + "' (" + fieldServer + ").",
+					exception );
+			}
+
+		return new CrawlPageSummary( count, total );
+
+	} // extractResearchItems
+
+
+	@Override
+	public int getCrawlDelaySeconds( )
+	{
+		return fieldCrawlDelaySeconds;
+
+	} // getCrawlDelaySeconds
+
+
+	@Override
+	public URI getIntervalUri( LocalDate from, LocalDate to )
+	{
+		return pageUri( from, to, 0 );
+
+	} // getIntervalUri
+
+
+	@Override
+	public URI getNextPageUri( URI currentUri )
+	{
+		URI nextUri = null;
+		Matcher matcher = fieldPageUriPattern.matcher( currentUri.toString( ) );
+
+		// This could be a lot better. The interface should be giving access to the previous response, but right now
+		// it's not, so we'll have to guess.
+		if ( matcher.matches( ) )
+			{
+			StringBuilder builder = new StringBuilder( );
+			builder.append( serverPath( ) );
+
+			if ( matcher.group( 3 ) == null )
+				{
+				builder.append( matcher.group( 1 ) ).append( '/' );
+				builder.append( matcher.group( 2 ) ).append( '/' );
+				}
+			else
+				{
+				builder.append( matcher.group( 3 ) ).append( '/' );
+				}
+
+			// This is the important part. The rest could have been simpler (unless we want to do more with this later).
+			int cursor = Integer.parseInt( matcher.group( 4 ) );
+			builder.append( cursor + 100 );
+
+			try
+				{
+				nextUri = new URI( builder.toString( ) );
+				}
+			catch ( URISyntaxException exception )
+				{
+				// Couldn't do it. Log so we can figure out why.
+				LOG.error( "Couldn't assemble next page URI for given currentUri '" + currentUri + "'.", exception );
+				}
+			}
+
+		return nextUri;
+
+	} // getNextPageUri
+
+
+	@Override
+	public URI getPageUri( URI uri, int cursor )
+	{
+		CrawlPageLocation location = locatePage( uri );
+
+		return ( location == null ) ? null : pageUri( location.getFrom( ), location.getTo( ), cursor );
+
+	} // getPageUri
+
+
+	@Override
+	public String getSourceName( )
+	{
+		return fieldServer;
+
+	} // getSourceName
+
+
+	@Override
+	public boolean handles( URI uri )
+	{
+		return fieldPageUriPattern.matcher( uri.toString( ) ).matches( );
+
+	} // handles
+
+
+	/**
+	 * Locates date interval pages only. The "most recent" listings shift with every item published, so their pages
+	 * have no fixed place to track.
+	 */
+	@Override
+	public CrawlPageLocation locatePage( URI uri )
+	{
+		Matcher matcher = fieldPageUriPattern.matcher( uri.toString( ) );
+		if ( !matcher.matches( ) || matcher.group( 1 ) == null )
+			return null;
+
+		LocalDate from = LocalDate.parse( matcher.group( 1 ) );
+		LocalDate to = LocalDate.parse( matcher.group( 2 ) );
+
+		return new CrawlPageLocation( pageUri( from, to, 0 ), from, to, Integer.parseInt( matcher.group( 4 ) ) );
+
+	} // locatePage
+
+
+	/**
+	 * Splits a date interval crawl starting at cursor 0 into consecutive date ranges of roughly
+	 * {@value #ITEMS_PER_PARTITION} items each (assuming items are spread evenly over time). Interval crawls of fewer
+	 * items, crawls already partway through, and "most recent" crawls aren't partitioned.
+	 */
+	@Override
+	public List<URI> partitionCrawl( URI seedUri, int totalCount )
+	{
+		Matcher matcher = fieldPageUriPattern.matcher( seedUri.toString( ) );
+		if ( totalCount <= ITEMS_PER_PARTITION || !matcher.matches( ) || matcher.group( 1 ) == null
+				|| Integer.parseInt( matcher.group( 4 ) ) != 0 )
+			return Collections.singletonList( seedUri );
+
+		LocalDate start = LocalDate.parse( matcher.group( 1 ) );
+		LocalDate end = LocalDate.parse( matcher.group( 2 ) );
+		if ( start.isBefore( fieldArchiveStart ) )
+			start = fieldArchiveStart;
+
+		long days = ChronoUnit.DAYS.between( start, end ) + 1;
+		long partitions = Math.min( days, ( totalCount + ITEMS_PER_PARTITION - 1 ) / ITEMS_PER_PARTITION );
+		if ( partitions <= 1 )
+			return Collections.singletonList( seedUri );
+
+		long daysPerPartition = ( days + partitions - 1 ) / partitions;
+		List<URI> ranges = new ArrayList<>( );
+		for ( LocalDate from = start; !from.isAfter( end ); from = from.plusDays( daysPerPartition ) )
+			{
+			LocalDate to = from.plusDays( daysPerPartition - 1 );
+			ranges.add( pageUri( from, to.isAfter( end ) ? end : to, 0 ) );
+			}
+
+		return ranges;
+
+	} // partitionCrawl
+
+
+	private URI pageUri( LocalDate from, LocalDate to, int cursor )
+	{
+		return URI.create( serverPath( ) + from + "/" + to + "/" + cursor );
+
+	} // pageUri
+
+
+	/**
+	 * @return the path of the server's Content Detail endpoint, up to the interval.
+	 */
+	private String serverPath( )
+	{
+		return fieldApiBase + "/details/" + fieldServer + "/";
+
+	} // serverPath
+
+
+	/**
+	 * Converts a single document from the {@code collection} array of a response into a ResearchItem.
+	 * <p>
+	 * NOTE: This defines the mapping between biorxiv data fields and our own internal db fields.
+	 * 
+	 * @return the populated ResearchItem, or {@code null} if the document doesn't meet the minimum criteria for saving.
+	 */
+	private ResearchItem toResearchItem( JsonObject doc )
+	{
+		ResearchItem item = new ResearchItem( );
+		item.setCreateDate( new Date( ) );
+
+		try
+			{
+			// Call these the "minimum criteria" for saving the item.
+			item.setDOI( doc.get( "doi" ).getAsString( ).trim( ) );
+			item.setTitle( doc.get( "title" ).getAsString( ).trim( ) );
+			String[ ] authors = doc.get( "authors" ).getAsString( ).trim( ).split( ";" );
+			for ( int index = 0; index < authors.length; index++ )
+				authors[ index ] = fieldStrings.intern( authors[ index ] );
+			item.setAuthors( Arrays.asList( authors ) );
+			item.setCategory( fieldStrings.intern( doc.get( "category" ).getAsString( ).trim( ) ) );
+			item.setCategoryKey( fieldStrings.intern( ResearchItem.normalizeCategory( item.getCategory( ) ) ) );
+			}
+		catch ( Exception exception )
+			{
+			LOG.error( "A document from '" + DOMAIN_HOST
+					+ "' may not meet the minimum criteria to be persisted. (Full document: '" + doc + "'.)" );
+			return null;
+			}
+
+		// Now it's qualified to be in the database. If anything goes wrong from here, it's not a big deal.
+		try
+			{
+			// These are extras.
+			if ( doc.has( "author_corresponding" ) )
+				item.setAuthorCorresponding(
+						fieldStrings.intern( doc.get( "author_corresponding" ).getAsString( ).trim( ) ) );
+			if ( doc.has( "author_corresponding_institution" ) )
+				item.setAuthorCorrespondingInstitution(
+						fieldStrings.intern( doc.get( "author_corresponding_institution" ).getAsString( ).trim( ) ) );
+			if ( doc.has( "version" ) )
+				item.setVersion( doc.get( "version" ).getAsInt( ) );
+			if ( doc.has( "published" ) )
+				item.setPublicationDetail( fieldStrings.intern( doc.get( "published" ).getAsString( ).trim( ) ) );
+			if ( doc.has( "abstract" ) )
+				item.setAbstract( doc.get( "abstract" ).getAsString( ).trim( ) );
+			}
+		catch ( Exception exception )
+			{
+			LOG.error( "Unable to read all optional fields of document (doi: '" + item.getDOI( ) + "') from '"
+					+ DOMAIN_HOST + "'.", exception );
+			}
+
+		if ( doc.has( "date" ) )
+			{
+			try
+				{
+				item.setPublicationDate( fieldDateParser.parse( doc.get( "date" ).getAsString( ).trim( ) ) );
+				}
+			catch ( ParseException exception )
+				{
+				// Oh well.
+				LOG.error( "Unable to parse publication date '" + doc.get( "date" ) + "' of document (doi: '"
+						+ item.getDOI( ) + "') from '" + DOMAIN_HOST + "'.", exception );
+				}
+			}
+
+		return item;
+
+	} // toResearchItem
+
+}
@@ -0,0 +1,128 @@
+/*
+ * CategoryKeyBackfillService.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import static com.cloudant.client.api.query.Expression.eq;
+import static com.cloudant.client.api.query.Expression.exists;
+import static com.cloudant.client.api.query.Operation.and;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.model.ResearchItem;
+import org.spidermole.util.DbUtils;
+
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.Response;
+import com.cloudant.client.api.query.QueryBuilder;
+import com.cloudant.client.api.query.QueryResult;
+
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+/**
+ * CategoryKeyBackfillService is a one-off maintenance job that gives ResearchItems stored before the normalized
+ * category key existed their key (see {@link ResearchItem#normalizeCategory(String)}), so that queries on the key find
+ * them too. (The index on the key is created when the app starts; see {@link DbUtils#createIndexes(Database)}.)
+ * <p>
+ * The job is safe to run more than once; documents whose key is already right are left alone. The value returned is
+ * the number of documents updated.
+ */
+public class CategoryKeyBackfillService extends Service<Integer>
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( CategoryKeyBackfillService.class );
+
+	private static final int PAGE_SIZE = 500;
+
+	// Data members.
+	private final Database fieldDatabase;
+
+	/**
+	 * @param database the database to backfill.
+	 */
+	public CategoryKeyBackfillService( Database database )
+	{
+		fieldDatabase = Objects.requireNonNull( database, "A database is required." );
+
+	} // CategoryKeyBackfillService
+
+
+	private static int backfillPage( Database database, List<ResearchItem> docs )
+	{
+		List<ResearchItem> writes = new ArrayList<>( );
+		for ( ResearchItem doc : docs )
+			{
+			String key = ResearchItem.normalizeCategory( doc.getCategory( ) );
+			if ( !Objects.equals( key, doc.getCategoryKey( ) ) )
+				{
+				doc.setCategoryKey( key );
+				writes.add( doc );
+				}
+			}
+
+		if ( writes.isEmpty( ) )
+			return 0;
+
+		int updated = 0;
+		for ( Response response : database.bulk( writes ) )
+			{
+			if ( response.getError( ) == null )
+				updated++ ;
+			else
+				LOG.error( "Unable to update category key of document '" + response.getId( ) + "': "
+						+ response.getError( ) + " (" + response.getReason( ) + ")." );
+			}
+
+		return updated;
+
+	} // backfillPage
+
+
+	@Override
+	protected Task<Integer> createTask( )
+	{
+		return new Task<>( )
+		{
+			@Override
+			protected Integer call( ) throws Exception
+			{
+				int updated = 0;
+				int examined = 0;
+				String bookmark = null;
+				List<ResearchItem> docs;
+				do
+					{
+					QueryBuilder builder = new QueryBuilder(
+							and( eq( DbUtils.FIELD_TYPE, ResearchItem.DATABASE_TYPE ), exists( "category", true ) ) );
+					builder.limit( PAGE_SIZE );
+					if ( bookmark != null )
+						builder.bookmark( bookmark );
+
+					QueryResult<ResearchItem> page = fieldDatabase.query( builder.build( ), ResearchItem.class );
+					docs = page.getDocs( );
+					bookmark = page.getBookmark( );
+
+					updated += backfillPage( fieldDatabase, docs );
+					examined += docs.size( );
+					updateMessage( "Examined " + examined + " documents; updated " + updated + "." );
+					}
+				while ( docs.size( ) == PAGE_SIZE && !isCancelled( ) );
+
+				LOG.info( "Category key backfill examined " + examined + " documents and updated " + updated + "." );
+
+				return Integer.valueOf( updated );
+
+			} // call
+
+		};
+
+	} // createTask
+
+}
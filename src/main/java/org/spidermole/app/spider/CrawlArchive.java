@@ -0,0 +1,221 @@
+/*
+ * CrawlArchive.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * CrawlArchive is a local, append-only record of raw crawl responses, so that they can later be replayed through a
+ * {@link CrawlCorrespondent} (see {@link ArchiveReingestService}) without crawling the site again.
+ * <p>
+ * The archive is a directory of gzipped segment files. Each segment holds a sequence of records, each being the request
+ * URI followed by the length and bytes of the response body. A segment is closed once it grows past the configured size
+ * (uncompressed), and every session starts a new one, so a segment is only ever written once. A segment left unfinished
+ * by a crash simply ends at its last complete record.
+ */
+public class CrawlArchive implements Closeable
+{
+	/**
+	 * Receives the records of a segment as it is read.
+	 */
+	@FunctionalInterface
+	public interface RecordHandler
+	{
+		void accept( URI uri, byte[] body ) throws IOException, InterruptedException;
+
+	} // interface RecordHandler
+
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( CrawlArchive.class );
+
+	private static final Pattern SEGMENT_NAME_PATTERN = Pattern.compile( "^segment-(\\d+)\\.bin\\.gz$" );
+
+	// Data members.
+	private final Path fieldDirectory;
+	private final long fieldSegmentBytes;
+	private int fieldNextSegmentNumber;
+	private DataOutputStream fieldOutput;
+	private long fieldOutputBytes;
+
+	/**
+	 * Opens (or creates) the archive in the given directory.
+	 * 
+	 * @param directory the directory to keep the archive in.
+	 * @param segmentBytes the (uncompressed) size after which a segment is closed and the next one started.
+	 * @throws IOException if the directory can't be created or read.
+	 */
+	public CrawlArchive( Path directory, long segmentBytes ) throws IOException
+	{
+		fieldDirectory = Files.createDirectories( directory );
+		fieldSegmentBytes = segmentBytes;
+
+		for ( Path segment : listSegments( ) )
+			fieldNextSegmentNumber = Math.max( fieldNextSegmentNumber, segmentNumber( segment ) + 1 );
+
+	} // CrawlArchive
+
+
+	/**
+	 * Reads every complete record of the given segment, in the order they were written.
+	 * 
+	 * @param segment a segment of this (or any) archive.
+	 * @param handler the handler to receive each record.
+	 * @return the number of records read.
+	 * @throws IOException if the segment couldn't be read.
+	 * @throws InterruptedException if the handler was interrupted.
+	 */
+	public static int readSegment( Path segment, RecordHandler handler ) throws IOException, InterruptedException
+	{
+		int records = 0;
+		try ( DataInputStream input = new DataInputStream(
+				new BufferedInputStream( new GZIPInputStream( Files.newInputStream( segment ), 65536 ) ) ) )
+			{
+			while ( true )
+				{
+				URI uri;
+				byte[] body;
+				try
+					{
+					uri = URI.create( input.readUTF( ) );
+					body = new byte[ input.readInt( ) ];
+					input.readFully( body );
+					}
+				catch ( EOFException exception )
+					{
+					// Either the end of the segment, or the end of what was written before a crash.
+					break;
+					}
+
+				handler.accept( uri, body );
+				records++ ;
+				}
+			}
+
+		return records;
+
+	} // readSegment
+
+
+	private static int segmentNumber( Path segment )
+	{
+		Matcher matcher = SEGMENT_NAME_PATTERN.matcher( segment.getFileName( ).toString( ) );
+
+		return matcher.matches( ) ? Integer.parseInt( matcher.group( 1 ) ) : -1;
+
+	} // segmentNumber
+
+
+	/**
+	 * Appends a response to the archive.
+	 * 
+	 * @param uri the URI that was requested.
+	 * @param body a file holding the response body.
+	 * @throws IOException if the record couldn't be written.
+	 */
+	public synchronized void append( URI uri, Path body ) throws IOException
+	{
+		long length = Files.size( body );
+		if ( length > Integer.MAX_VALUE )
+			throw new IOException( "The response from '" + uri + "' is too large to archive." );
+
+		if ( fieldOutput == null )
+			{
+			Path segment = fieldDirectory.resolve( String.format( "segment-%06d.bin.gz", fieldNextSegmentNumber++ ) );
+			fieldOutput = new DataOutputStream(
+					new BufferedOutputStream( new GZIPOutputStream( Files.newOutputStream( segment ), 65536 ) ) );
+			fieldOutputBytes = 0;
+			LOG.debug( "Started crawl archive segment '" + segment + "'." );
+			}
+
+		fieldOutput.writeUTF( uri.toString( ) );
+		fieldOutput.writeInt( ( int ) length );
+		Files.copy( body, fieldOutput );
+		fieldOutputBytes += length;
+
+		if ( fieldOutputBytes >= fieldSegmentBytes )
+			closeSegment( );
+
+	} // append
+
+
+	@Override
+	public synchronized void close( ) throws IOException
+	{
+		closeSegment( );
+
+	} // close
+
+
+	private void closeSegment( ) throws IOException
+	{
+		if ( fieldOutput != null )
+			{
+			try
+				{
+				fieldOutput.close( );
+				}
+			finally
+				{
+				fieldOutput = null;
+				}
+			}
+
+	} // closeSegment
+
+
+	private List<Path> listSegments( ) throws IOException
+	{
+		List<Path> segments = new ArrayList<>( );
+		try ( DirectoryStream<Path> stream = Files.newDirectoryStream( fieldDirectory ) )
+			{
+			for ( Path path : stream )
+				{
+				if ( segmentNumber( path ) >= 0 )
+					segments.add( path );
+				}
+			}
+		segments.sort( ( first, second ) -> Integer.compare( segmentNumber( first ), segmentNumber( second ) ) );
+
+		return segments;
+
+	} // listSegments
+
+
+	/**
+	 * Lists the archive's segments, oldest first. The segment currently being written is closed first, so that every
+	 * segment listed is complete; recording carries on in a new one.
+	 * 
+	 * @return the archive's segments.
+	 * @throws IOException if the archive couldn't be read.
+	 */
+	public synchronized List<Path> segments( ) throws IOException
+	{
+		closeSegment( );
+
+		return listSegments( );
+
+	} // segments
+
+}
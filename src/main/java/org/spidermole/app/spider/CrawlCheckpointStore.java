@@ -0,0 +1,89 @@
+/*
+ * CrawlCheckpointStore.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.net.URI;
+import java.util.Objects;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.model.CrawlCheckpoint;
+
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.Response;
+import com.cloudant.client.org.lightcouch.NoDocumentException;
+
+/**
+ * CrawlCheckpointStore loads and saves {@link CrawlCheckpoint}s. Saving is best-effort: a checkpoint that can't be
+ * written is logged, but never stops the crawl it belongs to.
+ */
+public class CrawlCheckpointStore
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( CrawlCheckpointStore.class );
+
+	// Data members.
+	private final Database fieldDatabase;
+
+	public CrawlCheckpointStore( Database database )
+	{
+		fieldDatabase = Objects.requireNonNull( database, "A database is required." );
+
+	} // CrawlCheckpointStore
+
+
+	/**
+	 * @param seedUri the URI the crawl was started from.
+	 * @return the stored checkpoint for crawls starting at the given URI, or null if there isn't one.
+	 */
+	public CrawlCheckpoint load( URI seedUri )
+	{
+		try
+			{
+			return fieldDatabase.find( CrawlCheckpoint.class, CrawlCheckpoint.idForSeed( seedUri.toString( ) ) );
+			}
+		catch ( NoDocumentException exception )
+			{
+			return null;
+			}
+
+	} // load
+
+
+	/**
+	 * Saves the checkpoint, replacing any existing checkpoint for the same seed URI. The checkpoint's revision is
+	 * updated in place so that it may be saved again.
+	 * 
+	 * @param checkpoint the checkpoint to save.
+	 */
+	public void save( CrawlCheckpoint checkpoint )
+	{
+		try
+			{
+			// A fresh crawl of a seed we've seen before replaces the old checkpoint.
+			if ( checkpoint.getRevision( ) == null )
+				{
+				CrawlCheckpoint previous = load( URI.create( checkpoint.getSeedUri( ) ) );
+				if ( previous != null )
+					checkpoint.setRevision( previous.getRevision( ) );
+				}
+
+			Response response = ( checkpoint.getRevision( ) == null ) ? fieldDatabase.save( checkpoint )
+					: fieldDatabase.update( checkpoint );
+			if ( response.getError( ) == null )
+				checkpoint.setRevision( response.getRev( ) );
+			else
+				LOG.error( "Failed to save checkpoint for '" + checkpoint.getSeedUri( ) + "': "
+						+ response.getError( ) );
+			}
+		catch ( Exception exception )
+			{
+			LOG.error( "Failed to save checkpoint for '" + checkpoint.getSeedUri( ) + "'.", exception );
+			}
+
+	} // save
+
+}
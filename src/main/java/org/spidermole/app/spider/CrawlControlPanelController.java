@@ -1,151 +1,520 @@
-/*
- * CrawlControlPanelController.java
- * 
- * Created: Oct 14, 2020
- */
-package org.spidermole.app.spider;
-
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.ResourceBundle;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-
-import org.spidermole.app.AbstractController;
-import org.spidermole.model.ResearchItem;
-
-import javafx.concurrent.WorkerStateEvent;
-import javafx.fxml.FXML;
-import javafx.scene.control.TextField;
-
-/**
- * CrawlControlPanelController is the controller for {@code CrawlControlPanel.fxml}. Its services perform research item
- * metadata lookup via API or (respectful) scraping, depending on the domain.
- * 
- * @author David Schmidt (dschmidt13@gmail.com)
- */
-public class CrawlControlPanelController extends AbstractController
-{
-	/*
-	 * Implementation note: The persistence in this is somewhat loosely-coupled, has no real backup plans if things fail
-	 * or are dropped upon app closing, and offers no guarantees about retaining everything that gets downloaded.
-	 */
-
-	// Injected view members.
-	@FXML
-	private TextField fieldUrl;
-
-	// Data members.
-	private CrawlService fieldCrawlService;
-	private CrawlPersistenceService fieldPersistenceService;
-
-	public CrawlControlPanelController( )
-	{
-	} // CrawlControlPanelController
-
-
-	public void actionCrawl( )
-	{
-		if ( !fieldUrl.getText( ).isEmpty( ) )
-			{
-			try
-				{
-				// Set the crawl URI and start it.
-				fieldCrawlService.setUrl( new URL( fieldUrl.getText( ) ) );
-				fieldCrawlService.restart( );
-				}
-			catch ( MalformedURLException exception )
-				{
-				fieldLog.error(
-						"Couldn't convert the crawl URL string '" + fieldUrl.getText( ) + "' into a URL instance.",
-						exception );
-				}
-			}
-
-	} // actionCrawl
-
-
-	@Override
-	public void destroy( )
-	{
-		fieldCrawlService.cancel( );
-		fieldPersistenceService.cancel( );
-
-		super.destroy( );
-
-	} // destroy
-
-
-	@Override
-	public void initialize( URL location, ResourceBundle resources )
-	{
-		super.initialize( location, resources );
-
-		// Initialize the background persistence service, and start it. It will run until the controller is destroyed.
-		BlockingQueue<ResearchItem> persistQueue = new ArrayBlockingQueue<>( 500 );
-		fieldPersistenceService = new CrawlPersistenceService( persistQueue );
-		fieldPersistenceService.setOnRunning( this::onPersistenceServiceRunning );
-		fieldPersistenceService.setOnSucceeded( this::onPersistenceServiceStopped );
-		fieldPersistenceService.setOnCancelled( this::onPersistenceServiceStopped );
-		fieldPersistenceService.setOnFailed( this::onPersistenceServiceStopped );
-		fieldPersistenceService.restart( );
-
-		// Initialize the crawl service.
-		fieldCrawlService = new CrawlService( persistQueue );
-		fieldCrawlService.setOnRunning( this::onCrawlServiceRunning );
-		fieldCrawlService.setOnSucceeded( this::onCrawlServiceSucceeded );
-		fieldCrawlService.setOnCancelled( this::onCrawlServiceCancelled );
-		fieldCrawlService.setOnFailed( this::onCrawlServiceFailed );
-
-	} // initialize
-
-
-	private void onCrawlServiceCancelled( WorkerStateEvent event )
-	{
-		fieldLog.debug( "Crawl service cancelled." );
-
-	} // onCrawlServiceCancelled
-
-
-	private void onCrawlServiceFailed( WorkerStateEvent event )
-	{
-		fieldLog.error( "Crawl service failed!", event.getSource( ).getException( ) );
-
-	} // onCrawlServiceFailed
-
-
-	private void onCrawlServiceRunning( WorkerStateEvent event )
-	{
-		fieldLog.debug( "Beginning crawl over URL '" + fieldUrl.getText( ) + "'." );
-
-	} // onCrawlServiceRunning
-
-
-	private void onCrawlServiceSucceeded( WorkerStateEvent event )
-	{
-		fieldLog.debug( "Crawl service completed. " + event.getSource( ).getValue( ) + " results discovered." );
-
-	} // onCrawlServiceSucceeded
-
-
-	private void onPersistenceServiceRunning( WorkerStateEvent event )
-	{
-		fieldLog.debug( "Persistence service running." );
-
-	} // onPersistenceServiceRunning
-
-
-	private void onPersistenceServiceStopped( WorkerStateEvent event )
-	{
-		fieldLog.debug( "Persistence service stopped." );
-
-		// Shouldn't happen; not worth its own method.
-		if ( event.getSource( ).getException( ) != null )
-			{
-			fieldLog.error( "Persistence service halted unexpectedly due to exception!",
-					event.getSource( ).getException( ) );
-			}
-
-	} // onPersistenceServiceStopped
-
-}
+/*
+ * CrawlControlPanelController.java
+ * 
+ * Created: Oct 14, 2020
+ */
+package org.spidermole.app.spider;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.spidermole.app.AbstractController;
+import org.spidermole.app.AppMain;
+import org.spidermole.app.Constants;
+import org.spidermole.model.ResearchItem;
+import org.spidermole.util.ExecutorUtils;
+
+import com.cloudant.client.api.Database;
+
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+
+/**
+ * CrawlControlPanelController is the controller for {@code CrawlControlPanel.fxml}. Its services perform research item
+ * metadata lookup via API or (respectful) scraping, depending on the domain.
+ * 
+ * @author David Schmidt (dschmidt13@gmail.com)
+ */
+public class CrawlControlPanelController extends AbstractController
+{
+	/*
+	 * Implementation note: Persistence is loosely coupled to the crawls (they hand items to ingest and move on), but
+	 * nothing downloaded is dropped along the way. Items the database can't keep up with spill to disk and are stored
+	 * on the next start if the app closes first; items it rejects go to the dead-letter store to be retried; and a
+	 * crawl's checkpoints only move past items once they have been persisted (see PersistenceTracker).
+	 */
+
+	// Injected view members.
+	@FXML
+	private TextField fieldUrl;
+
+	@FXML
+	private CheckBox fieldRecordCheckBox;
+
+	@FXML
+	private Label fieldPersistenceStatus;
+
+	// Data members.
+	private Database fieldDatabase;
+	private BlockingQueue<ResearchItem> fieldPersistQueue;
+	private IngestPublisher fieldIngest;
+	private IngestStatistics fieldIngestStatistics;
+	private CrawlCorrespondentRegistry fieldCorrespondents;
+	private CrawlTransport fieldCrawlTransport;
+	private HostRateLimiter fieldRateLimiter;
+	private CrawlResponseCache fieldResponseCache;
+	private CrawlArchive fieldCrawlArchive;
+
+	/**
+	 * The crawl service of each URL being crawled, in the order they were started. Each is dropped once it finishes,
+	 * and a new one created if the URL is crawled again.
+	 */
+	private final Map<String, CrawlService> fieldCrawlServices = new LinkedHashMap<>( );
+	private CrawlPersistenceService fieldPersistenceService;
+	private final PersistenceTracker fieldPersistenceTracker = new PersistenceTracker( );
+	private DoiRekeyMigrationService fieldRekeyService;
+	private CategoryKeyBackfillService fieldCategoryBackfillService;
+	private ArchiveReingestService fieldReingestService;
+
+	/**
+	 * Runs the services that publish to ingest (the crawls and the re-ingest), so that they can all be waited for
+	 * before ingest is closed.
+	 */
+	private final ExecutorService fieldPublishers = Executors.newCachedThreadPool(
+			ExecutorUtils.daemonThreads( "crawl-publisher" ) );
+
+	public CrawlControlPanelController( )
+	{
+	} // CrawlControlPanelController
+
+
+	public void actionBackfillCategoryKeys( )
+	{
+		if ( !fieldCategoryBackfillService.isRunning( ) )
+			fieldCategoryBackfillService.restart( );
+
+	} // actionBackfillCategoryKeys
+
+
+	public void actionClearResponseCache( )
+	{
+		if ( fieldResponseCache == null )
+			return;
+
+		// Deleting every cached page can take a while; don't hold up the FX thread for it.
+		CrawlResponseCache responseCache = fieldResponseCache;
+		Task<Void> task = new Task<>( )
+		{
+			@Override
+			protected Void call( )
+			{
+				responseCache.clear( );
+				return null;
+
+			} // call
+		};
+		task.setOnFailed( ( event ) -> fieldLog.error( "Unable to clear the crawl response cache.",
+				task.getException( ) ) );
+
+		Thread thread = new Thread( task, "crawl-cache-clear" );
+		thread.setDaemon( true );
+		thread.start( );
+
+	} // actionClearResponseCache
+
+
+	public void actionCrawl( )
+	{
+		startCrawl( false, false, false );
+
+	} // actionCrawl
+
+
+	public void actionCrawlIncremental( )
+	{
+		startCrawl( false, true, false );
+
+	} // actionCrawlIncremental
+
+
+	public void actionFillGaps( )
+	{
+		startCrawl( false, false, true );
+
+	} // actionFillGaps
+
+
+	public void actionReingestArchive( )
+	{
+		if ( fieldReingestService != null && !fieldReingestService.isRunning( ) )
+			fieldReingestService.restart( );
+
+	} // actionReingestArchive
+
+
+	public void actionRekeyDocuments( )
+	{
+		if ( !fieldRekeyService.isRunning( ) )
+			fieldRekeyService.restart( );
+
+	} // actionRekeyDocuments
+
+
+	public void actionReplayDeadLetters( )
+	{
+		fieldLog.info( "Replaying " + fieldPersistenceService.replayDeadLetters( ) + " dead letters." );
+
+	} // actionReplayDeadLetters
+
+
+	public void actionResume( )
+	{
+		startCrawl( true, false, false );
+
+	} // actionResume
+
+
+	@Override
+	public void destroy( )
+	{
+		for ( CrawlService crawlService : fieldCrawlServices.values( ) )
+			crawlService.cancel( );
+		if ( fieldReingestService != null )
+			fieldReingestService.cancel( );
+
+		// Only close ingest once nothing is publishing to it any more, and let whatever was already published reach
+		// the persistence queue before it is saved.
+		fieldPublishers.shutdown( );
+		try
+			{
+			if ( !fieldPublishers.awaitTermination( Constants.CRAWL_SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS ) )
+				fieldLog.warn( "The crawls didn't stop in time. Whatever they publish from now on will be lost." );
+			}
+		catch ( InterruptedException exception )
+			{
+			Thread.currentThread( ).interrupt( );
+			}
+		fieldIngest.close( );
+		fieldPersistenceService.cancel( );
+
+		// The workers finish what was already dispatched to them before they stop. Neither the queue nor the database
+		// client (which the app context shuts down after us) may be closed under them in the meantime.
+		try
+			{
+			if ( !fieldPersistenceService.awaitStopped( Constants.PERSIST_SHUTDOWN_TIMEOUT_MILLIS,
+					TimeUnit.MILLISECONDS ) )
+				fieldLog.warn( "The persistence workers didn't finish in time. Some documents may not be persisted." );
+			}
+		catch ( InterruptedException exception )
+			{
+			Thread.currentThread( ).interrupt( );
+			}
+		if ( fieldPersistQueue instanceof SpillingBlockingQueue )
+			{
+			try
+				{
+				( ( SpillingBlockingQueue<?> )fieldPersistQueue ).close( );
+				}
+			catch ( IOException exception )
+				{
+				fieldLog.error( "Unable to save the documents still waiting to be persisted.", exception );
+				}
+			}
+		fieldRekeyService.cancel( );
+		fieldCategoryBackfillService.cancel( );
+		fieldCrawlTransport.close( );
+		if ( fieldCrawlArchive != null )
+			{
+			try
+				{
+				fieldCrawlArchive.close( );
+				}
+			catch ( IOException exception )
+				{
+				fieldLog.error( "Unable to close the crawl archive.", exception );
+				}
+			}
+
+		super.destroy( );
+
+	} // destroy
+
+
+	@Override
+	public void initialize( URL location, ResourceBundle resources )
+	{
+		super.initialize( location, resources );
+		fieldDatabase = AppMain.contextInstance( ).getDatabase( );
+
+		// Initialize the queue between the crawls and persistence. It spills to disk rather than hold up the crawls if
+		// persistence falls behind, and anything left in it is saved on the way out and picked up again here.
+		try
+			{
+			fieldPersistQueue = new SpillingBlockingQueue<>( Paths.get( Constants.LOCAL_DATA_DIR, "persist-queue" ),
+					Constants.PERSIST_QUEUE_CAPACITY, Constants.PERSIST_SPILL_SEGMENT_BYTES, ResearchItem.class );
+			}
+		catch ( IOException exception )
+			{
+			// Not fatal; crawls will just wait on persistence whenever it falls behind.
+			fieldLog.error( "Unable to open the persistence overflow queue.", exception );
+			fieldPersistQueue = new ArrayBlockingQueue<>( Constants.PERSIST_QUEUE_CAPACITY );
+			}
+
+		// Initialize ingest. Everything crawled is published to each of its subscribers, persistence first among them.
+		fieldIngest = new IngestPublisher( );
+		fieldIngest.subscribe( "persistence", new QueueSubscriber<>( fieldPersistQueue ),
+				Constants.INGEST_SUBSCRIBER_BUFFER_CAPACITY, true );
+		fieldIngestStatistics = new IngestStatistics( );
+		fieldIngest.subscribe( "statistics", fieldIngestStatistics, Constants.INGEST_SUBSCRIBER_BUFFER_CAPACITY,
+				false );
+
+		// Initialize the background persistence service, and start it. It will run until the controller is destroyed.
+		// Whatever it fails to persist is kept in the dead letter store to be retried.
+		DeadLetterStore deadLetters = null;
+		try
+			{
+			deadLetters = new DeadLetterStore( Paths.get( Constants.LOCAL_DATA_DIR, "dead-letters.jsonl" ),
+					Constants.PERSIST_RETRY_BASE_DELAY_MILLIS, Constants.PERSIST_RETRY_MAX_DELAY_MILLIS,
+					Constants.PERSIST_RETRY_MAX_ATTEMPTS );
+			}
+		catch ( IOException exception )
+			{
+			fieldLog.error( "Unable to open the dead letter store. Failed documents will only be logged.", exception );
+			}
+		fieldPersistenceService = new CrawlPersistenceService( fieldDatabase, fieldPersistQueue, deadLetters );
+		fieldPersistenceService.addListener( fieldPersistenceTracker );
+		fieldPersistenceService.setOnRunning( this::onPersistenceServiceRunning );
+		fieldPersistenceService.setOnSucceeded( this::onPersistenceServiceStopped );
+		fieldPersistenceService.setOnCancelled( this::onPersistenceServiceStopped );
+		fieldPersistenceService.setOnFailed( this::onPersistenceServiceStopped );
+		fieldPersistenceStatus.textProperty( ).bind( fieldPersistenceService.messageProperty( ) );
+		fieldPersistenceService.restart( );
+
+		// Initialize what the crawl services share. The transport holds pooled connections, and the rate limiter the
+		// politeness budget of each host, for the lifetime of the controller. The services themselves are created as
+		// URLs are crawled.
+		fieldCorrespondents = new CrawlCorrespondentRegistry( );
+		fieldCrawlTransport = new CrawlTransport( );
+		fieldRateLimiter = new HostRateLimiter( Constants.CRAWL_ADAPTIVE_LATENCY_FACTOR );
+		try
+			{
+			fieldResponseCache = new CrawlResponseCache( Paths.get( Constants.LOCAL_DATA_DIR, "response-cache" ),
+					Constants.CRAWL_CACHE_MAX_BYTES );
+			}
+		catch ( IOException exception )
+			{
+			// Not fatal; crawls will just download every page in full.
+			fieldLog.error( "Unable to open the crawl response cache.", exception );
+			}
+
+		// Initialize the crawl archive, and the service to replay it. Crawls only record into it on request.
+		try
+			{
+			fieldCrawlArchive = new CrawlArchive( Paths.get( Constants.LOCAL_DATA_DIR, "archive" ),
+					Constants.CRAWL_ARCHIVE_SEGMENT_BYTES );
+			fieldReingestService = new ArchiveReingestService( fieldCorrespondents, fieldCrawlArchive,
+					fieldResponseCache, fieldIngest );
+			fieldReingestService.setExecutor( fieldPublishers );
+			fieldReingestService.setOnRunning( this::onReingestServiceRunning );
+			fieldReingestService.setOnSucceeded( this::onReingestServiceSucceeded );
+			fieldReingestService.setOnFailed( this::onReingestServiceFailed );
+			}
+		catch ( IOException exception )
+			{
+			fieldLog.error( "Unable to open the crawl archive. Pages won't be recorded.", exception );
+			fieldRecordCheckBox.setDisable( true );
+			}
+
+		// Initialize the (one-off) migration services. They only run on request.
+		fieldRekeyService = new DoiRekeyMigrationService( fieldDatabase );
+		fieldRekeyService.setOnRunning( this::onRekeyServiceRunning );
+		fieldRekeyService.setOnSucceeded( this::onRekeyServiceSucceeded );
+		fieldRekeyService.setOnFailed( this::onRekeyServiceFailed );
+		fieldCategoryBackfillService = new CategoryKeyBackfillService( fieldDatabase );
+		fieldCategoryBackfillService.setOnRunning( this::onCategoryBackfillServiceRunning );
+		fieldCategoryBackfillService.setOnSucceeded( this::onCategoryBackfillServiceSucceeded );
+		fieldCategoryBackfillService.setOnFailed( this::onCategoryBackfillServiceFailed );
+
+	} // initialize
+
+
+	private CrawlService crawlServiceFor( String url )
+	{
+		CrawlService crawlService = fieldCrawlServices.get( url );
+		if ( crawlService == null )
+			{
+			crawlService = new CrawlService( fieldDatabase, fieldCorrespondents, fieldCrawlTransport, fieldRateLimiter,
+					fieldResponseCache, fieldIngest, fieldPersistenceTracker );
+			crawlService.setExecutor( fieldPublishers );
+			crawlService.setOnRunning( this::onCrawlServiceRunning );
+			crawlService.setOnSucceeded( this::onCrawlServiceSucceeded );
+			crawlService.setOnCancelled( this::onCrawlServiceCancelled );
+			crawlService.setOnFailed( this::onCrawlServiceFailed );
+			}
+
+		return crawlService;
+
+	} // crawlServiceFor
+
+
+	private void onCategoryBackfillServiceFailed( WorkerStateEvent event )
+	{
+		fieldLog.error( "Normalizing categories failed!", event.getSource( ).getException( ) );
+
+	} // onCategoryBackfillServiceFailed
+
+
+	private void onCategoryBackfillServiceRunning( WorkerStateEvent event )
+	{
+		fieldLog.debug( "Normalizing categories." );
+
+	} // onCategoryBackfillServiceRunning
+
+
+	private void onCategoryBackfillServiceSucceeded( WorkerStateEvent event )
+	{
+		fieldLog.info( "Normalized the categories of " + event.getSource( ).getValue( ) + " documents." );
+
+	} // onCategoryBackfillServiceSucceeded
+
+
+	private void onCrawlServiceCancelled( WorkerStateEvent event )
+	{
+		fieldLog.debug( "Crawl service for '" + ( ( CrawlService )event.getSource( ) ).getUrl( ) + "' cancelled." );
+		fieldCrawlServices.values( ).remove( event.getSource( ) );
+
+	} // onCrawlServiceCancelled
+
+
+	private void onCrawlServiceFailed( WorkerStateEvent event )
+	{
+		fieldLog.error( "Crawl service for '" + ( ( CrawlService )event.getSource( ) ).getUrl( ) + "' failed!",
+				event.getSource( ).getException( ) );
+		fieldCrawlServices.values( ).remove( event.getSource( ) );
+
+	} // onCrawlServiceFailed
+
+
+	private void onCrawlServiceRunning( WorkerStateEvent event )
+	{
+		fieldLog.debug( "Beginning crawl over URL '" + ( ( CrawlService )event.getSource( ) ).getUrl( ) + "'." );
+
+	} // onCrawlServiceRunning
+
+
+	private void onCrawlServiceSucceeded( WorkerStateEvent event )
+	{
+		fieldLog.debug( "Crawl service for '" + ( ( CrawlService )event.getSource( ) ).getUrl( ) + "' completed. "
+				+ event.getSource( ).getValue( ) + " results discovered." );
+		fieldLog.info( "Ingest this session: " + fieldIngestStatistics + "." );
+		fieldCrawlServices.values( ).remove( event.getSource( ) );
+
+	} // onCrawlServiceSucceeded
+
+
+	private void onPersistenceServiceRunning( WorkerStateEvent event )
+	{
+		fieldLog.debug( "Persistence service running." );
+
+	} // onPersistenceServiceRunning
+
+
+	private void onPersistenceServiceStopped( WorkerStateEvent event )
+	{
+		fieldLog.debug( "Persistence service stopped." );
+
+		// Shouldn't happen; not worth its own method.
+		if ( event.getSource( ).getException( ) != null )
+			{
+			fieldLog.error( "Persistence service halted unexpectedly due to exception!",
+					event.getSource( ).getException( ) );
+			}
+
+	} // onPersistenceServiceStopped
+
+
+	private void onReingestServiceFailed( WorkerStateEvent event )
+	{
+		fieldLog.error( "Re-ingesting the crawl archive and response cache failed.",
+				event.getSource( ).getException( ) );
+
+	} // onReingestServiceFailed
+
+
+	private void onReingestServiceRunning( WorkerStateEvent event )
+	{
+		fieldLog.info( "Re-ingesting the crawl archive and response cache." );
+
+	} // onReingestServiceRunning
+
+
+	private void onReingestServiceSucceeded( WorkerStateEvent event )
+	{
+		fieldLog.info( "Re-ingested " + event.getSource( ).getValue( )
+				+ " items from the crawl archive and response cache." );
+
+	} // onReingestServiceSucceeded
+
+
+	private void onRekeyServiceFailed( WorkerStateEvent event )
+	{
+		fieldLog.error( "Rekeying documents by DOI failed!", event.getSource( ).getException( ) );
+
+	} // onRekeyServiceFailed
+
+
+	private void onRekeyServiceRunning( WorkerStateEvent event )
+	{
+		fieldLog.debug( "Rekeying documents by DOI." );
+
+	} // onRekeyServiceRunning
+
+
+	private void onRekeyServiceSucceeded( WorkerStateEvent event )
+	{
+		fieldLog.info( "Rekeyed " + event.getSource( ).getValue( ) + " documents by DOI." );
+
+	} // onRekeyServiceSucceeded
+
+
+	/**
+	 * Starts (or restarts) a crawl of each URL in the URL field. Several URLs may be given, separated by whitespace, to
+	 * crawl them all at once. Crawls of URLs not listed are left alone.
+	 */
+	private void startCrawl( boolean resume, boolean incremental, boolean fillGaps )
+	{
+		for ( String urlText : fieldUrl.getText( ).trim( ).split( "\\s+" ) )
+			{
+			if ( urlText.isEmpty( ) )
+				continue;
+
+			try
+				{
+				// Set the crawl URI and start it.
+				URL url = new URL( urlText );
+				CrawlService crawlService = crawlServiceFor( urlText );
+				crawlService.setUrl( url );
+				crawlService.setResume( resume );
+				crawlService.setIncremental( incremental );
+				crawlService.setFillGaps( fillGaps );
+				crawlService.setArchive( fieldRecordCheckBox.isSelected( ) ? fieldCrawlArchive : null );
+				crawlService.restart( );
+
+				// Only crawls still running are kept. (Restarting one that was running cancels it first, which drops
+				// it.)
+				fieldCrawlServices.put( urlText, crawlService );
+				}
+			catch ( MalformedURLException exception )
+				{
+				fieldLog.error( "Couldn't convert the crawl URL string '" + urlText + "' into a URL instance.",
+						exception );
+				}
+			}
+
+	} // startCrawl
+
+}
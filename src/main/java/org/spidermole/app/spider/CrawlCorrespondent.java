@@ -1,33 +1,164 @@
-/*
- * CrawlCorrespondent.java
- * 
- * Created: Oct 15, 2020
- */
-package org.spidermole.app.spider;
-
-import java.net.URI;
-import java.util.List;
-
-import org.spidermole.model.ResearchItem;
-
-/**
- * CrawlCorrespondent defines an object that knows how to interpret API or web page responses for a specific domain,
- * will convert those into persistable objects, and can provide information on how to properly and politely navigate the
- * API or site.
- * 
- * @author David Schmidt (dschmidt13@gmail.com)
- */
-public interface CrawlCorrespondent
-{
-	// FIXME - Fix this API. It should be giving these functions more context to work with - possibly even a copy of the
-	// robots.txt would be nice (upon construction?).
-
-	List<ResearchItem> extractResearchItems( String responseBody );
-
-
-	int getCrawlDelaySeconds( );
-
-
-	URI getNextPageUri( URI currentUri );
-
-}
+/*
+ * CrawlCorrespondent.java
+ * 
+ * Created: Oct 15, 2020
+ */
+package org.spidermole.app.spider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import org.spidermole.model.ResearchItem;
+
+/**
+ * CrawlCorrespondent defines an object that knows how to interpret API or web page responses for a specific domain,
+ * will convert those into persistable objects, and can provide information on how to properly and politely navigate the
+ * API or site.
+ * <p>
+ * Implementations are discovered by the {@link CrawlCorrespondentRegistry}, and so must be listed in
+ * {@code META-INF/services/org.spidermole.app.spider.CrawlCorrespondent} and have a public no-argument constructor. A
+ * single instance of each is shared by every crawl, so implementations must be thread-safe.
+ * 
+ * @author David Schmidt (dschmidt13@gmail.com)
+ */
+public interface CrawlCorrespondent
+{
+	// FIXME - Fix this API. It should be giving these functions more context to work with - a copy of the robots.txt
+	// would be nice (upon construction?). Pages can at least say where the crawl goes next now (see
+	// CrawlPageSummary#isResponseDriven()).
+
+	List<ResearchItem> extractResearchItems( String responseBody );
+
+
+	/**
+	 * Streaming variant of {@link #extractResearchItems(String)}. Each item is handed to the sink as soon as it has
+	 * been extracted, rather than collecting the whole page first. The stream is not closed by this method.
+	 * <p>
+	 * The default implementation simply buffers the whole (UTF-8) body and delegates to the {@code String} variant;
+	 * correspondents for large pages should override it with a true incremental parser.
+	 * 
+	 * @param responseBody the raw response body.
+	 * @param sink the sink to receive each extracted item, in page order.
+	 * @return a summary of the page, including the number of items handed to the sink.
+	 * @throws IOException if the stream could not be read or parsed.
+	 * @throws InterruptedException if interrupted while the sink was waiting to accept an item.
+	 */
+	default CrawlPageSummary extractResearchItems( InputStream responseBody, ResearchItemSink sink )
+			throws IOException, InterruptedException
+	{
+		List<ResearchItem> items = extractResearchItems(
+				new String( responseBody.readAllBytes( ), StandardCharsets.UTF_8 ) );
+		for ( ResearchItem item : items )
+			sink.accept( item );
+
+		return new CrawlPageSummary( items.size( ), CrawlPageSummary.UNKNOWN_TOTAL );
+
+	} // extractResearchItems
+
+
+	int getCrawlDelaySeconds( );
+
+
+	/**
+	 * Builds the URI of the first page listing everything the site published within the given dates, which is what an
+	 * incremental crawl starts from.
+	 * <p>
+	 * The default implementation returns null, meaning the site can't be crawled incrementally.
+	 * 
+	 * @param from the first publication date to include.
+	 * @param to the last publication date to include.
+	 * @return the URI of the first page of the interval, or null if the site has no such listing.
+	 */
+	default URI getIntervalUri( LocalDate from, LocalDate to )
+	{
+		return null;
+
+	} // getIntervalUri
+
+
+	/**
+	 * Works out the URI of the page after the given one from the URI alone, which lets the crawl fetch it while the
+	 * current page is still being parsed.
+	 * <p>
+	 * Correspondents for sites whose pages say where the crawl continues (e.g. with a resumption token) should return
+	 * null here, and report the next page in the {@link CrawlPageSummary#isResponseDriven() response-driven} summary
+	 * of each page instead.
+	 * 
+	 * @param currentUri the URI of a page.
+	 * @return the URI of the next page, or null if it can't be worked out from the URI.
+	 */
+	URI getNextPageUri( URI currentUri );
+
+
+	/**
+	 * Builds the URI of another page of the listing the given page belongs to (see {@link #locatePage(URI)}), which
+	 * is how gaps in a crawl's coverage are requested without crawling the whole listing again.
+	 * <p>
+	 * The default implementation returns null, meaning pages can't be requested by cursor.
+	 * 
+	 * @param uri the URI of any page of the listing.
+	 * @param cursor the offset of the first item of the page wanted.
+	 * @return the URI of the page, or null.
+	 */
+	default URI getPageUri( URI uri, int cursor )
+	{
+		return null;
+
+	} // getPageUri
+
+
+	/**
+	 * @return a short, stable name for the source this correspondent crawls (e.g. {@code "biorxiv"}), which identifies
+	 *         it in stored crawl state such as its {@link org.spidermole.model.CrawlHighWaterMark high-water mark}.
+	 */
+	String getSourceName( );
+
+
+	/**
+	 * @param uri the URI of a page to crawl.
+	 * @return whether this correspondent knows how to read (and navigate from) the page.
+	 */
+	boolean handles( URI uri );
+
+
+	/**
+	 * Places a page within the listing it belongs to, so that the {@link CrawlCoverageLedger} can keep track of which
+	 * parts of each listing have been crawled. Listings whose contents move around between requests (e.g. "the most
+	 * recent items") have nothing fixed to track, and shouldn't be located.
+	 * <p>
+	 * The default implementation returns null, meaning the coverage of the site isn't tracked.
+	 * 
+	 * @param uri the URI of a page to crawl.
+	 * @return the location of the page, or null.
+	 */
+	default CrawlPageLocation locatePage( URI uri )
+	{
+		return null;
+
+	} // locatePage
+
+
+	/**
+	 * Splits the crawl starting at the given URI into independent sub-crawls (e.g. by date range), each of which can be
+	 * paged through, retried, and checkpointed on its own. Called once the first page of the seed has been read.
+	 * <p>
+	 * The default implementation doesn't partition at all.
+	 * 
+	 * @param seedUri the URI the crawl was started from.
+	 * @param totalCount the total number of items the server reported for the seed, or
+	 *            {@link CrawlPageSummary#UNKNOWN_TOTAL}.
+	 * @return the starting URIs of the sub-crawls, which together cover the seed. A list containing only the seed
+	 *         itself means the crawl should simply continue paging from it.
+	 */
+	default List<URI> partitionCrawl( URI seedUri, int totalCount )
+	{
+		return Collections.singletonList( seedUri );
+
+	} // partitionCrawl
+
+}
@@ -0,0 +1,106 @@
+/*
+ * CrawlCorrespondentRegistry.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * CrawlCorrespondentRegistry holds one instance of each {@link CrawlCorrespondent} implementation available, and finds
+ * the one that knows a given site. Implementations are discovered with {@link ServiceLoader}, so a new site can be
+ * supported by adding its correspondent to {@code META-INF/services/org.spidermole.app.spider.CrawlCorrespondent}
+ * (in this or any other jar on the classpath), without touching the crawl itself.
+ * <p>
+ * Correspondents are asked in the order they were discovered whether they {@link CrawlCorrespondent#handles(URI)
+ * handle} a URI, and the first one that does wins. Since several correspondents may share a host (e.g. bioRxiv and
+ * medRxiv both live on {@code api.biorxiv.org}), lookups are by the whole URI rather than just its host.
+ * <p>
+ * The registry is immutable once constructed, and safe to share between crawls.
+ */
+public class CrawlCorrespondentRegistry
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( CrawlCorrespondentRegistry.class );
+
+	// Data members.
+	private final List<CrawlCorrespondent> fieldCorrespondents;
+
+	/**
+	 * Discovers every correspondent registered with the {@link ServiceLoader}. Correspondents that fail to load are
+	 * logged and left out.
+	 */
+	public CrawlCorrespondentRegistry( )
+	{
+		List<CrawlCorrespondent> correspondents = new ArrayList<>( );
+		ServiceLoader<CrawlCorrespondent> loader = ServiceLoader.load( CrawlCorrespondent.class,
+				CrawlCorrespondent.class.getClassLoader( ) );
+		Iterator<CrawlCorrespondent> iterator = loader.iterator( );
+		while ( iterator.hasNext( ) )
+			{
+			try
+				{
+				correspondents.add( iterator.next( ) );
+				}
+			catch ( ServiceConfigurationError error )
+				{
+				LOG.error( "Unable to load a crawl correspondent.", error );
+				}
+			}
+
+		fieldCorrespondents = Collections.unmodifiableList( correspondents );
+		LOG.debug( "Discovered " + fieldCorrespondents.size( ) + " crawl correspondents." );
+
+	} // CrawlCorrespondentRegistry
+
+
+	/**
+	 * Holds just the given correspondents, rather than those registered with the {@link ServiceLoader}, e.g. to crawl a
+	 * stand-in server.
+	 * 
+	 * @param correspondents the correspondents, in the order they should be asked.
+	 */
+	public CrawlCorrespondentRegistry( List<CrawlCorrespondent> correspondents )
+	{
+		fieldCorrespondents = Collections.unmodifiableList( new ArrayList<>( correspondents ) );
+
+	} // CrawlCorrespondentRegistry
+
+
+	/**
+	 * @param uri the URI of a page to crawl.
+	 * @return the correspondent that knows the page's site, or null if none does.
+	 */
+	public CrawlCorrespondent forUri( URI uri )
+	{
+		for ( CrawlCorrespondent correspondent : fieldCorrespondents )
+			{
+			if ( correspondent.handles( uri ) )
+				return correspondent;
+			}
+
+		return null;
+
+	} // forUri
+
+
+	/**
+	 * @return every correspondent discovered, in discovery order.
+	 */
+	public List<CrawlCorrespondent> getCorrespondents( )
+	{
+		return fieldCorrespondents;
+
+	} // getCorrespondents
+
+}
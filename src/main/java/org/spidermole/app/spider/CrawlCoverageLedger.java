@@ -0,0 +1,294 @@
+/*
+ * CrawlCoverageLedger.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import static com.cloudant.client.api.query.Expression.eq;
+import static com.cloudant.client.api.query.Operation.and;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.model.CrawlCoverage;
+import org.spidermole.util.DbUtils;
+
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.Response;
+import com.cloudant.client.api.query.QueryBuilder;
+import com.cloudant.client.api.query.QueryResult;
+import com.cloudant.client.org.lightcouch.DocumentConflictException;
+import com.cloudant.client.org.lightcouch.NoDocumentException;
+
+/**
+ * CrawlCoverageLedger keeps the {@link CrawlCoverage} of every listing crawled, page by page, and works out from it
+ * which pages would have to be requested to fill the gaps that partial or failed crawls left behind. Only the pages of
+ * listings a correspondent can {@link CrawlCorrespondent#locatePage(URI) locate} are tracked.
+ * <p>
+ * Pages are {@link #recordPage(CrawlCorrespondent, URI, CrawlPageSummary) recorded} in memory, and the listings they
+ * changed are only saved when the ledger is {@link #flush() flushed}, so that a crawl writes each listing's coverage
+ * now and then rather than once per page. Like checkpoints, coverage is saved on a best-effort basis: a page that
+ * can't be saved (or wasn't flushed before a crash) is logged, and simply shows up as a gap later. A ledger caches the
+ * coverage it has written, so it is meant to be used for the length of a single crawl; it is safe for use by that
+ * crawl's ranges at once. Coverage saved concurrently by another crawl is merged rather than overwritten.
+ */
+public class CrawlCoverageLedger
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( CrawlCoverageLedger.class );
+
+	private static final int QUERY_PAGE_SIZE = 200;
+
+	// Data members.
+	private final Database fieldDatabase;
+	private final Map<String, CrawlCoverage> fieldCoverage = new ConcurrentHashMap<>( );
+
+	/**
+	 * The listing URIs of the coverage recorded since the last flush.
+	 */
+	private final Set<String> fieldUnsaved = ConcurrentHashMap.newKeySet( );
+
+	public CrawlCoverageLedger( Database database )
+	{
+		fieldDatabase = Objects.requireNonNull( database, "A database is required." );
+
+	} // CrawlCoverageLedger
+
+
+	/**
+	 * @return the cached coverage of the listing, loading it (or starting it) if this ledger hasn't seen it yet.
+	 */
+	private CrawlCoverage coverageFor( String source, CrawlPageLocation location )
+	{
+		return fieldCoverage.computeIfAbsent( location.getListingUri( ).toString( ), ( listingUri ) ->
+			{
+			CrawlCoverage coverage = find( listingUri );
+
+			return ( coverage != null ) ? coverage
+					: new CrawlCoverage( source, listingUri, Objects.toString( location.getFrom( ), null ),
+							Objects.toString( location.getTo( ), null ) );
+			} );
+
+	} // coverageFor
+
+
+	private CrawlCoverage find( String listingUri )
+	{
+		try
+			{
+			return fieldDatabase.find( CrawlCoverage.class, CrawlCoverage.idForListing( listingUri ) );
+			}
+		catch ( NoDocumentException exception )
+			{
+			return null;
+			}
+
+	} // find
+
+
+	/**
+	 * Saves the coverage of every listing that pages have been recorded in since the last flush.
+	 */
+	public void flush( )
+	{
+		for ( Iterator<String> iterator = fieldUnsaved.iterator( ); iterator.hasNext( ); )
+			{
+			CrawlCoverage coverage = fieldCoverage.get( iterator.next( ) );
+			iterator.remove( );
+			synchronized ( coverage )
+				{
+				save( coverage );
+				}
+			}
+
+	} // flush
+
+
+	/**
+	 * @param source the source a crawl reads from.
+	 * @return the stored coverage of every listing of the source, by listing URI.
+	 */
+	public Map<String, CrawlCoverage> load( String source )
+	{
+		Map<String, CrawlCoverage> coverage = new LinkedHashMap<>( );
+		String bookmark = null;
+		List<CrawlCoverage> docs;
+		do
+			{
+			QueryBuilder builder = new QueryBuilder(
+					and( eq( DbUtils.FIELD_TYPE, CrawlCoverage.DATABASE_TYPE ), eq( "source", source ) ) );
+			builder.limit( QUERY_PAGE_SIZE );
+			if ( bookmark != null )
+				builder.bookmark( bookmark );
+
+			QueryResult<CrawlCoverage> page = fieldDatabase.query( builder.build( ), CrawlCoverage.class );
+			docs = page.getDocs( );
+			bookmark = page.getBookmark( );
+			for ( CrawlCoverage doc : docs )
+				coverage.put( doc.getListingUri( ), doc );
+			}
+		while ( docs.size( ) == QUERY_PAGE_SIZE );
+
+		return coverage;
+
+	} // load
+
+
+	/**
+	 * Works out the smallest set of page requests that would complete the coverage of the source: the missing pages of
+	 * each listing whose total is known, and the first page of each partition that was never crawled at all (whose
+	 * own gaps can only be planned once its first page has reported its total).
+	 * 
+	 * @param source the source a crawl reads from.
+	 * @param correspondent the correspondent for the source, to build the page URIs with.
+	 * @return the URIs of the pages to request, listing by listing.
+	 */
+	public List<URI> planGapFill( String source, CrawlCorrespondent correspondent )
+	{
+		Map<String, CrawlCoverage> coverage = load( source );
+		List<URI> plan = new ArrayList<>( );
+		for ( CrawlCoverage listing : coverage.values( ) )
+			{
+			// A partitioned listing is covered by its partitions, which have coverage of their own.
+			if ( !listing.getPartitions( ).isEmpty( ) )
+				{
+				for ( String partition : listing.getPartitions( ) )
+					{
+					if ( !coverage.containsKey( partition ) )
+						plan.add( URI.create( partition ) );
+					}
+				continue;
+				}
+
+			URI listingUri = URI.create( listing.getListingUri( ) );
+			int pageSize = Math.max( 1, listing.getPageSize( ) );
+			for ( CrawlCoverage.Page gap : listing.getGaps( ) )
+				{
+				for ( int cursor = gap.getStart( ); cursor < gap.getEnd( ); cursor += pageSize )
+					{
+					URI pageUri = correspondent.getPageUri( listingUri, cursor );
+					if ( pageUri == null )
+						break;
+					plan.add( pageUri );
+					}
+				}
+			}
+
+		return plan;
+
+	} // planGapFill
+
+
+	/**
+	 * Records that a page has been crawled successfully (and its items persisted), to be saved at the next
+	 * {@link #flush()}. Pages the correspondent can't locate aren't recorded.
+	 * 
+	 * @param correspondent the correspondent the page was crawled with.
+	 * @param uri the URI of the page.
+	 * @param summary what was found on the page.
+	 */
+	public void recordPage( CrawlCorrespondent correspondent, URI uri, CrawlPageSummary summary )
+	{
+		CrawlPageLocation location = correspondent.locatePage( uri );
+		if ( location == null )
+			return;
+
+		// A page runs up to where the next one starts.
+		URI nextUri = correspondent.getNextPageUri( uri );
+		CrawlPageLocation next = ( nextUri == null ) ? null : correspondent.locatePage( nextUri );
+		int pageSize = ( next == null ) ? summary.getItemCount( ) : next.getCursor( ) - location.getCursor( );
+		int totalCount = ( summary.getTotalCount( ) == CrawlPageSummary.UNKNOWN_TOTAL ) ? CrawlCoverage.UNKNOWN_TOTAL
+				: summary.getTotalCount( );
+
+		CrawlCoverage coverage = coverageFor( correspondent.getSourceName( ), location );
+		synchronized ( coverage )
+			{
+			coverage.recordPage( location.getCursor( ), pageSize, summary.getItemCount( ), totalCount );
+			}
+		fieldUnsaved.add( location.getListingUri( ).toString( ) );
+
+	} // recordPage
+
+
+	/**
+	 * Records that a listing is being crawled as the given narrower listings instead of page by page. This is saved
+	 * right away, since the partitions' own coverage is only meaningful alongside it.
+	 * 
+	 * @param correspondent the correspondent the listing is crawled with.
+	 * @param seedUri the URI of the first page of the listing.
+	 * @param partitions the URIs of the first pages of the narrower listings.
+	 */
+	public void recordPartitions( CrawlCorrespondent correspondent, URI seedUri, List<URI> partitions )
+	{
+		CrawlPageLocation location = correspondent.locatePage( seedUri );
+		if ( location == null )
+			return;
+
+		List<String> partitionUris = new ArrayList<>( partitions.size( ) );
+		for ( URI partition : partitions )
+			{
+			CrawlPageLocation partitionLocation = correspondent.locatePage( partition );
+			partitionUris.add( ( ( partitionLocation == null ) ? partition : partitionLocation.getListingUri( ) )
+					.toString( ) );
+			}
+
+		CrawlCoverage coverage = coverageFor( correspondent.getSourceName( ), location );
+		synchronized ( coverage )
+			{
+			coverage.recordPartitions( partitionUris );
+			save( coverage );
+			}
+
+	} // recordPartitions
+
+
+	/**
+	 * Saves the coverage, merging in whatever another crawl may have saved since it was loaded. The caller must hold
+	 * the coverage's lock.
+	 */
+	private void save( CrawlCoverage coverage )
+	{
+		for ( int attempt = 1; attempt <= 2; attempt++ )
+			{
+			try
+				{
+				Response response = ( coverage.getRevision( ) == null ) ? fieldDatabase.save( coverage )
+						: fieldDatabase.update( coverage );
+				if ( response.getError( ) == null )
+					coverage.setRevision( response.getRev( ) );
+				else
+					LOG.error( "Failed to save the coverage of '" + coverage.getListingUri( ) + "': "
+							+ response.getError( ) );
+				return;
+				}
+			catch ( DocumentConflictException exception )
+				{
+				CrawlCoverage latest = find( coverage.getListingUri( ) );
+				if ( latest != null )
+					{
+					coverage.merge( latest );
+					coverage.setRevision( latest.getRevision( ) );
+					}
+				}
+			catch ( Exception exception )
+				{
+				LOG.error( "Failed to save the coverage of '" + coverage.getListingUri( ) + "'.", exception );
+				return;
+				}
+			}
+
+		LOG.error( "Failed to save the coverage of '" + coverage.getListingUri( ) + "': conflict." );
+
+	} // save
+
+}
@@ -0,0 +1,91 @@
+/*
+ * CrawlHighWaterMarkStore.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.util.Date;
+import java.util.Objects;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.model.CrawlHighWaterMark;
+
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.Response;
+import com.cloudant.client.org.lightcouch.NoDocumentException;
+
+/**
+ * CrawlHighWaterMarkStore loads and advances {@link CrawlHighWaterMark}s. Like checkpoints, marks are saved on a
+ * best-effort basis: a mark that can't be written is logged, and the next incremental crawl simply covers a little more
+ * than it had to.
+ */
+public class CrawlHighWaterMarkStore
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( CrawlHighWaterMarkStore.class );
+
+	// Data members.
+	private final Database fieldDatabase;
+
+	public CrawlHighWaterMarkStore( Database database )
+	{
+		fieldDatabase = Objects.requireNonNull( database, "A database is required." );
+
+	} // CrawlHighWaterMarkStore
+
+
+	/**
+	 * Moves the mark for the given source forward to the given date, unless it is already at or past it.
+	 * 
+	 * @param source the source that was crawled.
+	 * @param newest the newest publication date ingested from the source, or null if nothing was.
+	 */
+	public void advance( String source, Date newest )
+	{
+		if ( newest == null )
+			return;
+
+		try
+			{
+			CrawlHighWaterMark mark = load( source );
+			if ( mark == null )
+				mark = new CrawlHighWaterMark( source );
+
+			if ( !mark.advance( newest ) )
+				return;
+
+			Response response = ( mark.getRevision( ) == null ) ? fieldDatabase.save( mark )
+					: fieldDatabase.update( mark );
+			if ( response.getError( ) == null )
+				LOG.info( "Advanced the high-water mark for '" + source + "' to " + newest + "." );
+			else
+				LOG.error( "Failed to save the high-water mark for '" + source + "': " + response.getError( ) );
+			}
+		catch ( Exception exception )
+			{
+			LOG.error( "Failed to save the high-water mark for '" + source + "'.", exception );
+			}
+
+	} // advance
+
+
+	/**
+	 * @param source the source a crawl reads from.
+	 * @return the stored mark for the source, or null if there isn't one.
+	 */
+	public CrawlHighWaterMark load( String source )
+	{
+		try
+			{
+			return fieldDatabase.find( CrawlHighWaterMark.class, CrawlHighWaterMark.idForSource( source ) );
+			}
+		catch ( NoDocumentException exception )
+			{
+			return null;
+			}
+
+	} // load
+
+}
@@ -0,0 +1,79 @@
+/*
+ * CrawlPageLocation.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.net.URI;
+import java.time.LocalDate;
+
+/**
+ * CrawlPageLocation places a page within the listing it belongs to (e.g. everything a server published within a date
+ * interval), as reported by {@link CrawlCorrespondent#locatePage(URI)}. A listing is identified by the URI of its first
+ * page, and each page by its cursor, i.e. the offset of its first item within the listing.
+ */
+public class CrawlPageLocation
+{
+	// Data members.
+	private final URI fieldListingUri;
+	private final LocalDate fieldFrom;
+	private final LocalDate fieldTo;
+	private final int fieldCursor;
+
+	/**
+	 * @param listingUri the URI of the first page of the listing.
+	 * @param from the first publication date the listing covers, or null if it isn't a date interval.
+	 * @param to the last publication date the listing covers, or null if it isn't a date interval.
+	 * @param cursor the offset of the page's first item within the listing.
+	 */
+	public CrawlPageLocation( URI listingUri, LocalDate from, LocalDate to, int cursor )
+	{
+		fieldListingUri = listingUri;
+		fieldFrom = from;
+		fieldTo = to;
+		fieldCursor = cursor;
+
+	} // CrawlPageLocation
+
+
+	/**
+	 * @return the cursor, i.e. the offset of the page's first item within the listing.
+	 */
+	public int getCursor( )
+	{
+		return fieldCursor;
+
+	} // getCursor
+
+
+	/**
+	 * @return the first publication date the listing covers, or null if it isn't a date interval.
+	 */
+	public LocalDate getFrom( )
+	{
+		return fieldFrom;
+
+	} // getFrom
+
+
+	/**
+	 * @return the URI of the first page of the listing.
+	 */
+	public URI getListingUri( )
+	{
+		return fieldListingUri;
+
+	} // getListingUri
+
+
+	/**
+	 * @return the last publication date the listing covers, or null if it isn't a date interval.
+	 */
+	public LocalDate getTo( )
+	{
+		return fieldTo;
+
+	} // getTo
+
+}
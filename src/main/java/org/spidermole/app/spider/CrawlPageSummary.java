@@ -0,0 +1,100 @@
+/*
+ * CrawlPageSummary.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.net.URI;
+
+/**
+ * CrawlPageSummary reports what a {@link CrawlCorrespondent} found while extracting a single page: how many items it
+ * handed off, and (if the server said so) how many items the whole result set contains.
+ * <p>
+ * Where the way to the next page can only be found in the page itself (e.g. an OAI-PMH resumption token), the
+ * summary is {@link #isResponseDriven() response-driven}, and carries the URI of the next page (or none, if the page
+ * was the last). Otherwise, the crawl asks the correspondent for the next page as usual.
+ */
+public class CrawlPageSummary
+{
+	// Class constants.
+	/**
+	 * The total count reported when the server doesn't report one.
+	 */
+	public static final int UNKNOWN_TOTAL = -1;
+
+	// Data members.
+	private final int fieldItemCount;
+	private final int fieldTotalCount;
+	private final boolean fieldResponseDriven;
+	private final URI fieldNextPageUri;
+
+	public CrawlPageSummary( int itemCount, int totalCount )
+	{
+		fieldItemCount = itemCount;
+		fieldTotalCount = totalCount;
+		fieldResponseDriven = false;
+		fieldNextPageUri = null;
+
+	} // CrawlPageSummary
+
+
+	/**
+	 * Creates a response-driven summary.
+	 * 
+	 * @param itemCount the number of items extracted from the page.
+	 * @param totalCount the total number of items in the result set, or {@link #UNKNOWN_TOTAL}.
+	 * @param nextPageUri the URI of the next page, as given by the page, or null if the page was the last.
+	 */
+	public CrawlPageSummary( int itemCount, int totalCount, URI nextPageUri )
+	{
+		fieldItemCount = itemCount;
+		fieldTotalCount = totalCount;
+		fieldResponseDriven = true;
+		fieldNextPageUri = nextPageUri;
+
+	} // CrawlPageSummary
+
+
+	/**
+	 * @return the number of items extracted from the page.
+	 */
+	public int getItemCount( )
+	{
+		return fieldItemCount;
+
+	} // getItemCount
+
+
+	/**
+	 * @return the URI of the next page, as given by the page, or null if there is none (or the summary isn't
+	 *         {@link #isResponseDriven() response-driven}).
+	 */
+	public URI getNextPageUri( )
+	{
+		return fieldNextPageUri;
+
+	} // getNextPageUri
+
+
+	/**
+	 * @return the total number of items in the result set the page belongs to, or {@link #UNKNOWN_TOTAL}.
+	 */
+	public int getTotalCount( )
+	{
+		return fieldTotalCount;
+
+	} // getTotalCount
+
+
+	/**
+	 * @return whether the page itself said where the crawl continues (see {@link #getNextPageUri()}), rather than
+	 *         leaving it to the correspondent to work out from the page's URI.
+	 */
+	public boolean isResponseDriven( )
+	{
+		return fieldResponseDriven;
+
+	} // isResponseDriven
+
+}
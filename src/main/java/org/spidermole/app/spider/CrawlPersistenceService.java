@@ -1,146 +1,687 @@
-/*
- * CrawlPersistenceService.java
- * 
- * Created: Oct 14, 2020
- */
-package org.spidermole.app.spider;
-
-import static com.cloudant.client.api.query.Expression.eq;
-import static com.cloudant.client.api.query.Operation.and;
-
-import java.util.Objects;
-import java.util.concurrent.BlockingQueue;
-
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.spidermole.app.Constants;
-import org.spidermole.model.ResearchItem;
-import org.spidermole.util.DbUtils;
-
-import com.cloudant.client.api.Database;
-import com.cloudant.client.api.model.Document;
-import com.cloudant.client.api.model.Response;
-import com.cloudant.client.api.query.QueryBuilder;
-import com.cloudant.client.api.query.QueryResult;
-
-import javafx.concurrent.Service;
-import javafx.concurrent.Task;
-
-/**
- * CrawlPersistenceService remains running for the lifetime of the CrawlControlPanel and awaits {@link Document}s to
- * persist being added to its queue. A thread-safe queue must be provided in the service constructor. The service is
- * sensitive to interrupts and task cancellation.
- * 
- * @author David Schmidt (dschmidt13@gmail.com)
- */
-public class CrawlPersistenceService extends Service<Void>
-{
-	// Log instance.
-	private static final Logger LOG = LogManager.getLogger( CrawlPersistenceService.class );
-
-	// Data members.
-	private final BlockingQueue<ResearchItem> fieldQueue;
-
-	public CrawlPersistenceService( BlockingQueue<ResearchItem> queue )
-	{
-		Objects.requireNonNull( queue, "A queue must be provided." );
-		fieldQueue = queue;
-
-	} // CrawlPersistenceService
-
-
-	private static int compareVersions( ResearchItem original, ResearchItem newItem )
-	{
-		// Attempt to parse the versions. Default to using the new value (returning negative) if we fail.
-		if ( original.getVersion( ) == null || newItem.getVersion( ) == null )
-			return -1;
-		else
-			return ( original.getVersion( ).intValue( ) - newItem.getVersion( ).intValue( ) );
-
-	} // compareVersions
-
-
-	@Override
-	protected Task<Void> createTask( )
-	{
-		return new Task<>( )
-		{
-			@Override
-			protected Void call( ) throws Exception
-			{
-				Database database = DbUtils.buildDefaultClient( ).database( Constants.DATABASE_DBNAME, true );
-
-				while ( !isCancelled( ) )
-					{
-					/*
-					 * We could write this to run on batches, but since we still have to search for individual
-					 * duplicates, that becomes slightly more complicated (and is ultimately less of a performance gain
-					 * than it would otherwise be). So for now, we'll stick to dequeueing, checking, and posting one
-					 * document at a time. (It may well still outpace the producer.)
-					 */
-					try
-						{
-						// Await a document arriving. This will spend a lot of time waiting over the service's lifetime.
-						// It will eventually throw InterruptedException when the service is cancelled.
-						ResearchItem item = fieldQueue.take( );
-
-						// Search for an existing record by DOI. If we have one, we'll overwrite it with the new values
-						// from the server (by stealing its id and rev).
-						String dupQuery = new QueryBuilder( and( eq( DbUtils.FIELD_TYPE, ResearchItem.DATABASE_TYPE ),
-								eq( "doi", item.getDOI( ) ) ) ).build( );
-						QueryResult<ResearchItem> dupResult = database.query( dupQuery, ResearchItem.class );
-						if ( !dupResult.getDocs( ).isEmpty( ) )
-							{
-							ResearchItem original = dupResult.getDocs( ).get( 0 );
-
-							// Special case: Don't persist anything if the version we have stored is the same or
-							// greater. Just move on.
-							if ( compareVersions( original, item ) >= 0 )
-								continue;
-
-							item.setId( original.getId( ) );
-							item.setRevision( original.getRevision( ) );
-							item.setCreateDate( original.getCreateDate( ) );
-
-							// Also preserve existing votes. This is a terrible place to do this, but that's mainly a
-							// consequence of the way votes are implemented (and they aren't going to change for now).
-							item.setYesVotes( original.getYesVotes( ) );
-							item.setNoVotes( original.getNoVotes( ) );
-							}
-
-						// Persist the item.
-						Response response;
-						if ( item.getRevision( ) == null )
-							response = database.post( item );
-						else
-							response = database.update( item );
-
-						if ( response.getError( ) != null )
-							{
-							LOG.error( "Error persisting document with DOI '" + item.getDOI( ) + "': "
-									+ response.getError( ) );
-							}
-						}
-					catch ( InterruptedException exception )
-						{
-						LOG.debug( "Interrupted while awaiting documents to persist. Service task has "
-								+ ( isCancelled( ) ? "" : "not " ) + "been cancelled." );
-
-						// Restore the interrupt only if we're cancelled. (We're basically sure to be cancelled here,
-						// anyway, but restoring the interrupt would come with a high performance penalty otherwise.)
-						if ( isCancelled( ) )
-							Thread.currentThread( ).interrupt( );
-						}
-					}
-
-				return null;
-
-			} // call
-
-
-		};
-
-	} // createTask
-
-
-}
+/*
+ * CrawlPersistenceService.java
+ * 
+ * Created: Oct 14, 2020
+ */
+package org.spidermole.app.spider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.app.Constants;
+import org.spidermole.model.ResearchItem;
+
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.Document;
+import com.cloudant.client.api.model.Response;
+
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+/**
+ * CrawlPersistenceService remains running for the lifetime of the CrawlControlPanel and awaits {@link Document}s to
+ * persist being added to its queue. A thread-safe queue must be provided in the service constructor. The service is
+ * sensitive to interrupts and task cancellation.
+ * <p>
+ * The service's own thread only dispatches items from the queue to a fixed number of worker threads (see
+ * {@link #setWorkerCount(int)}), each fed through a pre-allocated {@link SpscRingBuffer}. Items are routed by the hash
+ * of their DOI, so all updates of one DOI are written by the same worker, in order, while different DOIs are written
+ * in parallel (and never conflict with each other).
+ * <p>
+ * Each worker persists its items in batches: it drains up to {@code batchSize} items from its ring (waiting at most
+ * {@code batchWaitMillis} after the first one arrives for the rest), resolves duplicates for the whole batch with a
+ * single key lookup, and writes the batch with a single {@code _bulk_docs} request. Documents are keyed by
+ * {@link ResearchItem#idForDoi(String)}.
+ * <p>
+ * Every {@link Constants#PERSIST_REPORT_INTERVAL_MILLIS}, the service reports the number of documents waiting to be
+ * persisted and each worker's recent throughput as its {@link #getMessage() message}.
+ * <p>
+ * A batch that fails as a whole (e.g. the database can't be reached) is tried again a few times, after a short delay,
+ * before its items are given up on. Items that fail to persist, whether the database rejected them (including with a
+ * {@code 409} conflict) or the whole batch failed, are kept in a {@link DeadLetterStore} with the error, and dispatched
+ * again at the same interval once their backoff has passed. They can also be {@link #replayDeadLetters() replayed} by
+ * hand. (Without a dead letter store, the items of a failed batch are put back on the queue instead.)
+ * <p>
+ * Each {@link #addListener(Listener) listener} is told about every batch once the service is done with it, and when
+ * the service starts and stops, so that crawls can tell how far their items have made it, or that they won't make it
+ * any further (see {@link PersistenceTracker}).
+ * 
+ * @author David Schmidt (dschmidt13@gmail.com)
+ */
+public class CrawlPersistenceService extends Service<Void>
+{
+	/**
+	 * Listener is told about the items the service is done with, on the worker that wrote them.
+	 */
+	public interface Listener
+	{
+		/**
+		 * Called with each batch of items the service is done with: those persisted or skipped as already up to date,
+		 * and those the database rejected, once they're kept in the dead letter store (or, without one, given up on).
+		 * The items of a batch that failed as a whole and went back on the queue aren't reported until they come
+		 * around again.
+		 */
+		void onPersisted( List<ResearchItem> items );
+
+
+		/**
+		 * Called once the service has started taking items from the queue.
+		 */
+		default void onStarted( )
+		{
+		} // onStarted
+
+
+		/**
+		 * Called once the service has stopped (however it stopped), and its workers have finished with everything
+		 * they were handed. Whatever is still in the queue won't be persisted (or reported) unless it starts again.
+		 */
+		default void onStopped( )
+		{
+		} // onStopped
+
+	} // interface Listener
+
+	// Log instance.
+	private static final Logger LOG = LogManager.getLogger( CrawlPersistenceService.class );
+
+	/**
+	 * How long a worker sleeps at most while its ring is empty. Workers are woken as soon as items arrive, so this
+	 * only bounds how long a missed wake-up could go unnoticed.
+	 */
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos( 100 );
+
+	/**
+	 * How long the dispatcher waits before trying a full ring again.
+	 */
+	private static final long FULL_RING_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos( 1 );
+
+	// Data members.
+	private final Database fieldDatabase;
+	private final BlockingQueue<ResearchItem> fieldQueue;
+	private final DeadLetterStore fieldDeadLetters;
+	private final List<Listener> fieldListeners = new CopyOnWriteArrayList<>( );
+	private volatile int fieldBatchSize = Constants.PERSIST_BATCH_SIZE;
+	private volatile long fieldBatchWaitMillis = Constants.PERSIST_BATCH_WAIT_MILLIS;
+	private volatile int fieldWorkerCount = Constants.PERSIST_WORKERS;
+
+	/**
+	 * Released once the current task's workers have finished what was dispatched to them and stopped.
+	 */
+	private volatile CountDownLatch fieldStopped = new CountDownLatch( 0 );
+
+	/**
+	 * @param database the database to persist to.
+	 * @param queue the queue to take items to persist from.
+	 * @param deadLetters the store to keep items that fail to persist in, or null to only log them.
+	 */
+	public CrawlPersistenceService( Database database, BlockingQueue<ResearchItem> queue, DeadLetterStore deadLetters )
+	{
+		Objects.requireNonNull( database, "A database must be provided." );
+		Objects.requireNonNull( queue, "A queue must be provided." );
+		fieldDatabase = database;
+		fieldQueue = queue;
+		fieldDeadLetters = deadLetters;
+
+	} // CrawlPersistenceService
+
+
+	/**
+	 * Adds a listener to tell about the items persisted. Listeners should be added before the service is started.
+	 */
+	public void addListener( Listener listener )
+	{
+		fieldListeners.add( listener );
+
+	} // addListener
+
+
+	/**
+	 * Waits for the service, once cancelled, to finish persisting whatever it had already taken from the queue, so that
+	 * the queue (and the database client) can be closed without losing it.
+	 * 
+	 * @return true if the service stopped in time (or wasn't running), false if it's still draining.
+	 */
+	public boolean awaitStopped( long timeout, TimeUnit unit ) throws InterruptedException
+	{
+		return fieldStopped.await( timeout, unit );
+
+	} // awaitStopped
+
+
+	static int compareVersions( ResearchItem original, ResearchItem newItem )
+	{
+		// Attempt to parse the versions. Default to using the new value (returning negative) if we fail.
+		if ( original.getVersion( ) == null || newItem.getVersion( ) == null )
+			return -1;
+		else
+			return ( original.getVersion( ).intValue( ) - newItem.getVersion( ).intValue( ) );
+
+	} // compareVersions
+
+
+	@Override
+	protected Task<Void> createTask( )
+	{
+		final int batchSize = Math.max( 1, fieldBatchSize );
+		final long batchWaitMillis = Math.max( 0, fieldBatchWaitMillis );
+		final int workerCount = Math.max( 1, fieldWorkerCount );
+		final CountDownLatch stopped = new CountDownLatch( 1 );
+		fieldStopped = stopped;
+
+		return new Task<>( )
+		{
+			private final List<SpscRingBuffer<ResearchItem>> fieldRings = new ArrayList<>( workerCount );
+			private final AtomicReferenceArray<Thread> fieldWorkerThreads = new AtomicReferenceArray<>( workerCount );
+			private final AtomicLongArray fieldPersisted = new AtomicLongArray( workerCount );
+			private volatile boolean fieldStopping;
+
+			@Override
+			protected Void call( ) throws Exception
+			{
+				for ( int worker = 0; worker < workerCount; worker++ )
+					fieldRings.add( new SpscRingBuffer<>( Constants.PERSIST_RING_CAPACITY ) );
+				for ( Listener listener : fieldListeners )
+					listener.onStarted( );
+
+				ExecutorService workers = Executors.newFixedThreadPool( workerCount );
+				try
+					{
+					for ( int index = 0; index < workerCount; index++ )
+						{
+						final int worker = index;
+						workers.execute( ( ) -> runWorker( fieldDatabase, worker ) );
+						}
+
+					List<ResearchItem> items = new ArrayList<>( Constants.PERSIST_RING_CAPACITY );
+					long[ ] lastPersisted = new long[ workerCount ];
+					long reportNanos = TimeUnit.MILLISECONDS.toNanos( Constants.PERSIST_REPORT_INTERVAL_MILLIS );
+					long lastReport = System.nanoTime( );
+					while ( !isCancelled( ) )
+						{
+						try
+							{
+							// Await a document arriving. This will spend a lot of time waiting over the service's
+							// lifetime. It will eventually throw InterruptedException when the service is cancelled.
+							long untilReport = lastReport + reportNanos - System.nanoTime( );
+							ResearchItem item = fieldQueue.poll( Math.max( 0, untilReport ), TimeUnit.NANOSECONDS );
+							if ( item != null )
+								{
+								// Then route it, and whatever else is waiting, to the workers.
+								dispatch( item );
+								fieldQueue.drainTo( items, Constants.PERSIST_RING_CAPACITY );
+								for ( ResearchItem next : items )
+									dispatch( next );
+								items.clear( );
+								}
+
+							long now = System.nanoTime( );
+							if ( now - lastReport >= reportNanos )
+								{
+								retryDeadLetters( );
+								report( lastPersisted, now - lastReport );
+								lastReport = now;
+								}
+							}
+						catch ( InterruptedException exception )
+							{
+							LOG.debug( "Interrupted while awaiting documents to persist. Service task has "
+									+ ( isCancelled( ) ? "" : "not " ) + "been cancelled." );
+
+							// Restore the interrupt only if we're cancelled. (We're basically sure to be cancelled
+							// here, anyway, but restoring the interrupt would come with a high performance penalty
+							// otherwise.)
+							if ( isCancelled( ) )
+								Thread.currentThread( ).interrupt( );
+							}
+						}
+					}
+				finally
+					{
+					// Don't drop whatever was already dispatched. The workers finish their rings before they stop.
+					fieldStopping = true;
+					for ( int worker = 0; worker < workerCount; worker++ )
+						LockSupport.unpark( fieldWorkerThreads.get( worker ) );
+					workers.shutdown( );
+					awaitWorkers( workers );
+					notifyStopped( );
+					stopped.countDown( );
+					}
+
+				return null;
+
+			} // call
+
+
+			/**
+			 * Waits for the workers to empty their rings and stop, however long that takes: returning any earlier would
+			 * let the queue and the database client be closed under them. An interrupt is kept for afterwards.
+			 */
+			private void awaitWorkers( ExecutorService workers )
+			{
+				boolean interrupted = Thread.interrupted( );
+				while ( true )
+					{
+					try
+						{
+						long waitMillis = Constants.PERSIST_REPORT_INTERVAL_MILLIS;
+						if ( workers.awaitTermination( waitMillis, TimeUnit.MILLISECONDS ) )
+							break;
+						LOG.info( "Waiting for the persistence workers to finish." );
+						}
+					catch ( InterruptedException exception )
+						{
+						interrupted = true;
+						}
+					}
+
+				if ( interrupted )
+					Thread.currentThread( ).interrupt( );
+
+			} // awaitWorkers
+
+
+			/**
+			 * Routes an item to the worker for its DOI, so that every update of a DOI is written by the same worker,
+			 * in order. Waits for the worker if its ring is full.
+			 */
+			private void dispatch( ResearchItem item )
+			{
+				int worker = Math.floorMod( ResearchItem.idForDoi( item.getDOI( ) ).hashCode( ), workerCount );
+				SpscRingBuffer<ResearchItem> ring = fieldRings.get( worker );
+
+				boolean wake = ring.isEmpty( );
+				boolean interrupted = false;
+				while ( !ring.offer( item ) )
+					{
+					// Don't give up on the item, even if cancelled; the worker is draining the ring either way.
+					LockSupport.unpark( fieldWorkerThreads.get( worker ) );
+					LockSupport.parkNanos( FULL_RING_PARK_NANOS );
+					interrupted |= Thread.interrupted( );
+					wake = true;
+					}
+
+				// A worker only ever sleeps once its ring is empty.
+				if ( wake )
+					LockSupport.unpark( fieldWorkerThreads.get( worker ) );
+				if ( interrupted )
+					Thread.currentThread( ).interrupt( );
+
+			} // dispatch
+
+
+			/**
+			 * Writes a batch, trying the whole batch again after a short (doubling) delay if it fails outright, e.g.
+			 * because the database is briefly unreachable. A batch that still fails is kept in the dead letter store
+			 * item by item or, without one, put back on the queue to come around again; either way, it isn't dropped.
+			 */
+			private void persistWithRetry( Database database, int worker, List<ResearchItem> batch )
+			{
+				for ( int attempt = 1;; attempt++ )
+					{
+					try
+						{
+						persistBatch( database, batch );
+						fieldPersisted.addAndGet( worker, batch.size( ) );
+						notifyPersisted( batch );
+						return;
+						}
+					catch ( RuntimeException exception )
+						{
+						// Don't hold up the shutdown with retries; the batch is kept either way.
+						if ( attempt < Constants.PERSIST_BATCH_MAX_ATTEMPTS && !fieldStopping )
+							{
+							long delayMillis = Constants.PERSIST_BATCH_RETRY_DELAY_MILLIS << ( attempt - 1 );
+							LOG.warn( "Persistence worker " + worker + " was unable to persist a batch of "
+									+ batch.size( ) + " documents (attempt " + attempt + "). Retrying in " + delayMillis
+									+ "ms.", exception );
+							LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( delayMillis ) );
+							continue;
+							}
+
+						// Keep going; the database may well be back for the next batch. This one will be retried.
+						LOG.error( "Persistence worker " + worker + " was unable to persist a batch of " + batch.size( )
+								+ " documents after " + attempt + " attempts.", exception );
+						List<ResearchItem> settled = new ArrayList<>( batch.size( ) );
+						for ( ResearchItem failed : batch )
+							{
+							if ( fieldDeadLetters != null )
+								{
+								fieldDeadLetters.add( failed, exception.getClass( ).getSimpleName( ),
+										exception.getMessage( ) );
+								settled.add( failed );
+								}
+							else if ( !fieldQueue.offer( failed ) )
+								{
+								LOG.error( "Unable to queue DOI '" + failed.getDOI( ) + "' again. It was dropped." );
+								settled.add( failed );
+								}
+							}
+						notifyPersisted( settled );
+						return;
+						}
+					}
+
+			} // persistWithRetry
+
+
+			/**
+			 * Reports the number of documents waiting (in the queue and the workers' rings), and how many documents
+			 * each worker has persisted per second since the last report.
+			 */
+			private void report( long[ ] lastPersisted, long elapsedNanos )
+			{
+				double seconds = elapsedNanos / 1e9;
+				long depth = fieldQueue.size( );
+				long total = 0;
+				StringBuilder rates = new StringBuilder( );
+				for ( int worker = 0; worker < workerCount; worker++ )
+					{
+					long persisted = fieldPersisted.get( worker );
+					long delta = persisted - lastPersisted[ worker ];
+					lastPersisted[ worker ] = persisted;
+					total += delta;
+					depth += fieldRings.get( worker ).size( );
+
+					if ( worker > 0 )
+						rates.append( ", " );
+					rates.append( String.format( "%.1f", delta / seconds ) );
+					}
+
+				int deadLetters = ( fieldDeadLetters == null ) ? 0 : fieldDeadLetters.size( );
+				String message = "Persistence queue depth: " + depth + "; documents/s per worker: " + rates
+						+ "; dead letters: " + deadLetters + ".";
+				updateMessage( message );
+				if ( total > 0 || depth > 0 )
+					LOG.info( message );
+
+			} // report
+
+
+			/**
+			 * Dispatches the dead letters that are due for another attempt.
+			 */
+			private void retryDeadLetters( )
+			{
+				if ( fieldDeadLetters == null )
+					return;
+
+				List<ResearchItem> due = fieldDeadLetters.takeDue( );
+				if ( !due.isEmpty( ) )
+					{
+					LOG.info( "Retrying " + due.size( ) + " documents that failed to persist." );
+					for ( ResearchItem item : due )
+						dispatch( item );
+					}
+
+			} // retryDeadLetters
+
+
+			/**
+			 * Persists the items routed to a single worker, in batches: drains up to {@code batchSize} items from the
+			 * worker's ring (waiting at most {@code batchWaitMillis} after the first one arrives for the rest), and
+			 * writes them together. Runs until the service stops and the ring is empty.
+			 */
+			private void runWorker( Database database, int worker )
+			{
+				fieldWorkerThreads.set( worker, Thread.currentThread( ) );
+				SpscRingBuffer<ResearchItem> ring = fieldRings.get( worker );
+
+				List<ResearchItem> batch = new ArrayList<>( batchSize );
+				while ( true )
+					{
+					ResearchItem item = ring.poll( );
+					if ( item == null )
+						{
+						// Check the ring again after the flag, in case the last item arrived just before it was set.
+						if ( fieldStopping && ring.isEmpty( ) )
+							break;
+						LockSupport.parkNanos( IDLE_PARK_NANOS );
+						continue;
+						}
+
+					// Then fill the rest of the batch, waiting a little while for stragglers if the producer is still
+					// mid-page.
+					batch.add( item );
+					long deadline = System.nanoTime( ) + TimeUnit.MILLISECONDS.toNanos( batchWaitMillis );
+					while ( batch.size( ) < batchSize )
+						{
+						item = ring.poll( );
+						if ( item != null )
+							{
+							batch.add( item );
+							continue;
+							}
+
+						long remaining = deadline - System.nanoTime( );
+						if ( remaining <= 0 || fieldStopping )
+							break;
+						LockSupport.parkNanos( remaining );
+						}
+
+					try
+						{
+						persistWithRetry( database, worker, batch );
+						}
+					finally
+						{
+						batch.clear( );
+						}
+					}
+
+				LOG.debug( "Persistence worker " + worker + " stopped." );
+
+			} // runWorker
+
+		};
+
+	} // createTask
+
+
+	private void deadLetter( ResearchItem item, String error, String reason )
+	{
+		if ( fieldDeadLetters != null )
+			fieldDeadLetters.add( item, error, reason );
+
+	} // deadLetter
+
+
+	private void notifyPersisted( List<ResearchItem> items )
+	{
+		if ( items.isEmpty( ) )
+			return;
+
+		// Dead letters taken for another attempt are only removed from the store now.
+		if ( fieldDeadLetters != null )
+			fieldDeadLetters.removeSettled( items );
+
+		for ( Listener listener : fieldListeners )
+			{
+			try
+				{
+				listener.onPersisted( items );
+				}
+			catch ( RuntimeException exception )
+				{
+				LOG.error( "Persistence listener '" + listener + "' failed.", exception );
+				}
+			}
+
+	} // notifyPersisted
+
+
+	private void notifyStopped( )
+	{
+		for ( Listener listener : fieldListeners )
+			{
+			try
+				{
+				listener.onStopped( );
+				}
+			catch ( RuntimeException exception )
+				{
+				LOG.error( "Persistence listener '" + listener + "' failed.", exception );
+				}
+			}
+
+	} // notifyStopped
+
+
+	/**
+	 * Resolves duplicates for and writes a whole batch of items. Duplicates are looked up by their DOI-derived ids in a
+	 * single {@code _all_docs} request, the version and vote preservation rules are applied in memory, and the
+	 * survivors are written with a single bulk request. Errors (including conflicts with concurrent writers) are
+	 * reported per document.
+	 */
+	private void persistBatch( Database database, List<ResearchItem> batch )
+	{
+		// Collapse repeats of the same DOI within the batch itself, keeping the newest version. Every item is keyed by
+		// the id derived from its DOI, so the database itself guarantees there is only one document per DOI.
+		Map<String, ResearchItem> itemsById = new LinkedHashMap<>( );
+		for ( ResearchItem item : batch )
+			{
+			String id = ResearchItem.idForDoi( item.getDOI( ) );
+			ResearchItem other = itemsById.get( id );
+			if ( other == null || compareVersions( other, item ) < 0 )
+				{
+				item.setId( id );
+				itemsById.put( id, item );
+				}
+			}
+
+		// Look up existing records by key. If we have one, we'll overwrite it with the new values from the server (by
+		// stealing its rev).
+		Map<String, ResearchItem> originalsById = new HashMap<>( );
+		try
+			{
+			List<ResearchItem> originals = database.getAllDocsRequestBuilder( ).includeDocs( true )
+					.keys( itemsById.keySet( ).toArray( new String[ itemsById.size( ) ] ) ).build( ).getResponse( )
+					.getDocsAs( ResearchItem.class );
+
+			// Keys that don't exist (or were deleted) come back without a document.
+			for ( ResearchItem original : originals )
+				{
+				if ( original != null )
+					originalsById.put( original.getId( ), original );
+				}
+			}
+		catch ( IOException exception )
+			{
+			// Without knowing what's there, writing would only produce conflicts. Treat it like any other database
+			// failure.
+			LOG.error( "Unable to look up existing documents for a batch of " + itemsById.size( ) + " items.",
+					exception );
+			throw new UncheckedIOException( exception );
+			}
+
+		List<ResearchItem> writes = new ArrayList<>( itemsById.size( ) );
+		for ( ResearchItem item : itemsById.values( ) )
+			{
+			ResearchItem original = originalsById.get( item.getId( ) );
+			if ( original != null )
+				{
+				// Special case: Don't persist anything if the version we have stored is the same or greater. Just
+				// move on. (Items re-extracted from the crawl archive do replace the same version, since that's the
+				// whole point of re-extracting them.)
+				int comparison = compareVersions( original, item );
+				if ( comparison > 0 || ( comparison == 0 && !item.isReingested( ) ) )
+					continue;
+
+				item.setRevision( original.getRevision( ) );
+				item.setCreateDate( original.getCreateDate( ) );
+
+				// Also preserve existing votes. This is a terrible place to do this, but that's mainly a consequence of
+				// the way votes are implemented (and they aren't going to change for now).
+				item.setYesVotes( original.getYesVotes( ) );
+				item.setNoVotes( original.getNoVotes( ) );
+				}
+
+			writes.add( item );
+			}
+
+		if ( writes.isEmpty( ) )
+			return;
+
+		// Persist the batch. The responses come back in the same order as the documents.
+		List<Response> responses = database.bulk( writes );
+		int errors = 0;
+		for ( int index = 0; index < responses.size( ); index++ )
+			{
+			Response response = responses.get( index );
+			if ( response.getError( ) != null )
+				{
+				errors++ ;
+				LOG.error( "Error persisting document with DOI '" + writes.get( index ).getDOI( ) + "': "
+						+ response.getError( ) + " (" + response.getReason( ) + ")" );
+				deadLetter( writes.get( index ), response.getError( ), response.getReason( ) );
+				}
+			}
+
+		LOG.debug( "Persisted " + ( writes.size( ) - errors ) + " of " + batch.size( ) + " dequeued documents ("
+				+ ( batch.size( ) - writes.size( ) ) + " skipped as up to date; " + errors + " errors)." );
+
+	} // persistBatch
+
+
+	/**
+	 * Makes every dead letter due for another attempt (with a fresh set of attempts), including those that have run out
+	 * of automatic attempts. The running service picks them up within {@link Constants#PERSIST_REPORT_INTERVAL_MILLIS}.
+	 * 
+	 * @return the number of dead letters to be replayed.
+	 */
+	public int replayDeadLetters( )
+	{
+		return ( fieldDeadLetters == null ) ? 0 : fieldDeadLetters.replayAll( );
+
+	} // replayDeadLetters
+
+
+	/**
+	 * @param batchSize the maximum number of items to write in a single bulk request. Takes effect on the next
+	 *            (re)start of the service.
+	 */
+	public void setBatchSize( int batchSize )
+	{
+		fieldBatchSize = batchSize;
+
+	} // setBatchSize
+
+
+	/**
+	 * @param batchWaitMillis how long to wait for a batch to fill once its first item has arrived. Takes effect on the
+	 *            next (re)start of the service.
+	 */
+	public void setBatchWaitMillis( long batchWaitMillis )
+	{
+		fieldBatchWaitMillis = batchWaitMillis;
+
+	} // setBatchWaitMillis
+
+
+	/**
+	 * @param workerCount the number of batches to write at once. Takes effect on the next (re)start of the service.
+	 */
+	public void setWorkerCount( int workerCount )
+	{
+		fieldWorkerCount = workerCount;
+
+	} // setWorkerCount
+
+}
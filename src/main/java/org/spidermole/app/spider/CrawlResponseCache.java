@@ -0,0 +1,465 @@
+/*
+ * CrawlResponseCache.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * CrawlResponseCache is a persistent, size-bounded cache of crawled pages, keyed by request URI. Each entry holds the
+ * gzipped response body, the {@code ETag} and {@code Last-Modified} validators the server sent with it, and the
+ * {@link CrawlPageSummary} it produced. The validators let the crawl ask the server whether a page has changed; when it
+ * hasn't (a {@code 304 Not Modified}), the stored summary stands in for parsing the page again.
+ * <p>
+ * The bodies themselves aren't needed to revalidate a page, but they are the latest copy of every page cached, so the
+ * {@link ArchiveReingestService} replays them (see {@link #uris()} and {@link #readBody(URI)}) along with whatever
+ * was recorded in the {@link CrawlArchive}. A field mapping change thus reaches pages crawled without recording.
+ * <p>
+ * Only pages that came with at least one validator are cached, since nothing else can be revalidated. Entries are
+ * evicted least recently used first once the bodies on disk exceed the configured size. The cache is safe for use by
+ * several crawl workers at once.
+ */
+public class CrawlResponseCache
+{
+	/**
+	 * The validators and summary stored for a single URI.
+	 */
+	public static class Entry
+	{
+		// Data members.
+		private final String fieldETag;
+		private final String fieldLastModified;
+		private final CrawlPageSummary fieldSummary;
+
+		public Entry( String eTag, String lastModified, CrawlPageSummary summary )
+		{
+			fieldETag = eTag;
+			fieldLastModified = lastModified;
+			fieldSummary = summary;
+
+		} // Entry
+
+
+		/**
+		 * @return the ETag the server sent with the cached response, or null.
+		 */
+		public String getETag( )
+		{
+			return fieldETag;
+
+		} // getETag
+
+
+		/**
+		 * @return the Last-Modified date the server sent with the cached response, or null.
+		 */
+		public String getLastModified( )
+		{
+			return fieldLastModified;
+
+		} // getLastModified
+
+
+		/**
+		 * @return the summary of the cached page.
+		 */
+		public CrawlPageSummary getSummary( )
+		{
+			return fieldSummary;
+
+		} // getSummary
+
+	} // class Entry
+
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( CrawlResponseCache.class );
+
+	private static final String BODY_SUFFIX = ".gz";
+	private static final String META_SUFFIX = ".properties";
+
+	// Data members.
+	private final Path fieldDirectory;
+	private final long fieldMaxBytes;
+
+	/**
+	 * Cached body sizes by key, least recently used first.
+	 */
+	private final LinkedHashMap<String, Long> fieldSizes = new LinkedHashMap<>( 16, 0.75f, true );
+	private long fieldTotalBytes;
+
+	/**
+	 * Opens (or creates) the cache in the given directory, picking up any entries a previous session left there.
+	 * 
+	 * @param directory the directory to keep the cache in.
+	 * @param maxBytes the most disk space the cached bodies may take up.
+	 * @throws IOException if the directory can't be created or read.
+	 */
+	public CrawlResponseCache( Path directory, long maxBytes ) throws IOException
+	{
+		fieldDirectory = Files.createDirectories( directory );
+		fieldMaxBytes = maxBytes;
+
+		// Rebuild the recency order from the file times, oldest first.
+		List<Path> metaFiles = new ArrayList<>( );
+		try ( DirectoryStream<Path> stream = Files.newDirectoryStream( fieldDirectory, "*" + META_SUFFIX ) )
+			{
+			stream.forEach( metaFiles::add );
+			}
+		metaFiles.sort( Comparator.comparingLong( CrawlResponseCache::lastModifiedMillis ) );
+
+		for ( Path metaFile : metaFiles )
+			{
+			String fileName = metaFile.getFileName( ).toString( );
+			String key = fileName.substring( 0, fileName.length( ) - META_SUFFIX.length( ) );
+			Path bodyFile = fieldDirectory.resolve( key + BODY_SUFFIX );
+			if ( Files.exists( bodyFile ) )
+				{
+				long size = Files.size( bodyFile );
+				fieldSizes.put( key, Long.valueOf( size ) );
+				fieldTotalBytes += size;
+				}
+			else
+				{
+				Files.deleteIfExists( metaFile );
+				}
+			}
+
+		LOG.debug( "Opened crawl response cache at '" + fieldDirectory + "' with " + fieldSizes.size( )
+				+ " entries (" + fieldTotalBytes + " bytes)." );
+
+		evict( );
+
+	} // CrawlResponseCache
+
+
+	private static void deleteQuietly( Path path )
+	{
+		try
+			{
+			if ( path != null )
+				Files.deleteIfExists( path );
+			}
+		catch ( IOException exception )
+			{
+			LOG.warn( "Unable to delete '" + path + "'.", exception );
+			}
+
+	} // deleteQuietly
+
+
+	private static String keyFor( URI uri )
+	{
+		try
+			{
+			byte[] digest = MessageDigest.getInstance( "SHA-256" )
+					.digest( uri.toString( ).getBytes( StandardCharsets.UTF_8 ) );
+			StringBuilder builder = new StringBuilder( digest.length * 2 );
+			for ( byte value : digest )
+				builder.append( Character.forDigit( ( value >> 4 ) & 0xF, 16 ) )
+						.append( Character.forDigit( value & 0xF, 16 ) );
+
+			return builder.toString( );
+			}
+		catch ( NoSuchAlgorithmException exception )
+			{
+			// Every JRE is required to support SHA-256.
+			throw new IllegalStateException( exception );
+			}
+
+	} // keyFor
+
+
+	private static long lastModifiedMillis( Path path )
+	{
+		try
+			{
+			return Files.getLastModifiedTime( path ).toMillis( );
+			}
+		catch ( IOException exception )
+			{
+			throw new UncheckedIOException( exception );
+			}
+
+	} // lastModifiedMillis
+
+
+	/**
+	 * Removes every entry from the cache.
+	 */
+	public synchronized void clear( )
+	{
+		for ( String key : new ArrayList<>( fieldSizes.keySet( ) ) )
+			remove( key );
+
+		LOG.info( "Cleared the crawl response cache." );
+
+	} // clear
+
+
+	private void deleteFiles( String key )
+	{
+		try
+			{
+			Files.deleteIfExists( fieldDirectory.resolve( key + BODY_SUFFIX ) );
+			Files.deleteIfExists( fieldDirectory.resolve( key + META_SUFFIX ) );
+			}
+		catch ( IOException exception )
+			{
+			LOG.warn( "Unable to delete crawl cache entry '" + key + "'.", exception );
+			}
+
+	} // deleteFiles
+
+
+	/**
+	 * Drops least recently used entries until the cache fits its size again.
+	 */
+	private void evict( )
+	{
+		Iterator<Map.Entry<String, Long>> iterator = fieldSizes.entrySet( ).iterator( );
+		while ( fieldTotalBytes > fieldMaxBytes && iterator.hasNext( ) )
+			{
+			Map.Entry<String, Long> entry = iterator.next( );
+			fieldTotalBytes -= entry.getValue( ).longValue( );
+			iterator.remove( );
+			deleteFiles( entry.getKey( ) );
+			}
+
+	} // evict
+
+
+	/**
+	 * @param uri the URI about to be requested.
+	 * @return the cached entry for the URI, or null if there isn't one.
+	 */
+	public synchronized Entry lookup( URI uri )
+	{
+		String key = keyFor( uri );
+		if ( fieldSizes.get( key ) == null )
+			return null;
+
+		Properties meta;
+		try
+			{
+			meta = readMeta( key );
+			}
+		catch ( IOException exception )
+			{
+			LOG.warn( "Unable to read crawl cache entry for '" + uri + "'. Dropping it.", exception );
+			remove( key );
+			return null;
+			}
+
+		// Guard against the (vanishingly unlikely) hash collision.
+		if ( !uri.toString( ).equals( meta.getProperty( "uri" ) ) )
+			return null;
+
+		int itemCount = Integer.parseInt( meta.getProperty( "itemCount" ) );
+		int totalCount = Integer.parseInt( meta.getProperty( "totalCount" ) );
+		CrawlPageSummary summary;
+		if ( Boolean.parseBoolean( meta.getProperty( "responseDriven" ) ) )
+			{
+			String nextPageUri = meta.getProperty( "nextPageUri" );
+			summary = new CrawlPageSummary( itemCount, totalCount,
+					( nextPageUri == null ) ? null : URI.create( nextPageUri ) );
+			}
+		else
+			{
+			summary = new CrawlPageSummary( itemCount, totalCount );
+			}
+
+		return new Entry( meta.getProperty( "etag" ), meta.getProperty( "lastModified" ), summary );
+
+	} // lookup
+
+
+	/**
+	 * @param uri a cached URI.
+	 * @return the (uncompressed) cached response body for the URI, or null if it isn't cached.
+	 * @throws IOException if the body couldn't be read (e.g. because it was evicted while being read).
+	 */
+	public byte[] readBody( URI uri ) throws IOException
+	{
+		Path bodyFile;
+		synchronized ( this )
+			{
+			String key = keyFor( uri );
+			if ( fieldSizes.get( key ) == null )
+				return null;
+			bodyFile = fieldDirectory.resolve( key + BODY_SUFFIX );
+			}
+
+		try ( InputStream input = new GZIPInputStream( Files.newInputStream( bodyFile ) ) )
+			{
+			return input.readAllBytes( );
+			}
+
+	} // readBody
+
+
+	private Properties readMeta( String key ) throws IOException
+	{
+		Properties meta = new Properties( );
+		try ( Reader reader = Files.newBufferedReader( fieldDirectory.resolve( key + META_SUFFIX ),
+				StandardCharsets.UTF_8 ) )
+			{
+			meta.load( reader );
+			}
+
+		return meta;
+
+	} // readMeta
+
+
+	private void remove( String key )
+	{
+		Long size = fieldSizes.remove( key );
+		if ( size != null )
+			fieldTotalBytes -= size.longValue( );
+		deleteFiles( key );
+
+	} // remove
+
+
+	/**
+	 * Caches a response, replacing any previous entry for the URI. Responses without validators aren't cached. Failures
+	 * are logged, and only cost a full download next time.
+	 * 
+	 * @param uri the URI that was requested.
+	 * @param body a file holding the response body (which is left where it is).
+	 * @param eTag the response's ETag, or null.
+	 * @param lastModified the response's Last-Modified date, or null.
+	 * @param summary the summary produced by extracting the page.
+	 */
+	public void store( URI uri, Path body, String eTag, String lastModified, CrawlPageSummary summary )
+	{
+		if ( eTag == null && lastModified == null )
+			return;
+
+		String key = keyFor( uri );
+		Properties meta = new Properties( );
+		meta.setProperty( "uri", uri.toString( ) );
+		if ( eTag != null )
+			meta.setProperty( "etag", eTag );
+		if ( lastModified != null )
+			meta.setProperty( "lastModified", lastModified );
+		meta.setProperty( "itemCount", Integer.toString( summary.getItemCount( ) ) );
+		meta.setProperty( "totalCount", Integer.toString( summary.getTotalCount( ) ) );
+		if ( summary.isResponseDriven( ) )
+			{
+			meta.setProperty( "responseDriven", "true" );
+			if ( summary.getNextPageUri( ) != null )
+				meta.setProperty( "nextPageUri", summary.getNextPageUri( ).toString( ) );
+			}
+
+		Path bodyTemp = null;
+		Path metaTemp = null;
+		try
+			{
+			// Compress outside the lock, then move the finished files into place.
+			bodyTemp = Files.createTempFile( fieldDirectory, key, BODY_SUFFIX + ".tmp" );
+			try ( OutputStream output = new GZIPOutputStream( Files.newOutputStream( bodyTemp ) ) )
+				{
+				Files.copy( body, output );
+				}
+			metaTemp = Files.createTempFile( fieldDirectory, key, META_SUFFIX + ".tmp" );
+			try ( Writer writer = Files.newBufferedWriter( metaTemp, StandardCharsets.UTF_8 ) )
+				{
+				meta.store( writer, null );
+				}
+
+			synchronized ( this )
+				{
+				if ( fieldSizes.containsKey( key ) )
+					remove( key );
+
+				long size = Files.size( bodyTemp );
+				Files.move( bodyTemp, fieldDirectory.resolve( key + BODY_SUFFIX ),
+						StandardCopyOption.REPLACE_EXISTING );
+				Files.move( metaTemp, fieldDirectory.resolve( key + META_SUFFIX ),
+						StandardCopyOption.REPLACE_EXISTING );
+				fieldSizes.put( key, Long.valueOf( size ) );
+				fieldTotalBytes += size;
+
+				evict( );
+				}
+			}
+		catch ( IOException exception )
+			{
+			LOG.warn( "Unable to cache the response from '" + uri + "'.", exception );
+			}
+		finally
+			{
+			// Only left behind if something went wrong.
+			deleteQuietly( bodyTemp );
+			deleteQuietly( metaTemp );
+			}
+
+	} // store
+
+
+	/**
+	 * @return the URIs of every page cached, least recently used first. Entries that can't be read are skipped (and
+	 *         logged).
+	 */
+	public List<URI> uris( )
+	{
+		List<String> keys;
+		synchronized ( this )
+			{
+			keys = new ArrayList<>( fieldSizes.keySet( ) );
+			}
+
+		// Read outside the lock; crawls may be storing pages meanwhile.
+		List<URI> uris = new ArrayList<>( keys.size( ) );
+		for ( String key : keys )
+			{
+			try
+				{
+				String uri = readMeta( key ).getProperty( "uri" );
+				if ( uri != null )
+					uris.add( URI.create( uri ) );
+				}
+			catch ( NoSuchFileException exception )
+				{
+				// Evicted since.
+				}
+			catch ( IOException | IllegalArgumentException exception )
+				{
+				LOG.warn( "Unable to read crawl cache entry '" + key + "'. Skipping it.", exception );
+				}
+			}
+
+		return uris;
+
+	} // uris
+
+}
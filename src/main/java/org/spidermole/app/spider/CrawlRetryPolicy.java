@@ -0,0 +1,125 @@
+/*
+ * CrawlRetryPolicy.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * CrawlRetryPolicy decides whether and when a failed crawl request is tried again. Requests that fail for transient
+ * reasons (connection problems, {@code 429 Too Many Requests}, and {@code 5xx} server errors) are retried with
+ * exponential backoff and jitter, at least as late as any {@code Retry-After} the server asked for, up to a fixed
+ * number of attempts per request. Every retry also draws on the crawl's error budget (see {@link #getErrorBudget()}),
+ * so that a crawl against a server that is really down gives up instead of retrying forever.
+ * <p>
+ * Instances are immutable and may be shared between crawls.
+ */
+public class CrawlRetryPolicy
+{
+	// Data members.
+	private final int fieldMaxAttempts;
+	private final long fieldBaseDelayMillis;
+	private final long fieldMaxDelayMillis;
+	private final int fieldErrorBudget;
+
+	/**
+	 * @param maxAttempts the most times a single request is tried, including the first.
+	 * @param baseDelayMillis the backoff before the first retry, doubled for each retry after it.
+	 * @param maxDelayMillis the longest any single backoff may be (including one requested by the server).
+	 * @param errorBudget the most retries (of requests or of whole ranges) a single crawl may make.
+	 */
+	public CrawlRetryPolicy( int maxAttempts, long baseDelayMillis, long maxDelayMillis, int errorBudget )
+	{
+		fieldMaxAttempts = maxAttempts;
+		fieldBaseDelayMillis = baseDelayMillis;
+		fieldMaxDelayMillis = maxDelayMillis;
+		fieldErrorBudget = errorBudget;
+
+	} // CrawlRetryPolicy
+
+
+	/**
+	 * Parses a {@code Retry-After} header, which may either be a number of seconds or an HTTP date.
+	 * 
+	 * @param retryAfter the header value, or null.
+	 * @return the delay the server asked for in milliseconds, or 0 if there was no (usable) header.
+	 */
+	public static long parseRetryAfter( String retryAfter )
+	{
+		if ( retryAfter == null || retryAfter.isBlank( ) )
+			return 0;
+
+		try
+			{
+			return Math.max( 0, Long.parseLong( retryAfter.trim( ) ) * 1000 );
+			}
+		catch ( NumberFormatException notSeconds )
+			{
+			try
+				{
+				ZonedDateTime date = ZonedDateTime.parse( retryAfter.trim( ), DateTimeFormatter.RFC_1123_DATE_TIME );
+				return Math.max( 0, Duration.between( ZonedDateTime.now( ), date ).toMillis( ) );
+				}
+			catch ( DateTimeParseException notDate )
+				{
+				return 0;
+				}
+			}
+
+	} // parseRetryAfter
+
+
+	/**
+	 * @param attempt the attempt that just failed, starting from 1.
+	 * @param retryAfterMillis the delay the server asked for, or 0.
+	 * @return how long to wait before the next attempt: a random delay between half and all of the exponential backoff
+	 *         for the attempt, but no less than the server asked for, and no more than the maximum delay.
+	 */
+	public long backoffMillis( int attempt, long retryAfterMillis )
+	{
+		long backoff = fieldBaseDelayMillis << Math.min( attempt - 1, 20 );
+		backoff = Math.min( backoff, fieldMaxDelayMillis );
+		long jittered = backoff / 2 + ThreadLocalRandom.current( ).nextLong( backoff / 2 + 1 );
+
+		return Math.min( Math.max( jittered, retryAfterMillis ), fieldMaxDelayMillis );
+
+	} // backoffMillis
+
+
+	/**
+	 * @return the most retries a single crawl may make before giving up.
+	 */
+	public int getErrorBudget( )
+	{
+		return fieldErrorBudget;
+
+	} // getErrorBudget
+
+
+	/**
+	 * @return the most times a single request is tried, including the first.
+	 */
+	public int getMaxAttempts( )
+	{
+		return fieldMaxAttempts;
+
+	} // getMaxAttempts
+
+
+	/**
+	 * @param statusCode the status code of a response.
+	 * @return whether a request that got the response is worth trying again.
+	 */
+	public boolean isRetryable( int statusCode )
+	{
+		return statusCode == 408 || statusCode == 429 || ( statusCode >= 500 && statusCode != 501 );
+
+	} // isRetryable
+
+}
@@ -1,177 +1,1485 @@
-/*
- * CrawlService.java
- * 
- * Created: Oct 14, 2020
- */
-package org.spidermole.app.spider;
-
-import java.net.URI;
-import java.net.URL;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.BlockingQueue;
-
-import org.apache.juneau.rest.client2.RestClient;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.spidermole.model.ResearchItem;
-
-import javafx.concurrent.Service;
-import javafx.concurrent.Task;
-
-/**
- * CrawlService takes the following steps to acquire and store new ResearchItem documents:
- * <ol>
- * <li>Looks up a domain-specific {@link CrawlCorrespondent} instance;
- * <li>Requests the initial page at the given URL;
- * <li>Hands the content to the correspondent to convert the contents of the page into {@code ResearchItem} objects
- * populated with metadata from the page, as appropriate;
- * <li>Passes the parsed contents to a concurrent queue provided at construction time, in order for the
- * perpetually-running/waiting {@link CrawlPersistenceService} to receive and (safely) post them to the database;
- * <li>Requests the "next" URL from the parser, given the current URL and content;
- * <li>If the next URL is non-null, waits for a delay determined by the domain-specific parser;
- * <li>Repeats the cycle using the next URL if it is non-null.
- * </ol>
- * The value returned is the number of documents that were ultimately
- * 
- * @author David Schmidt (dschmidt13@gmail.com)
- */
-public class CrawlService extends Service<Integer>
-{
-	// Log instance.
-	private static final Logger LOG = LogManager.getLogger( CrawlService.class );
-
-	/**
-	 * This map contains one immutable instance of each known {@link CrawlCorrespondent} implementation, keyed by the
-	 * exact domain string of the site it knows (e.g., {@code "api.biorxiv.org"}).
-	 */
-	private static final Map<String, CrawlCorrespondent> CORRESPONDENTS = new HashMap<>( );
-
-	/*
-	 * We need to initialize a static correspondent table. Here is fine for now.
-	 */
-	static
-		{
-		CORRESPONDENTS.put( BiorxivApiCorrespondent.DOMAIN_HOST, new BiorxivApiCorrespondent( ) );
-		}
-
-	// Data members.
-	private final BlockingQueue<ResearchItem> fieldPersistQueue;
-	private URL fieldUrl;
-
-	public CrawlService( BlockingQueue<ResearchItem> persistQueue )
-	{
-		Objects.requireNonNull( persistQueue, "A queue to accept documents to be persisted is required." );
-
-		fieldPersistQueue = persistQueue;
-
-	} // CrawlService
-
-
-	@Override
-	protected Task<Integer> createTask( )
-	{
-		final URL baseUrl = fieldUrl;
-
-		return new Task<>( )
-		{
-			@Override
-			protected Integer call( ) throws Exception
-			{
-				Objects.requireNonNull( baseUrl, "A starting URL to crawl must be provided!" );
-
-				// Look up a correspondent by domain.
-				CrawlCorrespondent correspondent = CORRESPONDENTS.get( baseUrl.getHost( ) );
-				if ( correspondent == null )
-					{
-					throw new Exception( "No known correspondent exists to report on the domain of the site/API at '"
-							+ baseUrl.getHost( ) + "'!" );
-					}
-
-				// Prepare to crawl.
-				int totalDiscovered = 0;
-				URI nextUri = baseUrl.toURI( );
-
-				// Crawl once with the initial URL. (Small loop unwind to work in the delay.)
-				int discovered = crawl( nextUri, correspondent );
-				totalDiscovered += discovered;
-				LOG.debug( "Discovered " + discovered + " new documents from '" + nextUri + "'." );
-				nextUri = correspondent.getNextPageUri( nextUri );
-
-				// Continue crawling as long as necessary (politely - wait between requests).
-				while ( nextUri != null && discovered > 0 )
-					{
-					Thread.sleep( 1000 * correspondent.getCrawlDelaySeconds( ) );
-
-					discovered = crawl( nextUri, correspondent );
-					LOG.debug( "Discovered " + discovered + " new documents from '" + nextUri + "'." );
-					totalDiscovered += discovered;
-					nextUri = correspondent.getNextPageUri( nextUri );
-					}
-
-				return Integer.valueOf( totalDiscovered );
-
-			} // call
-
-
-			private int crawl( URI uri, CrawlCorrespondent correspondent ) throws Exception
-			{
-				try
-					{
-					// Perform the request using the slightly overzealous Apache Juneau - Rest Client (2) API.
-					String responseBody;
-					try ( RestClient client = RestClient.create( ).universal( ).build( ); )
-						{
-						responseBody = client.get( uri ).run( ).assertStatus( ).code( ).is( 200 ).getBody( )
-								.asString( );
-						}
-
-					// If the request was successful, convert the response content into a list of properly populated
-					// ResearchItems.
-					List<ResearchItem> discoveredItems = correspondent.extractResearchItems( responseBody );
-
-					// Pass the results to the persistence service. This is done individually, as we may need to wait
-					// for space to become available in the queue before we continue.
-					for ( ResearchItem item : discoveredItems )
-						fieldPersistQueue.put( item );
-
-					return discoveredItems.size( );
-					}
-				catch ( AssertionError assertionError )
-					{
-					// Okay, wow Apache. AssertionError is a little strong here. Nevermind, though; we'll soak it. Just
-					// means the page didn't load as expected.
-					LOG.error( "Failed to crawl URI '" + uri + "'.", assertionError );
-
-					throw new Exception( "Failed to crawl URI '" + uri + "'.", assertionError );
-					}
-				catch ( InterruptedException exception )
-					{
-					LOG.error( "Interrupted while attempting to enqueue discovered items from URI '" + uri + "'!" );
-
-					// Restore the interrupt.
-					Thread.currentThread( ).interrupt( );
-
-					throw new Exception(
-							"Interrupted while attempting to enqueue discovered items from URI '" + uri + "'!" );
-					}
-
-			} // crawl
-
-		};
-
-	} // createTask
-
-
-	/**
-	 * @param url the url to set
-	 */
-	public void setUrl( URL url )
-	{
-		fieldUrl = url;
-
-	} // setUrl
-
-}
+/*
+ * CrawlService.java
+ * 
+ * Created: Oct 14, 2020
+ */
+package org.spidermole.app.spider;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.apache.juneau.rest.client2.RestCallException;
+import org.apache.juneau.rest.client2.RestResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.app.Constants;
+import org.spidermole.model.CrawlCheckpoint;
+import org.spidermole.model.CrawlHighWaterMark;
+import org.spidermole.model.ResearchItem;
+import org.spidermole.util.ExecutorUtils;
+
+import com.cloudant.client.api.Database;
+
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+/**
+ * CrawlService takes the following steps to acquire and store new ResearchItem documents:
+ * <ol>
+ * <li>Looks up the site-specific {@link CrawlCorrespondent} instance in the {@link CrawlCorrespondentRegistry};
+ * <li>Requests the initial page at the given URL;
+ * <li>Streams the content to the correspondent to convert the contents of the page into {@code ResearchItem} objects
+ * populated with metadata from the page, as appropriate;
+ * <li>Passes each parsed item, as soon as it is available, to a sink provided at construction time (normally the
+ * {@link IngestPublisher}, which passes it on to the perpetually-running/waiting {@link CrawlPersistenceService} to
+ * receive and (safely) post to the database, and to whatever else subscribes to ingest);
+ * <li>Asks the correspondent to {@link CrawlCorrespondent#partitionCrawl(URI, int) partition} the crawl, given the
+ * total item count reported by the initial page;
+ * <li>Crawls each partition (or just the rest of the initial URL, if it wasn't partitioned) from a work queue, with up
+ * to {@link Constants#CRAWL_RANGE_WORKERS} partitions in flight at once. Each partition requests the "next" URL from
+ * the parser, given the current URL, until there is none, waiting for its turn with a {@link HostRateLimiter} shared by
+ * every crawl before each request. Slots are measured from the start of one request to the start of the next, and
+ * each page is parsed and enqueued on a separate stage while its range waits for the next slot, so the time spent
+ * parsing and waiting on ingest overlaps the crawl delay instead of adding to it.
+ * </ol>
+ * The crawl runs ahead of persistence: a page is crawled as soon as its items have been handed to ingest. Once they
+ * (and the items of every page before it) have been persisted, as reported by the {@link PersistenceTracker}, the
+ * {@link CrawlCheckpoint} for the partition (or starting URL) is moved past the page and saved, so that a resumed crawl
+ * never skips items that hadn't made it to the database. A crawl only completes once everything it crawled has been
+ * persisted. A partition that fails for a transient reason (a server error, a status the {@link CrawlRetryPolicy}
+ * retries, or a connection problem) is put back on the work queue, up to {@link Constants#CRAWL_RANGE_MAX_ATTEMPTS}
+ * times, and continues from its last crawled page; any other failure (a missing page, say) fails the crawl at once.
+ * Individual requests that fail for transient reasons are retried first, as described by {@link CrawlRetryPolicy};
+ * every retry of either kind draws on the crawl's error budget. When the service is started with
+ * {@link #setResume(boolean) resume} set, the crawl continues from the checkpointed pages rather than starting over.
+ * <p>
+ * Each page's body is streamed from the connection straight through the correspondent. If a
+ * {@link #setArchive(CrawlArchive) archive} is set, every page read in full is also appended to it as-is, so that it
+ * may later be re-extracted by the {@link ArchiveReingestService} without crawling again.
+ * <p>
+ * If a {@link CrawlResponseCache} is provided, pages it holds are requested conditionally. A page the server reports as
+ * not modified is neither parsed nor persisted again; its cached summary is used to carry on with the crawl.
+ * <p>
+ * Every crawl that runs to completion advances the {@link CrawlHighWaterMark} of its source to the newest publication
+ * date it persisted. When the service is started with {@link #setIncremental(boolean) incremental} set, the given URL
+ * only identifies the source: the crawl starts from the correspondent's
+ * {@link CrawlCorrespondent#getIntervalUri(LocalDate, LocalDate) interval listing} from the mark (less
+ * {@link Constants#CRAWL_INCREMENTAL_OVERLAP_DAYS}, to catch items that were indexed late) through tomorrow (in case
+ * the source's calendar runs ahead of ours).
+ * <p>
+ * Several instances may crawl at once (e.g. one per source), sharing one transport, rate limiter, and ingest sink.
+ * Each host's politeness budget is then shared by every crawl of it, while crawls of different hosts don't hold each
+ * other up.
+ * <p>
+ * Every page crawled successfully is recorded in the source's {@link CrawlCoverageLedger} once its items have been
+ * persisted, and the coverage is saved every {@link Constants#CRAWL_COVERAGE_FLUSH_INTERVAL_MILLIS} (and at the end of
+ * the crawl) from the same stage as the checkpoints. When the service is started
+ * with {@link #setFillGaps(boolean) fill gaps} set, the given URL only identifies the source: rather than crawling,
+ * the service requests just the pages the ledger shows to be missing (planning again, up to
+ * {@link Constants#CRAWL_GAP_FILL_MAX_ROUNDS} times, as newly crawled pages reveal the size of listings that had never
+ * been started).
+ * <p>
+ * The value returned is the number of documents that were ultimately discovered.
+ * 
+ * @author David Schmidt (dschmidt13@gmail.com)
+ */
+public class CrawlService extends Service<Integer>
+{
+	/**
+	 * A page as it came back from the server: either a fresh response along with its cache validators, its body still
+	 * to be read (and its connection still to be given back to the pool once it has been), or (if the server confirmed
+	 * our cached copy is still current) the cache entry standing in for it.
+	 */
+	private static class FetchedPage
+	{
+		// Data members.
+		private final URI fieldUri;
+		private final RestResponse fieldResponse;
+		private final String fieldETag;
+		private final String fieldLastModified;
+		private final CrawlResponseCache.Entry fieldCached;
+		private boolean fieldClaimed;
+
+		/**
+		 * A copy of the body, kept to be cached once the page's items have been persisted.
+		 */
+		private Path fieldCopy;
+		private boolean fieldCopyDropped;
+
+		private FetchedPage( URI uri, RestResponse response, String eTag, String lastModified,
+				CrawlResponseCache.Entry cached )
+		{
+			fieldUri = uri;
+			fieldResponse = response;
+			fieldETag = eTag;
+			fieldLastModified = lastModified;
+			fieldCached = cached;
+
+		} // FetchedPage
+
+
+		/**
+		 * Claims the page for parsing, which from then on is responsible for {@link #close() closing} it.
+		 * 
+		 * @return whether the page was still there to claim, i.e. it hadn't been {@link #discard() discarded}.
+		 */
+		private synchronized boolean claim( )
+		{
+			if ( fieldClaimed )
+				return false;
+
+			fieldClaimed = true;
+			return true;
+
+		} // claim
+
+
+		/**
+		 * Gives the page's connection back to the pool, reading (and throwing away) whatever is left of the body first.
+		 */
+		private void close( )
+		{
+			if ( fieldResponse == null )
+				return;
+
+			try
+				{
+				fieldResponse.consume( );
+				}
+			catch ( RestCallException exception )
+				{
+				LOG.debug( "Unable to finish reading '" + fieldUri + "'.", exception );
+				}
+
+		} // close
+
+
+		/**
+		 * Closes the page without parsing it, unless it's already being parsed (in which case the parse closes it).
+		 */
+		private void discard( )
+		{
+			if ( claim( ) )
+				close( );
+
+		} // discard
+
+
+		/**
+		 * Deletes the copy of the body kept for the cache (if any), as well as any kept from now on; the page won't be
+		 * cached after all.
+		 */
+		private void dropCopy( )
+		{
+			Path copy;
+			synchronized ( this )
+				{
+				fieldCopyDropped = true;
+				copy = fieldCopy;
+				fieldCopy = null;
+				}
+
+			deleteCopy( copy );
+
+		} // dropCopy
+
+
+		/**
+		 * Keeps a copy of the body, to be {@link #takeCopy() taken} for the cache later.
+		 * 
+		 * @return whether it was kept; if not (the copy has been {@link #dropCopy() dropped}), the caller still owns
+		 *         the file.
+		 */
+		private synchronized boolean keepCopy( Path copy )
+		{
+			if ( fieldCopyDropped )
+				return false;
+
+			fieldCopy = copy;
+			return true;
+
+		} // keepCopy
+
+
+		/**
+		 * @return the copy of the body kept for the cache, which the caller now owns, or null if there isn't one.
+		 */
+		private synchronized Path takeCopy( )
+		{
+			Path copy = fieldCopy;
+			fieldCopy = null;
+
+			return copy;
+
+		} // takeCopy
+
+	} // class FetchedPage
+
+	/**
+	 * Copies everything read from a stream to an output stream as it goes, e.g. to keep a copy of a page's body while
+	 * it's being parsed.
+	 */
+	private static class TeeInputStream extends FilterInputStream
+	{
+		// Data members.
+		private final OutputStream fieldCopy;
+
+		private TeeInputStream( InputStream input, OutputStream copy )
+		{
+			super( input );
+			fieldCopy = copy;
+
+		} // TeeInputStream
+
+
+		@Override
+		public boolean markSupported( )
+		{
+			return false;
+
+		} // markSupported
+
+
+		@Override
+		public int read( ) throws IOException
+		{
+			int value = super.read( );
+			if ( value >= 0 )
+				fieldCopy.write( value );
+
+			return value;
+
+		} // read
+
+
+		@Override
+		public int read( byte[] buffer, int offset, int length ) throws IOException
+		{
+			int count = super.read( buffer, offset, length );
+			if ( count > 0 )
+				fieldCopy.write( buffer, offset, count );
+
+			return count;
+
+		} // read
+
+
+		@Override
+		public long skip( long count ) throws IOException
+		{
+			// Skipped bytes still belong in the copy.
+			byte[] buffer = new byte[ ( int ) Math.min( count, 8192 ) ];
+			long skipped = 0;
+			while ( skipped < count )
+				{
+				int read = read( buffer, 0, ( int ) Math.min( count - skipped, buffer.length ) );
+				if ( read < 0 )
+					break;
+				skipped += read;
+				}
+
+			return skipped;
+
+		} // skip
+
+	} // class TeeInputStream
+
+	/**
+	 * The progress of a single range (or of the whole crawl, if it wasn't partitioned): how far it has been crawled,
+	 * and, behind that, how far it has been persisted, which is as far as its checkpoint goes.
+	 */
+	private static class RangeProgress
+	{
+		/**
+		 * A page that has been crawled, but whose items may not all have been persisted yet.
+		 */
+		private static class Page
+		{
+			// Data members.
+			private final URI fieldNextUri;
+			private final int fieldItemCount;
+			private boolean fieldPersisted;
+
+			private Page( URI nextUri, int itemCount )
+			{
+				fieldNextUri = nextUri;
+				fieldItemCount = itemCount;
+
+			} // Page
+
+		} // class Page
+
+		// Data members.
+		/**
+		 * Only changed (and saved) on the crawl's progress stage.
+		 */
+		private final CrawlCheckpoint fieldCheckpoint;
+
+		/**
+		 * The pages crawled but not yet checkpointed, in order. Guarded by the range.
+		 */
+		private final Deque<Page> fieldPages = new ArrayDeque<>( );
+		private boolean fieldCrawled;
+
+		/**
+		 * Why a page's items won't be persisted, if one's won't.
+		 */
+		private Exception fieldFailure;
+
+		/**
+		 * Where the crawl of the range has got to, which may be ahead of the checkpoint.
+		 */
+		private URI fieldNextUri;
+		private int fieldItemCount;
+
+		private RangeProgress( CrawlCheckpoint checkpoint )
+		{
+			fieldCheckpoint = checkpoint;
+			fieldNextUri = ( checkpoint.getNextUri( ) == null ) ? null : URI.create( checkpoint.getNextUri( ) );
+			fieldItemCount = checkpoint.getItemCount( );
+
+		} // RangeProgress
+
+
+		/**
+		 * Waits until every page crawled so far has been persisted (and so checkpointed).
+		 * 
+		 * @throws Exception if a page's items won't be persisted after all.
+		 */
+		private synchronized void awaitPersisted( ) throws Exception
+		{
+			while ( !fieldPages.isEmpty( ) )
+				{
+				if ( fieldFailure != null )
+					throw new Exception( "The documents crawled won't be persisted.", fieldFailure );
+				wait( );
+				}
+
+		} // awaitPersisted
+
+
+		/**
+		 * Marks the checkpoint complete, if the range has run out of pages and they have all been persisted. Must be
+		 * called holding the range's lock.
+		 * 
+		 * @return whether the checkpoint changed.
+		 */
+		private boolean complete( )
+		{
+			if ( !fieldCrawled || !fieldPages.isEmpty( ) || fieldCheckpoint.isComplete( ) )
+				return false;
+
+			fieldCheckpoint.setComplete( true );
+			return true;
+
+		} // complete
+
+
+		/**
+		 * Records that the range has run out of pages. Must be called on the progress stage.
+		 * 
+		 * @return whether the checkpoint changed.
+		 */
+		private synchronized boolean crawled( )
+		{
+			fieldCrawled = true;
+
+			return complete( );
+
+		} // crawled
+
+
+		/**
+		 * Records that a page's items won't be persisted (e.g. because persistence stopped), so that nothing waits for
+		 * them in vain. The range's checkpoint stays before the page.
+		 */
+		private synchronized void pageFailed( Exception failure )
+		{
+			fieldFailure = failure;
+			notifyAll( );
+
+		} // pageFailed
+
+
+		/**
+		 * Records that a page has been crawled, and where the range goes next.
+		 * 
+		 * @return the page, to mark as persisted once its items are.
+		 */
+		private synchronized Page pageCrawled( URI nextUri, int itemCount )
+		{
+			Page page = new Page( nextUri, itemCount );
+			fieldPages.add( page );
+			fieldNextUri = nextUri;
+			fieldItemCount += itemCount;
+
+			return page;
+
+		} // pageCrawled
+
+
+		/**
+		 * Records that the items of a page have been persisted, and moves the checkpoint past every page (from the
+		 * first) whose items have been. Must be called on the progress stage.
+		 * 
+		 * @return whether the checkpoint changed.
+		 */
+		private synchronized boolean pagePersisted( Page page )
+		{
+			page.fieldPersisted = true;
+			boolean changed = false;
+			while ( !fieldPages.isEmpty( ) && fieldPages.peekFirst( ).fieldPersisted )
+				{
+				Page persisted = fieldPages.removeFirst( );
+				fieldCheckpoint.recordPage( ( persisted.fieldNextUri == null ) ? null
+						: persisted.fieldNextUri.toString( ), persisted.fieldItemCount );
+				changed = true;
+				}
+			changed |= complete( );
+
+			if ( fieldPages.isEmpty( ) )
+				notifyAll( );
+
+			return changed;
+
+		} // pagePersisted
+
+	} // class RangeProgress
+
+	/**
+	 * A request that failed with an unexpected status code.
+	 */
+	private static class StatusException extends Exception
+	{
+		// Class constants.
+		private static final long serialVersionUID = 1L;
+
+		// Data members.
+		private final int fieldStatusCode;
+
+		private StatusException( String message, int statusCode )
+		{
+			super( message );
+			fieldStatusCode = statusCode;
+
+		} // StatusException
+
+	} // class StatusException
+
+	// Log instance.
+	private static final Logger LOG = LogManager.getLogger( CrawlService.class );
+
+	// Data members.
+	private final Database fieldDatabase;
+	private final CrawlCorrespondentRegistry fieldCorrespondents;
+	private final CrawlTransport fieldTransport;
+	private final HostRateLimiter fieldRateLimiter;
+	private final CrawlResponseCache fieldResponseCache;
+	private final ResearchItemSink fieldIngest;
+	private final PersistenceTracker fieldTracker;
+	private URL fieldUrl;
+	private boolean fieldResume;
+	private boolean fieldIncremental;
+	private boolean fieldFillGaps;
+	private CrawlArchive fieldArchive;
+
+	/**
+	 * @param database the database to keep the crawl's checkpoints, high-water marks, and coverage in.
+	 * @param correspondents the registry to look up the correspondent for the crawl URL in.
+	 * @param transport the transport to perform crawl requests with.
+	 * @param rateLimiter the rate limiter shared by every crawl, to keep requests to each host polite.
+	 * @param responseCache the cache of previously crawled pages to revalidate, or null to always download in full.
+	 * @param ingest the sink to hand discovered items on with, to be persisted.
+	 * @param tracker the tracker of the items persisted from the sink, to checkpoint the crawl by.
+	 */
+	public CrawlService( Database database, CrawlCorrespondentRegistry correspondents, CrawlTransport transport,
+			HostRateLimiter rateLimiter, CrawlResponseCache responseCache, ResearchItemSink ingest,
+			PersistenceTracker tracker )
+	{
+		Objects.requireNonNull( database, "A database to keep crawl progress in is required." );
+		Objects.requireNonNull( correspondents, "A registry of crawl correspondents is required." );
+		Objects.requireNonNull( transport, "A transport to perform crawl requests is required." );
+		Objects.requireNonNull( rateLimiter, "A rate limiter to keep crawl requests polite is required." );
+		Objects.requireNonNull( ingest, "A sink to accept discovered documents is required." );
+		Objects.requireNonNull( tracker, "A tracker of the documents persisted is required." );
+
+		fieldDatabase = database;
+		fieldCorrespondents = correspondents;
+		fieldTransport = transport;
+		fieldRateLimiter = rateLimiter;
+		fieldResponseCache = responseCache;
+		fieldIngest = ingest;
+		fieldTracker = tracker;
+
+	} // CrawlService
+
+
+	private static void deleteCopy( Path copy )
+	{
+		try
+			{
+			if ( copy != null )
+				Files.deleteIfExists( copy );
+			}
+		catch ( IOException exception )
+			{
+			LOG.warn( "Unable to delete the page copy '" + copy + "'.", exception );
+			}
+
+	} // deleteCopy
+
+
+	@Override
+	protected Task<Integer> createTask( )
+	{
+		final URL baseUrl = fieldUrl;
+		final boolean resume = fieldResume;
+		final boolean incremental = fieldIncremental;
+		final boolean fillGaps = fieldFillGaps;
+		final CrawlArchive archive = fieldArchive;
+
+		return new Task<>( )
+		{
+			private final AtomicLong fieldNewestPublication = new AtomicLong( Long.MIN_VALUE );
+			private final AtomicInteger fieldErrorBudget = new AtomicInteger(
+					fieldTransport.getRetryPolicy( ).getErrorBudget( ) );
+			private CrawlCheckpointStore fieldCheckpoints;
+			private CrawlCoverageLedger fieldLedger;
+
+			/**
+			 * Where range checkpoints are updated and saved, and pages recorded in the coverage ledger, as the pages
+			 * crawled are persisted, one at a time and in order, so that neither the crawl nor persistence waits on the
+			 * writes.
+			 */
+			private ExecutorService fieldProgressStage;
+
+			/**
+			 * When the coverage ledger was last flushed. Only used on the progress stage.
+			 */
+			private long fieldCoverageFlushed = System.nanoTime( );
+
+			@Override
+			protected Integer call( ) throws Exception
+			{
+				Objects.requireNonNull( baseUrl, "A starting URL to crawl must be provided!" );
+
+				// Look up the correspondent that knows the site.
+				CrawlCorrespondent correspondent = fieldCorrespondents.forUri( baseUrl.toURI( ) );
+				if ( correspondent == null )
+					{
+					throw new Exception( "No known correspondent exists to report on the site/API at '" + baseUrl
+							+ "'!" );
+					}
+
+				fieldCheckpoints = new CrawlCheckpointStore( fieldDatabase );
+				fieldLedger = new CrawlCoverageLedger( fieldDatabase );
+				fieldProgressStage = Executors.newSingleThreadExecutor( );
+				try
+					{
+					if ( fillGaps )
+						return Integer.valueOf( fillGaps( correspondent.getSourceName( ), correspondent ) );
+
+					return Integer.valueOf( crawl( correspondent ) );
+					}
+				finally
+					{
+					// Save the coverage recorded so far. Pages persisted once the crawl has stopped aren't checkpointed
+					// (nor covered). They'll be requested again when the crawl is resumed.
+					fieldProgressStage.execute( fieldLedger::flush );
+					fieldProgressStage.shutdown( );
+					}
+
+			} // call
+
+
+			private CrawlPageSummary awaitPage( Future<CrawlPageSummary> parsing ) throws Exception
+			{
+				try
+					{
+					return parsing.get( );
+					}
+				catch ( ExecutionException exception )
+					{
+					// Fail the range with whatever went wrong in the parse itself.
+					throw ( exception.getCause( ) instanceof Exception ) ? ( Exception )exception.getCause( )
+							: exception;
+					}
+
+			} // awaitPage
+
+
+			/**
+			 * Caches a page, once its items have all made it to the database. (A page cached any sooner could be
+			 * reported unchanged to a resumed crawl, which would then skip the items that hadn't.)
+			 */
+			private void cache( FetchedPage page, CrawlPageSummary summary )
+			{
+				Path copy = page.takeCopy( );
+				try
+					{
+					if ( copy != null )
+						{
+						fieldResponseCache.store( page.fieldUri, copy, page.fieldETag, page.fieldLastModified,
+								summary );
+						}
+					}
+				finally
+					{
+					deleteCopy( copy );
+					}
+
+			} // cache
+
+
+			/**
+			 * Crawls from the seed URL (planning the crawl first, unless resuming one that was already planned), and
+			 * waits for everything crawled to be persisted.
+			 * 
+			 * @return the number of documents discovered.
+			 */
+			private int crawl( CrawlCorrespondent correspondent ) throws Exception
+			{
+				// Prepare to crawl. If we're resuming, pick up from the first page the last attempt didn't finish.
+				CrawlHighWaterMarkStore marks = new CrawlHighWaterMarkStore( fieldDatabase );
+				String source = correspondent.getSourceName( );
+				URI seedUri = incremental ? incrementalSeed( marks, source, correspondent ) : baseUrl.toURI( );
+				CrawlCheckpoint checkpoint = resume ? fieldCheckpoints.load( seedUri ) : null;
+				if ( checkpoint == null )
+					{
+					checkpoint = new CrawlCheckpoint( seedUri.toString( ) );
+					}
+				else if ( checkpoint.isComplete( ) || checkpoint.getNextUri( ) == null )
+					{
+					LOG.info( "The crawl from '" + seedUri + "' has already completed. Nothing to resume." );
+					return 0;
+					}
+				else
+					{
+					LOG.info( "Resuming the crawl from '" + seedUri + "' at '" + checkpoint.getNextUri( ) + "' ("
+							+ checkpoint.getPageCount( ) + " pages already completed)." );
+					}
+
+				int totalDiscovered = 0;
+				List<RangeProgress> ranges = new ArrayList<>( );
+				if ( !checkpoint.getPartitions( ).isEmpty( ) )
+					{
+					// Already planned. Pick up whichever partitions didn't finish.
+					for ( String partition : checkpoint.getPartitions( ) )
+						{
+						CrawlCheckpoint range = fieldCheckpoints.load( URI.create( partition ) );
+						if ( range == null )
+							ranges.add( new RangeProgress( new CrawlCheckpoint( partition ) ) );
+						else if ( !range.isComplete( ) && range.getNextUri( ) != null )
+							ranges.add( new RangeProgress( range ) );
+						}
+					}
+				else if ( checkpoint.getPageCount( ) > 0 )
+					{
+					// Not partitioned; just keep paging.
+					ranges.add( new RangeProgress( checkpoint ) );
+					}
+				else
+					{
+					// Fresh crawl. The first page tells us how big the whole crawl is, which is what we plan by.
+					fieldRateLimiter.acquire( seedUri.getHost( ), 1000L * correspondent.getCrawlDelaySeconds( ) );
+					RangeProgress seedRange = new RangeProgress( checkpoint );
+					FetchedPage page = fetchPage( seedUri, correspondent );
+					PersistenceTracker.Ticket ticket = fieldTracker.open( );
+					CrawlPageSummary summary = parsePage( page, correspondent, ticket );
+					totalDiscovered += summary.getItemCount( );
+
+					List<URI> partitions = correspondent.partitionCrawl( seedUri, summary.getTotalCount( ) );
+					if ( partitions.size( ) == 1 && partitions.get( 0 ).equals( seedUri ) )
+						{
+						// Carry on from the first page (if there's anywhere to carry on to).
+						pageCrawled( seedRange, nextPageUri( seedUri, summary, seedRange, correspondent ), page,
+								summary, correspondent, ticket );
+						ranges.add( seedRange );
+						}
+					else
+						{
+						// The items already read from the first page will be read again in the first partition, but
+						// the persistence service will skip them as up to date. There's no need to wait for them here
+						// (nor to cache the page).
+						ticket.abandon( );
+						page.dropCopy( );
+						LOG.info( "Partitioned the crawl from '" + seedUri + "' (" + summary.getTotalCount( )
+								+ " items) into " + partitions.size( ) + " ranges." );
+						List<String> partitionUris = new ArrayList<>( partitions.size( ) );
+						for ( URI partition : partitions )
+							{
+							partitionUris.add( partition.toString( ) );
+							ranges.add( new RangeProgress( new CrawlCheckpoint( partition.toString( ) ) ) );
+							}
+						checkpoint.setPartitions( partitionUris );
+						fieldLedger.recordPartitions( correspondent, seedUri, partitions );
+						checkpoint.recordPage( seedUri.toString( ), summary.getItemCount( ) );
+						fieldCheckpoints.save( checkpoint );
+						}
+					}
+
+				totalDiscovered += crawlRanges( ranges, correspondent );
+
+				// Nothing counts as crawled until it has been persisted. Once it all has, let the last of the
+				// checkpoints be saved.
+				updateMessage( "Waiting for the documents crawled to be persisted." );
+				for ( RangeProgress range : ranges )
+					range.awaitPersisted( );
+				fieldProgressStage.submit( ( ) -> { } ).get( );
+
+				// We ran out of pages (rather than failing or being cancelled), so there's nothing left to resume.
+				checkpoint.setComplete( true );
+				fieldCheckpoints.save( checkpoint );
+
+				// Only a complete crawl may move the mark, or an incremental crawl could skip what this one missed.
+				long newest = fieldNewestPublication.get( );
+				marks.advance( source, ( newest == Long.MIN_VALUE ) ? null : new Date( newest ) );
+
+				return totalDiscovered;
+
+			} // crawl
+
+
+			/**
+			 * Pages through a single range until it runs out (each page to be checkpointed once its items have been
+			 * persisted). Pages are fetched on the calling thread and parsed on the given stage, one page behind: while
+			 * a page is being parsed and its items enqueued, the range is already waiting for the host's next request
+			 * slot. Normally the parse is long finished by the time the slot comes up, and decides whether there is
+			 * another page to fetch. If it isn't (e.g. a subscriber to ingest has fallen behind), the next page is
+			 * fetched on speculation anyway, and thrown away if the parse shows the range had already run out.
+			 */
+			private int crawlRange( RangeProgress range, CrawlCorrespondent correspondent, ExecutorService parseStage )
+					throws Exception
+			{
+				int discovered = 0;
+				URI uri = range.fieldNextUri;
+				URI parsingUri = null;
+				FetchedPage fetched = null;
+				FetchedPage parsingPage = null;
+				PersistenceTracker.Ticket parsingTicket = null;
+				Future<CrawlPageSummary> parsing = null;
+				try
+					{
+					while ( uri != null )
+						{
+						fieldRateLimiter.acquire( uri.getHost( ), 1000L * correspondent.getCrawlDelaySeconds( ) );
+
+						// Finish the previous page now if we can, so we don't fetch past the end of the range.
+						if ( parsing != null && parsing.isDone( ) )
+							{
+							CrawlPageSummary summary = awaitPage( parsing );
+							discovered += summary.getItemCount( );
+							uri = nextPageUri( parsingUri, summary, range, correspondent );
+							pageCrawled( range, uri, parsingPage, summary, correspondent, parsingTicket );
+							parsing = null;
+							if ( uri == null )
+								break;
+							}
+
+						fetched = fetchPage( uri, correspondent );
+
+						// Only one page is ever waiting to be parsed; if it still is, this is where we wait for it.
+						if ( parsing != null )
+							{
+							CrawlPageSummary summary = awaitPage( parsing );
+							discovered += summary.getItemCount( );
+							URI expectedUri = nextPageUri( parsingUri, summary, range, correspondent );
+							pageCrawled( range, expectedUri, parsingPage, summary, correspondent,
+									parsingTicket );
+							parsing = null;
+							if ( expectedUri == null )
+								{
+								LOG.debug( "Discarding speculatively fetched page '" + uri + "'." );
+								fetched.discard( );
+								fetched = null;
+								uri = null;
+								break;
+								}
+							}
+
+						FetchedPage page = fetched;
+						PersistenceTracker.Ticket ticket = fieldTracker.open( );
+						parsing = parseStage.submit( ( ) -> parsePage( page, correspondent, ticket ) );
+						parsingPage = page;
+						parsingTicket = ticket;
+						fetched = null;
+						parsingUri = uri;
+						uri = correspondent.getNextPageUri( uri );
+
+						// If only the page itself can tell where the range goes next (e.g. with a resumption token),
+						// there's nothing to fetch on speculation; wait for the parse instead.
+						if ( uri == null )
+							{
+							CrawlPageSummary summary = awaitPage( parsing );
+							discovered += summary.getItemCount( );
+							uri = nextPageUri( parsingUri, summary, range, correspondent );
+							pageCrawled( range, uri, parsingPage, summary, correspondent, parsingTicket );
+							parsing = null;
+							}
+						}
+
+					if ( parsing != null )
+						{
+						CrawlPageSummary summary = awaitPage( parsing );
+						discovered += summary.getItemCount( );
+						pageCrawled( range, nextPageUri( parsingUri, summary, range, correspondent ), parsingPage,
+								summary, correspondent, parsingTicket );
+						parsing = null;
+						}
+					}
+				finally
+					{
+					// If we're bailing out, don't leave the page half enqueued behind us, or wait on it. Nor leave
+					// either page holding on to its connection.
+					if ( fetched != null )
+						fetched.discard( );
+					if ( parsing != null )
+						{
+						parsing.cancel( true );
+						parsingPage.discard( );
+						parsingPage.dropCopy( );
+						parsingTicket.abandon( );
+						}
+					}
+
+				updateCheckpoint( range, range::crawled );
+
+				return discovered;
+
+			} // crawlRange
+
+
+			/**
+			 * Crawls the given ranges from a work queue. Ranges that fail are queued again (picking up from their last
+			 * crawled page) until they run out of attempts, at which point the whole crawl fails; whatever had been
+			 * persisted by then stays checkpointed for a later resume.
+			 */
+			private int crawlRanges( List<RangeProgress> ranges, CrawlCorrespondent correspondent ) throws Exception
+			{
+				if ( ranges.isEmpty( ) )
+					return 0;
+
+				int workers = Math.min( ranges.size( ), Constants.CRAWL_RANGE_WORKERS );
+				ExecutorService executor = Executors.newFixedThreadPool( workers );
+				ExecutorService parseStage = Executors.newFixedThreadPool( workers );
+				CompletionService<Integer> completion = new ExecutorCompletionService<>( executor );
+				Map<Future<Integer>, RangeProgress> pending = new HashMap<>( );
+				Map<RangeProgress, Integer> attempts = new HashMap<>( );
+				try
+					{
+					for ( RangeProgress range : ranges )
+						{
+						pending.put( completion.submit( ( ) -> crawlRange( range, correspondent, parseStage ) ),
+								range );
+						attempts.put( range, Integer.valueOf( 1 ) );
+						}
+
+					int discovered = 0;
+					int completed = 0;
+					while ( !pending.isEmpty( ) )
+						{
+						Future<Integer> future = completion.take( );
+						RangeProgress range = pending.remove( future );
+						try
+							{
+							discovered += future.get( ).intValue( );
+							completed++ ;
+							updateMessage( "Crawled " + completed + " of " + ranges.size( ) + " ranges." );
+							}
+						catch ( ExecutionException exception )
+							{
+							int attempt = attempts.get( range ).intValue( );
+							if ( !isRetryable( exception.getCause( ) ) )
+								{
+								throw new Exception( "Crawling from '" + range.fieldCheckpoint.getSeedUri( )
+										+ "' failed at '" + range.fieldNextUri + "'.", exception.getCause( ) );
+								}
+							if ( attempt >= Constants.CRAWL_RANGE_MAX_ATTEMPTS || !spendErrorBudget( ) )
+								{
+								throw new Exception( "Gave up crawling from '" + range.fieldCheckpoint.getSeedUri( )
+										+ "' after " + attempt + " attempts.", exception.getCause( ) );
+								}
+
+							LOG.warn( "Crawling from '" + range.fieldCheckpoint.getSeedUri( ) + "' failed at '"
+									+ range.fieldNextUri + "' (attempt " + attempt + "). Retrying.",
+									exception.getCause( ) );
+							attempts.put( range, Integer.valueOf( attempt + 1 ) );
+							pending.put( completion.submit( ( ) -> crawlRange( range, correspondent, parseStage ) ),
+									range );
+							}
+						}
+
+					return discovered;
+					}
+				finally
+					{
+					// Interrupts any ranges still running if we failed or were cancelled, and waits for them to stop,
+					// so that nothing is published once the crawl has returned.
+					executor.shutdownNow( );
+					parseStage.shutdownNow( );
+					ExecutorUtils.awaitTermination( executor );
+					ExecutorUtils.awaitTermination( parseStage );
+					}
+
+			} // crawlRanges
+
+
+			private void enqueue( ResearchItem item, PersistenceTracker.Ticket ticket ) throws InterruptedException
+			{
+				// Wait for the item before it's on its way, or it could be persisted before we'd know to.
+				ticket.add( item );
+				boolean accepted = false;
+				try
+					{
+					fieldIngest.accept( item );
+					accepted = true;
+					}
+				finally
+					{
+					// It was never on its way, so nothing should wait for it (least of all a later item of its DOI).
+					if ( !accepted )
+						ticket.remove( item );
+					}
+
+			} // enqueue
+
+
+			/**
+			 * Streams a downloaded page through the correspondent straight off the connection. Each properly populated
+			 * ResearchItem is passed to ingest as soon as it has been parsed. This is done individually, as ingest
+			 * makes us wait whenever one of its subscribers has fallen behind (see
+			 * {@link IngestPublisher#accept(ResearchItem)}). Each item is added to the given ticket as it goes.
+			 * <p>
+			 * If the page is to be cached or archived, the body is copied to a temporary file as it's read. Once the
+			 * whole of it has been, it's archived from there, and the copy is kept on the page to be cached once the
+			 * items have been persisted.
+			 */
+			private CrawlPageSummary extractPage( FetchedPage page, CrawlCorrespondent correspondent,
+					PersistenceTracker.Ticket ticket ) throws Exception
+			{
+				long parseStart = System.nanoTime( );
+				Path copy = ( fieldResponseCache != null || archive != null )
+						? Files.createTempFile( "spidermole-page", ".tmp" ) : null;
+				try
+					{
+					CrawlPageSummary summary;
+					try ( OutputStream copyOutput = ( copy == null ) ? OutputStream.nullOutputStream( )
+							: new BufferedOutputStream( Files.newOutputStream( copy ) );
+							InputStream responseBody = new TeeInputStream(
+									page.fieldResponse.getBody( ).asInputStream( ), copyOutput ) )
+						{
+						summary = correspondent.extractResearchItems( responseBody,
+								( item ) -> enqueue( item, ticket ) );
+
+						// The correspondent may not have needed the whole body, but the copy does.
+						if ( copy != null )
+							responseBody.transferTo( OutputStream.nullOutputStream( ) );
+						}
+					LOG.debug( "Processed '" + page.fieldUri + "' in "
+							+ ( ( System.nanoTime( ) - parseStart ) / 1000000 ) + "ms; discovered "
+							+ summary.getItemCount( ) + " documents." );
+
+					if ( archive != null )
+						record( archive, page.fieldUri, copy );
+					if ( fieldResponseCache != null && page.keepCopy( copy ) )
+						copy = null;
+
+					return summary;
+					}
+				catch ( InterruptedException exception )
+					{
+					LOG.error( "Interrupted while attempting to enqueue discovered items from URI '" + page.fieldUri
+							+ "'!" );
+
+					// Pass the interrupt along; the range isn't to be retried.
+					throw exception;
+					}
+				finally
+					{
+					deleteCopy( copy );
+					}
+
+			} // extractPage
+
+
+			/**
+			 * Requests a page, or confirms that our cached copy of it is still current. The caller must already hold
+			 * the host's request slot. The body of a fresh page is left on the connection, to be streamed through the
+			 * parse (see {@link #parsePage(FetchedPage, CrawlCorrespondent, PersistenceTracker.Ticket)}), so the
+			 * connection stays out of the pool until the page has been parsed or {@link FetchedPage#discard()
+			 * discarded}. A body that breaks off partway fails the parse, and with it the range (which is then
+			 * retried from that page).
+			 * <p>
+			 * Transient failures are retried as the transport's {@link CrawlRetryPolicy} says, each retry waiting for
+			 * its backoff (during which no other request to the host is made either) and then for a fresh slot.
+			 */
+			private FetchedPage fetchPage( URI uri, CrawlCorrespondent correspondent ) throws Exception
+			{
+				CrawlRetryPolicy policy = fieldTransport.getRetryPolicy( );
+				CrawlResponseCache.Entry cached = ( fieldResponseCache == null ) ? null
+						: fieldResponseCache.lookup( uri );
+				for ( int attempt = 1;; attempt++ )
+					{
+					if ( attempt > 1 )
+						fieldRateLimiter.acquire( uri.getHost( ), 1000L * correspondent.getCrawlDelaySeconds( ) );
+
+					int statusCode = 0;
+					long retryAfterMillis = 0;
+					Exception failure;
+					FetchedPage page = null;
+					try
+						{
+						// Perform the request using the slightly overzealous Apache Juneau - Rest Client (2) API. The
+						// transport's connection pool keeps the connection to the host alive between pages.
+						long requestStart = System.nanoTime( );
+						RestResponse response = ( cached == null ) ? fieldTransport.get( uri )
+								: fieldTransport.get( uri, cached.getETag( ), cached.getLastModified( ) );
+						fieldRateLimiter.recordLatency( uri.getHost( ),
+								( System.nanoTime( ) - requestStart ) / 1000000 );
+						try
+							{
+							statusCode = response.getStatusCode( );
+							if ( cached != null && statusCode == 304 )
+								{
+								LOG.debug( "'" + uri + "' is unchanged since it was cached (revalidated in "
+										+ ( ( System.nanoTime( ) - requestStart ) / 1000000 ) + "ms)." );
+
+								return new FetchedPage( uri, null, null, null, cached );
+								}
+							else if ( statusCode == 200 )
+								{
+								LOG.debug( "Fetched '" + uri + "' in " + ( ( System.nanoTime( ) - requestStart )
+										/ 1000000 ) + "ms; its body will be read as it's parsed." );
+
+								page = new FetchedPage( uri, response, response.getStringHeader( "ETag" ),
+										response.getStringHeader( "Last-Modified" ), null );
+								return page;
+								}
+
+							retryAfterMillis = CrawlRetryPolicy
+									.parseRetryAfter( response.getStringHeader( "Retry-After" ) );
+							failure = new StatusException( "Failed to crawl URI '" + uri + "': status " + statusCode
+									+ " (" + response.getStatusLine( ).getReasonPhrase( ) + ").", statusCode );
+							}
+						finally
+							{
+							// Make sure the connection goes back to the pool if the page was no good. (A good page's
+							// connection goes back once it has been parsed.)
+							if ( page == null )
+								response.consume( );
+							}
+						}
+					catch ( RestCallException exception )
+						{
+						// Couldn't connect, or the connection broke or timed out before the response came. Worth
+						// another try.
+						statusCode = 0;
+						failure = exception;
+						}
+
+					if ( statusCode != 0 && !policy.isRetryable( statusCode ) )
+						{
+						LOG.error( failure.getMessage( ) );
+						throw failure;
+						}
+					else if ( attempt >= policy.getMaxAttempts( ) || !spendErrorBudget( ) )
+						{
+						String message = "Giving up on URI '" + uri + "' after " + attempt + " attempts.";
+						LOG.error( message, failure );
+						throw new Exception( message, failure );
+						}
+
+					long backoffMillis = policy.backoffMillis( attempt, retryAfterMillis );
+					LOG.warn( "Attempt " + attempt + " to crawl URI '" + uri + "' failed (" + failure.getMessage( )
+							+ "). Retrying in " + ( backoffMillis / 1000 ) + "s." );
+					fieldRateLimiter.defer( uri.getHost( ), backoffMillis );
+					}
+
+			} // fetchPage
+
+
+			/**
+			 * Requests the pages the coverage ledger shows to be missing from the source, one at a time. A page that
+			 * can't be fetched is skipped (and so stays a gap); the fill only fails if none of a round's pages could.
+			 */
+			private int fillGaps( String source, CrawlCorrespondent correspondent ) throws Exception
+			{
+				int discovered = 0;
+				for ( int round = 1; round <= Constants.CRAWL_GAP_FILL_MAX_ROUNDS && !isCancelled( ); round++ )
+					{
+					List<URI> plan = fieldLedger.planGapFill( source, correspondent );
+					if ( plan.isEmpty( ) )
+						{
+						LOG.info( "The coverage of '" + source + "' has no gaps left." );
+						break;
+						}
+
+					LOG.info( "Filling the gaps in the coverage of '" + source + "' with " + plan.size( )
+							+ " requests (round " + round + ")." );
+					int filled = 0;
+					List<CompletableFuture<Void>> recorded = new ArrayList<>( plan.size( ) );
+					for ( URI uri : plan )
+						{
+						if ( isCancelled( ) )
+							break;
+
+						fieldRateLimiter.acquire( uri.getHost( ), 1000L * correspondent.getCrawlDelaySeconds( ) );
+						try
+							{
+							FetchedPage page = fetchPage( uri, correspondent );
+							PersistenceTracker.Ticket ticket = fieldTracker.open( );
+							CrawlPageSummary summary = parsePage( page, correspondent, ticket );
+							CompletableFuture<Void> pageRecorded = new CompletableFuture<>( );
+							recorded.add( pageRecorded );
+							ticket.whenPersisted( ( ) ->
+								{
+								cache( page, summary );
+								recordCoverage( correspondent, uri, summary );
+								pageRecorded.complete( null );
+								}, pageRecorded::completeExceptionally );
+							discovered += summary.getItemCount( );
+							filled++ ;
+							}
+						catch ( InterruptedException exception )
+							{
+							throw exception;
+							}
+						catch ( Exception exception )
+							{
+							LOG.warn( "Unable to fill the gap at '" + uri + "'. It will be planned again.", exception );
+							}
+						updateMessage( "Filled " + filled + " of " + plan.size( ) + " gaps (round " + round + ")." );
+						}
+
+					if ( filled == 0 && !isCancelled( ) )
+						throw new Exception( "Unable to fill any of the gaps in the coverage of '" + source + "'." );
+
+					// The next round is planned from the saved coverage, so it has to include this round's pages.
+					updateMessage( "Waiting for the documents found in the gaps to be persisted." );
+					CompletableFuture.allOf( recorded.toArray( new CompletableFuture<?>[ recorded.size( ) ] ) ).get( );
+					fieldProgressStage.submit( fieldLedger::flush ).get( );
+					}
+
+				return discovered;
+
+			} // fillGaps
+
+
+			private URI incrementalSeed( CrawlHighWaterMarkStore marks, String source,
+					CrawlCorrespondent correspondent ) throws Exception
+			{
+				CrawlHighWaterMark mark = marks.load( source );
+				if ( mark == null || mark.getMarkDate( ) == null )
+					{
+					throw new Exception( "Nothing has been ingested from '" + source
+							+ "' yet, so there's nothing to crawl incrementally from. Run a full crawl first." );
+					}
+
+				LocalDate from = mark.getMarkDate( ).toInstant( ).atZone( ZoneId.systemDefault( ) ).toLocalDate( )
+						.minusDays( Constants.CRAWL_INCREMENTAL_OVERLAP_DAYS );
+				// Through tomorrow, in case the source dates its items in a time zone that's already there.
+				URI seedUri = correspondent.getIntervalUri( from, LocalDate.now( ).plusDays( 1 ) );
+				if ( seedUri == null )
+					throw new Exception( "The site at '" + source + "' can't be crawled incrementally." );
+
+				LOG.info( "Crawling '" + source + "' incrementally from " + from + " (high-water mark "
+						+ mark.getMarkDate( ) + ")." );
+
+				return seedUri;
+
+			} // incrementalSeed
+
+
+			/**
+			 * Decides whether a range that failed is worth crawling again: only if it failed for a reason that might
+			 * go away by itself, i.e. a server error or a status the retry policy deems transient (such as
+			 * {@code 429 Too Many Requests}), or a connection problem. A page that isn't there, or that can't be
+			 * parsed, will be the same next time.
+			 */
+			private boolean isRetryable( Throwable failure )
+			{
+				for ( Throwable cause = failure; cause != null; cause = cause.getCause( ) )
+					{
+					if ( cause instanceof StatusException )
+						{
+						int statusCode = ( ( StatusException )cause ).fieldStatusCode;
+						return fieldTransport.getRetryPolicy( ).isRetryable( statusCode );
+						}
+					if ( cause instanceof IOException || cause instanceof RestCallException )
+						return true;
+					}
+
+				return false;
+
+			} // isRetryable
+
+
+			/**
+			 * @return the page to continue the range with after the given one, or null if the range has run out.
+			 */
+			private URI nextPageUri( URI uri, CrawlPageSummary summary, RangeProgress range,
+					CrawlCorrespondent correspondent )
+			{
+				// The page said where to go next (if anywhere), so that's where we go.
+				if ( summary.isResponseDriven( ) )
+					return summary.getNextPageUri( );
+
+				// Where the server told us how many items to expect, don't bother asking for the empty page after the
+				// last one.
+				boolean exhausted = summary.getItemCount( ) == 0
+						|| ( summary.getTotalCount( ) != CrawlPageSummary.UNKNOWN_TOTAL
+								&& range.fieldItemCount + summary.getItemCount( ) >= summary.getTotalCount( ) );
+
+				return exhausted ? null : correspondent.getNextPageUri( uri );
+
+			} // nextPageUri
+
+
+			/**
+			 * Records that a page has been crawled. Once its items have been persisted, the page is cached and recorded
+			 * in the coverage ledger, the newest publication date persisted is brought up to its items', and the
+			 * range's checkpoint is moved past it.
+			 */
+			private void pageCrawled( RangeProgress range, URI nextUri, FetchedPage fetched, CrawlPageSummary summary,
+					CrawlCorrespondent correspondent, PersistenceTracker.Ticket ticket )
+			{
+				RangeProgress.Page page = range.pageCrawled( nextUri, summary.getItemCount( ) );
+				ticket.whenPersisted( ( ) ->
+					{
+					cache( fetched, summary );
+					recordCoverage( correspondent, fetched.fieldUri, summary );
+
+					// Only what has made it to the database counts towards the high-water mark.
+					Date newest = ticket.getNewestPublication( );
+					if ( newest != null )
+						fieldNewestPublication.accumulateAndGet( newest.getTime( ), Math::max );
+					updateCheckpoint( range, ( ) -> range.pagePersisted( page ) );
+					}, range::pageFailed );
+
+			} // pageCrawled
+
+
+			/**
+			 * Extracts the items of a fetched page (see
+			 * {@link #extractPage(FetchedPage, CrawlCorrespondent, PersistenceTracker.Ticket)}). Pages the server
+			 * reported as unchanged aren't extracted again. Either way, the page is closed. If the parse fails, the
+			 * ticket is abandoned.
+			 */
+			private CrawlPageSummary parsePage( FetchedPage page, CrawlCorrespondent correspondent,
+					PersistenceTracker.Ticket ticket ) throws Exception
+			{
+				CrawlPageSummary summary;
+				try
+					{
+					if ( !page.claim( ) )
+						{
+						throw new CancellationException( "'" + page.fieldUri
+								+ "' was discarded before it was parsed." );
+						}
+
+					try
+						{
+						summary = ( page.fieldCached != null ) ? page.fieldCached.getSummary( )
+								: extractPage( page, correspondent, ticket );
+						}
+					finally
+						{
+						page.close( );
+						}
+					}
+				catch ( Exception exception )
+					{
+					// Nothing more will come of the page.
+					ticket.abandon( );
+					page.dropCopy( );
+					throw exception;
+					}
+
+				return summary;
+
+			} // parsePage
+
+
+			/**
+			 * Records a page in the coverage ledger on the progress stage, and flushes the ledger if it's been a while.
+			 * Pages that come in once the crawl has stopped aren't recorded; they stay gaps.
+			 */
+			private void recordCoverage( CrawlCorrespondent correspondent, URI uri, CrawlPageSummary summary )
+			{
+				try
+					{
+					fieldProgressStage.execute( ( ) ->
+						{
+						fieldLedger.recordPage( correspondent, uri, summary );
+
+						long now = System.nanoTime( );
+						if ( now - fieldCoverageFlushed >= TimeUnit.MILLISECONDS
+								.toNanos( Constants.CRAWL_COVERAGE_FLUSH_INTERVAL_MILLIS ) )
+							{
+							fieldLedger.flush( );
+							fieldCoverageFlushed = now;
+							}
+						} );
+					}
+				catch ( RejectedExecutionException exception )
+					{
+					LOG.debug( "Not recording the coverage of '" + uri + "'; the crawl has stopped." );
+					}
+
+			} // recordCoverage
+
+
+			/**
+			 * Appends a downloaded page (as copied to the given file) to the archive. A page that can't be recorded is
+			 * logged, but still crawled.
+			 */
+			private void record( CrawlArchive archive, URI uri, Path body )
+			{
+				try
+					{
+					archive.append( uri, body );
+					}
+				catch ( IOException exception )
+					{
+					LOG.error( "Unable to record '" + uri + "' in the crawl archive.", exception );
+					}
+
+			} // record
+
+
+			/**
+			 * Draws one retry from the crawl's error budget.
+			 * 
+			 * @return whether there was any budget left to draw on.
+			 */
+			private boolean spendErrorBudget( )
+			{
+				int remaining = fieldErrorBudget.decrementAndGet( );
+				if ( remaining == 0 )
+					LOG.error( "The crawl has used up its error budget. It will give up at the next failure." );
+
+				return remaining >= 0;
+
+			} // spendErrorBudget
+
+
+			/**
+			 * Updates a range's checkpoint on the progress stage, and saves it if it changed. Updates that come in once
+			 * the crawl has stopped are dropped.
+			 */
+			private void updateCheckpoint( RangeProgress range, BooleanSupplier update )
+			{
+				try
+					{
+					fieldProgressStage.execute( ( ) ->
+						{
+						if ( update.getAsBoolean( ) )
+							fieldCheckpoints.save( range.fieldCheckpoint );
+						} );
+					}
+				catch ( RejectedExecutionException exception )
+					{
+					LOG.debug( "Not checkpointing '" + range.fieldCheckpoint.getSeedUri( )
+							+ "'; the crawl has stopped." );
+					}
+
+			} // updateCheckpoint
+
+		};
+
+	} // createTask
+
+
+	/**
+	 * @return the url
+	 */
+	public URL getUrl( )
+	{
+		return fieldUrl;
+
+	} // getUrl
+
+
+	/**
+	 * @param archive the archive to record every downloaded page in during the next crawl, or null not to record them.
+	 */
+	public void setArchive( CrawlArchive archive )
+	{
+		fieldArchive = archive;
+
+	} // setArchive
+
+
+	/**
+	 * @param fillGaps whether the next crawl should only request the pages missing from the coverage of its URL's
+	 *            source, rather than crawling the URL itself.
+	 */
+	public void setFillGaps( boolean fillGaps )
+	{
+		fieldFillGaps = fillGaps;
+
+	} // setFillGaps
+
+
+	/**
+	 * @param incremental whether the next crawl should only cover what its URL's source has published since the last
+	 *            complete crawl of it, rather than the URL itself.
+	 */
+	public void setIncremental( boolean incremental )
+	{
+		fieldIncremental = incremental;
+
+	} // setIncremental
+
+
+	/**
+	 * @param resume whether the next crawl should continue from the stored checkpoint for its URL (if there is one),
+	 *            rather than starting over from the URL itself.
+	 */
+	public void setResume( boolean resume )
+	{
+		fieldResume = resume;
+
+	} // setResume
+
+
+	/**
+	 * @param url the url to set
+	 */
+	public void setUrl( URL url )
+	{
+		fieldUrl = url;
+
+	} // setUrl
+
+}
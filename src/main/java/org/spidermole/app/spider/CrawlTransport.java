@@ -0,0 +1,145 @@
+/*
+ * CrawlTransport.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeader;
+import org.apache.juneau.rest.client2.RestCallException;
+import org.apache.juneau.rest.client2.RestClient;
+import org.apache.juneau.rest.client2.RestRequest;
+import org.apache.juneau.rest.client2.RestResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.app.Constants;
+
+/**
+ * CrawlTransport is the long-lived HTTP client shared by all crawl requests. It keeps a pool of keep-alive connections
+ * per host, so consecutive pages from the same archive reuse an open (and already TLS-negotiated) connection instead of
+ * building a new client for every request.
+ * <p>
+ * Content compression is left enabled on the underlying Apache client, so every request advertises
+ * {@code Accept-Encoding: gzip,deflate} and compressed responses are transparently decoded.
+ * <p>
+ * The transport also carries the {@link CrawlRetryPolicy} its callers should follow when a request fails.
+ * <p>
+ * Callers must fully consume (or {@link RestResponse#consume() consume}) every response they receive, or its connection
+ * will not be returned to the pool. The transport should be closed when the crawl subsystem shuts down.
+ */
+public class CrawlTransport implements Closeable
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( CrawlTransport.class );
+
+	// Data members.
+	private final PoolingHttpClientConnectionManager fieldConnectionManager;
+	private final RestClient fieldClient;
+	private final CrawlRetryPolicy fieldRetryPolicy;
+
+	public CrawlTransport( )
+	{
+		this( Constants.CRAWL_CONNECT_TIMEOUT_MILLIS, Constants.CRAWL_READ_TIMEOUT_MILLIS,
+				Constants.CRAWL_MAX_CONNECTIONS_PER_HOST, Constants.CRAWL_MAX_CONNECTIONS_TOTAL,
+				new CrawlRetryPolicy( Constants.CRAWL_RETRY_MAX_ATTEMPTS, Constants.CRAWL_RETRY_BASE_DELAY_MILLIS,
+						Constants.CRAWL_RETRY_MAX_DELAY_MILLIS, Constants.CRAWL_ERROR_BUDGET ) );
+
+	} // CrawlTransport
+
+
+	/**
+	 * @param connectTimeoutMillis the maximum time to wait for a connection to be established.
+	 * @param readTimeoutMillis the maximum time to wait between packets of a response.
+	 * @param maxConnectionsPerHost the number of pooled connections to keep for any single host.
+	 * @param maxConnectionsTotal the number of pooled connections to keep across all hosts.
+	 * @param retryPolicy the policy for retrying failed requests.
+	 */
+	public CrawlTransport( int connectTimeoutMillis, int readTimeoutMillis, int maxConnectionsPerHost,
+			int maxConnectionsTotal, CrawlRetryPolicy retryPolicy )
+	{
+		fieldRetryPolicy = Objects.requireNonNull( retryPolicy, "A retry policy is required." );
+
+		fieldConnectionManager = new PoolingHttpClientConnectionManager( );
+		fieldConnectionManager.setDefaultMaxPerRoute( maxConnectionsPerHost );
+		fieldConnectionManager.setMaxTotal( maxConnectionsTotal );
+
+		// Crawl delays are long; validate connections that have been idle for a while before reusing them.
+		fieldConnectionManager.setValidateAfterInactivity( 2000 );
+
+		RequestConfig requestConfig = RequestConfig.custom( ).setConnectTimeout( connectTimeoutMillis )
+				.setConnectionRequestTimeout( connectTimeoutMillis ).setSocketTimeout( readTimeoutMillis )
+				.setContentCompressionEnabled( true ).build( );
+
+		fieldClient = RestClient.create( ).universal( ).connectionManager( fieldConnectionManager )
+				.defaultRequestConfig( requestConfig ).evictIdleConnections( 5, TimeUnit.MINUTES ).build( );
+
+	} // CrawlTransport
+
+
+	@Override
+	public void close( )
+	{
+		LOG.debug( "Closing crawl transport." );
+
+		// This also shuts down the connection manager.
+		fieldClient.closeQuietly( );
+
+	} // close
+
+
+	/**
+	 * Performs a GET request for the given URI over a pooled connection. The response is returned regardless of its
+	 * status code; the caller is responsible for checking the status and consuming the body.
+	 * 
+	 * @param uri the URI to request.
+	 * @return the RestResponse of the request.
+	 * @throws RestCallException if the request could not be performed.
+	 */
+	public RestResponse get( URI uri ) throws RestCallException
+	{
+		return get( uri, null, null );
+
+	} // get
+
+
+	/**
+	 * Performs a conditional GET request for the given URI over a pooled connection, so that the server may answer
+	 * {@code 304 Not Modified} instead of sending a page the caller already has. The response is returned regardless of
+	 * its status code; the caller is responsible for checking the status and consuming the body.
+	 * 
+	 * @param uri the URI to request.
+	 * @param eTag the ETag of the caller's copy, sent as {@code If-None-Match}. May be null.
+	 * @param lastModified the Last-Modified date of the caller's copy, sent as {@code If-Modified-Since}. May be null.
+	 * @return the RestResponse of the request.
+	 * @throws RestCallException if the request could not be performed.
+	 */
+	public RestResponse get( URI uri, String eTag, String lastModified ) throws RestCallException
+	{
+		RestRequest request = fieldClient.get( uri ).ignoreErrors( );
+		if ( eTag != null )
+			request.header( new BasicHeader( "If-None-Match", eTag ) );
+		if ( lastModified != null )
+			request.header( new BasicHeader( "If-Modified-Since", lastModified ) );
+
+		return request.run( );
+
+	} // get
+
+
+	/**
+	 * @return the policy for retrying failed requests.
+	 */
+	public CrawlRetryPolicy getRetryPolicy( )
+	{
+		return fieldRetryPolicy;
+
+	} // getRetryPolicy
+
+}
@@ -0,0 +1,406 @@
+/*
+ * DeadLetterStore.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.model.ResearchItem;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * DeadLetterStore keeps the items that {@link CrawlPersistenceService} failed to persist (whether the database rejected
+ * them, e.g. with a conflict, or couldn't be reached at all), along with why, so that they can be tried again later
+ * instead of being recovered by crawling again.
+ * <p>
+ * Each failure schedules the item's next attempt with exponential backoff, up to a fixed number of attempts; items
+ * that have used those up stay in the store until they are {@link #replayAll() replayed} by hand. The store is a local
+ * log of JSON lines, so it survives restarts. An item {@link #takeDue() taken} for another attempt stays in the store
+ * until it has {@link #removeSettled(List) settled}, so that it is tried again after a restart if it never got that
+ * far.
+ * <p>
+ * The log is only ever appended to as items come and go: each entry has an id, and an entry that settles (or is
+ * replaced by the item's next failure) is struck off by a marker line naming its id. The log is compacted down to the
+ * entries still in the store when it is opened, and whenever the lines struck off come to outnumber the rest. The
+ * store is safe for use by several persistence workers at once.
+ */
+public class DeadLetterStore
+{
+	/**
+	 * A failed item, and why and when it failed.
+	 */
+	private static class Entry
+	{
+		// Data members.
+		@SerializedName( "id" )
+		private long fieldId;
+
+		@SerializedName( "item" )
+		private ResearchItem fieldItem;
+
+		@SerializedName( "reingested" )
+		private boolean fieldReingested;
+
+		@SerializedName( "error" )
+		private String fieldError;
+
+		@SerializedName( "reason" )
+		private String fieldReason;
+
+		@SerializedName( "attempts" )
+		private int fieldAttempts;
+
+		@SerializedName( "failedAt" )
+		private long fieldFailedAt;
+
+		@SerializedName( "nextAttemptAt" )
+		private long fieldNextAttemptAt;
+
+		/**
+		 * Taken for another attempt that hasn't settled yet. Not saved: after a restart, the item is just due again.
+		 */
+		private transient boolean fieldTaken;
+
+	} // class Entry
+
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( DeadLetterStore.class );
+
+	/**
+	 * The property of a marker line that names the entry it strikes off.
+	 */
+	private static final String SETTLED_PROPERTY = "settled";
+
+	/**
+	 * The fewest lines struck off worth compacting the log for, however few entries are left.
+	 */
+	private static final int COMPACT_MIN_DEAD_LINES = 1000;
+
+	// Data members.
+	private final Path fieldFile;
+	private final long fieldBaseDelayMillis;
+	private final long fieldMaxDelayMillis;
+	private final int fieldMaxAttempts;
+	private final Gson fieldGson = new GsonBuilder( ).setDateFormat( "yyyy-MM-dd'T'HH:mm:ss.SSSXXX" ).create( );
+
+	/**
+	 * The entries in the store by id, oldest failure first.
+	 */
+	private final Map<Long, Entry> fieldEntries = new LinkedHashMap<>( );
+
+	/**
+	 * The entries taken for another attempt, by the very items taken.
+	 */
+	private final Map<ResearchItem, Entry> fieldTaken = new IdentityHashMap<>( );
+	private long fieldNextId = 1;
+
+	/**
+	 * The number of lines in the log that no longer stand for an entry (struck-off entries and their markers).
+	 */
+	private int fieldDeadLines;
+
+	/**
+	 * Opens (or creates) the store in the given file, picking up any items a previous session left there.
+	 * 
+	 * @param file the file to keep the store in.
+	 * @param baseDelayMillis the delay before an item's second attempt, doubled for each attempt after it.
+	 * @param maxDelayMillis the longest delay between two attempts.
+	 * @param maxAttempts the most times an item is tried before it is left for a manual replay.
+	 * @throws IOException if the file can't be created or read.
+	 */
+	public DeadLetterStore( Path file, long baseDelayMillis, long maxDelayMillis, int maxAttempts ) throws IOException
+	{
+		Files.createDirectories( file.toAbsolutePath( ).getParent( ) );
+		fieldFile = file;
+		fieldBaseDelayMillis = baseDelayMillis;
+		fieldMaxDelayMillis = maxDelayMillis;
+		fieldMaxAttempts = maxAttempts;
+
+		if ( Files.exists( fieldFile ) )
+			{
+			try ( BufferedReader reader = Files.newBufferedReader( fieldFile, StandardCharsets.UTF_8 ) )
+				{
+				for ( String line = reader.readLine( ); line != null; line = reader.readLine( ) )
+					{
+					try
+						{
+						load( fieldGson.fromJson( line, JsonObject.class ) );
+						}
+					catch ( JsonParseException | IllegalStateException | ClassCastException exception )
+						{
+						LOG.warn( "Skipping unreadable dead letter '" + line + "'.", exception );
+						}
+					}
+				}
+
+			// Start the session with only the entries still in the store (each with an id).
+			save( );
+			}
+
+		if ( !fieldEntries.isEmpty( ) )
+			LOG.info( fieldEntries.size( ) + " documents that failed to persist earlier are waiting to be retried." );
+
+	} // DeadLetterStore
+
+
+	/**
+	 * Records a failed item, and schedules its next attempt. If the item was taken from the store for this attempt, it
+	 * replaces the entry it was taken from.
+	 * 
+	 * @param item the item that couldn't be persisted.
+	 * @param error the error the database (or client) reported, e.g. {@code "conflict"}.
+	 * @param reason the reason given for the error, if any.
+	 */
+	public synchronized void add( ResearchItem item, String error, String reason )
+	{
+		Entry entry = new Entry( );
+		entry.fieldId = fieldNextId++ ;
+		entry.fieldItem = item;
+		entry.fieldReingested = item.isReingested( );
+		entry.fieldError = error;
+		entry.fieldReason = reason;
+		entry.fieldAttempts = item.getPersistAttempts( ) + 1;
+		entry.fieldFailedAt = System.currentTimeMillis( );
+		entry.fieldNextAttemptAt = ( entry.fieldAttempts >= fieldMaxAttempts ) ? Long.MAX_VALUE
+				: entry.fieldFailedAt + backoffMillis( entry.fieldAttempts );
+
+		List<String> lines = new ArrayList<>( 2 );
+		Entry replaced = removeTaken( item );
+		if ( replaced != null )
+			lines.add( markerLine( replaced ) );
+		fieldEntries.put( Long.valueOf( entry.fieldId ), entry );
+		lines.add( fieldGson.toJson( entry ) );
+		append( lines );
+
+		if ( entry.fieldNextAttemptAt == Long.MAX_VALUE )
+			{
+			LOG.error( "Giving up on persisting DOI '" + item.getDOI( ) + "' after " + entry.fieldAttempts
+					+ " attempts (" + error + ": " + reason + "). Replay dead letters to try again." );
+			}
+
+	} // add
+
+
+	/**
+	 * Appends lines to the log, compacting it instead if enough of it has been struck off. Failures are logged; the
+	 * items are still held in memory, so they will be retried this session at least.
+	 */
+	private void append( List<String> lines )
+	{
+		if ( fieldDeadLines >= Math.max( COMPACT_MIN_DEAD_LINES, fieldEntries.size( ) ) )
+			{
+			save( );
+			return;
+			}
+
+		try ( BufferedWriter writer = Files.newBufferedWriter( fieldFile, StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND ) )
+			{
+			for ( String line : lines )
+				{
+				writer.write( line );
+				writer.newLine( );
+				}
+			}
+		catch ( IOException exception )
+			{
+			LOG.error( "Unable to update the dead letter store.", exception );
+			}
+
+	} // append
+
+
+	private long backoffMillis( int attempts )
+	{
+		return Math.min( fieldBaseDelayMillis << Math.min( attempts - 1, 20 ), fieldMaxDelayMillis );
+
+	} // backoffMillis
+
+
+	/**
+	 * Applies a line of the log: adds the entry, or strikes off the one the marker names.
+	 */
+	private void load( JsonObject line )
+	{
+		if ( line.has( SETTLED_PROPERTY ) )
+			{
+			// The entry may never have made it into the log, if appending it failed.
+			fieldEntries.remove( Long.valueOf( line.get( SETTLED_PROPERTY ).getAsLong( ) ) );
+			return;
+			}
+
+		Entry entry = fieldGson.fromJson( line, Entry.class );
+		if ( entry.fieldItem == null )
+			throw new IllegalStateException( "The dead letter has no item." );
+
+		// Entries written before entries had ids are given one now (which sticks once the log is compacted).
+		if ( entry.fieldId <= 0 )
+			entry.fieldId = fieldNextId;
+		fieldNextId = Math.max( fieldNextId, entry.fieldId + 1 );
+		fieldEntries.put( Long.valueOf( entry.fieldId ), entry );
+
+	} // load
+
+
+	/**
+	 * @return the line that strikes off the given entry.
+	 */
+	private String markerLine( Entry entry )
+	{
+		JsonObject marker = new JsonObject( );
+		marker.addProperty( SETTLED_PROPERTY, Long.valueOf( entry.fieldId ) );
+
+		return fieldGson.toJson( marker );
+
+	} // markerLine
+
+
+	/**
+	 * Removes the entries that the given items were taken from, now that they have settled (been persisted, or found to
+	 * be up to date already). Items that weren't taken from the store are ignored.
+	 */
+	public synchronized void removeSettled( List<ResearchItem> items )
+	{
+		if ( fieldTaken.isEmpty( ) )
+			return;
+
+		List<String> lines = new ArrayList<>( );
+		for ( ResearchItem item : items )
+			{
+			Entry settled = removeTaken( item );
+			if ( settled != null )
+				lines.add( markerLine( settled ) );
+			}
+		if ( !lines.isEmpty( ) )
+			append( lines );
+
+	} // removeSettled
+
+
+	/**
+	 * Removes the taken entry of the given item (which is matched by identity, as the very object taken).
+	 * 
+	 * @return the entry removed, or null if the item wasn't taken from the store.
+	 */
+	private Entry removeTaken( ResearchItem item )
+	{
+		Entry entry = fieldTaken.remove( item );
+		if ( entry == null )
+			return null;
+
+		fieldEntries.remove( Long.valueOf( entry.fieldId ) );
+		// The entry's line, and the marker about to strike it off.
+		fieldDeadLines += 2;
+
+		return entry;
+
+	} // removeTaken
+
+
+	/**
+	 * Makes every item in the store due for another attempt right away, with a fresh set of attempts.
+	 * 
+	 * @return the number of items made due.
+	 */
+	public synchronized int replayAll( )
+	{
+		for ( Entry entry : fieldEntries.values( ) )
+			{
+			entry.fieldAttempts = 0;
+			entry.fieldNextAttemptAt = 0;
+			}
+		save( );
+
+		return fieldEntries.size( );
+
+	} // replayAll
+
+
+	/**
+	 * Rewrites the log with just the entries still in the store. Failures are logged; the items are still held in
+	 * memory.
+	 */
+	private void save( )
+	{
+		try
+			{
+			Path temp = Files.createTempFile( fieldFile.toAbsolutePath( ).getParent( ), "dead-letters", ".tmp" );
+			try ( BufferedWriter writer = Files.newBufferedWriter( temp, StandardCharsets.UTF_8 ) )
+				{
+				for ( Entry entry : fieldEntries.values( ) )
+					{
+					writer.write( fieldGson.toJson( entry ) );
+					writer.newLine( );
+					}
+				}
+			Files.move( temp, fieldFile, StandardCopyOption.REPLACE_EXISTING );
+			fieldDeadLines = 0;
+			}
+		catch ( IOException exception )
+			{
+			LOG.error( "Unable to save the dead letter store.", exception );
+			}
+
+	} // save
+
+
+	/**
+	 * @return the number of items in the store.
+	 */
+	public synchronized int size( )
+	{
+		return fieldEntries.size( );
+
+	} // size
+
+
+	/**
+	 * Takes every item that is due for another attempt (and isn't already being attempted). The items stay in the
+	 * store until they are {@link #removeSettled(List) settled} or {@link #add(ResearchItem, String, String) fail}
+	 * again. Each item remembers how many attempts it has had (see {@link ResearchItem#getPersistAttempts()}), so that
+	 * it is scheduled accordingly if it fails again.
+	 * 
+	 * @return the items due, oldest failure first.
+	 */
+	public synchronized List<ResearchItem> takeDue( )
+	{
+		long now = System.currentTimeMillis( );
+		List<ResearchItem> due = new ArrayList<>( );
+		for ( Entry entry : fieldEntries.values( ) )
+			{
+			if ( !entry.fieldTaken && entry.fieldNextAttemptAt <= now )
+				{
+				entry.fieldItem.setReingested( entry.fieldReingested );
+				entry.fieldItem.setPersistAttempts( entry.fieldAttempts );
+				entry.fieldTaken = true;
+				fieldTaken.put( entry.fieldItem, entry );
+				due.add( entry.fieldItem );
+				}
+			}
+
+		return due;
+
+	} // takeDue
+
+}
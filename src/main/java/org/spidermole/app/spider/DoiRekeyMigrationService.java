@@ -0,0 +1,220 @@
+/*
+ * DoiRekeyMigrationService.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import static com.cloudant.client.api.query.Expression.eq;
+import static com.cloudant.client.api.query.Expression.exists;
+import static com.cloudant.client.api.query.Operation.and;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.model.ResearchItem;
+import org.spidermole.util.DbUtils;
+
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.Document;
+import com.cloudant.client.api.model.Response;
+import com.cloudant.client.api.query.QueryBuilder;
+import com.cloudant.client.api.query.QueryResult;
+
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+/**
+ * DoiRekeyMigrationService is a one-off maintenance job that moves ResearchItems stored under database-assigned ids to
+ * the deterministic ids derived from their DOIs (see {@link ResearchItem#idForDoi(String)}). Any duplicates of the same
+ * DOI are merged along the way: the newest archive version wins, the earliest create date is kept, and the votes of all
+ * duplicates are added together. The old documents are deleted only once their merged replacement has been written.
+ * <p>
+ * The job is safe to run more than once; documents already stored under their derived id are left alone. The value
+ * returned is the number of old documents that were rekeyed (or merged away).
+ */
+public class DoiRekeyMigrationService extends Service<Integer>
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( DoiRekeyMigrationService.class );
+
+	private static final int PAGE_SIZE = 500;
+
+	// Data members.
+	private final Database fieldDatabase;
+
+	/**
+	 * @param database the database to migrate.
+	 */
+	public DoiRekeyMigrationService( Database database )
+	{
+		fieldDatabase = Objects.requireNonNull( database, "A database is required." );
+
+	} // DoiRekeyMigrationService
+
+
+	private static Integer addVotes( Integer first, Integer second )
+	{
+		if ( first == null )
+			return second;
+		else if ( second == null )
+			return first;
+		else
+			return Integer.valueOf( first.intValue( ) + second.intValue( ) );
+
+	} // addVotes
+
+
+	private static ResearchItem merge( ResearchItem keeper, ResearchItem duplicate )
+	{
+		ResearchItem newest = ( CrawlPersistenceService.compareVersions( keeper, duplicate ) >= 0 ) ? keeper
+				: duplicate;
+
+		newest.setYesVotes( addVotes( keeper.getYesVotes( ), duplicate.getYesVotes( ) ) );
+		newest.setNoVotes( addVotes( keeper.getNoVotes( ), duplicate.getNoVotes( ) ) );
+
+		Date keeperCreated = keeper.getCreateDate( );
+		Date duplicateCreated = duplicate.getCreateDate( );
+		if ( keeperCreated != null && ( duplicateCreated == null || keeperCreated.before( duplicateCreated ) ) )
+			newest.setCreateDate( keeperCreated );
+		else
+			newest.setCreateDate( duplicateCreated );
+
+		return newest;
+
+	} // merge
+
+
+	@Override
+	protected Task<Integer> createTask( )
+	{
+		return new Task<>( )
+		{
+			@Override
+			protected Integer call( ) throws Exception
+			{
+				int rekeyed = 0;
+				int examined = 0;
+				String bookmark = null;
+				List<ResearchItem> docs;
+				do
+					{
+					QueryBuilder builder = new QueryBuilder(
+							and( eq( DbUtils.FIELD_TYPE, ResearchItem.DATABASE_TYPE ), exists( "doi", true ) ) );
+					builder.limit( PAGE_SIZE );
+					if ( bookmark != null )
+						builder.bookmark( bookmark );
+
+					QueryResult<ResearchItem> page = fieldDatabase.query( builder.build( ), ResearchItem.class );
+					docs = page.getDocs( );
+					bookmark = page.getBookmark( );
+
+					rekeyed += rekeyPage( fieldDatabase, docs );
+					examined += docs.size( );
+					updateMessage( "Examined " + examined + " documents; rekeyed " + rekeyed + "." );
+					}
+				while ( docs.size( ) == PAGE_SIZE && !isCancelled( ) );
+
+				LOG.info( "DOI rekey migration examined " + examined + " documents and rekeyed " + rekeyed + "." );
+
+				return Integer.valueOf( rekeyed );
+
+			} // call
+
+		};
+
+	} // createTask
+
+
+	private int rekeyPage( Database database, List<ResearchItem> docs ) throws Exception
+	{
+		// Group the documents that aren't where they belong by the id they should have.
+		Map<String, List<ResearchItem>> misplacedById = new LinkedHashMap<>( );
+		for ( ResearchItem doc : docs )
+			{
+			if ( doc.getDOI( ) == null )
+				continue;
+
+			String id = ResearchItem.idForDoi( doc.getDOI( ) );
+			if ( !id.equals( doc.getId( ) ) )
+				misplacedById.computeIfAbsent( id, ( key ) -> new ArrayList<>( ) ).add( doc );
+			}
+
+		if ( misplacedById.isEmpty( ) )
+			return 0;
+
+		// Some of them may already have a document at the right id (written by the crawler since the upgrade).
+		Map<String, ResearchItem> existingById = new HashMap<>( );
+		for ( ResearchItem existing : database.getAllDocsRequestBuilder( ).includeDocs( true )
+				.keys( misplacedById.keySet( ).toArray( new String[ misplacedById.size( ) ] ) ).build( )
+				.getResponse( ).getDocsAs( ResearchItem.class ) )
+			{
+			if ( existing != null )
+				existingById.put( existing.getId( ), existing );
+			}
+
+		// Merge each group down to one document, remembering what to delete if (and only if) that write succeeds.
+		List<ResearchItem> writes = new ArrayList<>( misplacedById.size( ) );
+		List<List<Document>> tombstones = new ArrayList<>( misplacedById.size( ) );
+		for ( Map.Entry<String, List<ResearchItem>> entry : misplacedById.entrySet( ) )
+			{
+			ResearchItem existing = existingById.get( entry.getKey( ) );
+			ResearchItem merged = existing;
+			List<Document> deletions = new ArrayList<>( );
+			for ( ResearchItem duplicate : entry.getValue( ) )
+				{
+				Document tombstone = new Document( );
+				tombstone.setId( duplicate.getId( ) );
+				tombstone.setRevision( duplicate.getRevision( ) );
+				tombstone.setDeleted( true );
+				deletions.add( tombstone );
+
+				merged = ( merged == null ) ? duplicate : merge( merged, duplicate );
+				}
+
+			merged.setId( entry.getKey( ) );
+			merged.setRevision( existing == null ? null : existing.getRevision( ) );
+			writes.add( merged );
+			tombstones.add( deletions );
+			}
+
+		List<Response> responses = database.bulk( writes );
+		List<Document> deletions = new ArrayList<>( );
+		for ( int index = 0; index < responses.size( ); index++ )
+			{
+			Response response = responses.get( index );
+			if ( response.getError( ) == null )
+				{
+				deletions.addAll( tombstones.get( index ) );
+				}
+			else
+				{
+				LOG.error( "Unable to write rekeyed document '" + writes.get( index ).getId( ) + "': "
+						+ response.getError( ) + " (" + response.getReason( ) + "). Its originals were kept." );
+				}
+			}
+
+		if ( deletions.isEmpty( ) )
+			return 0;
+
+		int deleted = 0;
+		for ( Response response : database.bulk( deletions ) )
+			{
+			if ( response.getError( ) == null )
+				deleted++ ;
+			else
+				LOG.error( "Unable to delete original document '" + response.getId( ) + "': " + response.getError( ) );
+			}
+
+		return deleted;
+
+	} // rekeyPage
+
+}
@@ -0,0 +1,143 @@
+/*
+ * HostRateLimiter.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * HostRateLimiter hands out request slots per host, so that any number of crawl workers sharing one instance will
+ * never together exceed a host's politeness budget. Slots are measured from the start of one request to the start of
+ * the next.
+ * <p>
+ * Each call to {@link #acquire(String, long)} reserves the next free slot for the host and then waits for it to
+ * arrive. A caller that is interrupted while waiting forfeits its slot, which errs on the side of politeness.
+ * <p>
+ * The interval between slots adapts to the host: callers report how long each response took with
+ * {@link #recordLatency(String, long)}, and once a host's (smoothed) latency times the latency factor exceeds the
+ * requested interval, that longer interval is used instead. A host that asks us to back off can be
+ * {@link #defer(String, long) deferred} outright.
+ */
+public class HostRateLimiter
+{
+	/**
+	 * The slot and latency bookkeeping for a single host.
+	 */
+	private static class HostState
+	{
+		// Data members.
+		private long fieldNextSlot;
+		private boolean fieldHasSlot;
+		private double fieldLatencyMillis;
+		private boolean fieldHasLatency;
+
+	} // class HostState
+
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( HostRateLimiter.class );
+
+	/**
+	 * How much weight the newest latency sample gets in the smoothed latency.
+	 */
+	private static final double LATENCY_SMOOTHING = 0.2;
+
+	// Data members.
+	private final double fieldLatencyFactor;
+	private final Map<String, HostState> fieldHosts = new HashMap<>( );
+
+	/**
+	 * @param latencyFactor the multiple of a host's smoothed response latency below which its request interval won't
+	 *            go.
+	 */
+	public HostRateLimiter( double latencyFactor )
+	{
+		fieldLatencyFactor = latencyFactor;
+
+	} // HostRateLimiter
+
+
+	/**
+	 * Blocks until the calling thread may start a request to the given host.
+	 * 
+	 * @param host the host about to be requested.
+	 * @param intervalMillis the minimum time between the starts of two requests to the host.
+	 * @throws InterruptedException if interrupted while waiting for the slot.
+	 */
+	public void acquire( String host, long intervalMillis ) throws InterruptedException
+	{
+		long waitNanos;
+		synchronized ( fieldHosts )
+			{
+			HostState state = fieldHosts.computeIfAbsent( host, ( key ) -> new HostState( ) );
+			long now = System.nanoTime( );
+			long slot = ( !state.fieldHasSlot || state.fieldNextSlot - now < 0 ) ? now : state.fieldNextSlot;
+
+			long interval = intervalMillis;
+			if ( state.fieldHasLatency )
+				interval = Math.max( interval, ( long )( state.fieldLatencyMillis * fieldLatencyFactor ) );
+
+			state.fieldNextSlot = slot + TimeUnit.MILLISECONDS.toNanos( interval );
+			state.fieldHasSlot = true;
+			waitNanos = slot - now;
+			}
+
+		if ( waitNanos > 0 )
+			TimeUnit.NANOSECONDS.sleep( waitNanos );
+
+	} // acquire
+
+
+	/**
+	 * Holds off every request to the given host (that hasn't already been granted a slot) for at least the given time,
+	 * e.g. because the host asked us to back off.
+	 * 
+	 * @param host the host to defer.
+	 * @param delayMillis how long from now the next request to the host may start, at the earliest.
+	 */
+	public void defer( String host, long delayMillis )
+	{
+		synchronized ( fieldHosts )
+			{
+			HostState state = fieldHosts.computeIfAbsent( host, ( key ) -> new HostState( ) );
+			long earliest = System.nanoTime( ) + TimeUnit.MILLISECONDS.toNanos( delayMillis );
+			if ( !state.fieldHasSlot || state.fieldNextSlot - earliest < 0 )
+				{
+				state.fieldNextSlot = earliest;
+				state.fieldHasSlot = true;
+				}
+			}
+
+	} // defer
+
+
+	/**
+	 * Reports how long a response from the given host took, to adapt the host's request interval.
+	 * 
+	 * @param host the host that responded.
+	 * @param latencyMillis the time from the start of the request until the response (headers) arrived.
+	 */
+	public void recordLatency( String host, long latencyMillis )
+	{
+		synchronized ( fieldHosts )
+			{
+			HostState state = fieldHosts.computeIfAbsent( host, ( key ) -> new HostState( ) );
+			double previous = state.fieldLatencyMillis;
+			state.fieldLatencyMillis = state.fieldHasLatency
+					? ( LATENCY_SMOOTHING * latencyMillis + ( 1 - LATENCY_SMOOTHING ) * previous )
+					: latencyMillis;
+			state.fieldHasLatency = true;
+
+			if ( LOG.isDebugEnabled( ) && ( long )( state.fieldLatencyMillis / 1000 ) != ( long )( previous / 1000 ) )
+				LOG.debug( "Smoothed latency of '" + host + "' is now " + ( long )state.fieldLatencyMillis + "ms." );
+			}
+
+	} // recordLatency
+
+}
@@ -0,0 +1,263 @@
+/*
+ * IngestPublisher.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.model.ResearchItem;
+import org.spidermole.util.ExecutorUtils;
+
+/**
+ * IngestPublisher fans every item that crawls (and re-ingests) discover out to any number of
+ * {@link Flow.Subscriber}s, such as the persistence queue (see {@link QueueSubscriber}) and {@link IngestStatistics},
+ * so that whatever is derived from ingested items is kept up to date in the same pass, rather than by scanning the
+ * database again afterwards.
+ * <p>
+ * Each subscriber gets its own buffer and its own delivery thread, so a subscriber that is momentarily slow doesn't
+ * hold up delivery to the others. Delivery is back-pressured: once a subscriber's buffer is full,
+ * {@link #accept(ResearchItem)} waits (interruptibly) for room in it, which slows the crawl down to the pace of its
+ * slowest subscriber rather than dropping items or letting buffers grow without bound.
+ * <p>
+ * A subscriber that fails (throws from {@link Flow.Subscriber#onNext(Object) onNext}, which has it cancelled) or
+ * cancels its subscription receives nothing more. So that items aren't silently lost that way, publishing fails once a
+ * {@link #subscribe(String, Flow.Subscriber, int, boolean) required} subscriber is gone, or when none is left at all.
+ * <p>
+ * The publisher is safe for use by any number of crawl threads at once. Subscribers should all be added before items
+ * are published; one added later only receives the items published after it.
+ */
+public class IngestPublisher implements ResearchItemSink, Closeable
+{
+	/**
+	 * A subscriber's own publisher, and the thread it delivers on. The channel stands between the two, to tell when the
+	 * subscriber has been completed, or has failed.
+	 */
+	private static class Channel implements Flow.Subscriber<ResearchItem>
+	{
+		// Data members.
+		private final String fieldName;
+		private final Flow.Subscriber<? super ResearchItem> fieldSubscriber;
+		private final boolean fieldRequired;
+		private final ExecutorService fieldExecutor;
+		private final SubmissionPublisher<ResearchItem> fieldPublisher;
+		private final CountDownLatch fieldDone = new CountDownLatch( 1 );
+		private volatile Throwable fieldFailure;
+
+		private Channel( String name, Flow.Subscriber<? super ResearchItem> subscriber, int bufferCapacity,
+				boolean required )
+		{
+			fieldName = name;
+			fieldSubscriber = subscriber;
+			fieldRequired = required;
+			fieldExecutor = Executors.newSingleThreadExecutor( ExecutorUtils.daemonThreads( "ingest-" + name ) );
+			fieldPublisher = new SubmissionPublisher<ResearchItem>( fieldExecutor, bufferCapacity,
+					IngestPublisher::onError );
+
+		} // Channel
+
+
+		/**
+		 * @return whether the subscriber is still receiving items, i.e. hasn't failed, cancelled its subscription, or
+		 *         been completed.
+		 */
+		private boolean isLive( )
+		{
+			return fieldFailure == null && !fieldPublisher.isClosed( ) && fieldPublisher.hasSubscribers( );
+
+		} // isLive
+
+
+		@Override
+		public void onComplete( )
+		{
+			try
+				{
+				fieldSubscriber.onComplete( );
+				}
+			finally
+				{
+				fieldDone.countDown( );
+				}
+
+		} // onComplete
+
+
+		@Override
+		public void onError( Throwable throwable )
+		{
+			fieldFailure = throwable;
+			try
+				{
+				fieldSubscriber.onError( throwable );
+				}
+			finally
+				{
+				fieldDone.countDown( );
+				}
+
+		} // onError
+
+
+		@Override
+		public void onNext( ResearchItem item )
+		{
+			fieldSubscriber.onNext( item );
+
+		} // onNext
+
+
+		@Override
+		public void onSubscribe( Flow.Subscription subscription )
+		{
+			fieldSubscriber.onSubscribe( subscription );
+
+		} // onSubscribe
+
+	} // class Channel
+
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( IngestPublisher.class );
+
+	/**
+	 * How long to wait for room in a full buffer before checking for an interrupt again.
+	 */
+	private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+	/**
+	 * How long {@link #close()} waits for the subscribers to finish what was published to them.
+	 */
+	private static final long CLOSE_TIMEOUT_MILLIS = 10000;
+
+	// Data members.
+	private final List<Channel> fieldChannels = new CopyOnWriteArrayList<>( );
+
+	public IngestPublisher( )
+	{
+	} // IngestPublisher
+
+
+	private static void onError( Flow.Subscriber<? super ResearchItem> subscriber, Throwable throwable )
+	{
+		LOG.error( "Ingest subscriber '" + subscriber + "' failed. It won't receive any more items.", throwable );
+
+	} // onError
+
+
+	/**
+	 * Publishes an item to every live subscriber, waiting for room in the buffer of any subscriber that has fallen
+	 * behind. If interrupted while waiting, the item may already have been delivered to some of the subscribers.
+	 * 
+	 * @throws IllegalStateException if a required subscriber is no longer receiving items, or none is left that is.
+	 *             The item may have been delivered to some of the others.
+	 */
+	@Override
+	public void accept( ResearchItem item ) throws InterruptedException
+	{
+		boolean received = false;
+		for ( Channel channel : fieldChannels )
+			{
+			// Each channel has only the one subscriber, so an offer either reaches it or doesn't.
+			while ( channel.isLive( )
+					&& channel.fieldPublisher.offer( item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, null ) < 0 )
+				{
+				if ( Thread.interrupted( ) )
+					throw new InterruptedException( "Interrupted while waiting on ingest subscriber '"
+							+ channel.fieldName + "'." );
+				}
+
+			// An offer made as the subscriber goes away isn't delivered, either.
+			if ( channel.isLive( ) )
+				received = true;
+			else if ( channel.fieldRequired )
+				{
+				throw new IllegalStateException( "Ingest subscriber '" + channel.fieldName
+						+ "' is no longer receiving items.", channel.fieldFailure );
+				}
+			}
+
+		if ( !received )
+			throw new IllegalStateException( "No ingest subscriber is receiving items." );
+		if ( Thread.interrupted( ) )
+			throw new InterruptedException( );
+
+	} // accept
+
+
+	/**
+	 * Stops publishing, and waits (for a while) for every subscriber to finish with what was already published to it
+	 * and be {@link Flow.Subscriber#onComplete() completed}.
+	 */
+	@Override
+	public void close( )
+	{
+		for ( Channel channel : fieldChannels )
+			channel.fieldPublisher.close( );
+
+		try
+			{
+			long deadline = System.currentTimeMillis( ) + CLOSE_TIMEOUT_MILLIS;
+			for ( Channel channel : fieldChannels )
+				{
+				long remaining = Math.max( 0, deadline - System.currentTimeMillis( ) );
+				if ( !channel.fieldDone.await( remaining, TimeUnit.MILLISECONDS ) )
+					LOG.warn( "Ingest subscriber '" + channel.fieldName + "' didn't finish in time." );
+				}
+			}
+		catch ( InterruptedException exception )
+			{
+			Thread.currentThread( ).interrupt( );
+			}
+		finally
+			{
+			for ( Channel channel : fieldChannels )
+				channel.fieldExecutor.shutdownNow( );
+			}
+
+	} // close
+
+
+	/**
+	 * @return the most items waiting to be delivered to any one subscriber.
+	 */
+	public int getMaximumLag( )
+	{
+		int lag = 0;
+		for ( Channel channel : fieldChannels )
+			lag = Math.max( lag, channel.fieldPublisher.estimateMaximumLag( ) );
+
+		return lag;
+
+	} // getMaximumLag
+
+
+	/**
+	 * Adds a subscriber, with its own buffer and delivery thread.
+	 * 
+	 * @param name a short name for the subscriber, for its thread and the log.
+	 * @param subscriber the subscriber.
+	 * @param bufferCapacity the most items to hold for the subscriber before publishing waits on it.
+	 * @param required whether items may only be published while the subscriber is receiving them (e.g. because they
+	 *            would otherwise never be persisted).
+	 */
+	public void subscribe( String name, Flow.Subscriber<? super ResearchItem> subscriber, int bufferCapacity,
+			boolean required )
+	{
+		Channel channel = new Channel( name, subscriber, bufferCapacity, required );
+		channel.fieldPublisher.subscribe( channel );
+		fieldChannels.add( channel );
+
+	} // subscribe
+
+}
@@ -0,0 +1,114 @@
+/*
+ * IngestStatistics.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.spidermole.model.ResearchItem;
+
+/**
+ * IngestStatistics tallies the items ingested this session as they are published (see {@link IngestPublisher}): how
+ * many there were, how many fell in each (normalized) category, and the newest publication date among them. It never
+ * holds up ingest, and may be read from any thread at any time.
+ */
+public class IngestStatistics implements Flow.Subscriber<ResearchItem>
+{
+	// Data members.
+	private final LongAdder fieldItemCount = new LongAdder( );
+	private final Map<String, LongAdder> fieldCategoryCounts = new ConcurrentHashMap<>( );
+	private final AtomicLong fieldNewestPublication = new AtomicLong( Long.MIN_VALUE );
+
+	public IngestStatistics( )
+	{
+	} // IngestStatistics
+
+
+	/**
+	 * @return the number of items ingested so far.
+	 */
+	public long getItemCount( )
+	{
+		return fieldItemCount.sum( );
+
+	} // getItemCount
+
+
+	/**
+	 * @return the newest publication date among the items ingested so far, or null if none had one.
+	 */
+	public Date getNewestPublication( )
+	{
+		long newest = fieldNewestPublication.get( );
+
+		return ( newest == Long.MIN_VALUE ) ? null : new Date( newest );
+
+	} // getNewestPublication
+
+
+	/**
+	 * @param limit the most categories to include.
+	 * @return the categories (keys) with the most items so far, and their counts, from most items to fewest.
+	 */
+	public Map<String, Long> getTopCategories( int limit )
+	{
+		Map<String, Long> top = new LinkedHashMap<>( );
+		fieldCategoryCounts.entrySet( ).stream( )
+				.sorted( ( first, second ) -> Long.compare( second.getValue( ).sum( ), first.getValue( ).sum( ) ) )
+				.limit( limit ).forEachOrdered( ( entry ) -> top.put( entry.getKey( ), entry.getValue( ).sum( ) ) );
+
+		return top;
+
+	} // getTopCategories
+
+
+	@Override
+	public void onComplete( )
+	{
+	} // onComplete
+
+
+	@Override
+	public void onError( Throwable throwable )
+	{
+	} // onError
+
+
+	@Override
+	public void onNext( ResearchItem item )
+	{
+		fieldItemCount.increment( );
+		if ( item.getCategoryKey( ) != null )
+			fieldCategoryCounts.computeIfAbsent( item.getCategoryKey( ), ( key ) -> new LongAdder( ) ).increment( );
+		if ( item.getPublicationDate( ) != null )
+			fieldNewestPublication.accumulateAndGet( item.getPublicationDate( ).getTime( ), Math::max );
+
+	} // onNext
+
+
+	@Override
+	public void onSubscribe( Flow.Subscription subscription )
+	{
+		// Counting is cheap enough to take everything as it comes.
+		subscription.request( Long.MAX_VALUE );
+
+	} // onSubscribe
+
+
+	@Override
+	public String toString( )
+	{
+		return getItemCount( ) + " items ingested (newest published " + getNewestPublication( ) + "); top categories "
+				+ getTopCategories( 5 );
+
+	} // toString
+
+}
@@ -0,0 +1,26 @@
+/*
+ * MedrxivApiCorrespondent.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.time.LocalDate;
+
+/**
+ * MedrxivApiCorrespondent implements {@link CrawlCorrespondent} for the medRxiv server of {@code api.biorxiv.org}, e.g.
+ * {@code https://api.biorxiv.org/details/medrxiv/[interval]/[cursor]}. The API and its documents are the same as for
+ * bioRxiv (see {@link BiorxivApiCorrespondent}); only the server path differs.
+ * <p>
+ * Since both servers share a host, crawls of each share its politeness budget as well.
+ */
+public class MedrxivApiCorrespondent extends BiorxivApiCorrespondent
+{
+	public MedrxivApiCorrespondent( )
+	{
+		// medRxiv didn't exist before this date.
+		super( "medrxiv", LocalDate.of( 2019, 6, 1 ) );
+
+	} // MedrxivApiCorrespondent
+
+}
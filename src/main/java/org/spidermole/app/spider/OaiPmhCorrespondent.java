@@ -0,0 +1,445 @@
+/*
+ * OaiPmhCorrespondent.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.app.Constants;
+import org.spidermole.model.ResearchItem;
+import org.spidermole.util.IsoDateParser;
+import org.spidermole.util.StringPool;
+
+/**
+ * OaiPmhCorrespondent implements {@link CrawlCorrespondent} for bulk harvests of an
+ * <a href="https://www.openarchives.org/OAI/openarchivesprotocol.html">OAI-PMH</a> repository, i.e.
+ * {@code ListRecords} requests for Dublin Core ({@code oai_dc}) metadata, e.g.
+ * {@code [base URL]?verb=ListRecords&metadataPrefix=oai_dc&set=[set]}. Subclasses (e.g. {@link ArxivOaiCorrespondent})
+ * name the repository.
+ * <p>
+ * Repositories answer with large batches of records (typically a thousand or more per request), so each page is
+ * streamed: records are read one at a time with a pull parser and handed off as soon as they have been read. The way
+ * to the next batch is a resumption token at the end of each page, so the summaries of its pages are
+ * {@link CrawlPageSummary#isResponseDriven() response-driven}, and {@link #getNextPageUri(URI)} has nothing to offer.
+ * <p>
+ * Deleted records, and records with no DOI (see {@link #doiFor(String, List)}), are skipped.
+ */
+public class OaiPmhCorrespondent implements CrawlCorrespondent
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( OaiPmhCorrespondent.class );
+
+	private static final String OAI_NAMESPACE = "http://www.openarchives.org/OAI/2.0/";
+	private static final String DC_NAMESPACE = "http://purl.org/dc/elements/1.1/";
+
+	/**
+	 * The error a repository answers with when a harvest matches nothing, which is no error at all to us.
+	 */
+	private static final String NO_RECORDS_MATCH = "noRecordsMatch";
+
+	/**
+	 * Matches a {@code dc:identifier} that is a DOI, capturing the DOI itself.
+	 */
+	private static final Pattern DOI_IDENTIFIER_PATTERN = Pattern
+			.compile( "^(?:doi:\\s*|https?://(?:dx\\.)?doi\\.org/)(10\\..+)$", Pattern.CASE_INSENSITIVE );
+
+	// Data members.
+	private final String fieldSourceName;
+	private final URI fieldBaseUri;
+	private final String fieldDefaultSet;
+	private final int fieldCrawlDelaySeconds;
+	private final XMLInputFactory fieldXmlInputFactory;
+	private final IsoDateParser fieldDateParser = new IsoDateParser( );
+	private final StringPool fieldStrings = new StringPool( Constants.CRAWL_STRING_POOL_MAX_SIZE );
+
+	/**
+	 * @param sourceName the name of the repository as a source (see {@link #getSourceName()}).
+	 * @param baseUri the base URL of the repository, to which the OAI-PMH request parameters are added.
+	 * @param defaultSet the set to harvest incrementally, or null to harvest the whole repository.
+	 * @param crawlDelaySeconds the delay the repository asks harvesters to leave between requests.
+	 */
+	protected OaiPmhCorrespondent( String sourceName, URI baseUri, String defaultSet, int crawlDelaySeconds )
+	{
+		fieldSourceName = sourceName;
+		fieldBaseUri = baseUri;
+		fieldDefaultSet = defaultSet;
+		fieldCrawlDelaySeconds = crawlDelaySeconds;
+
+		// Repository responses are data, not documents; don't let them reach for anything else.
+		fieldXmlInputFactory = XMLInputFactory.newFactory( );
+		fieldXmlInputFactory.setProperty( XMLInputFactory.SUPPORT_DTD, Boolean.FALSE );
+		fieldXmlInputFactory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE );
+
+	} // OaiPmhCorrespondent
+
+
+	private static String collapse( String value )
+	{
+		return ( value == null ) ? null : value.trim( ).replaceAll( "\\s+", " " );
+
+	} // collapse
+
+
+	private static String first( Map<String, List<String>> fields, String name )
+	{
+		List<String> values = fields.get( name );
+
+		return ( values == null || values.isEmpty( ) ) ? null : values.get( 0 );
+
+	} // first
+
+
+	private static String parameter( String name, String value )
+	{
+		return "&" + name + "=" + URLEncoder.encode( value, StandardCharsets.UTF_8 );
+
+	} // parameter
+
+
+	/**
+	 * Works out the DOI of a record. By default, this is the first {@code dc:identifier} that is a DOI (either
+	 * {@code doi:10...} or a {@code doi.org} link); repositories that mint DOIs for everything they hold may know
+	 * better.
+	 * 
+	 * @param oaiIdentifier the OAI identifier of the record, from its header.
+	 * @param identifiers the record's {@code dc:identifier}s (may be empty).
+	 * @return the DOI, or null if the record has none.
+	 */
+	protected String doiFor( String oaiIdentifier, List<String> identifiers )
+	{
+		for ( String identifier : identifiers )
+			{
+			Matcher matcher = DOI_IDENTIFIER_PATTERN.matcher( identifier.trim( ) );
+			if ( matcher.matches( ) )
+				return matcher.group( 1 );
+			}
+
+		return null;
+
+	} // doiFor
+
+
+	@Override
+	public List<ResearchItem> extractResearchItems( String responseBody )
+	{
+		List<ResearchItem> items = new ArrayList<>( );
+		try ( InputStream stream = new ByteArrayInputStream( responseBody.getBytes( StandardCharsets.UTF_8 ) ) )
+			{
+			extractResearchItems( stream, items::add );
+			}
+		catch ( IOException exception )
+			{
+			throw new UncheckedIOException( exception );
+			}
+		catch ( InterruptedException exception )
+			{
+			// Adding to a list doesn't wait.
+			Thread.currentThread( ).interrupt( );
+			}
+
+		return items;
+
+	} // extractResearchItems
+
+
+	@Override
+	public CrawlPageSummary extractResearchItems( InputStream responseBody, ResearchItemSink sink )
+			throws IOException, InterruptedException
+	{
+		int count = 0;
+		int total = CrawlPageSummary.UNKNOWN_TOTAL;
+		String token = null;
+
+		// Closing the reader doesn't close the stream, which the caller owns.
+		try
+			{
+			XMLStreamReader reader = fieldXmlInputFactory.createXMLStreamReader( responseBody );
+			try
+				{
+				while ( reader.hasNext( ) )
+					{
+					if ( reader.next( ) != XMLStreamConstants.START_ELEMENT
+							|| !OAI_NAMESPACE.equals( reader.getNamespaceURI( ) ) )
+						continue;
+
+					switch ( reader.getLocalName( ) )
+						{
+						case "record":
+							ResearchItem item = readRecord( reader );
+							if ( item != null )
+								{
+								sink.accept( item );
+								count++ ;
+								}
+							break;
+						case "resumptionToken":
+							total = readListSize( reader.getAttributeValue( null, "completeListSize" ), total );
+							token = reader.getElementText( ).trim( );
+							break;
+						case "error":
+							String code = reader.getAttributeValue( null, "code" );
+							String message = reader.getElementText( ).trim( );
+							if ( !NO_RECORDS_MATCH.equals( code ) )
+								{
+								throw new IOException( "The OAI-PMH repository at '" + fieldBaseUri
+										+ "' reported an error: " + code + " (" + message + ")." );
+								}
+							total = 0;
+							break;
+						default:
+							break;
+						}
+					}
+				}
+			finally
+				{
+				reader.close( );
+				}
+			}
+		catch ( XMLStreamException exception )
+			{
+			throw new IOException( "Malformed response from '" + fieldBaseUri + "'.", exception );
+			}
+
+		// An empty (or missing) token marks the last batch.
+		return new CrawlPageSummary( count, total,
+				( token == null || token.isEmpty( ) ) ? null : URI.create( listRecordsUri( ) + parameter(
+						"resumptionToken", token ) ) );
+
+	} // extractResearchItems
+
+
+	@Override
+	public int getCrawlDelaySeconds( )
+	{
+		return fieldCrawlDelaySeconds;
+
+	} // getCrawlDelaySeconds
+
+
+	/**
+	 * Harvests the default set selectively by datestamp, i.e. by when the repository last changed each record (which
+	 * is what an incremental crawl wants to catch up on, whenever the record was first published).
+	 */
+	@Override
+	public URI getIntervalUri( LocalDate from, LocalDate to )
+	{
+		StringBuilder builder = new StringBuilder( listRecordsUri( ) );
+		builder.append( parameter( "metadataPrefix", "oai_dc" ) );
+		if ( fieldDefaultSet != null )
+			builder.append( parameter( "set", fieldDefaultSet ) );
+		builder.append( parameter( "from", from.toString( ) ) );
+		builder.append( parameter( "until", to.toString( ) ) );
+
+		return URI.create( builder.toString( ) );
+
+	} // getIntervalUri
+
+
+	/**
+	 * Always null; the way to the next page is only found in the page itself.
+	 */
+	@Override
+	public URI getNextPageUri( URI currentUri )
+	{
+		return null;
+
+	} // getNextPageUri
+
+
+	@Override
+	public String getSourceName( )
+	{
+		return fieldSourceName;
+
+	} // getSourceName
+
+
+	@Override
+	public boolean handles( URI uri )
+	{
+		String query = uri.getRawQuery( );
+
+		return fieldBaseUri.getHost( ).equalsIgnoreCase( uri.getHost( ) )
+				&& fieldBaseUri.getPath( ).equals( uri.getPath( ) ) && query != null
+				&& ( "&" + query ).contains( "&verb=ListRecords" );
+
+	} // handles
+
+
+	/**
+	 * @return the start of a {@code ListRecords} request to the repository, to which the other parameters are added.
+	 */
+	private String listRecordsUri( )
+	{
+		return fieldBaseUri + "?verb=ListRecords";
+
+	} // listRecordsUri
+
+
+	private int readListSize( String completeListSize, int total )
+	{
+		if ( completeListSize == null )
+			return total;
+
+		try
+			{
+			return Integer.parseInt( completeListSize.trim( ) );
+			}
+		catch ( NumberFormatException exception )
+			{
+			LOG.warn( "Unable to read the complete list size '" + completeListSize + "' from '" + fieldBaseUri + "'." );
+			return total;
+			}
+
+	} // readListSize
+
+
+	/**
+	 * Reads a single {@code record} element, leaving the reader at its end.
+	 * 
+	 * @return the item, or null if the record was deleted or doesn't meet the minimum criteria for saving.
+	 */
+	private ResearchItem readRecord( XMLStreamReader reader ) throws XMLStreamException
+	{
+		String oaiIdentifier = null;
+		boolean deleted = false;
+		Map<String, List<String>> fields = new HashMap<>( );
+		for ( int depth = 1; depth > 0; )
+			{
+			int event = reader.next( );
+			if ( event == XMLStreamConstants.END_ELEMENT )
+				{
+				depth-- ;
+				continue;
+				}
+			else if ( event != XMLStreamConstants.START_ELEMENT )
+				{
+				continue;
+				}
+
+			// Elements whose text is read are consumed through their end, so they don't count toward the depth.
+			String namespace = reader.getNamespaceURI( );
+			if ( OAI_NAMESPACE.equals( namespace ) && "header".equals( reader.getLocalName( ) ) )
+				{
+				deleted = "deleted".equals( reader.getAttributeValue( null, "status" ) );
+				depth++ ;
+				}
+			else if ( OAI_NAMESPACE.equals( namespace ) && "identifier".equals( reader.getLocalName( ) ) )
+				{
+				oaiIdentifier = reader.getElementText( ).trim( );
+				}
+			else if ( DC_NAMESPACE.equals( namespace ) )
+				{
+				fields.computeIfAbsent( reader.getLocalName( ), ( name ) -> new ArrayList<>( ) )
+						.add( reader.getElementText( ) );
+				}
+			else
+				{
+				depth++ ;
+				}
+			}
+
+		if ( deleted )
+			{
+			LOG.debug( "Skipping deleted record '" + oaiIdentifier + "' from '" + fieldBaseUri + "'." );
+			return null;
+			}
+
+		return toResearchItem( oaiIdentifier, fields );
+
+	} // readRecord
+
+
+	/**
+	 * Converts the Dublin Core fields of a record into a ResearchItem.
+	 * <p>
+	 * NOTE: This defines the mapping between Dublin Core fields and our own internal db fields.
+	 * 
+	 * @return the populated ResearchItem, or {@code null} if the record doesn't meet the minimum criteria for saving.
+	 */
+	private ResearchItem toResearchItem( String oaiIdentifier, Map<String, List<String>> fields )
+	{
+		ResearchItem item = new ResearchItem( );
+		item.setCreateDate( new Date( ) );
+
+		// Call these the "minimum criteria" for saving the item.
+		String doi = doiFor( oaiIdentifier, fields.getOrDefault( "identifier", Collections.emptyList( ) ) );
+		String title = collapse( first( fields, "title" ) );
+		String category = collapse( first( fields, "subject" ) );
+		List<String> creators = fields.getOrDefault( "creator", Collections.emptyList( ) );
+		if ( doi == null || title == null || category == null || creators.isEmpty( ) )
+			{
+			LOG.error( "Record '" + oaiIdentifier + "' from '" + fieldBaseUri
+					+ "' may not meet the minimum criteria to be persisted. (Fields: " + fields + ".)" );
+			return null;
+			}
+
+		item.setDOI( doi.trim( ) );
+		item.setTitle( title );
+		List<String> authors = new ArrayList<>( creators.size( ) );
+		for ( String creator : creators )
+			authors.add( fieldStrings.intern( collapse( creator ) ) );
+		item.setAuthors( authors );
+		item.setCategory( fieldStrings.intern( category ) );
+		item.setCategoryKey( fieldStrings.intern( ResearchItem.normalizeCategory( category ) ) );
+
+		// These are extras.
+		String description = first( fields, "description" );
+		if ( description != null )
+			item.setAbstract( description.trim( ) );
+		for ( String identifier : fields.getOrDefault( "identifier", Collections.emptyList( ) ) )
+			{
+			if ( identifier.startsWith( "http" ) )
+				{
+				item.setDetailUrl( identifier.trim( ) );
+				break;
+				}
+			}
+
+		// The first date is when the record was first made available.
+		String date = first( fields, "date" );
+		if ( date != null )
+			{
+			try
+				{
+				item.setPublicationDate( fieldDateParser.parse( date.trim( ) ) );
+				}
+			catch ( ParseException exception )
+				{
+				// Oh well.
+				LOG.error( "Unable to parse publication date '" + date + "' of record '" + oaiIdentifier + "' from '"
+						+ fieldBaseUri + "'.", exception );
+				}
+			}
+
+		return item;
+
+	} // toResearchItem
+
+}
@@ -0,0 +1,308 @@
+/*
+ * PersistenceTracker.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spidermole.model.ResearchItem;
+
+/**
+ * PersistenceTracker tells crawls when the items they handed to ingest have been persisted, so that whatever marks a
+ * crawl's progress (its checkpoints, above all) only ever moves past items that are safely in the database. A crawl
+ * {@link #open() opens} a {@link Ticket} for each page, adds each of the page's items to it before handing the item
+ * on, and then asks to be {@link Ticket#whenPersisted(Runnable, Consumer) called back} once they have all come out the
+ * other end of the {@link CrawlPersistenceService} (which reports to the tracker as its
+ * {@link CrawlPersistenceService.Listener listener}).
+ * <p>
+ * Items are matched by the id derived from their DOI, since they may have been spilled to disk and read back on the
+ * way. The same DOI may well be added more than once, even to different pages (e.g. each version of a preprint is
+ * listed as an item of its own), so each item persisted answers for exactly one of the items added with its DOI: the
+ * one added first. Every update of a DOI is written by the same persistence worker, in the order it was handed on, so
+ * that's the one it was.
+ * <p>
+ * If the persistence service stops, every ticket still waiting fails, as does every ticket asked to wait until the
+ * service starts again. The tracker is safe for use by any number of crawls at once.
+ */
+public class PersistenceTracker implements CrawlPersistenceService.Listener
+{
+	/**
+	 * The items of a single page that haven't been persisted yet.
+	 */
+	public class Ticket
+	{
+		// Data members. Guarded by the tracker.
+		/**
+		 * The number of items added under each id that haven't been persisted yet.
+		 */
+		private final Map<String, Integer> fieldPending = new HashMap<>( );
+		private Runnable fieldCallback;
+		private Consumer<Exception> fieldFailure;
+		private boolean fieldClosed;
+		private long fieldNewestPublication = Long.MIN_VALUE;
+
+		private Ticket( )
+		{
+		} // Ticket
+
+
+		/**
+		 * Stops waiting for the page's items, e.g. because the page failed partway. Neither callback is ever run.
+		 */
+		public void abandon( )
+		{
+			synchronized ( PersistenceTracker.this )
+				{
+				// Its items stay in line: any of them already on their way must still answer for themselves when
+				// they're persisted, rather than for a later ticket's item with the same DOI.
+				fieldClosed = true;
+				fieldCallback = null;
+				fieldFailure = null;
+				}
+
+		} // abandon
+
+
+		/**
+		 * Adds an item to wait for. Must be called before the item is handed on to be persisted (and if it then
+		 * can't be, it must be {@link #remove(ResearchItem) removed} again).
+		 */
+		public void add( ResearchItem item )
+		{
+			String id = ResearchItem.idForDoi( item.getDOI( ) );
+			synchronized ( PersistenceTracker.this )
+				{
+				if ( fieldClosed )
+					throw new IllegalStateException( "No more items may be added to the ticket." );
+
+				fieldPending.merge( id, Integer.valueOf( 1 ), Integer::sum );
+				fieldWaiting.computeIfAbsent( id, ( key ) -> new ArrayDeque<>( 1 ) ).add( this );
+				if ( item.getPublicationDate( ) != null )
+					fieldNewestPublication = Math.max( fieldNewestPublication, item.getPublicationDate( ).getTime( ) );
+				}
+
+		} // add
+
+
+		/**
+		 * @return the newest publication date of the items added to the ticket, or null if none of them had one.
+		 */
+		public Date getNewestPublication( )
+		{
+			synchronized ( PersistenceTracker.this )
+				{
+				return ( fieldNewestPublication == Long.MIN_VALUE ) ? null : new Date( fieldNewestPublication );
+				}
+
+		} // getNewestPublication
+
+
+		/**
+		 * Marks one item with the given id as persisted. Must be called holding the tracker's lock.
+		 * 
+		 * @return whether that was the last item the ticket was waiting for.
+		 */
+		private boolean release( String id )
+		{
+			Integer count = fieldPending.get( id );
+			if ( count == null )
+				return false;
+
+			if ( count.intValue( ) > 1 )
+				fieldPending.put( id, Integer.valueOf( count.intValue( ) - 1 ) );
+			else
+				fieldPending.remove( id );
+
+			return fieldPending.isEmpty( );
+
+		} // release
+
+
+		/**
+		 * Takes back an item that was added but couldn't be handed on after all, so that nothing waits for it.
+		 */
+		public void remove( ResearchItem item )
+		{
+			String id = ResearchItem.idForDoi( item.getDOI( ) );
+			synchronized ( PersistenceTracker.this )
+				{
+				Deque<Ticket> tickets = fieldWaiting.get( id );
+				if ( tickets == null || !tickets.removeLastOccurrence( this ) )
+					return;
+				if ( tickets.isEmpty( ) )
+					fieldWaiting.remove( id );
+				release( id );
+				}
+
+		} // remove
+
+
+		/**
+		 * Closes the ticket to further items, and runs the callback once every item added to it has been persisted:
+		 * right away, on the calling thread, if they already have been; or else on the persistence worker that reports
+		 * the last of them. If the persistence service stops (or has stopped) first, the failure callback is run
+		 * instead, on the calling thread or on the service's.
+		 */
+		public void whenPersisted( Runnable callback, Consumer<Exception> failure )
+		{
+			boolean persisted;
+			synchronized ( PersistenceTracker.this )
+				{
+				if ( fieldClosed )
+					throw new IllegalStateException( "The ticket has already been closed." );
+
+				fieldClosed = true;
+				persisted = fieldPending.isEmpty( );
+				if ( !persisted && !fieldStopped )
+					{
+					fieldCallback = callback;
+					fieldFailure = failure;
+					return;
+					}
+				}
+
+			if ( persisted )
+				run( callback );
+			else
+				fail( failure );
+
+		} // whenPersisted
+
+	} // class Ticket
+
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( PersistenceTracker.class );
+
+	// Data members.
+	/**
+	 * The tickets waiting on each item id, in the order their items were added.
+	 */
+	private final Map<String, Deque<Ticket>> fieldWaiting = new HashMap<>( );
+	private boolean fieldStopped;
+
+	public PersistenceTracker( )
+	{
+	} // PersistenceTracker
+
+
+	private static void fail( Consumer<Exception> failure )
+	{
+		try
+			{
+			failure.accept( new IllegalStateException( "Persistence stopped before the items were persisted." ) );
+			}
+		catch ( RuntimeException exception )
+			{
+			LOG.error( "Persistence failure callback failed.", exception );
+			}
+
+	} // fail
+
+
+	private static void run( Runnable callback )
+	{
+		try
+			{
+			callback.run( );
+			}
+		catch ( RuntimeException exception )
+			{
+			LOG.error( "Persistence callback failed.", exception );
+			}
+
+	} // run
+
+
+	@Override
+	public void onPersisted( List<ResearchItem> items )
+	{
+		List<Runnable> callbacks = new ArrayList<>( );
+		synchronized ( this )
+			{
+			if ( fieldWaiting.isEmpty( ) )
+				return;
+
+			for ( ResearchItem item : items )
+				{
+				String id = ResearchItem.idForDoi( item.getDOI( ) );
+				Deque<Ticket> tickets = fieldWaiting.get( id );
+				if ( tickets == null )
+					continue;
+
+				// Each item persisted answers for the first of the items with its id still waiting.
+				Ticket ticket = tickets.poll( );
+				if ( tickets.isEmpty( ) )
+					fieldWaiting.remove( id );
+				if ( ticket.release( id ) && ticket.fieldCallback != null )
+					{
+					callbacks.add( ticket.fieldCallback );
+					ticket.fieldCallback = null;
+					ticket.fieldFailure = null;
+					}
+				}
+			}
+
+		// Not while holding the lock; the callbacks may well take a while.
+		for ( Runnable callback : callbacks )
+			run( callback );
+
+	} // onPersisted
+
+
+	@Override
+	public synchronized void onStarted( )
+	{
+		fieldStopped = false;
+
+	} // onStarted
+
+
+	@Override
+	public void onStopped( )
+	{
+		List<Consumer<Exception>> failures = new ArrayList<>( );
+		synchronized ( this )
+			{
+			fieldStopped = true;
+
+			// The items stay in line, in case the service starts again and persists them after all.
+			Set<Ticket> tickets = new LinkedHashSet<>( );
+			fieldWaiting.values( ).forEach( tickets::addAll );
+			for ( Ticket ticket : tickets )
+				{
+				if ( ticket.fieldFailure != null )
+					failures.add( ticket.fieldFailure );
+				ticket.fieldCallback = null;
+				ticket.fieldFailure = null;
+				}
+			}
+
+		for ( Consumer<Exception> failure : failures )
+			fail( failure );
+
+	} // onStopped
+
+
+	/**
+	 * @return a new ticket to add a page's items to.
+	 */
+	public Ticket open( )
+	{
+		return new Ticket( );
+
+	} // open
+
+}
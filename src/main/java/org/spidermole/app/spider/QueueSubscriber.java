@@ -0,0 +1,84 @@
+/*
+ * QueueSubscriber.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * QueueSubscriber passes each item it receives on to a {@link BlockingQueue}, e.g. the one the
+ * {@link CrawlPersistenceService} drains. It asks for one item at a time, and only once the previous one is on the
+ * queue, so a full queue holds up delivery (and, in turn, the publisher) rather than items piling up in between.
+ */
+public class QueueSubscriber<E> implements Flow.Subscriber<E>
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( QueueSubscriber.class );
+
+	// Data members.
+	private final BlockingQueue<E> fieldQueue;
+	private Flow.Subscription fieldSubscription;
+
+	/**
+	 * @param queue the queue to pass items on to.
+	 */
+	public QueueSubscriber( BlockingQueue<E> queue )
+	{
+		fieldQueue = Objects.requireNonNull( queue, "A queue to pass items on to is required." );
+
+	} // QueueSubscriber
+
+
+	@Override
+	public void onComplete( )
+	{
+		LOG.debug( "No more items are coming for the queue." );
+
+	} // onComplete
+
+
+	@Override
+	public void onError( Throwable throwable )
+	{
+		LOG.error( "Delivery of items to the queue failed.", throwable );
+
+	} // onError
+
+
+	@Override
+	public void onNext( E item )
+	{
+		// Anything else the queue throws (e.g. once it has been closed) fails the subscription. The publisher then
+		// stops taking items for it, rather than dropping them here.
+		try
+			{
+			fieldQueue.put( item );
+			fieldSubscription.request( 1 );
+			}
+		catch ( InterruptedException exception )
+			{
+			// Only happens on the way out; we won't be asking for any more.
+			LOG.error( "Interrupted while passing item '" + item + "' on to the queue. It was dropped." );
+			Thread.currentThread( ).interrupt( );
+			fieldSubscription.cancel( );
+			}
+
+	} // onNext
+
+
+	@Override
+	public void onSubscribe( Flow.Subscription subscription )
+	{
+		fieldSubscription = subscription;
+		fieldSubscription.request( 1 );
+
+	} // onSubscribe
+
+}
@@ -0,0 +1,19 @@
+/*
+ * ResearchItemSink.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import org.spidermole.model.ResearchItem;
+
+/**
+ * ResearchItemSink accepts {@link ResearchItem}s one at a time as they are discovered, typically handing them off to
+ * the persistence stage. Implementations may block (e.g. on a full queue), and so must remain sensitive to interrupts.
+ */
+@FunctionalInterface
+public interface ResearchItemSink
+{
+	void accept( ResearchItem item ) throws InterruptedException;
+
+}
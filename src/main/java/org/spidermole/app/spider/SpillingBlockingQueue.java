@@ -0,0 +1,763 @@
+/*
+ * SpillingBlockingQueue.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+/**
+ * SpillingBlockingQueue is a FIFO {@link BlockingQueue} that holds up to a fixed number of elements in memory, and
+ * spills the rest to append-only files on local disk rather than making producers wait. It sits between the crawl and
+ * the {@link CrawlPersistenceService}, so that a slow or briefly unavailable database doesn't hold up the crawl (and
+ * waste the request slots it already waited for).
+ * <p>
+ * Once anything has been spilled, every element after it is spilled too, until the consumer has read its way through
+ * the files; so elements always come out in the order they went in. Spill files hold one JSON document per line,
+ * in segments of roughly the configured size (in bytes), and each segment is deleted once it has been read into memory.
+ * {@link #close() Closing} the queue writes whatever is still held in memory back to the head of the spill files,
+ * and a queue opened on the same directory later replays all of it first.
+ * <p>
+ * Only a queue that is closed keeps everything. If the process dies instead, whatever was held in memory (at most the
+ * memory capacity, counting elements already read back from disk) is lost, while whatever was still on disk is
+ * replayed; the segment that was being read is replayed from its start, so some elements that had already been taken
+ * may come out again. (Neither is a problem for the crawl: it only checkpoints pages whose items have been persisted,
+ * and persistence skips documents that are up to date.)
+ * <p>
+ * Elements are spilled with Gson, so their transient fields don't survive the trip. {@link #put(Object) Putting} never
+ * blocks, and {@link #remainingCapacity()} is unbounded. An element that can't be spilled fails with an
+ * {@link UncheckedIOException}. The {@link #iterator() iterator} is read-only, and only weakly consistent.
+ */
+public class SpillingBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>, Closeable
+{
+	// Class constants.
+	private static final Logger LOG = LogManager.getLogger( SpillingBlockingQueue.class );
+
+	private static final Pattern SEGMENT_NAME_PATTERN = Pattern.compile( "^spill-(\\d+)\\.jsonl$" );
+
+	// Data members.
+	private final Path fieldDirectory;
+	private final int fieldMemoryCapacity;
+	private final long fieldSegmentBytes;
+	private final Class<E> fieldType;
+	private final Gson fieldGson = new GsonBuilder( ).setDateFormat( "yyyy-MM-dd'T'HH:mm:ss.SSSXXX" ).create( );
+
+	private final ReentrantLock fieldLock = new ReentrantLock( );
+	private final Condition fieldNotEmpty = fieldLock.newCondition( );
+
+	private final ArrayDeque<E> fieldMemory;
+
+	/**
+	 * The spill segments, oldest (the one being read) first. The newest may still be being written.
+	 */
+	private final ArrayDeque<Path> fieldSegments = new ArrayDeque<>( );
+	private long fieldSpilledCount;
+	private int fieldNextSegmentNumber;
+	private BufferedReader fieldReader;
+
+	/**
+	 * The number of lines read from the head segment so far.
+	 */
+	private long fieldReaderLines;
+	private OutputStream fieldWriter;
+	private long fieldWriterBytes;
+	private boolean fieldClosed;
+
+	/**
+	 * Opens (or creates) the queue in the given directory. Anything a previous queue left there will be taken before
+	 * any new element.
+	 * 
+	 * @param directory the directory to keep the spill files in.
+	 * @param memoryCapacity the most elements to hold in memory.
+	 * @param segmentBytes the size after which a spill file is closed and the next one started.
+	 * @param type the type of the elements, to read them back from disk.
+	 * @throws IOException if the directory can't be created or read.
+	 */
+	public SpillingBlockingQueue( Path directory, int memoryCapacity, long segmentBytes, Class<E> type )
+			throws IOException
+	{
+		fieldDirectory = Files.createDirectories( directory );
+		fieldMemoryCapacity = Math.max( 1, memoryCapacity );
+		fieldSegmentBytes = segmentBytes;
+		fieldType = type;
+		fieldMemory = new ArrayDeque<>( fieldMemoryCapacity );
+
+		for ( Path segment : listSegments( ) )
+			{
+			fieldNextSegmentNumber = Math.max( fieldNextSegmentNumber, segmentNumber( segment ) + 1 );
+
+			long lines = countLines( segment );
+			if ( lines == 0 )
+				{
+				Files.delete( segment );
+				continue;
+				}
+			fieldSegments.add( segment );
+			fieldSpilledCount += lines;
+			}
+
+		if ( fieldSpilledCount > 0 )
+			LOG.info( "Replaying " + fieldSpilledCount + " elements spilled to '" + fieldDirectory + "' earlier." );
+
+	} // SpillingBlockingQueue
+
+
+	private static long countLines( Path segment ) throws IOException
+	{
+		long lines = 0;
+		try ( BufferedReader reader = Files.newBufferedReader( segment, StandardCharsets.UTF_8 ) )
+			{
+			while ( reader.readLine( ) != null )
+				lines++ ;
+			}
+
+		return lines;
+
+	} // countLines
+
+
+	private static int segmentNumber( Path segment )
+	{
+		Matcher matcher = SEGMENT_NAME_PATTERN.matcher( segment.getFileName( ).toString( ) );
+
+		return matcher.matches( ) ? Integer.parseInt( matcher.group( 1 ) ) : -1;
+
+	} // segmentNumber
+
+
+	/**
+	 * Writes whatever is still held in memory back to the head of the spill files, so that it will be replayed by the
+	 * next queue opened on the directory. The queue can't be used afterwards.
+	 */
+	@Override
+	public void close( ) throws IOException
+	{
+		fieldLock.lock( );
+		try
+			{
+			if ( fieldClosed )
+				return;
+			fieldClosed = true;
+
+			closeWriter( );
+
+			// Rewrite the head segment as what's in memory followed by whatever of the head hasn't been read yet.
+			Path head = fieldSegments.peekFirst( );
+			if ( fieldMemory.isEmpty( ) && fieldReader == null )
+				return;
+
+			Path temp = Files.createTempFile( fieldDirectory, "spill-head", ".tmp" );
+			long lines = 0;
+			try ( BufferedWriter writer = Files.newBufferedWriter( temp, StandardCharsets.UTF_8 ) )
+				{
+				for ( E element : fieldMemory )
+					{
+					writer.write( fieldGson.toJson( element ) );
+					writer.newLine( );
+					lines++ ;
+					}
+
+				if ( head != null )
+					{
+					if ( fieldReader == null )
+						fieldReader = Files.newBufferedReader( head, StandardCharsets.UTF_8 );
+					for ( String line = fieldReader.readLine( ); line != null; line = fieldReader.readLine( ) )
+						{
+						writer.write( line );
+						writer.newLine( );
+						lines++ ;
+						}
+					}
+				}
+			finally
+				{
+				closeReader( );
+				}
+
+			if ( lines > 0 )
+				{
+				Path target = ( head != null ) ? head
+						: fieldDirectory.resolve( String.format( "spill-%06d.jsonl", fieldNextSegmentNumber++ ) );
+				Files.move( temp, target, StandardCopyOption.REPLACE_EXISTING );
+				}
+			else
+				{
+				Files.delete( temp );
+				if ( head != null )
+					Files.delete( head );
+				}
+
+			LOG.info( "Saved " + fieldMemory.size( ) + " queued elements to '" + fieldDirectory + "'." );
+			fieldMemory.clear( );
+			}
+		finally
+			{
+			fieldLock.unlock( );
+			}
+
+	} // close
+
+
+	private void closeReader( ) throws IOException
+	{
+		if ( fieldReader != null )
+			{
+			try
+				{
+				fieldReader.close( );
+				}
+			finally
+				{
+				fieldReader = null;
+				fieldReaderLines = 0;
+				}
+			}
+
+	} // closeReader
+
+
+	private void closeWriter( ) throws IOException
+	{
+		if ( fieldWriter != null )
+			{
+			try
+				{
+				fieldWriter.close( );
+				}
+			finally
+				{
+				fieldWriter = null;
+				}
+			}
+
+	} // closeWriter
+
+
+	/**
+	 * Takes the next element, reading more from disk first if memory has run dry. Must be called holding the lock, and
+	 * only when the queue isn't empty.
+	 * 
+	 * @return the next element, or null if the spilled elements turned out to be unreadable.
+	 */
+	private E dequeue( )
+	{
+		fill( );
+
+		return fieldMemory.poll( );
+
+	} // dequeue
+
+
+	@Override
+	public int drainTo( Collection<? super E> collection )
+	{
+		return drainTo( collection, Integer.MAX_VALUE );
+
+	} // drainTo
+
+
+	@Override
+	public int drainTo( Collection<? super E> collection, int maxElements )
+	{
+		fieldLock.lock( );
+		try
+			{
+			int drained = 0;
+			while ( drained < maxElements && !isEmptyLocked( ) )
+				{
+				E element = dequeue( );
+				if ( element != null )
+					{
+					collection.add( element );
+					drained++ ;
+					}
+				}
+
+			return drained;
+			}
+		finally
+			{
+			fieldLock.unlock( );
+			}
+
+	} // drainTo
+
+
+	/**
+	 * Reads more elements from disk, if memory has run dry. Must be called holding the lock.
+	 */
+	private void fill( )
+	{
+		if ( !fieldMemory.isEmpty( ) )
+			return;
+
+		try
+			{
+			refill( );
+			}
+		catch ( IOException exception )
+			{
+			throw new UncheckedIOException( "Unable to read spilled elements from '" + fieldDirectory + "'.",
+					exception );
+			}
+
+	} // fill
+
+
+	private boolean isEmptyLocked( )
+	{
+		return fieldClosed || ( fieldMemory.isEmpty( ) && fieldSpilledCount == 0 );
+
+	} // isEmptyLocked
+
+
+	/**
+	 * Returns an iterator over the elements in the order they would be taken: those held in memory (as they were when
+	 * the iterator was created), and then those on disk, read as the iterator gets to them. Like the iterators of the
+	 * {@code java.util.concurrent} queues, it is weakly consistent, so it may or may not reflect changes made since it
+	 * was created; it never fails because of them, though an element on disk that can't be read fails with an
+	 * {@link UncheckedIOException}. Elements can't be removed through it.
+	 */
+	@Override
+	public Iterator<E> iterator( )
+	{
+		List<E> memory;
+		List<Path> segments;
+		long skipLines;
+		fieldLock.lock( );
+		try
+			{
+			if ( fieldClosed )
+				return new ArrayList<E>( ).iterator( );
+
+			memory = new ArrayList<>( fieldMemory );
+			segments = new ArrayList<>( fieldSegments );
+			skipLines = fieldReaderLines;
+			if ( fieldWriter != null )
+				fieldWriter.flush( );
+			}
+		catch ( IOException exception )
+			{
+			throw new UncheckedIOException( "Unable to flush the spilled elements in '" + fieldDirectory + "'.",
+					exception );
+			}
+		finally
+			{
+			fieldLock.unlock( );
+			}
+
+		return new Iterator<E>( )
+		{
+			private final Iterator<E> fieldMemoryIterator = memory.iterator( );
+			private final Iterator<Path> fieldSegmentIterator = segments.iterator( );
+			private BufferedReader fieldSegmentReader;
+			private long fieldSkipLines = skipLines;
+			private E fieldNext;
+
+			private E advance( )
+			{
+				if ( fieldMemoryIterator.hasNext( ) )
+					return fieldMemoryIterator.next( );
+
+				try
+					{
+					while ( true )
+						{
+						if ( fieldSegmentReader == null )
+							{
+							if ( !fieldSegmentIterator.hasNext( ) )
+								return null;
+							Path segment = fieldSegmentIterator.next( );
+							if ( !Files.exists( segment ) )
+								{
+								// Already read and deleted since we started.
+								fieldSkipLines = 0;
+								continue;
+								}
+							fieldSegmentReader = Files.newBufferedReader( segment, StandardCharsets.UTF_8 );
+							}
+
+						String line = fieldSegmentReader.readLine( );
+						if ( line == null )
+							{
+							fieldSegmentReader.close( );
+							fieldSegmentReader = null;
+							fieldSkipLines = 0;
+							continue;
+							}
+
+						// The first lines of the head segment were already read into memory.
+						if ( fieldSkipLines > 0 )
+							{
+							fieldSkipLines-- ;
+							continue;
+							}
+
+						try
+							{
+							return fieldGson.fromJson( line, fieldType );
+							}
+						catch ( JsonParseException exception )
+							{
+							// Skipped when taken, too.
+							}
+						}
+					}
+				catch ( IOException exception )
+					{
+					throw new UncheckedIOException( "Unable to read spilled elements from '" + fieldDirectory + "'.",
+							exception );
+					}
+
+			} // advance
+
+
+			@Override
+			public boolean hasNext( )
+			{
+				if ( fieldNext == null )
+					fieldNext = advance( );
+
+				return fieldNext != null;
+
+			} // hasNext
+
+
+			@Override
+			public E next( )
+			{
+				if ( !hasNext( ) )
+					throw new NoSuchElementException( );
+
+				E next = fieldNext;
+				fieldNext = null;
+
+				return next;
+
+			} // next
+		};
+
+	} // iterator
+
+
+	private List<Path> listSegments( ) throws IOException
+	{
+		List<Path> segments = new ArrayList<>( );
+		try ( DirectoryStream<Path> stream = Files.newDirectoryStream( fieldDirectory ) )
+			{
+			for ( Path path : stream )
+				{
+				if ( segmentNumber( path ) >= 0 )
+					segments.add( path );
+				}
+			}
+		segments.sort( ( first, second ) -> Integer.compare( segmentNumber( first ), segmentNumber( second ) ) );
+
+		return segments;
+
+	} // listSegments
+
+
+	/**
+	 * Adds an element, spilling it to disk if memory is full (or if earlier elements are still on disk). Never blocks.
+	 * 
+	 * @return true.
+	 * @throws IllegalStateException if the queue has been closed.
+	 * @throws UncheckedIOException if the element needed to be spilled, and couldn't be.
+	 */
+	@Override
+	public boolean offer( E element )
+	{
+		if ( element == null )
+			throw new NullPointerException( );
+
+		fieldLock.lock( );
+		try
+			{
+			if ( fieldClosed )
+				throw new IllegalStateException( "The queue has been closed." );
+
+			if ( fieldSpilledCount == 0 && fieldMemory.size( ) < fieldMemoryCapacity )
+				{
+				fieldMemory.add( element );
+				}
+			else
+				{
+				try
+					{
+					spill( element );
+					}
+				catch ( IOException exception )
+					{
+					throw new UncheckedIOException( "Unable to spill an element to '" + fieldDirectory + "'.",
+							exception );
+					}
+				}
+
+			fieldNotEmpty.signal( );
+
+			return true;
+			}
+		finally
+			{
+			fieldLock.unlock( );
+			}
+
+	} // offer
+
+
+	@Override
+	public boolean offer( E element, long timeout, TimeUnit unit )
+	{
+		return offer( element );
+
+	} // offer
+
+
+	@Override
+	public E peek( )
+	{
+		fieldLock.lock( );
+		try
+			{
+			// Unreadable elements on disk are skipped, so it may take more than one refill to find the head.
+			while ( !isEmptyLocked( ) )
+				{
+				fill( );
+				if ( !fieldMemory.isEmpty( ) )
+					return fieldMemory.peek( );
+				}
+
+			return null;
+			}
+		finally
+			{
+			fieldLock.unlock( );
+			}
+
+	} // peek
+
+
+	@Override
+	public E poll( )
+	{
+		fieldLock.lock( );
+		try
+			{
+			while ( !isEmptyLocked( ) )
+				{
+				E element = dequeue( );
+				if ( element != null )
+					return element;
+				}
+
+			return null;
+			}
+		finally
+			{
+			fieldLock.unlock( );
+			}
+
+	} // poll
+
+
+	@Override
+	public E poll( long timeout, TimeUnit unit ) throws InterruptedException
+	{
+		long nanos = unit.toNanos( timeout );
+		fieldLock.lockInterruptibly( );
+		try
+			{
+			while ( true )
+				{
+				while ( isEmptyLocked( ) )
+					{
+					if ( nanos <= 0 )
+						return null;
+					nanos = fieldNotEmpty.awaitNanos( nanos );
+					}
+
+				E element = dequeue( );
+				if ( element != null )
+					return element;
+				}
+			}
+		finally
+			{
+			fieldLock.unlock( );
+			}
+
+	} // poll
+
+
+	@Override
+	public void put( E element )
+	{
+		offer( element );
+
+	} // put
+
+
+	/**
+	 * Moves the next elements from disk into memory, as many as fit, closing and deleting each segment as it runs out.
+	 * Lines that can't be parsed (e.g. the last line of a segment written during a crash) are logged and skipped.
+	 */
+	private void refill( ) throws IOException
+	{
+		while ( fieldMemory.size( ) < fieldMemoryCapacity && fieldSpilledCount > 0 )
+			{
+			Path head = fieldSegments.peekFirst( );
+			if ( head == null )
+				{
+				// Shouldn't happen; the count is off.
+				LOG.warn( "Lost track of " + fieldSpilledCount + " spilled elements in '" + fieldDirectory + "'." );
+				fieldSpilledCount = 0;
+				break;
+				}
+
+			if ( fieldReader == null )
+				fieldReader = Files.newBufferedReader( head, StandardCharsets.UTF_8 );
+
+			String line = fieldReader.readLine( );
+			fieldReaderLines++ ;
+			if ( line == null )
+				{
+				// This segment is used up. If it's the one being written, too, the writer starts a new one next time.
+				closeReader( );
+				if ( fieldSegments.size( ) == 1 )
+					closeWriter( );
+				Files.delete( fieldSegments.removeFirst( ) );
+				continue;
+				}
+
+			fieldSpilledCount-- ;
+			try
+				{
+				fieldMemory.add( fieldGson.fromJson( line, fieldType ) );
+				}
+			catch ( JsonParseException exception )
+				{
+				LOG.warn( "Skipping unreadable spilled element '" + line + "' in '" + head + "'.", exception );
+				}
+			}
+
+		// Everything spilled has been read, so the last segment is used up, too, even if we haven't read to its end.
+		if ( fieldSpilledCount == 0 && !fieldSegments.isEmpty( ) )
+			{
+			closeReader( );
+			closeWriter( );
+			while ( !fieldSegments.isEmpty( ) )
+				Files.delete( fieldSegments.removeFirst( ) );
+			}
+
+	} // refill
+
+
+	@Override
+	public int remainingCapacity( )
+	{
+		return Integer.MAX_VALUE;
+
+	} // remainingCapacity
+
+
+	@Override
+	public int size( )
+	{
+		fieldLock.lock( );
+		try
+			{
+			return ( int )Math.min( Integer.MAX_VALUE, fieldMemory.size( ) + fieldSpilledCount );
+			}
+		finally
+			{
+			fieldLock.unlock( );
+			}
+
+	} // size
+
+
+	/**
+	 * Appends an element to the newest segment, starting a new one first if necessary. Must be called holding the lock.
+	 */
+	private void spill( E element ) throws IOException
+	{
+		if ( fieldWriter == null )
+			{
+			Path segment = fieldDirectory.resolve( String.format( "spill-%06d.jsonl", fieldNextSegmentNumber++ ) );
+			fieldWriter = new BufferedOutputStream( Files.newOutputStream( segment ) );
+			fieldWriterBytes = 0;
+			fieldSegments.add( segment );
+			if ( fieldSpilledCount == 0 )
+				LOG.info( "Persistence is falling behind. Spilling queued elements to '" + fieldDirectory + "'." );
+			}
+
+		byte[] line = fieldGson.toJson( element ).getBytes( StandardCharsets.UTF_8 );
+		fieldWriter.write( line );
+		fieldWriter.write( '\n' );
+		fieldWriter.flush( );
+		fieldWriterBytes += line.length + 1;
+		fieldSpilledCount++ ;
+
+		if ( fieldWriterBytes >= fieldSegmentBytes )
+			closeWriter( );
+
+	} // spill
+
+
+	@Override
+	public E take( ) throws InterruptedException
+	{
+		fieldLock.lockInterruptibly( );
+		try
+			{
+			while ( true )
+				{
+				while ( isEmptyLocked( ) )
+					fieldNotEmpty.await( );
+
+				E element = dequeue( );
+				if ( element != null )
+					return element;
+				}
+			}
+		finally
+			{
+			fieldLock.unlock( );
+			}
+
+	} // take
+
+}
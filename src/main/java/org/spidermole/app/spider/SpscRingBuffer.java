@@ -0,0 +1,117 @@
+/*
+ * SpscRingBuffer.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * SpscRingBuffer is a fixed-size, lock-free FIFO buffer for exactly one producer thread and one consumer thread. All
+ * of its slots are allocated up front, and neither side ever blocks or allocates: {@link #offer(Object)} fails when the
+ * buffer is full, and {@link #poll()} returns null when it is empty, leaving it to the caller to decide how to wait.
+ * <p>
+ * The producer only ever writes the tail sequence and the consumer only the head, so each side publishes its progress
+ * to the other with an ordered (lazy) write rather than a full fence.
+ */
+public class SpscRingBuffer<E>
+{
+	// Data members.
+	private final AtomicReferenceArray<E> fieldSlots;
+	private final int fieldMask;
+
+	/**
+	 * The sequence of the next element to take. Only written by the consumer.
+	 */
+	private final AtomicLong fieldHead = new AtomicLong( );
+
+	/**
+	 * The sequence of the next element to add. Only written by the producer.
+	 */
+	private final AtomicLong fieldTail = new AtomicLong( );
+
+	/**
+	 * @param capacity the most elements the buffer may hold, rounded up to a power of two.
+	 */
+	public SpscRingBuffer( int capacity )
+	{
+		int size = Integer.highestOneBit( Math.max( 2, capacity ) - 1 ) << 1;
+		fieldSlots = new AtomicReferenceArray<>( size );
+		fieldMask = size - 1;
+
+	} // SpscRingBuffer
+
+
+	/**
+	 * @return the number of elements the buffer can hold.
+	 */
+	public int capacity( )
+	{
+		return fieldMask + 1;
+
+	} // capacity
+
+
+	/**
+	 * @return whether the buffer is empty. Only exact when called by one of its two threads.
+	 */
+	public boolean isEmpty( )
+	{
+		return fieldTail.get( ) == fieldHead.get( );
+
+	} // isEmpty
+
+
+	/**
+	 * Adds an element. Must only be called by the producer.
+	 * 
+	 * @param element the element to add.
+	 * @return true, or false if the buffer is full.
+	 */
+	public boolean offer( E element )
+	{
+		long tail = fieldTail.get( );
+		if ( tail - fieldHead.get( ) > fieldMask )
+			return false;
+
+		fieldSlots.lazySet( ( int )tail & fieldMask, element );
+		fieldTail.lazySet( tail + 1 );
+
+		return true;
+
+	} // offer
+
+
+	/**
+	 * Takes the oldest element. Must only be called by the consumer.
+	 * 
+	 * @return the element, or null if the buffer is empty.
+	 */
+	public E poll( )
+	{
+		long head = fieldHead.get( );
+		if ( head == fieldTail.get( ) )
+			return null;
+
+		int index = ( int )head & fieldMask;
+		E element = fieldSlots.get( index );
+		fieldSlots.lazySet( index, null );
+		fieldHead.lazySet( head + 1 );
+
+		return element;
+
+	} // poll
+
+
+	/**
+	 * @return the number of elements in the buffer. Approximate when the buffer is in use by both threads.
+	 */
+	public int size( )
+	{
+		return ( int )Math.max( 0, fieldTail.get( ) - fieldHead.get( ) );
+
+	} // size
+
+}
@@ -0,0 +1,189 @@
+/*
+ * CrawlCheckpoint.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * CrawlCheckpoint records how far a crawl starting from a given seed URI has progressed, so that an interrupted crawl
+ * can be resumed from its last completed page instead of from the beginning. There is at most one checkpoint per seed
+ * URI.
+ * <p>
+ * A crawl that was split into partitions (see {@link #getPartitions()}) keeps one checkpoint for the seed, listing the
+ * partitions, plus one checkpoint for each partition, seeded by the partition's starting URI.
+ */
+public class CrawlCheckpoint extends ModelDocument
+{
+	// Class constants.
+	/**
+	 * This is the value of the {@code type} field for which documents correspond to CrawlCheckpoints.
+	 */
+	public static final String DATABASE_TYPE = "crawlCheckpoint";
+
+	// Data members.
+	@SerializedName( "seedUri" )
+	private String fieldSeedUri;
+
+	@SerializedName( "nextUri" )
+	private String fieldNextUri;
+
+	@SerializedName( "pageCount" )
+	private int fieldPageCount;
+
+	@SerializedName( "itemCount" )
+	private int fieldItemCount;
+
+	@SerializedName( "complete" )
+	private boolean fieldComplete;
+
+	@SerializedName( "updateDate" )
+	private Date fieldUpdateDate;
+
+	@SerializedName( "partitions" )
+	private List<String> fieldPartitions;
+
+	public CrawlCheckpoint( )
+	{
+		super( DATABASE_TYPE );
+
+	} // CrawlCheckpoint
+
+
+	public CrawlCheckpoint( String seedUri )
+	{
+		this( );
+
+		setId( idForSeed( seedUri ) );
+		fieldSeedUri = seedUri;
+		fieldNextUri = seedUri;
+
+	} // CrawlCheckpoint
+
+
+	/**
+	 * @param seedUri the URI a crawl was started from.
+	 * @return the document id of the checkpoint for crawls starting at that URI.
+	 */
+	public static String idForSeed( String seedUri )
+	{
+		return DATABASE_TYPE + ":" + seedUri;
+
+	} // idForSeed
+
+
+	/**
+	 * @return the itemCount, i.e. the number of items discovered so far by the checkpointed crawl.
+	 */
+	public int getItemCount( )
+	{
+		return fieldItemCount;
+
+	} // getItemCount
+
+
+	/**
+	 * @return the nextUri, i.e. the first page that has not yet been completed. May be null once the crawl is complete.
+	 */
+	public String getNextUri( )
+	{
+		return fieldNextUri;
+
+	} // getNextUri
+
+
+	/**
+	 * @return the pageCount, i.e. the number of pages completed so far by the checkpointed crawl.
+	 */
+	public int getPageCount( )
+	{
+		return fieldPageCount;
+
+	} // getPageCount
+
+
+	/**
+	 * @return the partitions, i.e. the starting URIs of the sub-crawls the crawl was split into. Empty if the crawl was
+	 *         not partitioned.
+	 */
+	public List<String> getPartitions( )
+	{
+		return ( fieldPartitions == null ) ? new ArrayList<>( ) : fieldPartitions;
+
+	} // getPartitions
+
+
+	/**
+	 * @return the seedUri
+	 */
+	public String getSeedUri( )
+	{
+		return fieldSeedUri;
+
+	} // getSeedUri
+
+
+	/**
+	 * @return the updateDate
+	 */
+	public Date getUpdateDate( )
+	{
+		return fieldUpdateDate;
+
+	} // getUpdateDate
+
+
+	/**
+	 * @return whether the checkpointed crawl ran to completion.
+	 */
+	public boolean isComplete( )
+	{
+		return fieldComplete;
+
+	} // isComplete
+
+
+	/**
+	 * Records that a page has been completed.
+	 * 
+	 * @param nextUri the URI of the page to continue from, or null if there are no more pages.
+	 * @param itemCount the number of items discovered on the completed page.
+	 */
+	public void recordPage( String nextUri, int itemCount )
+	{
+		fieldNextUri = nextUri;
+		fieldPageCount++ ;
+		fieldItemCount += itemCount;
+		fieldUpdateDate = new Date( );
+
+	} // recordPage
+
+
+	/**
+	 * @param complete the complete to set
+	 */
+	public void setComplete( boolean complete )
+	{
+		fieldComplete = complete;
+		fieldUpdateDate = new Date( );
+
+	} // setComplete
+
+
+	/**
+	 * @param partitions the partitions to set
+	 */
+	public void setPartitions( List<String> partitions )
+	{
+		fieldPartitions = new ArrayList<>( partitions );
+		fieldUpdateDate = new Date( );
+
+	} // setPartitions
+
+}
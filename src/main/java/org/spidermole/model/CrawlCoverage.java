@@ -0,0 +1,386 @@
+/*
+ * CrawlCoverage.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * CrawlCoverage records which pages of a single listing of a source (e.g. everything bioRxiv published within a date
+ * interval) have been crawled successfully, and how many items the server last said the listing holds, so that what is
+ * missing after a partial or failed crawl can be worked out and requested on its own. There is at most one coverage
+ * document per listing, identified by the URI of the listing's first page.
+ * <p>
+ * Each page covers a range of cursors (item offsets) within the listing. A listing that was crawled by splitting it
+ * into narrower listings (see {@link #getPartitions()}) is covered by those instead.
+ */
+public class CrawlCoverage extends ModelDocument
+{
+	/**
+	 * A crawled page: the range of cursors it covers, and how many items it yielded.
+	 */
+	public static class Page
+	{
+		// Data members.
+		@SerializedName( "start" )
+		private int fieldStart;
+
+		@SerializedName( "end" )
+		private int fieldEnd;
+
+		@SerializedName( "itemCount" )
+		private int fieldItemCount;
+
+		@SerializedName( "crawlDate" )
+		private Date fieldCrawlDate;
+
+		public Page( int start, int end, int itemCount )
+		{
+			fieldStart = start;
+			fieldEnd = end;
+			fieldItemCount = itemCount;
+			fieldCrawlDate = new Date( );
+
+		} // Page
+
+
+		/**
+		 * @return the crawlDate
+		 */
+		public Date getCrawlDate( )
+		{
+			return fieldCrawlDate;
+
+		} // getCrawlDate
+
+
+		/**
+		 * @return the end, i.e. the cursor just past the last item covered.
+		 */
+		public int getEnd( )
+		{
+			return fieldEnd;
+
+		} // getEnd
+
+
+		/**
+		 * @return the itemCount
+		 */
+		public int getItemCount( )
+		{
+			return fieldItemCount;
+
+		} // getItemCount
+
+
+		/**
+		 * @return the start, i.e. the cursor of the first item covered.
+		 */
+		public int getStart( )
+		{
+			return fieldStart;
+
+		} // getStart
+
+	} // class Page
+
+	// Class constants.
+	/**
+	 * This is the value of the {@code type} field for which documents correspond to CrawlCoverages.
+	 */
+	public static final String DATABASE_TYPE = "crawlCoverage";
+
+	/**
+	 * The total count recorded while the server hasn't reported one.
+	 */
+	public static final int UNKNOWN_TOTAL = -1;
+
+	// Data members.
+	@SerializedName( "source" )
+	private String fieldSource;
+
+	@SerializedName( "listingUri" )
+	private String fieldListingUri;
+
+	@SerializedName( "intervalFrom" )
+	private String fieldIntervalFrom;
+
+	@SerializedName( "intervalTo" )
+	private String fieldIntervalTo;
+
+	@SerializedName( "totalCount" )
+	private int fieldTotalCount = UNKNOWN_TOTAL;
+
+	@SerializedName( "pageSize" )
+	private int fieldPageSize;
+
+	@SerializedName( "pages" )
+	private List<Page> fieldPages;
+
+	@SerializedName( "partitions" )
+	private List<String> fieldPartitions;
+
+	@SerializedName( "updateDate" )
+	private Date fieldUpdateDate;
+
+	public CrawlCoverage( )
+	{
+		super( DATABASE_TYPE );
+
+	} // CrawlCoverage
+
+
+	/**
+	 * @param source the source the listing belongs to.
+	 * @param listingUri the URI of the first page of the listing.
+	 * @param intervalFrom the first publication date (yyyy-MM-dd) the listing covers, or null.
+	 * @param intervalTo the last publication date (yyyy-MM-dd) the listing covers, or null.
+	 */
+	public CrawlCoverage( String source, String listingUri, String intervalFrom, String intervalTo )
+	{
+		this( );
+
+		setId( idForListing( listingUri ) );
+		fieldSource = source;
+		fieldListingUri = listingUri;
+		fieldIntervalFrom = intervalFrom;
+		fieldIntervalTo = intervalTo;
+
+	} // CrawlCoverage
+
+
+	/**
+	 * @param listingUri the URI of the first page of a listing.
+	 * @return the document id of the coverage of that listing.
+	 */
+	public static String idForListing( String listingUri )
+	{
+		return DATABASE_TYPE + ":" + listingUri;
+
+	} // idForListing
+
+
+	/**
+	 * @return the number of items crawled from the listing, counting each page once.
+	 */
+	public int getCrawledCount( )
+	{
+		int crawled = 0;
+		for ( Page page : getPages( ) )
+			crawled += page.getItemCount( );
+
+		return crawled;
+
+	} // getCrawledCount
+
+
+	/**
+	 * Works out which cursor ranges of the listing haven't been crawled. Where the total is known, that includes
+	 * everything past the last page crawled; otherwise, only the holes between pages are known to be missing.
+	 * 
+	 * @return the missing ranges, in order, as pages that have yet to be crawled (with no items).
+	 */
+	public List<Page> getGaps( )
+	{
+		List<Page> gaps = new ArrayList<>( );
+		int covered = 0;
+		for ( Page page : getPages( ) )
+			{
+			if ( page.getStart( ) > covered )
+				gaps.add( new Page( covered, page.getStart( ), 0 ) );
+			covered = Math.max( covered, page.getEnd( ) );
+			}
+		if ( fieldTotalCount != UNKNOWN_TOTAL && fieldTotalCount > covered )
+			gaps.add( new Page( covered, fieldTotalCount, 0 ) );
+
+		return gaps;
+
+	} // getGaps
+
+
+	/**
+	 * @return the intervalFrom, i.e. the first publication date (yyyy-MM-dd) the listing covers. May be null.
+	 */
+	public String getIntervalFrom( )
+	{
+		return fieldIntervalFrom;
+
+	} // getIntervalFrom
+
+
+	/**
+	 * @return the intervalTo, i.e. the last publication date (yyyy-MM-dd) the listing covers. May be null.
+	 */
+	public String getIntervalTo( )
+	{
+		return fieldIntervalTo;
+
+	} // getIntervalTo
+
+
+	/**
+	 * @return the listingUri
+	 */
+	public String getListingUri( )
+	{
+		return fieldListingUri;
+
+	} // getListingUri
+
+
+	/**
+	 * @return the pageSize, i.e. the number of cursors a (full) page of the listing covers, or 0 if not yet known.
+	 */
+	public int getPageSize( )
+	{
+		return fieldPageSize;
+
+	} // getPageSize
+
+
+	/**
+	 * @return the pages crawled, in cursor order.
+	 */
+	public List<Page> getPages( )
+	{
+		return ( fieldPages == null ) ? new ArrayList<>( ) : fieldPages;
+
+	} // getPages
+
+
+	/**
+	 * @return the partitions, i.e. the URIs of the first pages of the narrower listings the listing was crawled as.
+	 *         Empty if it was crawled as it is.
+	 */
+	public List<String> getPartitions( )
+	{
+		return ( fieldPartitions == null ) ? new ArrayList<>( ) : fieldPartitions;
+
+	} // getPartitions
+
+
+	/**
+	 * @return the source
+	 */
+	public String getSource( )
+	{
+		return fieldSource;
+
+	} // getSource
+
+
+	/**
+	 * @return the totalCount, i.e. the number of items the server last reported the listing holds, or
+	 *         {@link #UNKNOWN_TOTAL}.
+	 */
+	public int getTotalCount( )
+	{
+		return fieldTotalCount;
+
+	} // getTotalCount
+
+
+	/**
+	 * @return the updateDate
+	 */
+	public Date getUpdateDate( )
+	{
+		return fieldUpdateDate;
+
+	} // getUpdateDate
+
+
+	/**
+	 * Folds what another copy of this coverage recorded (e.g. one saved concurrently by another crawl) into this one.
+	 * 
+	 * @param other the other copy.
+	 */
+	public void merge( CrawlCoverage other )
+	{
+		for ( Page page : other.getPages( ) )
+			recordPage( page );
+		if ( !other.getPartitions( ).isEmpty( ) )
+			recordPartitions( other.getPartitions( ) );
+		if ( other.fieldTotalCount != UNKNOWN_TOTAL && ( fieldUpdateDate == null
+				|| ( other.fieldUpdateDate != null && other.fieldUpdateDate.after( fieldUpdateDate ) ) ) )
+			fieldTotalCount = other.fieldTotalCount;
+		fieldPageSize = Math.max( fieldPageSize, other.fieldPageSize );
+
+	} // merge
+
+
+	/**
+	 * Records that a page of the listing has been crawled, replacing any earlier record of the same page.
+	 * 
+	 * @param cursor the cursor of the page's first item.
+	 * @param pageSize the number of cursors a full page covers.
+	 * @param itemCount the number of items the page yielded.
+	 * @param totalCount the number of items the server reported for the listing, or {@link #UNKNOWN_TOTAL}.
+	 */
+	public void recordPage( int cursor, int pageSize, int itemCount, int totalCount )
+	{
+		// A page covers everything up to the next page, except for the last page, which only runs to the end of the
+		// listing. An empty page covers nothing.
+		int end = cursor;
+		if ( itemCount > 0 )
+			{
+			end = cursor + Math.max( pageSize, itemCount );
+			if ( totalCount != UNKNOWN_TOTAL && totalCount > cursor )
+				end = Math.min( end, totalCount );
+			}
+
+		recordPage( new Page( cursor, end, itemCount ) );
+		if ( totalCount != UNKNOWN_TOTAL )
+			fieldTotalCount = totalCount;
+		fieldPageSize = Math.max( fieldPageSize, pageSize );
+		fieldUpdateDate = new Date( );
+
+	} // recordPage
+
+
+	private void recordPage( Page page )
+	{
+		if ( fieldPages == null )
+			fieldPages = new ArrayList<>( );
+
+		// The pages are kept in order, and a crawl mostly adds them in order, too, so this is usually an append.
+		int index = Collections.binarySearch( fieldPages, page, Comparator.comparingInt( Page::getStart ) );
+		if ( index < 0 )
+			{
+			fieldPages.add( -index - 1, page );
+			return;
+			}
+
+		Page existing = fieldPages.get( index );
+		if ( existing.getCrawlDate( ) == null || !existing.getCrawlDate( ).after( page.getCrawlDate( ) ) )
+			fieldPages.set( index, page );
+
+	} // recordPage
+
+
+	/**
+	 * Records that the listing was crawled as the given narrower listings instead.
+	 * 
+	 * @param partitions the URIs of the first pages of the narrower listings.
+	 */
+	public void recordPartitions( List<String> partitions )
+	{
+		Set<String> merged = new LinkedHashSet<>( getPartitions( ) );
+		merged.addAll( partitions );
+		fieldPartitions = new ArrayList<>( merged );
+		fieldUpdateDate = new Date( );
+
+	} // recordPartitions
+
+}
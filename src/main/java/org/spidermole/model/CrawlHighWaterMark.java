@@ -0,0 +1,111 @@
+/*
+ * CrawlHighWaterMark.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.model;
+
+import java.util.Date;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * CrawlHighWaterMark records the newest publication date ingested from a given source (e.g. the bioRxiv API), so that
+ * an incremental crawl of the source only needs to request what has been published since. There is at most one mark
+ * per source, and it only ever moves forward.
+ */
+public class CrawlHighWaterMark extends ModelDocument
+{
+	// Class constants.
+	/**
+	 * This is the value of the {@code type} field for which documents correspond to CrawlHighWaterMarks.
+	 */
+	public static final String DATABASE_TYPE = "crawlHighWaterMark";
+
+	// Data members.
+	@SerializedName( "source" )
+	private String fieldSource;
+
+	@SerializedName( "markDate" )
+	private Date fieldMarkDate;
+
+	@SerializedName( "updateDate" )
+	private Date fieldUpdateDate;
+
+	public CrawlHighWaterMark( )
+	{
+		super( DATABASE_TYPE );
+
+	} // CrawlHighWaterMark
+
+
+	public CrawlHighWaterMark( String source )
+	{
+		this( );
+
+		setId( idForSource( source ) );
+		fieldSource = source;
+
+	} // CrawlHighWaterMark
+
+
+	/**
+	 * @param source the source a crawl reads from.
+	 * @return the document id of the mark for that source.
+	 */
+	public static String idForSource( String source )
+	{
+		return DATABASE_TYPE + ":" + source;
+
+	} // idForSource
+
+
+	/**
+	 * Moves the mark forward to the given date, if it is newer than the current mark.
+	 * 
+	 * @param date the publication date of a newly ingested item.
+	 * @return whether the mark moved.
+	 */
+	public boolean advance( Date date )
+	{
+		if ( date == null || ( fieldMarkDate != null && !date.after( fieldMarkDate ) ) )
+			return false;
+
+		fieldMarkDate = date;
+		fieldUpdateDate = new Date( );
+
+		return true;
+
+	} // advance
+
+
+	/**
+	 * @return the markDate, i.e. the newest publication date ingested from the source.
+	 */
+	public Date getMarkDate( )
+	{
+		return fieldMarkDate;
+
+	} // getMarkDate
+
+
+	/**
+	 * @return the source
+	 */
+	public String getSource( )
+	{
+		return fieldSource;
+
+	} // getSource
+
+
+	/**
+	 * @return the updateDate
+	 */
+	public Date getUpdateDate( )
+	{
+		return fieldUpdateDate;
+
+	} // getUpdateDate
+
+}
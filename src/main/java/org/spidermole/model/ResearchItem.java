@@ -1,387 +1,565 @@
-/*
- * ResearchItem.java
- * 
- * Created: Oct 08, 2020
- */
-package org.spidermole.model;
-
-import java.util.Date;
-import java.util.List;
-
-import com.google.gson.annotations.SerializedName;
-
-/**
- * ResearchItem is a simple POJO that gets persisted as JSON in the database.
- * 
- * @author David Schmidt (dschmidt13@gmail.com)
- */
-public class ResearchItem extends ModelDocument
-{
-	// Class constants.
-	/**
-	 * This is the value of the {@code type} field for which documents correspond to ResearchItems.
-	 */
-	public static final String DATABASE_TYPE = "researchItem";
-
-	// Data members.
-	@SerializedName( "title" )
-	private String fieldTitle;
-
-	@SerializedName( "doi" )
-	private String fieldDOI;
-
-	@SerializedName( "authors" )
-	private List<String> fieldAuthors;
-
-	@SerializedName( "publicationDate" )
-	private Date fieldPublicationDate;
-
-	@SerializedName( "detailUrl" )
-	private String fieldDetailUrl;
-
-	@SerializedName( "sourceUrl" )
-	private String fieldSourceUrl;
-
-	@SerializedName( "createDate" )
-	private Date fieldCreateDate;
-
-	@SerializedName( "authorCorresponding" )
-	private String fieldAuthorCorresponding;
-
-	@SerializedName( "authorCorrespondingInstitution" )
-	private String fieldAuthorCorrespondingInstitution;
-
-	@SerializedName( "archiveVersion" )
-	private Integer fieldVersion;
-
-	@SerializedName( "publishDetails" )
-	private String fieldPublicationDetail;
-
-	@SerializedName( "category" )
-	private String fieldCategory;
-
-	@SerializedName( "abstract" )
-	private String fieldAbstract;
-
-	@SerializedName( "yesVotes" )
-	private Integer fieldYesVotes;
-
-	@SerializedName( "noVotes" )
-	private Integer fieldNoVotes;
-
-	public ResearchItem( )
-	{
-		super( DATABASE_TYPE );
-
-	} // ResearchItem
-
-
-	/**
-	 * @return the abstract
-	 */
-	public String getAbstract( )
-	{
-		return fieldAbstract;
-
-	} // getAbstract
-
-
-	/**
-	 * @return the authorCorresponding
-	 */
-	public String getAuthorCorresponding( )
-	{
-		return fieldAuthorCorresponding;
-
-	} // getAuthorCorresponding
-
-
-	/**
-	 * @return the authorCorrespondingInstitution
-	 */
-	public String getAuthorCorrespondingInstitution( )
-	{
-		return fieldAuthorCorrespondingInstitution;
-
-	} // getAuthorCorrespondingInstitution
-
-
-	/**
-	 * @return the authors
-	 */
-	public List<String> getAuthors( )
-	{
-		return fieldAuthors;
-
-	} // getAuthors
-
-
-	/**
-	 * @return the category
-	 */
-	public String getCategory( )
-	{
-		return fieldCategory;
-
-	} // getCategory
-
-
-	/**
-	 * @return the createDate
-	 */
-	public Date getCreateDate( )
-	{
-		return fieldCreateDate;
-
-	} // getCreateDate
-
-
-	/**
-	 * @return the detailUrl
-	 */
-	public String getDetailUrl( )
-	{
-		return fieldDetailUrl;
-
-	} // getDetailUrl
-
-
-	/**
-	 * @return the dOI
-	 */
-	public String getDOI( )
-	{
-		return fieldDOI;
-
-	} // getDOI
-
-
-	/**
-	 * @return the noVotes
-	 */
-	public Integer getNoVotes( )
-	{
-		return fieldNoVotes;
-
-	} // getNoVotes
-
-
-	/**
-	 * @return the publicationDate
-	 */
-	public Date getPublicationDate( )
-	{
-		return fieldPublicationDate;
-
-	} // getPublicationDate
-
-
-	/**
-	 * @return the publicationDetail
-	 */
-	public String getPublicationDetail( )
-	{
-		return fieldPublicationDetail;
-
-	} // getPublicationDetail
-
-
-	/**
-	 * @return the sourceUrl
-	 */
-	public String getSourceUrl( )
-	{
-		return fieldSourceUrl;
-
-	} // getSourceUrl
-
-
-	/**
-	 * @return the title
-	 */
-	public String getTitle( )
-	{
-		return fieldTitle;
-
-	} // getTitle
-
-
-	/**
-	 * @return the version
-	 */
-	public Integer getVersion( )
-	{
-		return fieldVersion;
-
-	} // getVersion
-
-
-	/**
-	 * @return the yesVotes
-	 */
-	public Integer getYesVotes( )
-	{
-		return fieldYesVotes;
-
-	} // getYesVotes
-
-
-	/**
-	 * @param abstract1 the abstract to set
-	 */
-	public void setAbstract( String abstract1 )
-	{
-		fieldAbstract = abstract1;
-
-	} // setAbstract
-
-
-	/**
-	 * @param authorCorresponding the authorCorresponding to set
-	 */
-	public void setAuthorCorresponding( String authorCorresponding )
-	{
-		fieldAuthorCorresponding = authorCorresponding;
-
-	} // setAuthorCorresponding
-
-
-	/**
-	 * @param authorCorrespondingInstitution the authorCorrespondingInstitution to set
-	 */
-	public void setAuthorCorrespondingInstitution( String authorCorrespondingInstitution )
-	{
-		fieldAuthorCorrespondingInstitution = authorCorrespondingInstitution;
-
-	} // setAuthorCorrespondingInstitution
-
-
-	/**
-	 * @param authors the authors to set
-	 */
-	public void setAuthors( List<String> authors )
-	{
-		fieldAuthors = authors;
-
-	} // setAuthors
-
-
-	/**
-	 * @param category the category to set
-	 */
-	public void setCategory( String category )
-	{
-		fieldCategory = category;
-
-	} // setCategory
-
-
-	/**
-	 * @param createDate the createDate to set
-	 */
-	public void setCreateDate( Date createDate )
-	{
-		fieldCreateDate = createDate;
-
-	} // setCreateDate
-
-
-	/**
-	 * @param detailUrl the detailUrl to set
-	 */
-	public void setDetailUrl( String detailUrl )
-	{
-		fieldDetailUrl = detailUrl;
-
-	} // setDetailUrl
-
-
-	/**
-	 * @param dOI the dOI to set
-	 */
-	public void setDOI( String dOI )
-	{
-		fieldDOI = dOI;
-
-	} // setDOI
-
-
-	/**
-	 * @param noVotes the noVotes to set
-	 */
-	public void setNoVotes( Integer noVotes )
-	{
-		fieldNoVotes = noVotes;
-
-	} // setNoVotes
-
-
-	/**
-	 * @param publicationDate the publicationDate to set
-	 */
-	public void setPublicationDate( Date publicationDate )
-	{
-		fieldPublicationDate = publicationDate;
-
-	} // setPublicationDate
-
-
-	/**
-	 * @param publicationDetail the publicationDetail to set
-	 */
-	public void setPublicationDetail( String publicationDetail )
-	{
-		fieldPublicationDetail = publicationDetail;
-
-	} // setPublicationDetail
-
-
-	/**
-	 * @param sourceUrl the sourceUrl to set
-	 */
-	public void setSourceUrl( String sourceUrl )
-	{
-		fieldSourceUrl = sourceUrl;
-
-	} // setSourceUrl
-
-
-	/**
-	 * @param title the title to set
-	 */
-	public void setTitle( String title )
-	{
-		fieldTitle = title;
-
-	} // setTitle
-
-
-	/**
-	 * @param version the version to set
-	 */
-	public void setVersion( Integer version )
-	{
-		fieldVersion = version;
-
-	} // setVersion
-
-
-	/**
-	 * @param yesVotes the yesVotes to set
-	 */
-	public void setYesVotes( Integer yesVotes )
-	{
-		fieldYesVotes = yesVotes;
-
-	} // setYesVotes
-
-
-	@Override
-	public String toString( )
-	{
-		return fieldDOI;
-
-	} // toString
-
-
-}
+/*
+ * ResearchItem.java
+ * 
+ * Created: Oct 08, 2020
+ */
+package org.spidermole.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * ResearchItem is a simple POJO that gets persisted as JSON in the database.
+ * 
+ * @author David Schmidt (dschmidt13@gmail.com)
+ */
+public class ResearchItem extends ModelDocument
+{
+	// Class constants.
+	/**
+	 * This is the value of the {@code type} field for which documents correspond to ResearchItems.
+	 */
+	public static final String DATABASE_TYPE = "researchItem";
+
+	/**
+	 * Prefixes of DOI strings that don't participate in the identity of the DOI itself. Checked in order.
+	 */
+	private static final String[ ] DOI_PREFIXES = { "https://doi.org/", "http://doi.org/", "https://dx.doi.org/",
+			"http://dx.doi.org/", "doi:" };
+
+	/**
+	 * A run of whitespace, which a normalized category has only a single space for.
+	 */
+	private static final Pattern WHITESPACE = Pattern.compile( "\\s+" );
+
+	// Data members.
+	@SerializedName( "title" )
+	private String fieldTitle;
+
+	@SerializedName( "doi" )
+	private String fieldDOI;
+
+	@SerializedName( "authors" )
+	private List<String> fieldAuthors;
+
+	@SerializedName( "publicationDate" )
+	private Date fieldPublicationDate;
+
+	@SerializedName( "detailUrl" )
+	private String fieldDetailUrl;
+
+	@SerializedName( "sourceUrl" )
+	private String fieldSourceUrl;
+
+	@SerializedName( "createDate" )
+	private Date fieldCreateDate;
+
+	@SerializedName( "authorCorresponding" )
+	private String fieldAuthorCorresponding;
+
+	@SerializedName( "authorCorrespondingInstitution" )
+	private String fieldAuthorCorrespondingInstitution;
+
+	@SerializedName( "archiveVersion" )
+	private Integer fieldVersion;
+
+	@SerializedName( "publishDetails" )
+	private String fieldPublicationDetail;
+
+	@SerializedName( "category" )
+	private String fieldCategory;
+
+	/**
+	 * The category as normalized by {@link #normalizeCategory(String)}, which is what queries should filter on.
+	 */
+	@SerializedName( "categoryKey" )
+	private String fieldCategoryKey;
+
+	@SerializedName( "abstract" )
+	private String fieldAbstract;
+
+	@SerializedName( "yesVotes" )
+	private Integer fieldYesVotes;
+
+	@SerializedName( "noVotes" )
+	private Integer fieldNoVotes;
+
+	/**
+	 * Not persisted. Marks an item re-extracted from an archived response, which should replace the stored document
+	 * even if it has the same version.
+	 */
+	private transient boolean fieldReingested;
+
+	/**
+	 * Not persisted. The number of times persisting the item has failed so far.
+	 */
+	private transient int fieldPersistAttempts;
+
+	public ResearchItem( )
+	{
+		super( DATABASE_TYPE );
+
+	} // ResearchItem
+
+
+	/**
+	 * Copies another item, as persisted (so not whether it was re-ingested, or its persist attempts).
+	 */
+	public ResearchItem( ResearchItem other )
+	{
+		super( other.getType( ) );
+		setId( other.getId( ) );
+		setRevision( other.getRevision( ) );
+		fieldTitle = other.fieldTitle;
+		fieldDOI = other.fieldDOI;
+		fieldAuthors = ( other.fieldAuthors == null ) ? null : new ArrayList<>( other.fieldAuthors );
+		fieldPublicationDate = ( other.fieldPublicationDate == null ) ? null
+				: new Date( other.fieldPublicationDate.getTime( ) );
+		fieldDetailUrl = other.fieldDetailUrl;
+		fieldSourceUrl = other.fieldSourceUrl;
+		fieldCreateDate = ( other.fieldCreateDate == null ) ? null : new Date( other.fieldCreateDate.getTime( ) );
+		fieldAuthorCorresponding = other.fieldAuthorCorresponding;
+		fieldAuthorCorrespondingInstitution = other.fieldAuthorCorrespondingInstitution;
+		fieldVersion = other.fieldVersion;
+		fieldPublicationDetail = other.fieldPublicationDetail;
+		fieldCategory = other.fieldCategory;
+		fieldCategoryKey = other.fieldCategoryKey;
+		fieldAbstract = other.fieldAbstract;
+		fieldYesVotes = other.fieldYesVotes;
+		fieldNoVotes = other.fieldNoVotes;
+
+	} // ResearchItem
+
+
+	/**
+	 * Derives the database id for the ResearchItem with the given DOI. The id is deterministic, so the database's
+	 * primary index enforces that only one document per (normalized) DOI may exist, and duplicates may be found with a
+	 * direct key lookup instead of a query.
+	 * 
+	 * @param doi a DOI string. Must not be null.
+	 * @return the document id to use for the DOI.
+	 * @see #normalizeDoi(String)
+	 */
+	public static String idForDoi( String doi )
+	{
+		return DATABASE_TYPE + ":" + normalizeDoi( doi );
+
+	} // idForDoi
+
+
+	/**
+	 * Normalizes a category for comparison. Servers don't agree on the capitalization of categories (e.g.
+	 * {@code "Systems Biology"} and {@code "systems biology"}), so this trims and lowercases the value and collapses
+	 * any runs of whitespace within it.
+	 * 
+	 * @param category a category, or null.
+	 * @return the normalized category, or null if there was none.
+	 */
+	public static String normalizeCategory( String category )
+	{
+		if ( category == null )
+			return null;
+
+		return WHITESPACE.matcher( category.trim( ) ).replaceAll( " " ).toLowerCase( Locale.ROOT );
+
+	} // normalizeCategory
+
+
+	/**
+	 * Normalizes a DOI string for comparison. DOIs are case-insensitive, so this trims and lowercases the value and
+	 * strips any resolver or {@code doi:} prefix.
+	 * 
+	 * @param doi a DOI string. Must not be null.
+	 * @return the normalized DOI.
+	 */
+	public static String normalizeDoi( String doi )
+	{
+		String normalized = doi.trim( ).toLowerCase( Locale.ROOT );
+		for ( String prefix : DOI_PREFIXES )
+			{
+			if ( normalized.startsWith( prefix ) )
+				{
+				normalized = normalized.substring( prefix.length( ) ).trim( );
+				break;
+				}
+			}
+
+		return normalized;
+
+	} // normalizeDoi
+
+
+	/**
+	 * @return the abstract
+	 */
+	public String getAbstract( )
+	{
+		return fieldAbstract;
+
+	} // getAbstract
+
+
+	/**
+	 * @return the authorCorresponding
+	 */
+	public String getAuthorCorresponding( )
+	{
+		return fieldAuthorCorresponding;
+
+	} // getAuthorCorresponding
+
+
+	/**
+	 * @return the authorCorrespondingInstitution
+	 */
+	public String getAuthorCorrespondingInstitution( )
+	{
+		return fieldAuthorCorrespondingInstitution;
+
+	} // getAuthorCorrespondingInstitution
+
+
+	/**
+	 * @return the authors
+	 */
+	public List<String> getAuthors( )
+	{
+		return fieldAuthors;
+
+	} // getAuthors
+
+
+	/**
+	 * @return the category
+	 */
+	public String getCategory( )
+	{
+		return fieldCategory;
+
+	} // getCategory
+
+
+	/**
+	 * @return the normalized category
+	 */
+	public String getCategoryKey( )
+	{
+		return fieldCategoryKey;
+
+	} // getCategoryKey
+
+
+	/**
+	 * @return the createDate
+	 */
+	public Date getCreateDate( )
+	{
+		return fieldCreateDate;
+
+	} // getCreateDate
+
+
+	/**
+	 * @return the detailUrl
+	 */
+	public String getDetailUrl( )
+	{
+		return fieldDetailUrl;
+
+	} // getDetailUrl
+
+
+	/**
+	 * @return the dOI
+	 */
+	public String getDOI( )
+	{
+		return fieldDOI;
+
+	} // getDOI
+
+
+	/**
+	 * @return the noVotes
+	 */
+	public Integer getNoVotes( )
+	{
+		return fieldNoVotes;
+
+	} // getNoVotes
+
+
+	/**
+	 * @return the number of times persisting the item has failed so far.
+	 */
+	public int getPersistAttempts( )
+	{
+		return fieldPersistAttempts;
+
+	} // getPersistAttempts
+
+
+	/**
+	 * @return the publicationDate
+	 */
+	public Date getPublicationDate( )
+	{
+		return fieldPublicationDate;
+
+	} // getPublicationDate
+
+
+	/**
+	 * @return the publicationDetail
+	 */
+	public String getPublicationDetail( )
+	{
+		return fieldPublicationDetail;
+
+	} // getPublicationDetail
+
+
+	/**
+	 * @return the sourceUrl
+	 */
+	public String getSourceUrl( )
+	{
+		return fieldSourceUrl;
+
+	} // getSourceUrl
+
+
+	/**
+	 * @return the title
+	 */
+	public String getTitle( )
+	{
+		return fieldTitle;
+
+	} // getTitle
+
+
+	/**
+	 * @return the version
+	 */
+	public Integer getVersion( )
+	{
+		return fieldVersion;
+
+	} // getVersion
+
+
+	/**
+	 * @return the yesVotes
+	 */
+	public Integer getYesVotes( )
+	{
+		return fieldYesVotes;
+
+	} // getYesVotes
+
+
+	/**
+	 * @return whether the item was re-extracted from an archived response, rather than freshly crawled.
+	 */
+	public boolean isReingested( )
+	{
+		return fieldReingested;
+
+	} // isReingested
+
+
+	/**
+	 * @param abstract1 the abstract to set
+	 */
+	public void setAbstract( String abstract1 )
+	{
+		fieldAbstract = abstract1;
+
+	} // setAbstract
+
+
+	/**
+	 * @param authorCorresponding the authorCorresponding to set
+	 */
+	public void setAuthorCorresponding( String authorCorresponding )
+	{
+		fieldAuthorCorresponding = authorCorresponding;
+
+	} // setAuthorCorresponding
+
+
+	/**
+	 * @param authorCorrespondingInstitution the authorCorrespondingInstitution to set
+	 */
+	public void setAuthorCorrespondingInstitution( String authorCorrespondingInstitution )
+	{
+		fieldAuthorCorrespondingInstitution = authorCorrespondingInstitution;
+
+	} // setAuthorCorrespondingInstitution
+
+
+	/**
+	 * @param authors the authors to set
+	 */
+	public void setAuthors( List<String> authors )
+	{
+		fieldAuthors = authors;
+
+	} // setAuthors
+
+
+	/**
+	 * @param category the category to set
+	 */
+	public void setCategory( String category )
+	{
+		fieldCategory = category;
+
+	} // setCategory
+
+
+	/**
+	 * @param categoryKey the normalized category to set
+	 */
+	public void setCategoryKey( String categoryKey )
+	{
+		fieldCategoryKey = categoryKey;
+
+	} // setCategoryKey
+
+
+	/**
+	 * @param createDate the createDate to set
+	 */
+	public void setCreateDate( Date createDate )
+	{
+		fieldCreateDate = createDate;
+
+	} // setCreateDate
+
+
+	/**
+	 * @param detailUrl the detailUrl to set
+	 */
+	public void setDetailUrl( String detailUrl )
+	{
+		fieldDetailUrl = detailUrl;
+
+	} // setDetailUrl
+
+
+	/**
+	 * @param dOI the dOI to set
+	 */
+	public void setDOI( String dOI )
+	{
+		fieldDOI = dOI;
+
+	} // setDOI
+
+
+	/**
+	 * @param noVotes the noVotes to set
+	 */
+	public void setNoVotes( Integer noVotes )
+	{
+		fieldNoVotes = noVotes;
+
+	} // setNoVotes
+
+
+	/**
+	 * @param persistAttempts the number of times persisting the item has failed so far
+	 */
+	public void setPersistAttempts( int persistAttempts )
+	{
+		fieldPersistAttempts = persistAttempts;
+
+	} // setPersistAttempts
+
+
+	/**
+	 * @param publicationDate the publicationDate to set
+	 */
+	public void setPublicationDate( Date publicationDate )
+	{
+		fieldPublicationDate = publicationDate;
+
+	} // setPublicationDate
+
+
+	/**
+	 * @param publicationDetail the publicationDetail to set
+	 */
+	public void setPublicationDetail( String publicationDetail )
+	{
+		fieldPublicationDetail = publicationDetail;
+
+	} // setPublicationDetail
+
+
+	/**
+	 * @param reingested whether the item was re-extracted from an archived response
+	 */
+	public void setReingested( boolean reingested )
+	{
+		fieldReingested = reingested;
+
+	} // setReingested
+
+
+	/**
+	 * @param sourceUrl the sourceUrl to set
+	 */
+	public void setSourceUrl( String sourceUrl )
+	{
+		fieldSourceUrl = sourceUrl;
+
+	} // setSourceUrl
+
+
+	/**
+	 * @param title the title to set
+	 */
+	public void setTitle( String title )
+	{
+		fieldTitle = title;
+
+	} // setTitle
+
+
+	/**
+	 * @param version the version to set
+	 */
+	public void setVersion( Integer version )
+	{
+		fieldVersion = version;
+
+	} // setVersion
+
+
+	/**
+	 * @param yesVotes the yesVotes to set
+	 */
+	public void setYesVotes( Integer yesVotes )
+	{
+		fieldYesVotes = yesVotes;
+
+	} // setYesVotes
+
+
+	@Override
+	public String toString( )
+	{
+		return fieldDOI;
+
+	} // toString
+
+
+}
@@ -1,63 +1,139 @@
-/*
- * DbUtils.java
- * 
- * Created: Oct 10, 2020
- */
-package org.spidermole.util;
-
-import java.net.MalformedURLException;
-import java.net.URL;
-
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.spidermole.app.Constants;
-
-import com.cloudant.client.api.ClientBuilder;
-import com.cloudant.client.api.CloudantClient;
-import com.cloudant.client.api.query.Operation;
-import com.cloudant.client.api.query.QueryBuilder;
-
-/**
- * DbUtils provides some standardizing wrapping around the Cloudant API, as it is used in this app.
- * 
- * @author David Schmidt (dschmidt13@gmail.com)
- */
-public class DbUtils
-{
-	// Class constants.
-	private static final Logger LOG = LogManager.getLogger( DbUtils.class );
-
-	/**
-	 * The name of the database document field defining what type of document it is. ALWAYS include this using
-	 * {@link Operation#and(com.cloudant.client.api.query.Selector...)} in the selector for queries made with
-	 * {@link QueryBuilder}.
-	 */
-	public static final String FIELD_TYPE = "type";
-
-	private DbUtils( )
-	{
-		throw new AssertionError( "Cannot instantiate this class." );
-
-	} // DbUtils
-
-
-	public static CloudantClient buildDefaultClient( )
-	{
-		CloudantClient client = null;
-
-		try
-			{
-			client = ClientBuilder.url( new URL( Constants.DATABASE_URL ) ).username( Constants.DATABASE_USERNAME )
-					.password( Constants.DATABASE_PASSWORD ).build( );
-			}
-		catch ( MalformedURLException exception )
-			{
-			// This should never happen, but if this ever becomes dynamic we'll have a direction to grow.
-			LOG.error( "Unable to convert the DATABASE_URL constant into a URL!", exception );
-			}
-
-		return client;
-
-	} // getDefaultClient
-
-}
+/*
+ * DbUtils.java
+ * 
+ * Created: Oct 10, 2020
+ */
+package org.spidermole.util;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.spidermole.app.Constants;
+
+import com.cloudant.client.api.ClientBuilder;
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.query.JsonIndex;
+import com.cloudant.client.api.query.Operation;
+import com.cloudant.client.api.query.QueryBuilder;
+
+/**
+ * DbUtils provides some standardizing wrapping around the Cloudant API, as it is used in this app.
+ * 
+ * @author David Schmidt (dschmidt13@gmail.com)
+ */
+public class DbUtils
+{
+	// Class constants.
+	/**
+	 * The name of the database document field defining what type of document it is. ALWAYS include this using
+	 * {@link Operation#and(com.cloudant.client.api.query.Selector...)} in the selector for queries made with
+	 * {@link QueryBuilder}.
+	 */
+	public static final String FIELD_TYPE = "type";
+
+	/**
+	 * The design document holding the app's own Mango indexes.
+	 */
+	public static final String INDEX_DESIGN_DOCUMENT = "spidermole-indexes";
+
+	/**
+	 * The name of the Mango index over {@code type} and {@code categoryKey}, which the appraisal stream filters on.
+	 */
+	public static final String CATEGORY_KEY_INDEX = "category-key-index";
+
+	/**
+	 * The prefix of the system properties that override the database constants, e.g.
+	 * {@code -Dspidermole.database.url=http://couchdb:5984}.
+	 */
+	private static final String PROPERTY_PREFIX = "spidermole.database.";
+
+	private DbUtils( )
+	{
+		throw new AssertionError( "Cannot instantiate this class." );
+
+	} // DbUtils
+
+
+	/**
+	 * Builds a client, which keeps a pool of connections to the database server. Clients are expensive, and should be
+	 * shared by everything using the server and {@link CloudantClient#shutdown() shut down} once no longer needed.
+	 * 
+	 * @param url the location of the database server.
+	 * @param username the user to authenticate as.
+	 * @param password the user's password.
+	 * @param maxConnections the most connections to the server to keep (and have open at once).
+	 * @param connectTimeoutMillis the maximum time to wait for a connection to be established.
+	 * @param readTimeoutMillis the maximum time to wait between packets of a response.
+	 * @return the client.
+	 * @throws IllegalArgumentException if the URL is malformed.
+	 */
+	public static CloudantClient buildClient( String url, String username, String password, int maxConnections,
+			int connectTimeoutMillis, int readTimeoutMillis )
+	{
+		try
+			{
+			return ClientBuilder.url( new URL( url ) ).username( username ).password( password )
+					.maxConnections( maxConnections ).connectTimeout( connectTimeoutMillis, TimeUnit.MILLISECONDS )
+					.readTimeout( readTimeoutMillis, TimeUnit.MILLISECONDS ).build( );
+			}
+		catch ( MalformedURLException exception )
+			{
+			throw new IllegalArgumentException( "Unable to convert '" + url + "' into a database URL.", exception );
+			}
+
+	} // buildClient
+
+
+	/**
+	 * Builds a client (see {@link #buildClient(String, String, String, int, int, int)}) with the database constants,
+	 * each of which may be overridden with a system property: {@code spidermole.database.url}, {@code .username},
+	 * {@code .password}, {@code .maxConnections}, {@code .connectTimeoutMillis}, and {@code .readTimeoutMillis}.
+	 * <p>
+	 * The app shares one client (see {@link org.spidermole.app.AppContext#getDatabase()}); build another only to work
+	 * outside the app.
+	 * 
+	 * @return the client.
+	 */
+	public static CloudantClient buildDefaultClient( )
+	{
+		String url = System.getProperty( PROPERTY_PREFIX + "url", Constants.DATABASE_URL );
+		String username = System.getProperty( PROPERTY_PREFIX + "username", Constants.DATABASE_USERNAME );
+		String password = System.getProperty( PROPERTY_PREFIX + "password", Constants.DATABASE_PASSWORD );
+		int maxConnections = Integer.getInteger( PROPERTY_PREFIX + "maxConnections",
+				Constants.DATABASE_MAX_CONNECTIONS ).intValue( );
+		int connectTimeoutMillis = Integer.getInteger( PROPERTY_PREFIX + "connectTimeoutMillis",
+				Constants.DATABASE_CONNECT_TIMEOUT_MILLIS ).intValue( );
+		int readTimeoutMillis = Integer.getInteger( PROPERTY_PREFIX + "readTimeoutMillis",
+				Constants.DATABASE_READ_TIMEOUT_MILLIS ).intValue( );
+
+		return buildClient( url, username, password, maxConnections, connectTimeoutMillis, readTimeoutMillis );
+
+	} // buildDefaultClient
+
+
+	/**
+	 * Creates the app's Mango indexes, unless they already exist.
+	 * 
+	 * @param database the database to index.
+	 */
+	public static void createIndexes( Database database )
+	{
+		database.createIndex( JsonIndex.builder( ).designDocument( INDEX_DESIGN_DOCUMENT ).name( CATEGORY_KEY_INDEX )
+				.asc( FIELD_TYPE, "categoryKey" ).definition( ) );
+
+	} // createIndexes
+
+
+	/**
+	 * @return the name of the database to use: {@link Constants#DATABASE_DBNAME}, unless overridden with the system
+	 *         property {@code spidermole.database.name}.
+	 */
+	public static String getDatabaseName( )
+	{
+		return System.getProperty( PROPERTY_PREFIX + "name", Constants.DATABASE_DBNAME );
+
+	} // getDatabaseName
+
+}
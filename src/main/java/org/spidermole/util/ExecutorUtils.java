@@ -0,0 +1,71 @@
+/*
+ * ExecutorUtils.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExecutorUtils provides utilities for starting and stopping the executors that background work runs on.
+ */
+public class ExecutorUtils
+{
+	/**
+	 * @throws AssertionError always. This class is for static utilities.
+	 */
+	private ExecutorUtils( )
+			throws AssertionError
+	{
+		throw new AssertionError( "Cannot instantiate static class." );
+
+	} // ExecutorUtils
+
+
+	/**
+	 * Waits for a shut down executor to finish the tasks it is running, however long that takes, so that whatever
+	 * those tasks use can't be closed under them. An interrupt doesn't cut the wait short; it is kept for afterwards.
+	 * 
+	 * @param executor an executor that has been shut down.
+	 */
+	public static void awaitTermination( ExecutorService executor )
+	{
+		boolean interrupted = false;
+		while ( true )
+			{
+			try
+				{
+				if ( executor.awaitTermination( Long.MAX_VALUE, TimeUnit.NANOSECONDS ) )
+					break;
+				}
+			catch ( InterruptedException exception )
+				{
+				interrupted = true;
+				}
+			}
+
+		if ( interrupted )
+			Thread.currentThread( ).interrupt( );
+
+	} // awaitTermination
+
+
+	/**
+	 * @param name the name of the threads.
+	 * @return a factory of daemon threads with the given name, so that they don't keep the app from exiting.
+	 */
+	public static ThreadFactory daemonThreads( String name )
+	{
+		return ( runnable ) ->
+			{
+			Thread thread = new Thread( runnable, name );
+			thread.setDaemon( true );
+			return thread;
+			};
+
+	} // daemonThreads
+
+}
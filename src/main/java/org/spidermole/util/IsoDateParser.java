@@ -0,0 +1,153 @@
+/*
+ * IsoDateParser.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.util;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * IsoDateParser parses {@code yyyy-MM-dd} dates into the {@link Date} at the start of that day in a fixed time zone,
+ * just as a {@code SimpleDateFormat("yyyy-MM-dd")} would, but with plain arithmetic: it allocates nothing but the
+ * result, and, being immutable, may be shared by any number of threads.
+ * <p>
+ * Only the exact format is accepted (four-digit year, two-digit month and day, both in range), so e.g. a missing
+ * leading zero is an error here where {@code SimpleDateFormat} would be lenient.
+ */
+public class IsoDateParser
+{
+	// Class constants.
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	/**
+	 * No zone is (or was) further than this from UTC.
+	 */
+	private static final long MAX_OFFSET_MILLIS = 15L * 60 * 60 * 1000;
+
+	// Data members.
+	private final TimeZone fieldTimeZone;
+
+	/**
+	 * Creates a parser for the default time zone (as of now).
+	 */
+	public IsoDateParser( )
+	{
+		this( TimeZone.getDefault( ) );
+
+	} // IsoDateParser
+
+
+	/**
+	 * @param timeZone the time zone the parsed days start in.
+	 */
+	public IsoDateParser( TimeZone timeZone )
+	{
+		fieldTimeZone = ( TimeZone )timeZone.clone( );
+
+	} // IsoDateParser
+
+
+	private static int digits( CharSequence text, int start, int count ) throws ParseException
+	{
+		int value = 0;
+		for ( int index = start; index < start + count; index++ )
+			{
+			int digit = text.charAt( index ) - '0';
+			if ( digit < 0 || digit > 9 )
+				throw new ParseException( "Expected a digit in date '" + text + "'.", index );
+			value = value * 10 + digit;
+			}
+
+		return value;
+
+	} // digits
+
+
+	/**
+	 * Counts days since 1970-01-01 in the proleptic Gregorian calendar. (See Howard Hinnant's {@code days_from_civil}.)
+	 */
+	private static long epochDay( int year, int month, int day )
+	{
+		long y = ( month <= 2 ) ? year - 1 : year;
+		long era = Math.floorDiv( y, 400 );
+		long yearOfEra = y - era * 400;
+		long dayOfYear = ( 153 * ( month + ( ( month > 2 ) ? -3 : 9 ) ) + 2 ) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+		return era * 146097 + dayOfEra - 719468;
+
+	} // epochDay
+
+
+	private static int lengthOfMonth( int year, int month )
+	{
+		switch ( month )
+			{
+			case 2:
+				return ( year % 4 == 0 && ( year % 100 != 0 || year % 400 == 0 ) ) ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+			}
+
+	} // lengthOfMonth
+
+
+	/**
+	 * @param text a {@code yyyy-MM-dd} date.
+	 * @return the start of the day in the parser's time zone.
+	 * @throws ParseException if the text isn't a valid date in the format.
+	 */
+	public Date parse( CharSequence text ) throws ParseException
+	{
+		return new Date( parseMillis( text ) );
+
+	} // parse
+
+
+	/**
+	 * @param text a {@code yyyy-MM-dd} date.
+	 * @return the start of the day in the parser's time zone, in milliseconds since the epoch.
+	 * @throws ParseException if the text isn't a valid date in the format.
+	 */
+	public long parseMillis( CharSequence text ) throws ParseException
+	{
+		if ( text.length( ) != 10 || text.charAt( 4 ) != '-' || text.charAt( 7 ) != '-' )
+			throw new ParseException( "Expected a yyyy-MM-dd date, not '" + text + "'.", 0 );
+
+		int year = digits( text, 0, 4 );
+		int month = digits( text, 5, 2 );
+		int day = digits( text, 8, 2 );
+		if ( month < 1 || month > 12 )
+			throw new ParseException( "Month out of range in date '" + text + "'.", 5 );
+		if ( day < 1 || day > lengthOfMonth( year, month ) )
+			throw new ParseException( "Day out of range in date '" + text + "'.", 8 );
+
+		// Local midnight lies within the zone's offset of midnight UTC. Try the offsets in effect at either end of that
+		// window; they only differ if the clocks change nearby. Where midnight happens twice or not at all that day,
+		// take the later candidate, just as SimpleDateFormat would.
+		long utc = epochDay( year, month, day ) * MILLIS_PER_DAY;
+		int earlyOffset = fieldTimeZone.getOffset( utc - MAX_OFFSET_MILLIS );
+		int lateOffset = fieldTimeZone.getOffset( utc + MAX_OFFSET_MILLIS );
+		long early = utc - earlyOffset;
+		if ( earlyOffset == lateOffset )
+			return early;
+
+		long late = utc - lateOffset;
+		boolean earlyValid = fieldTimeZone.getOffset( early ) == earlyOffset;
+		boolean lateValid = fieldTimeZone.getOffset( late ) == lateOffset;
+		if ( earlyValid != lateValid )
+			return earlyValid ? early : late;
+
+		return Math.max( early, late );
+
+	} // parseMillis
+
+}
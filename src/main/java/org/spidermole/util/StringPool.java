@@ -0,0 +1,60 @@
+/*
+ * StringPool.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * StringPool is a bounded, thread-safe dictionary of strings, for fields that repeat the same few values across many
+ * objects (e.g. a research item's category or institution). Interning such a field makes every object share one
+ * instance of each value, rather than holding its own copy, so that only the distinct values take up heap.
+ * <p>
+ * Unlike {@link String#intern()}, the pool is private to its owner and holds a fixed number of values, dropping the
+ * least recently used one to make room for a new one. So a field that turns out not to repeat (much) can't grow it
+ * without bound, and values that stop turning up (e.g. the categories of a finished crawl) don't stay in it for good.
+ */
+public class StringPool
+{
+	// Data members.
+	private final Cache<String, String> fieldValues;
+
+	/**
+	 * @param maxSize the most distinct values the pool will hold.
+	 */
+	public StringPool( int maxSize )
+	{
+		fieldValues = CacheBuilder.newBuilder( ).maximumSize( maxSize ).build( );
+
+	} // StringPool
+
+
+	/**
+	 * @param value a value to share, or null.
+	 * @return the pooled instance equal to the value, or the value itself if it is null or the first of its kind.
+	 */
+	public String intern( String value )
+	{
+		if ( value == null )
+			return null;
+
+		String pooled = fieldValues.asMap( ).putIfAbsent( value, value );
+
+		return ( pooled == null ) ? value : pooled;
+
+	} // intern
+
+
+	/**
+	 * @return the number of distinct values in the pool.
+	 */
+	public int size( )
+	{
+		return ( int )fieldValues.size( );
+
+	} // size
+
+}
@@ -0,0 +1,109 @@
+/*
+ * DeadLetterStoreTest.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.spidermole.model.ResearchItem;
+
+/**
+ * Tests that a {@link DeadLetterStore} only appends to its log as items fail and settle, and that reopening it picks
+ * up exactly the items still in the store, compacted.
+ */
+public class DeadLetterStoreTest
+{
+	// Data members.
+	@TempDir
+	Path fieldDirectory;
+
+	private static ResearchItem item( String doi )
+	{
+		ResearchItem item = new ResearchItem( );
+		item.setDOI( doi );
+		return item;
+
+	} // item
+
+
+	private static List<String> dois( List<ResearchItem> items )
+	{
+		List<String> dois = new ArrayList<>( );
+		for ( ResearchItem item : items )
+			dois.add( item.getDOI( ) );
+		Collections.sort( dois );
+		return dois;
+
+	} // dois
+
+
+	private DeadLetterStore open( ) throws IOException
+	{
+		// No delay, so that every item is due again right away.
+		return new DeadLetterStore( fieldDirectory.resolve( "dead-letters.jsonl" ), 0, 0, 8 );
+
+	} // open
+
+
+	@Test
+	public void settledAndReplacedEntriesAreStruckOffAndCompactedOnReopen( ) throws IOException
+	{
+		DeadLetterStore store = open( );
+		store.add( item( "10.1101/1" ), "conflict", "Document update conflict." );
+		store.add( item( "10.1101/2" ), "conflict", "Document update conflict." );
+		store.add( item( "10.1101/3" ), "conflict", "Document update conflict." );
+
+		List<ResearchItem> due = store.takeDue( );
+		assertEquals( 3, due.size( ) );
+		for ( ResearchItem item : due )
+			{
+			if ( item.getDOI( ).equals( "10.1101/1" ) )
+				store.removeSettled( Collections.singletonList( item ) );
+			else if ( item.getDOI( ).equals( "10.1101/2" ) )
+				store.add( item, "conflict", "Document update conflict." );
+			}
+		assertEquals( 2, store.size( ) );
+
+		// Three entries, then a marker for the settled one, then a marker and a new entry for the replaced one.
+		Path file = fieldDirectory.resolve( "dead-letters.jsonl" );
+		assertEquals( 6, Files.readAllLines( file ).size( ) );
+
+		// The item still taken (but never settled) is due again after a restart, and the replaced one remembers its
+		// attempts.
+		DeadLetterStore reopened = open( );
+		assertEquals( 2, reopened.size( ) );
+		assertEquals( 2, Files.readAllLines( file ).size( ) );
+		List<ResearchItem> dueAgain = reopened.takeDue( );
+		assertEquals( List.of( "10.1101/2", "10.1101/3" ), dois( dueAgain ) );
+		for ( ResearchItem item : dueAgain )
+			assertEquals( item.getDOI( ).equals( "10.1101/2" ) ? 2 : 1, item.getPersistAttempts( ) );
+
+	} // settledAndReplacedEntriesAreStruckOffAndCompactedOnReopen
+
+
+	@Test
+	public void untakenItemsAreNotSettled( ) throws IOException
+	{
+		DeadLetterStore store = open( );
+		ResearchItem item = item( "10.1101/1" );
+		store.add( item, "conflict", "Document update conflict." );
+
+		// Not taken, so it isn't the store's to settle.
+		store.removeSettled( Collections.singletonList( item ) );
+		assertEquals( 1, store.size( ) );
+		assertEquals( 1, Files.readAllLines( fieldDirectory.resolve( "dead-letters.jsonl" ) ).size( ) );
+
+	} // untakenItemsAreNotSettled
+
+}
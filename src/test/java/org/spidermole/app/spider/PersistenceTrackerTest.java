@@ -0,0 +1,158 @@
+/*
+ * PersistenceTrackerTest.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.spidermole.model.ResearchItem;
+
+/**
+ * Tests that a {@link PersistenceTracker} releases exactly one ticket per item persisted, even when tickets share a
+ * DOI, and that waiting tickets fail rather than hang once persistence stops.
+ */
+public class PersistenceTrackerTest
+{
+	private static ResearchItem item( String doi )
+	{
+		ResearchItem item = new ResearchItem( );
+		item.setDOI( doi );
+		return item;
+
+	} // item
+
+
+	private static void persist( PersistenceTracker tracker, ResearchItem item )
+	{
+		tracker.onPersisted( Collections.singletonList( item ) );
+
+	} // persist
+
+
+	@Test
+	public void abandonedTicketsItemDoesNotReleaseALaterTicket( )
+	{
+		PersistenceTracker tracker = new PersistenceTracker( );
+		PersistenceTracker.Ticket abandoned = tracker.open( );
+		abandoned.add( item( "10.1101/2026.01.01.000001" ) );
+		abandoned.abandon( );
+
+		AtomicBoolean released = new AtomicBoolean( );
+		PersistenceTracker.Ticket later = tracker.open( );
+		later.add( item( "10.1101/2026.01.01.000001" ) );
+		later.whenPersisted( ( ) -> released.set( true ), ( exception ) -> { } );
+
+		// The abandoned page's item was already on its way, so the first one persisted is its.
+		persist( tracker, item( "10.1101/2026.01.01.000001" ) );
+		assertFalse( released.get( ) );
+		persist( tracker, item( "10.1101/2026.01.01.000001" ) );
+		assertTrue( released.get( ) );
+
+	} // abandonedTicketsItemDoesNotReleaseALaterTicket
+
+
+	@Test
+	public void removedItemIsNotWaitedFor( )
+	{
+		PersistenceTracker tracker = new PersistenceTracker( );
+		PersistenceTracker.Ticket ticket = tracker.open( );
+		ResearchItem item = item( "10.1101/2026.01.01.000001" );
+		ticket.add( item );
+		ticket.remove( item );
+
+		AtomicBoolean released = new AtomicBoolean( );
+		ticket.whenPersisted( ( ) -> released.set( true ), ( exception ) -> { } );
+		assertTrue( released.get( ) );
+
+	} // removedItemIsNotWaitedFor
+
+
+	@Test
+	public void stoppingFailsWaitingTickets( )
+	{
+		PersistenceTracker tracker = new PersistenceTracker( );
+		tracker.onStarted( );
+		PersistenceTracker.Ticket ticket = tracker.open( );
+		ticket.add( item( "10.1101/2026.01.01.000001" ) );
+
+		AtomicBoolean released = new AtomicBoolean( );
+		AtomicReference<Exception> failure = new AtomicReference<>( );
+		ticket.whenPersisted( ( ) -> released.set( true ), failure::set );
+		assertNull( failure.get( ) );
+
+		tracker.onStopped( );
+		assertNotNull( failure.get( ) );
+
+		// Nor is a ticket that's asked to wait once persistence has stopped left waiting.
+		PersistenceTracker.Ticket late = tracker.open( );
+		late.add( item( "10.1101/2026.01.01.000002" ) );
+		AtomicReference<Exception> lateFailure = new AtomicReference<>( );
+		late.whenPersisted( ( ) -> released.set( true ), lateFailure::set );
+		assertNotNull( lateFailure.get( ) );
+
+		// Neither is released if the items do turn up after all.
+		persist( tracker, item( "10.1101/2026.01.01.000001" ) );
+		persist( tracker, item( "10.1101/2026.01.01.000002" ) );
+		assertFalse( released.get( ) );
+
+	} // stoppingFailsWaitingTickets
+
+
+	@Test
+	public void ticketTracksNewestPublication( )
+	{
+		PersistenceTracker tracker = new PersistenceTracker( );
+		PersistenceTracker.Ticket ticket = tracker.open( );
+		assertNull( ticket.getNewestPublication( ) );
+
+		ResearchItem older = item( "10.1101/2026.01.01.000001" );
+		older.setPublicationDate( new Date( 1000L ) );
+		ResearchItem newer = item( "10.1101/2026.01.01.000002" );
+		newer.setPublicationDate( new Date( 2000L ) );
+		ticket.add( newer );
+		ticket.add( older );
+		assertEquals( 2000L, ticket.getNewestPublication( ).getTime( ) );
+
+	} // ticketTracksNewestPublication
+
+
+	@Test
+	public void twoVersionsOfOneDoiReleaseTwoTicketsInTurn( )
+	{
+		PersistenceTracker tracker = new PersistenceTracker( );
+		AtomicBoolean firstReleased = new AtomicBoolean( );
+		AtomicBoolean secondReleased = new AtomicBoolean( );
+
+		// bioRxiv lists each version of a preprint separately, so the same DOI may turn up on two pages.
+		PersistenceTracker.Ticket first = tracker.open( );
+		first.add( item( "10.1101/2026.01.01.000001" ) );
+		first.whenPersisted( ( ) -> firstReleased.set( true ), ( exception ) -> { } );
+		PersistenceTracker.Ticket second = tracker.open( );
+		second.add( item( "10.1101/2026.01.01.000001" ) );
+		second.add( item( "10.1101/2026.01.01.000002" ) );
+		second.whenPersisted( ( ) -> secondReleased.set( true ), ( exception ) -> { } );
+
+		persist( tracker, item( "10.1101/2026.01.01.000001" ) );
+		assertTrue( firstReleased.get( ) );
+		assertFalse( secondReleased.get( ) );
+
+		persist( tracker, item( "10.1101/2026.01.01.000002" ) );
+		assertFalse( secondReleased.get( ) );
+		persist( tracker, item( "10.1101/2026.01.01.000001" ) );
+		assertTrue( secondReleased.get( ) );
+
+	} // twoVersionsOfOneDoiReleaseTwoTicketsInTurn
+
+}
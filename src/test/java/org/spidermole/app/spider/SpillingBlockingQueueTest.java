@@ -0,0 +1,156 @@
+/*
+ * SpillingBlockingQueueTest.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that a {@link SpillingBlockingQueue} keeps its elements in order as they spill to disk and come back, and
+ * across being closed and reopened.
+ */
+public class SpillingBlockingQueueTest
+{
+	// Data members.
+	@TempDir
+	Path fieldDirectory;
+
+	private static List<String> takeAll( SpillingBlockingQueue<String> queue )
+	{
+		List<String> taken = new ArrayList<>( );
+		for ( String element = queue.poll( ); element != null; element = queue.poll( ) )
+			taken.add( element );
+
+		return taken;
+
+	} // takeAll
+
+
+	@Test
+	public void closeSavesWhatIsLeftForTheNextQueue( ) throws IOException
+	{
+		SpillingBlockingQueue<String> queue = open( 2, 1024 );
+		for ( String element : Arrays.asList( "a", "b", "c", "d" ) )
+			queue.put( element );
+		assertEquals( "a", queue.poll( ) );
+		queue.close( );
+		assertThrows( IllegalStateException.class, ( ) -> queue.put( "x" ) );
+
+		SpillingBlockingQueue<String> reopened = open( 2, 1024 );
+		assertEquals( 3, reopened.size( ) );
+		reopened.put( "e" );
+		assertEquals( Arrays.asList( "b", "c", "d", "e" ), takeAll( reopened ) );
+		assertEquals( 0, spillFiles( ) );
+
+	} // closeSavesWhatIsLeftForTheNextQueue
+
+
+	@Test
+	public void iteratorSeesMemoryThenDisk( ) throws IOException
+	{
+		SpillingBlockingQueue<String> queue = open( 2, 1024 );
+		for ( String element : Arrays.asList( "a", "b", "c", "d", "e" ) )
+			queue.put( element );
+		assertEquals( "a", queue.poll( ) );
+
+		List<String> iterated = new ArrayList<>( );
+		queue.iterator( ).forEachRemaining( iterated::add );
+		assertEquals( Arrays.asList( "b", "c", "d", "e" ), iterated );
+
+		// Part of the spill file has now been read back into memory; it mustn't be iterated twice.
+		assertEquals( "b", queue.poll( ) );
+		iterated.clear( );
+		queue.iterator( ).forEachRemaining( iterated::add );
+		assertEquals( Arrays.asList( "c", "d", "e" ), iterated );
+		assertEquals( iterated, takeAll( queue ) );
+
+	} // iteratorSeesMemoryThenDisk
+
+
+	private SpillingBlockingQueue<String> open( int memoryCapacity, long segmentBytes ) throws IOException
+	{
+		return new SpillingBlockingQueue<>( fieldDirectory, memoryCapacity, segmentBytes, String.class );
+
+	} // open
+
+
+	@Test
+	public void peekLeavesTheHeadInPlaceWhenRefilling( ) throws IOException
+	{
+		SpillingBlockingQueue<String> queue = open( 1, 1024 );
+		for ( String element : Arrays.asList( "a", "b", "c" ) )
+			queue.put( element );
+		assertEquals( "a", queue.poll( ) );
+
+		// Memory is empty now, so peeking has to read the head back from disk.
+		assertEquals( "b", queue.peek( ) );
+		assertEquals( "b", queue.peek( ) );
+		assertEquals( 2, queue.size( ) );
+		assertEquals( Arrays.asList( "b", "c" ), takeAll( queue ) );
+		assertNull( queue.peek( ) );
+
+	} // peekLeavesTheHeadInPlaceWhenRefilling
+
+
+	@Test
+	public void segmentsRollOverByBytesNotChars( ) throws IOException
+	{
+		// Each of these is spilled as a 7 byte line (5 chars), so two of them fill a 12 byte segment.
+		SpillingBlockingQueue<String> queue = open( 1, 12 );
+		for ( String element : Arrays.asList( "a", "\u00e9\u00e9", "\u00e8\u00e8", "\u00ea\u00ea" ) )
+			queue.put( element );
+		assertEquals( 2, spillFiles( ) );
+
+		assertEquals( Arrays.asList( "a", "\u00e9\u00e9", "\u00e8\u00e8", "\u00ea\u00ea" ), takeAll( queue ) );
+
+	} // segmentsRollOverByBytesNotChars
+
+
+	@Test
+	public void spillsOnceMemoryIsFullAndKeepsOrder( ) throws IOException
+	{
+		SpillingBlockingQueue<String> queue = open( 2, 1024 );
+		for ( String element : Arrays.asList( "a", "b", "c", "d", "e" ) )
+			queue.put( element );
+		assertEquals( 5, queue.size( ) );
+		assertEquals( 1, spillFiles( ) );
+
+		// Once something has spilled, so does everything after it, even though memory has room again.
+		assertEquals( "a", queue.poll( ) );
+		queue.put( "f" );
+		assertEquals( Arrays.asList( "b", "c", "d", "e", "f" ), takeAll( queue ) );
+
+		// Every segment is deleted once it has been read.
+		assertEquals( 0, spillFiles( ) );
+
+	} // spillsOnceMemoryIsFullAndKeepsOrder
+
+
+	private int spillFiles( ) throws IOException
+	{
+		List<Path> files = new ArrayList<>( );
+		try ( DirectoryStream<Path> stream = Files.newDirectoryStream( fieldDirectory, "spill-*.jsonl" ) )
+			{
+			stream.forEach( files::add );
+			}
+
+		return files.size( );
+
+	} // spillFiles
+
+}
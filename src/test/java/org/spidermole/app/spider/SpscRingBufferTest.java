@@ -0,0 +1,99 @@
+/*
+ * SpscRingBufferTest.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.app.spider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a {@link SpscRingBuffer} keeps its elements in order, refuses elements once full, and hands everything
+ * over intact between a producer and a consumer thread.
+ */
+public class SpscRingBufferTest
+{
+	@Test
+	public void capacityIsRoundedUpToAPowerOfTwo( )
+	{
+		assertEquals( 2, new SpscRingBuffer<>( 1 ).capacity( ) );
+		assertEquals( 8, new SpscRingBuffer<>( 8 ).capacity( ) );
+		assertEquals( 16, new SpscRingBuffer<>( 9 ).capacity( ) );
+
+	} // capacityIsRoundedUpToAPowerOfTwo
+
+
+	@Test
+	public void offerFailsOnceFullAndPollOnceEmpty( )
+	{
+		SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>( 4 );
+		assertTrue( buffer.isEmpty( ) );
+		assertNull( buffer.poll( ) );
+
+		// Go around the ring a few times, so the sequences wrap past the end of the slots.
+		for ( int round = 0; round < 3; round++ )
+			{
+			for ( int element = 0; element < 4; element++ )
+				assertTrue( buffer.offer( round * 4 + element ) );
+			assertFalse( buffer.offer( -1 ) );
+			assertEquals( 4, buffer.size( ) );
+
+			for ( int element = 0; element < 4; element++ )
+				assertEquals( round * 4 + element, buffer.poll( ).intValue( ) );
+			assertNull( buffer.poll( ) );
+			assertTrue( buffer.isEmpty( ) );
+			}
+
+	} // offerFailsOnceFullAndPollOnceEmpty
+
+
+	@Test
+	public void producerAndConsumerThreadsKeepOrder( ) throws InterruptedException
+	{
+		final int count = 100000;
+		SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>( 64 );
+		Thread producer = new Thread( ( ) ->
+			{
+			for ( int element = 0; element < count; element++ )
+				{
+				while ( !buffer.offer( element ) )
+					Thread.yield( );
+				}
+			} );
+
+		AtomicReference<String> failure = new AtomicReference<>( );
+		Thread consumer = new Thread( ( ) ->
+			{
+			for ( int expected = 0; expected < count; )
+				{
+				Integer element = buffer.poll( );
+				if ( element == null )
+					Thread.yield( );
+				else if ( element.intValue( ) != expected++ )
+					{
+					failure.set( "Expected " + ( expected - 1 ) + " but took " + element + "." );
+					return;
+					}
+				}
+			} );
+
+		producer.setDaemon( true );
+		consumer.setDaemon( true );
+		producer.start( );
+		consumer.start( );
+		consumer.join( 60000 );
+
+		assertFalse( consumer.isAlive( ), "The consumer didn't take every element." );
+		assertNull( failure.get( ) );
+		assertTrue( buffer.isEmpty( ) );
+
+	} // producerAndConsumerThreadsKeepOrder
+
+}
@@ -0,0 +1,117 @@
+/*
+ * CrawlCoverageTest.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a {@link CrawlCoverage} works out the gaps in a listing from the pages recorded in it, whatever order
+ * they're recorded in.
+ */
+public class CrawlCoverageTest
+{
+	private static List<String> gaps( CrawlCoverage coverage )
+	{
+		List<String> gaps = new ArrayList<>( );
+		for ( CrawlCoverage.Page gap : coverage.getGaps( ) )
+			gaps.add( gap.getStart( ) + "-" + gap.getEnd( ) );
+
+		return gaps;
+
+	} // gaps
+
+
+	@Test
+	public void emptyPagesCoverNothing( )
+	{
+		CrawlCoverage coverage = newCoverage( );
+		coverage.recordPage( 0, 100, 100, 300 );
+		coverage.recordPage( 100, 100, 0, 300 );
+		assertEquals( Arrays.asList( "100-300" ), gaps( coverage ) );
+
+	} // emptyPagesCoverNothing
+
+
+	@Test
+	public void holesBetweenPagesAreGaps( )
+	{
+		CrawlCoverage coverage = newCoverage( );
+		coverage.recordPage( 200, 100, 100, CrawlCoverage.UNKNOWN_TOTAL );
+		coverage.recordPage( 0, 100, 100, CrawlCoverage.UNKNOWN_TOTAL );
+		coverage.recordPage( 500, 100, 100, CrawlCoverage.UNKNOWN_TOTAL );
+
+		// Without a total, nothing is known to be missing past the last page.
+		assertEquals( Arrays.asList( "100-200", "300-500" ), gaps( coverage ) );
+		assertEquals( Arrays.asList( 0, 200, 500 ), starts( coverage ) );
+
+	} // holesBetweenPagesAreGaps
+
+
+	private static CrawlCoverage newCoverage( )
+	{
+		return new CrawlCoverage( "test", "https://example.org/listing", "2020-01-01", "2020-01-31" );
+
+	} // newCoverage
+
+
+	@Test
+	public void noGapsOnceEveryPageIsCrawled( )
+	{
+		CrawlCoverage coverage = newCoverage( );
+		coverage.recordPage( 0, 100, 100, 250 );
+		coverage.recordPage( 100, 100, 100, 250 );
+		coverage.recordPage( 200, 100, 50, 250 );
+		assertTrue( coverage.getGaps( ).isEmpty( ) );
+		assertEquals( 250, coverage.getCrawledCount( ) );
+
+	} // noGapsOnceEveryPageIsCrawled
+
+
+	@Test
+	public void recrawledPagesReplaceTheirEarlierRecord( )
+	{
+		CrawlCoverage coverage = newCoverage( );
+		coverage.recordPage( 0, 100, 100, 400 );
+		coverage.recordPage( 100, 100, 0, 400 );
+		coverage.recordPage( 100, 100, 100, 400 );
+		assertEquals( Arrays.asList( 0, 100 ), starts( coverage ) );
+		assertEquals( Arrays.asList( "200-400" ), gaps( coverage ) );
+
+	} // recrawledPagesReplaceTheirEarlierRecord
+
+
+	private static List<Integer> starts( CrawlCoverage coverage )
+	{
+		List<Integer> starts = new ArrayList<>( );
+		for ( CrawlCoverage.Page page : coverage.getPages( ) )
+			starts.add( page.getStart( ) );
+
+		return starts;
+
+	} // starts
+
+
+	@Test
+	public void theTotalMarksWhatIsMissingAtTheEnd( )
+	{
+		CrawlCoverage coverage = newCoverage( );
+		coverage.recordPage( 0, 100, 100, 1000 );
+		assertEquals( Arrays.asList( "100-1000" ), gaps( coverage ) );
+
+		// The server reporting a different total later moves the end.
+		coverage.recordPage( 100, 100, 100, 150 );
+		assertTrue( coverage.getGaps( ).isEmpty( ) );
+
+	} // theTotalMarksWhatIsMissingAtTheEnd
+
+}
@@ -0,0 +1,113 @@
+/*
+ * ResearchItemTest.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+
+/**
+ * Tests the DOI normalization that {@link ResearchItem} documents are keyed by, and copying them.
+ */
+public class ResearchItemTest
+{
+	@Test
+	public void copyIsPersistedTheSameButChangesApart( )
+	{
+		ResearchItem item = new ResearchItem( );
+		item.setId( ResearchItem.idForDoi( "10.1101/2020.10.08.331066" ) );
+		item.setRevision( "3-a1b2c3" );
+		item.setTitle( "A title" );
+		item.setAuthors( new ArrayList<>( Arrays.asList( "A. Author", "B. Author" ) ) );
+		item.setPublicationDate( new Date( 1602115200000L ) );
+		item.setCategory( "Systems Biology" );
+		item.setYesVotes( Integer.valueOf( 1 ) );
+
+		ResearchItem copy = new ResearchItem( item );
+		Gson gson = new Gson( );
+		assertEquals( gson.toJson( item ), gson.toJson( copy ) );
+
+		copy.setYesVotes( Integer.valueOf( 2 ) );
+		copy.getAuthors( ).add( "C. Author" );
+		copy.getPublicationDate( ).setTime( 0 );
+		assertEquals( Integer.valueOf( 1 ), item.getYesVotes( ) );
+		assertEquals( Arrays.asList( "A. Author", "B. Author" ), item.getAuthors( ) );
+		assertEquals( 1602115200000L, item.getPublicationDate( ).getTime( ) );
+
+	} // copyIsPersistedTheSameButChangesApart
+
+
+	@Test
+	public void idForDoiIsTheSameForEveryFormOfADoi( )
+	{
+		String id = ResearchItem.idForDoi( "10.1101/2020.10.08.331066" );
+		assertEquals( "researchItem:10.1101/2020.10.08.331066", id );
+		assertEquals( id, ResearchItem.idForDoi( "https://doi.org/10.1101/2020.10.08.331066" ) );
+		assertEquals( id, ResearchItem.idForDoi( "doi:10.1101/2020.10.08.331066" ) );
+
+	} // idForDoiIsTheSameForEveryFormOfADoi
+
+
+	@Test
+	public void idForDoiTellsDifferentDoisApart( )
+	{
+		assertNotEquals( ResearchItem.idForDoi( "10.1101/2020.10.08.331066" ),
+				ResearchItem.idForDoi( "10.1101/2020.10.08.331067" ) );
+
+	} // idForDoiTellsDifferentDoisApart
+
+
+	@Test
+	public void normalizeDoiIgnoresCase( )
+	{
+		assertEquals( "10.1101/abc.def", ResearchItem.normalizeDoi( "10.1101/ABC.Def" ) );
+
+	} // normalizeDoiIgnoresCase
+
+
+	@Test
+	public void normalizeDoiLeavesABareDoiAlone( )
+	{
+		assertEquals( "10.1101/2020.10.08.331066", ResearchItem.normalizeDoi( "10.1101/2020.10.08.331066" ) );
+
+	} // normalizeDoiLeavesABareDoiAlone
+
+
+	@Test
+	public void normalizeDoiStripsOnlyOnePrefix( )
+	{
+		assertEquals( "doi:10.1101/x", ResearchItem.normalizeDoi( "https://doi.org/doi:10.1101/x" ) );
+
+	} // normalizeDoiStripsOnlyOnePrefix
+
+
+	@Test
+	public void normalizeDoiStripsResolverPrefixes( )
+	{
+		assertEquals( "10.1101/x", ResearchItem.normalizeDoi( "https://doi.org/10.1101/x" ) );
+		assertEquals( "10.1101/x", ResearchItem.normalizeDoi( "http://doi.org/10.1101/x" ) );
+		assertEquals( "10.1101/x", ResearchItem.normalizeDoi( "https://dx.doi.org/10.1101/x" ) );
+		assertEquals( "10.1101/x", ResearchItem.normalizeDoi( "http://dx.doi.org/10.1101/x" ) );
+		assertEquals( "10.1101/x", ResearchItem.normalizeDoi( "DOI: 10.1101/x" ) );
+
+	} // normalizeDoiStripsResolverPrefixes
+
+
+	@Test
+	public void normalizeDoiTrimsWhitespace( )
+	{
+		assertEquals( "10.1101/x", ResearchItem.normalizeDoi( "  10.1101/x \t" ) );
+
+	} // normalizeDoiTrimsWhitespace
+
+}
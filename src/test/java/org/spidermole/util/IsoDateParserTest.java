@@ -0,0 +1,73 @@
+/*
+ * IsoDateParserTest.java
+ * 
+ * Created: Oct 18, 2026
+ */
+package org.spidermole.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that an {@link IsoDateParser} agrees with {@link SimpleDateFormat}, including on days whose midnight is moved
+ * by a clock change, and that it only accepts the exact format.
+ */
+public class IsoDateParserTest
+{
+	@Test
+	public void agreesWithSimpleDateFormat( ) throws ParseException
+	{
+		// Sao Paulo's clocks used to go forward at midnight, so some of its days started at 01:00.
+		for ( String zone : Arrays.asList( "UTC", "America/New_York", "America/Sao_Paulo", "Asia/Kolkata",
+				"Pacific/Apia" ) )
+			{
+			TimeZone timeZone = TimeZone.getTimeZone( zone );
+			IsoDateParser parser = new IsoDateParser( timeZone );
+			SimpleDateFormat format = new SimpleDateFormat( "yyyy-MM-dd" );
+			format.setTimeZone( timeZone );
+
+			Calendar calendar = Calendar.getInstance( TimeZone.getTimeZone( "UTC" ) );
+			calendar.clear( );
+			calendar.set( 1999, Calendar.JANUARY, 1 );
+			for ( int day = 0; day < 366 * 25; day++ )
+				{
+				String text = String.format( "%04d-%02d-%02d", calendar.get( Calendar.YEAR ),
+						calendar.get( Calendar.MONTH ) + 1, calendar.get( Calendar.DAY_OF_MONTH ) );
+				assertEquals( format.parse( text ), parser.parse( text ), text + " in " + zone );
+				calendar.add( Calendar.DAY_OF_MONTH, 1 );
+				}
+			}
+
+	} // agreesWithSimpleDateFormat
+
+
+	@Test
+	public void handlesLeapDays( ) throws ParseException
+	{
+		IsoDateParser parser = new IsoDateParser( TimeZone.getTimeZone( "UTC" ) );
+		assertEquals( 951782400000L, parser.parseMillis( "2000-02-29" ) );
+		assertThrows( ParseException.class, ( ) -> parser.parse( "1900-02-29" ) );
+		assertThrows( ParseException.class, ( ) -> parser.parse( "2019-02-29" ) );
+
+	} // handlesLeapDays
+
+
+	@Test
+	public void rejectsAnythingButTheExactFormat( )
+	{
+		IsoDateParser parser = new IsoDateParser( TimeZone.getTimeZone( "UTC" ) );
+		for ( String text : Arrays.asList( "", "2020-1-01", "2020-01-1", "2020/01/01", "20200101", "2020-01-01T00",
+				"2020-0a-01", "2020-00-01", "2020-13-01", "2020-01-00", "2020-04-31", " 2020-01-1" ) )
+			assertThrows( ParseException.class, ( ) -> parser.parse( text ), text );
+
+	} // rejectsAnythingButTheExactFormat
+
+}